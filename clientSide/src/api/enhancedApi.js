@@ -158,14 +158,24 @@ export const userApi = {
     }
   },
 
-  // Get all users (for contacts)
-  getAllUsers: async () => {
+  // One page of contacts ({userId, name, maskedEmail}); pass the previous nextCursor for the next page
+  getAllUsers: async (cursor) => {
     try {
-      const response = await axios.get(`${API_URL}/user/all`);
+      const response = await axios.get(`${API_URL}/user/all`, { params: cursor ? { cursor } : {} });
       return response.data;
     } catch (error) {
       throw new Error(error.response?.data?.message || 'Failed to load users');
     }
+  },
+
+  // Type-ahead payee search by name, email or mobile prefix; same rows as getAllUsers
+  searchUsers: async (q, limit) => {
+    try {
+      const response = await axios.get(`${API_URL}/user/search`, { params: limit ? { q, limit } : { q } });
+      return response.data;
+    } catch (error) {
+      throw new Error(error.response?.data?.message || 'Search failed');
+    }
   }
 };
 
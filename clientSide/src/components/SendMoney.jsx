@@ -1,10 +1,10 @@
 import React, { useState, useEffect } from 'react';
-import { useWallet } from '../context/WalletContext';
+import { useWallet, toContact } from '../context/WalletContext';
 import { formatCurrency } from '../utils/formatters';
 import { ArrowLeft, Send, Search, Star, User, RefreshCw, Shield } from 'lucide-react';
 import { useNavigate } from 'react-router-dom';
 import { isValidAmount } from '../utils/simpleValidation';
-import { walletApi } from '../api/enhancedApi';
+import { userApi, walletApi } from '../api/enhancedApi';
 import OTPModal from './OTPModal';
 
 export default function SendMoney() {
@@ -15,6 +15,7 @@ export default function SendMoney() {
   const [amount, setAmount] = useState('');
   const [description, setDescription] = useState('');
   const [searchTerm, setSearchTerm] = useState('');
+  const [searchResults, setSearchResults] = useState(null);
   const [loading, setLoading] = useState(false);
   const [errors, setErrors] = useState({});
   const [refreshingContacts, setRefreshingContacts] = useState(false);
@@ -31,11 +32,37 @@ export default function SendMoney() {
     setRefreshingContacts(false);
   };
 
-  const filteredContacts = contacts.filter(contact =>
-    contact.name.toLowerCase().includes(searchTerm.toLowerCase()) ||
-    contact.phone.includes(searchTerm) ||
-    contact.email.toLowerCase().includes(searchTerm.toLowerCase())
-  );
+  // Ask the server's contact index once typing pauses; it also matches full emails and mobiles
+  useEffect(() => {
+    const term = searchTerm.trim();
+    if (!term) {
+      setSearchResults(null);
+      return;
+    }
+    let cancelled = false;
+    const timer = setTimeout(async () => {
+      try {
+        const response = await userApi.searchUsers(term);
+        if (!cancelled && response.success) {
+          setSearchResults(response.data.filter(u => u.userId !== user.id).map(toContact));
+        }
+      } catch (error) {
+        if (!cancelled) setSearchResults(null);
+      }
+    }, 250);
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
+  }, [searchTerm]);
+
+  // Until the server answers, filter the loaded contacts locally
+  const filteredContacts = searchTerm.trim() && searchResults
+    ? searchResults
+    : contacts.filter(contact =>
+        contact.name.toLowerCase().includes(searchTerm.toLowerCase()) ||
+        (contact.maskedEmail || '').toLowerCase().includes(searchTerm.toLowerCase())
+      );
 
   const favoriteContacts = filteredContacts.filter(contact => contact.favorite);
   const otherContacts = filteredContacts.filter(contact => !contact.favorite);
@@ -107,7 +134,7 @@ export default function SendMoney() {
     try {
       const response = await walletApi.sendMoneyWithOTP({
         fromUserId: user.id,
-        toUserEmail: selectedContact.email,
+        toUserId: selectedContact.id,
         amount: parseFloat(amount),
         description: description || 'Money transfer',
         otpCode: otpCode
@@ -212,7 +239,7 @@ export default function SendMoney() {
                     />
                     <div className="text-left">
                       <p className="font-semibold text-gray-800">{contact.name}</p>
-                      <p className="text-sm text-gray-500">{contact.email}</p>
+                      <p className="text-sm text-gray-500">{contact.maskedEmail}</p>
                     </div>
                   </div>
                 </button>
@@ -258,7 +285,7 @@ export default function SendMoney() {
                     />
                     <div className="text-left">
                       <p className="font-semibold text-gray-800">{contact.name}</p>
-                      <p className="text-sm text-gray-500">{contact.email}</p>
+                      <p className="text-sm text-gray-500">{contact.maskedEmail}</p>
                     </div>
                   </div>
                 </button>
@@ -292,7 +319,7 @@ export default function SendMoney() {
             />
             <div>
               <p className="font-semibold text-gray-800">{selectedContact.name}</p>
-              <p className="text-sm text-gray-500">{selectedContact.email}</p>
+              <p className="text-sm text-gray-500">{selectedContact.maskedEmail}</p>
             </div>
           </div>
         </div>
@@ -395,7 +422,7 @@ export default function SendMoney() {
             className="w-16 h-16 rounded-full mx-auto mb-3"
           />
           <h3 className="text-xl font-semibold text-gray-800">{selectedContact.name}</h3>
-          <p className="text-gray-500">{selectedContact.email}</p>
+          <p className="text-gray-500">{selectedContact.maskedEmail}</p>
         </div>
 
         <div className="border-t border-gray-200 pt-4">
@@ -3,6 +3,15 @@ import { userApi, walletApi } from '../api/enhancedApi';
 
 const WalletContext = createContext();
 
+// A {userId, name, maskedEmail} row from /user/all or /user/search, as the UI shows it
+export const toContact = (u) => ({
+  id: u.userId,
+  name: u.name,
+  maskedEmail: u.maskedEmail,
+  avatar: 'https://images.pexels.com/photos/1040880/pexels-photo-1040880.jpeg?auto=compress&cs=tinysrgb&w=150&h=150&dpr=2',
+  favorite: false
+});
+
 function WalletProvider({ children }) {
   const [user, setUser] = useState({
     id: null,
@@ -59,21 +68,21 @@ function WalletProvider({ children }) {
 
   const loadContacts = async () => {
     try {
-      const response = await userApi.getAllUsers();
-      if (response.success) {
-        const userContacts = response.data
-          .filter(u => u.userId !== user.id)
-          .map(u => ({
-            id: u.userId,
-            name: `${u.firstName} ${u.lastName}`,
-            email: u.email,
-            phone: u.mobile || '+1 234 567 8900',
-            avatar: 'https://images.pexels.com/photos/1040880/pexels-photo-1040880.jpeg?auto=compress&cs=tinysrgb&w=150&h=150&dpr=2',
-            favorite: false
-          }));
-
-        setContacts(userContacts);
-      }
+      // /user/all is paged; follow nextCursor until the last page
+      const rows = [];
+      let cursor = null;
+      do {
+        const response = await userApi.getAllUsers(cursor);
+        if (!response.success) break;
+        rows.push(...response.data);
+        cursor = response.nextCursor;
+      } while (cursor);
+
+      const userContacts = rows
+        .filter(u => u.userId !== user.id)
+        .map(toContact);
+
+      setContacts(userContacts);
     } catch (error) {
       console.error('Error loading contacts:', error);
       setContacts([]);
@@ -176,7 +185,7 @@ function WalletProvider({ children }) {
 
         const response = await walletApi.sendMoney({
           fromUserId: user.id,
-          toUserEmail: recipient.email,
+          toUserId: recipient.id,
           amount,
           description
         });
@@ -0,0 +1,151 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.service.ConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Offered load well past capacity: 48 clients sending transfers and 16 checking balances against
+// 32 request threads and 8 Mongo connections. Without admission every request queues; with it,
+// requests over the limit fail fast and the latency of the admitted ones stays near the unloaded
+// level. JMH reports responses per second, 503s included; p50/p99 of the requests actually served
+// and the shed counts are printed after each iteration. A shed client backs off for 1ms.
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdmissionControlBenchmark {
+
+    private static final long WRITE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long READ_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"off", "on"})
+    public String admission;
+
+    private ConcurrencyLimiter limiter;
+    private Semaphore requestThreads;
+    private Semaphore mongoConnections;
+    private Timer servedTransfers;
+    private Timer servedBalances;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = Fixtures.concurrencyLimiter();
+        requestThreads = new Semaphore(32, true);
+        mongoConnections = new Semaphore(8, true);
+        // Normal traffic before the spike, so the limiter has seen unloaded latency
+        for (int i = 0; i < 500; i++) {
+            admitted(true);
+            admitted(false);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetTimers() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        servedTransfers = Timer.builder("served").tag("lane", "write").publishPercentiles(0.5, 0.99).register(registry);
+        servedBalances = Timer.builder("served").tag("lane", "read").publishPercentiles(0.5, 0.99).register(registry);
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("%nlimit %d, shed %d writes and %d reads so far; served transfers %s, balances %s%n",
+                limiter.getLimit(), limiter.getShedWrites(), limiter.getShedReads(),
+                percentiles(servedTransfers), percentiles(servedBalances));
+    }
+
+    private static String percentiles(Timer timer) {
+        ValueAtPercentile[] values = timer.takeSnapshot().percentileValues();
+        return String.format("%d (p50 %.0fus, p99 %.0fus)", timer.count(),
+                values[0].value(TimeUnit.MICROSECONDS), values[1].value(TimeUnit.MICROSECONDS));
+    }
+
+    @Benchmark
+    @Group("overload")
+    @GroupThreads(48)
+    public boolean transfer() {
+        return handle(true);
+    }
+
+    @Benchmark
+    @Group("overload")
+    @GroupThreads(16)
+    public boolean balance() {
+        return handle(false);
+    }
+
+    private boolean handle(boolean write) {
+        long startNanos = System.nanoTime();
+        boolean served;
+        if ("off".equals(admission)) {
+            serve(write);
+            served = true;
+        } else {
+            served = admitted(write);
+        }
+        if (served) {
+            (write ? servedTransfers : servedBalances).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        } else {
+            LockSupport.parkNanos(BACKOFF_NANOS);
+        }
+        return served;
+    }
+
+    private boolean admitted(boolean write) {
+        long startNanos;
+        try {
+            startNanos = limiter.acquire(write ? ConcurrencyLimiter.Lane.WRITE : ConcurrencyLimiter.Lane.READ);
+        } catch (ServerBusyException e) {
+            return false;
+        }
+        try {
+            serve(write);
+            return true;
+        } finally {
+            limiter.release(startNanos);
+        }
+    }
+
+    // A request thread for the whole request; writes also wait for a Mongo connection
+    private void serve(boolean write) {
+        requestThreads.acquireUninterruptibly();
+        try {
+            if (write) {
+                mongoConnections.acquireUninterruptibly();
+                try {
+                    LockSupport.parkNanos(WRITE_NANOS);
+                } finally {
+                    mongoConnections.release();
+                }
+            } else {
+                LockSupport.parkNanos(READ_NANOS);
+            }
+        } finally {
+            requestThreads.release();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.dto.UserContact;
+import com.payment.wallet.PaymentWallet.entity.User;
+import com.payment.wallet.PaymentWallet.service.ContactSearchIndex;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Type-ahead latency over a loaded base plus a delta of recent sign-ups
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContactSearchBenchmark {
+
+    private static final String[] FIRST_NAMES = {"Aarav", "Rahul", "Priya", "Ananya", "Rohan", "Sneha", "Vikram", "Kavya", "Arjun", "Meera"};
+    private static final String[] LAST_NAMES = {"Sharma", "Verma", "Patel", "Iyer", "Reddy", "Gupta", "Singh", "Nair", "Das", "Mehta"};
+
+    @Param({"200000"})
+    public int users;
+
+    private ContactSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = Fixtures.contactSearchIndex(Integer.MAX_VALUE);
+        index.load(IntStream.range(0, users).mapToObj(i -> user(random, i)));
+        // Recent sign-ups that have not been merged into the base yet
+        for (int i = users; i < users + 5_000; i++) {
+            index.add(user(random, i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        index.stopMerger();
+    }
+
+    @Benchmark
+    public List<UserContact> commonNamePrefix() {
+        return index.search("ra", 10);
+    }
+
+    @Benchmark
+    public List<UserContact> firstAndLastName() {
+        return index.search("priya sha", 10);
+    }
+
+    @Benchmark
+    public List<UserContact> mobilePrefix() {
+        return index.search("98 7654", 10);
+    }
+
+    @Benchmark
+    public List<UserContact> noMatch() {
+        return index.search("zzzz", 10);
+    }
+
+    private static User user(Random random, int i) {
+        User user = new User();
+        user.setUserId(new ObjectId().toHexString());
+        user.setFirstName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+        user.setLastName(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        user.setEmail(user.getFirstName().toLowerCase() + "." + i + "@example.com");
+        user.setMobile("+91" + (9_000_000_000L + random.nextInt(1_000_000_000)));
+        return user;
+    }
+}
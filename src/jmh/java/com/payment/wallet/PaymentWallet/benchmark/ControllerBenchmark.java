@@ -0,0 +1,91 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.wallet.PaymentWallet.controllers.ApiExceptionHandler;
+import com.payment.wallet.PaymentWallet.controllers.WalletController;
+import com.payment.wallet.PaymentWallet.dto.SendMoneyRequest;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.service.IdempotencyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+// Request body in, response body out, through WalletController; run with -prof gc for allocation per request
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBenchmark {
+
+    private static final byte[] TRANSFER = json("{\"fromUserId\":\"sender\",\"toUserEmail\":\"receiver@example.com\",\"amount\":\"1.00\",\"description\":\"benchmark\"}");
+    private static final byte[] OVERDRAWN_TRANSFER = json("{\"fromUserId\":\"broke\",\"toUserEmail\":\"receiver@example.com\",\"amount\":\"1.00\",\"description\":\"benchmark\"}");
+
+    private ObjectMapper objectMapper;
+    private WalletController walletController;
+    private ApiExceptionHandler exceptionHandler;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        InMemoryRepositories repositories = new InMemoryRepositories();
+        repositories.addUser("sender");
+        repositories.addUser("receiver");
+        repositories.addUser("broke");
+        repositories.addWallet("sender", Long.MAX_VALUE / 2);
+        repositories.addWallet("receiver", 0);
+        repositories.addWallet("broke", 0);
+
+        walletController = new WalletController();
+        setField(walletController, "walletService", Fixtures.walletService(repositories, Fixtures.otpService(Fixtures.otpStore())));
+        setField(walletController, "idempotencyService", new IdempotencyService());
+        setField(walletController, "rateLimiter", Fixtures.userRateLimiter());
+        setField(walletController, "objectMapper", objectMapper);
+        exceptionHandler = new ApiExceptionHandler();
+    }
+
+    @Benchmark
+    public void transfer() throws Exception {
+        write(walletController.sendMoney(objectMapper.readValue(TRANSFER, SendMoneyRequest.class), null));
+    }
+
+    // The business error goes through the same advice Spring would call
+    @Benchmark
+    public void insufficientBalance() throws Exception {
+        try {
+            write(walletController.sendMoney(objectMapper.readValue(OVERDRAWN_TRANSFER, SendMoneyRequest.class), null));
+        } catch (WalletException e) {
+            write(exceptionHandler.handleWalletException(e));
+        }
+    }
+
+    @Benchmark
+    public void balance() throws Exception {
+        write(walletController.getBalance("sender"));
+    }
+
+    private void write(ResponseEntity<?> response) throws Exception {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), response.getBody());
+    }
+
+    private static byte[] json(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
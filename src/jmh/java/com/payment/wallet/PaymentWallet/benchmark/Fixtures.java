@@ -0,0 +1,191 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.service.ConcurrencyLimiter;
+import com.payment.wallet.PaymentWallet.service.ContactSearchIndex;
+import com.payment.wallet.PaymentWallet.service.InMemoryOTPStore;
+import com.payment.wallet.PaymentWallet.service.OTPService;
+import com.payment.wallet.PaymentWallet.service.StatementExportService;
+import com.payment.wallet.PaymentWallet.service.TransactionIdGenerator;
+import com.payment.wallet.PaymentWallet.service.TransactionJournal;
+import com.payment.wallet.PaymentWallet.service.TransactionSummaryService;
+import com.payment.wallet.PaymentWallet.service.UserCache;
+import com.payment.wallet.PaymentWallet.service.UserNameService;
+import com.payment.wallet.PaymentWallet.service.UserRateLimiter;
+import com.payment.wallet.PaymentWallet.service.WalletCache;
+import com.payment.wallet.PaymentWallet.service.WalletLedger;
+import com.payment.wallet.PaymentWallet.service.WalletService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+// Wires the services by hand the way Spring would, minus Mongo, SMTP and Twilio
+final class Fixtures {
+
+    // Timers and counters still record, as they would against the Prometheus registry
+    private static final MeterRegistry METER_REGISTRY = new SimpleMeterRegistry();
+
+    private Fixtures() {
+    }
+
+    static InMemoryOTPStore otpStore() {
+        InMemoryOTPStore store = new InMemoryOTPStore();
+        setField(store, "capacity", 100_000);
+        setField(store, "wheelSlots", 64);
+        setField(store, "wheelTick", Duration.ofSeconds(1));
+        store.startWheel();
+        return store;
+    }
+
+    // No mail sender and no Twilio credentials, so sends only touch the OTP store
+    static OTPService otpService(InMemoryOTPStore store) {
+        OTPService otpService = new OTPService();
+        setField(otpService, "otpStore", store);
+        setField(otpService, "meterRegistry", METER_REGISTRY);
+        otpService.initialize();
+        return otpService;
+    }
+
+    static TransactionIdGenerator idGenerator() {
+        TransactionIdGenerator idGenerator = new TransactionIdGenerator();
+        setField(idGenerator, "configuredNodeId", 1);
+        idGenerator.initializeNode();
+        return idGenerator;
+    }
+
+    static TransactionJournal transactionJournal(InMemoryRepositories repositories) {
+        return transactionJournal(repositories, Duration.ofNanos(500_000));
+    }
+
+    static TransactionJournal transactionJournal(InMemoryRepositories repositories, Duration linger) {
+        TransactionJournal journal = new TransactionJournal();
+        setField(journal, "transactionRepo", repositories.transactionRepo());
+        setField(journal, "maxBatchSize", 256);
+        setField(journal, "linger", linger);
+        setField(journal, "queueCapacity", 10_000);
+        setField(journal, "flusherCount", 4);
+        journal.startFlushers();
+        return journal;
+    }
+
+    static ContactSearchIndex contactSearchIndex(int mergeThreshold) {
+        ContactSearchIndex index = new ContactSearchIndex();
+        setField(index, "mergeThreshold", mergeThreshold);
+        index.startMerger();
+        return index;
+    }
+
+    // The application.yaml defaults
+    static ConcurrencyLimiter concurrencyLimiter() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter();
+        setField(limiter, "enabled", true);
+        setField(limiter, "initialLimit", 200);
+        setField(limiter, "minLimit", 20);
+        setField(limiter, "maxLimit", 2000);
+        setField(limiter, "writeShare", 0.8);
+        setField(limiter, "tolerance", 1.5);
+        setField(limiter, "window", Duration.ofMillis(100));
+        setField(limiter, "minWindowSamples", 10);
+        setField(limiter, "longWindow", 600);
+        limiter.initializeLimit();
+        return limiter;
+    }
+
+    // Enabled, so each request still pays for the bucket lookup, but with limits no benchmark reaches
+    static UserRateLimiter userRateLimiter() {
+        UserRateLimiter limiter = new UserRateLimiter();
+        setField(limiter, "enabled", true);
+        setField(limiter, "transfersPerMinute", Integer.MAX_VALUE);
+        setField(limiter, "transferBurst", Integer.MAX_VALUE);
+        setField(limiter, "otpPerMinute", Integer.MAX_VALUE);
+        setField(limiter, "otpBurst", Integer.MAX_VALUE);
+        setField(limiter, "maxUsers", 100_000L);
+        limiter.initializeBuckets();
+        return limiter;
+    }
+
+    static StatementExportService statementExportService(InMemoryRepositories repositories, Path directory) throws IOException {
+        UserNameService userNameService = new UserNameService();
+        setField(userNameService, "userRepo", repositories.userRepo());
+        setField(userNameService, "cacheSize", 10_000L);
+        setField(userNameService, "cacheTtl", Duration.ofMinutes(10));
+        userNameService.initializeCache();
+
+        StatementExportService exportService = new StatementExportService();
+        setField(exportService, "transactionRepo", repositories.transactionRepo());
+        setField(exportService, "userNameService", userNameService);
+        setField(exportService, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        setField(exportService, "directory", directory.toString());
+        setField(exportService, "workers", 2);
+        setField(exportService, "queueCapacity", 100);
+        setField(exportService, "batchSize", 1000);
+        setField(exportService, "bufferSize", DataSize.ofKilobytes(64));
+        setField(exportService, "retention", Duration.ofHours(24));
+        exportService.startExporters();
+        return exportService;
+    }
+
+    static TransactionSummaryService transactionSummaryService(InMemoryRepositories repositories, UserNameService userNameService) {
+        TransactionSummaryService summaryService = new TransactionSummaryService();
+        setField(summaryService, "summaryRepo", repositories.transactionSummaryRepo());
+        setField(summaryService, "userNameService", userNameService);
+        setField(summaryService, "defaultTopCounterparties", 5);
+        setField(summaryService, "maxTopCounterparties", 50);
+        setField(summaryService, "maxDays", 366);
+        summaryService.markRecordingStart();
+        return summaryService;
+    }
+
+    static WalletService walletService(InMemoryRepositories repositories, OTPService otpService) {
+        UserNameService userNameService = new UserNameService();
+        setField(userNameService, "userRepo", repositories.userRepo());
+        setField(userNameService, "cacheSize", 10_000L);
+        setField(userNameService, "cacheTtl", Duration.ofMinutes(10));
+        userNameService.initializeCache();
+
+        UserCache userCache = new UserCache();
+        setField(userCache, "userRepo", repositories.userRepo());
+        setField(userCache, "cacheSize", 50_000L);
+        setField(userCache, "cacheTtl", Duration.ofMinutes(5));
+        setField(userCache, "negativeTtl", Duration.ofSeconds(30));
+        userCache.initializeCache();
+
+        WalletCache walletCache = new WalletCache();
+        setField(walletCache, "cacheSize", 10_000L);
+        setField(walletCache, "cacheTtl", Duration.ofSeconds(10));
+        setField(walletCache, "stripesTtl", Duration.ofSeconds(10));
+        walletCache.initializeCache();
+
+        WalletLedger walletLedger = new WalletLedger();
+        setField(walletLedger, "walletRepo", repositories.walletRepo());
+        setField(walletLedger, "walletStripeRepo", repositories.walletStripeRepo());
+        setField(walletLedger, "ledgerRepo", repositories.ledgerRepo());
+        setField(walletLedger, "walletCache", walletCache);
+        setField(walletLedger, "snapshotInterval", 100);
+        setField(walletLedger, "maxAttempts", 20);
+        setField(walletLedger, "entryAttempts", 3);
+        setField(walletLedger, "maxStripes", 64);
+
+        WalletService walletService = new WalletService();
+        setField(walletService, "walletLedger", walletLedger);
+        setField(walletService, "transactionRepo", repositories.transactionRepo());
+        setField(walletService, "otpService", otpService);
+        setField(walletService, "userNameService", userNameService);
+        setField(walletService, "userCache", userCache);
+        setField(walletService, "idGenerator", idGenerator());
+        setField(walletService, "transactionJournal", transactionJournal(repositories));
+        setField(walletService, "transactionSummaryService", transactionSummaryService(repositories, userNameService));
+        setField(walletService, "meterRegistry", METER_REGISTRY);
+        walletService.initializeMetrics();
+        setField(walletService, "defaultPageSize", 50);
+        setField(walletService, "maxPageSize", 200);
+        setField(walletService, "streamBatchSize", 500);
+        return walletService;
+    }
+}
@@ -0,0 +1,359 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.entity.LedgerEntry;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.entity.TransactionSummary;
+import com.payment.wallet.PaymentWallet.entity.User;
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import com.payment.wallet.PaymentWallet.entity.WalletStripe;
+import com.payment.wallet.PaymentWallet.repo.LedgerRepo;
+import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
+import com.payment.wallet.PaymentWallet.repo.TransactionSummaryRepo;
+import com.payment.wallet.PaymentWallet.repo.UserRepo;
+import com.payment.wallet.PaymentWallet.repo.WalletRepo;
+import com.payment.wallet.PaymentWallet.repo.WalletStripeRepo;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Map-backed stand-ins for the Mongo repositories, so benchmarks measure service code rather than I/O
+public class InMemoryRepositories {
+
+    public final Map<String, User> users = new ConcurrentHashMap<>();
+    public final Map<String, Wallet> wallets = new ConcurrentHashMap<>();
+    public final Map<String, WalletStripe> stripes = new ConcurrentHashMap<>();
+    public final Map<String, ConcurrentSkipListMap<Long, LedgerEntry>> ledger = new ConcurrentHashMap<>();
+    public final Queue<Transaction> transactions = new ConcurrentLinkedQueue<>();
+    public final Map<String, TransactionSummary> summaries = new ConcurrentHashMap<>();
+
+    // Simulated acknowledged round trip per transaction write call; zero keeps writes free
+    public volatile long transactionWriteNanos;
+    public final AtomicLong transactionWriteCalls = new AtomicLong();
+
+    // Simulated round trip per wallet or ledger call, parked outside the per-wallet locks; zero keeps calls free
+    public volatile long walletCallNanos;
+
+    public WalletRepo walletRepo() {
+        return proxy(WalletRepo.class, (method, args) -> {
+            if (walletCallNanos > 0) {
+                LockSupport.parkNanos(walletCallNanos);
+            }
+            return walletCall(method, args);
+        });
+    }
+
+    public WalletStripeRepo walletStripeRepo() {
+        return proxy(WalletStripeRepo.class, (method, args) -> {
+            if (walletCallNanos > 0) {
+                LockSupport.parkNanos(walletCallNanos);
+            }
+            return stripeCall(method, args);
+        });
+    }
+
+    public LedgerRepo ledgerRepo() {
+        return proxy(LedgerRepo.class, (method, args) -> {
+            if (walletCallNanos > 0) {
+                LockSupport.parkNanos(walletCallNanos);
+            }
+            return ledgerCall(method, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object walletCall(Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "findByUserId" -> Optional.ofNullable(wallets.get((String) args[0])).map(this::copy);
+            case "save", "insert" -> {
+                Wallet wallet = (Wallet) args[0];
+                wallets.put(wallet.getUserId(), copy(wallet));
+                yield wallet;
+            }
+            case "findByUserIdIn" -> {
+                List<Wallet> matches = new ArrayList<>();
+                for (String userId : (Collection<String>) args[0]) {
+                    Wallet wallet = wallets.get(userId);
+                    if (wallet != null) matches.add(copy(wallet));
+                }
+                yield matches;
+            }
+            case "saveSnapshot" -> {
+                Wallet wallet = wallets.get((String) args[0]);
+                if (wallet == null) yield false;
+                synchronized (wallet) {
+                    if (wallet.getLedgerSeq() >= (Long) args[2]) yield false;
+                    wallet.setBalancePaise((Long) args[1]);
+                    wallet.setLedgerSeq((Long) args[2]);
+                    wallet.setLastUpdatedAt(LocalDateTime.now());
+                    yield true;
+                }
+            }
+            case "raiseStripes" -> {
+                Wallet wallet = wallets.get((String) args[0]);
+                if (wallet != null) {
+                    synchronized (wallet) {
+                        wallet.setStripes(Math.max(wallet.getStripes(), (Integer) args[1]));
+                    }
+                }
+                yield null;
+            }
+            default -> unsupported(method);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object stripeCall(Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "findById" -> Optional.ofNullable(stripes.get((String) args[0])).map(this::copy);
+            case "findAllById" -> {
+                List<WalletStripe> matches = new ArrayList<>();
+                for (String stripeId : (Iterable<String>) args[0]) {
+                    WalletStripe stripe = stripes.get(stripeId);
+                    if (stripe != null) matches.add(copy(stripe));
+                }
+                yield matches;
+            }
+            // Upserts: the first snapshot creates the stripe
+            case "saveSnapshot" -> {
+                String stripeId = args[0] + "#" + args[1];
+                WalletStripe stripe = stripes.computeIfAbsent(stripeId, id -> {
+                    WalletStripe created = new WalletStripe();
+                    created.setStripeId(id);
+                    created.setUserId((String) args[0]);
+                    created.setStripe((Integer) args[1]);
+                    return created;
+                });
+                synchronized (stripe) {
+                    if (stripe.getLedgerSeq() >= (Long) args[3]) yield false;
+                    stripe.setBalancePaise((Long) args[2]);
+                    stripe.setLedgerSeq((Long) args[3]);
+                    stripe.setLastUpdatedAt(LocalDateTime.now());
+                    yield true;
+                }
+            }
+            default -> unsupported(method);
+        };
+    }
+
+    // The unique (userId, seq) index is putIfAbsent on a per-wallet sorted map
+    @SuppressWarnings("unchecked")
+    private Object ledgerCall(Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "append" -> appendEntry((LedgerEntry) args[0]);
+            case "appendAll" -> {
+                Set<String> lost = new HashSet<>();
+                for (LedgerEntry entry : (List<LedgerEntry>) args[0]) {
+                    if (!appendEntry(entry)) lost.add(entry.getUserId());
+                }
+                yield lost;
+            }
+            case "findByUserIdAndSeqGreaterThanOrderBySeqAsc" -> tail((String) args[0], (Long) args[1]);
+            case "findTails" -> {
+                List<LedgerEntry> entries = new ArrayList<>();
+                for (Map.Entry<String, Long> after : ((Map<String, Long>) args[0]).entrySet()) {
+                    entries.addAll(tail(after.getKey(), after.getValue()));
+                }
+                yield entries;
+            }
+            default -> unsupported(method);
+        };
+    }
+
+    private boolean appendEntry(LedgerEntry entry) {
+        return ledger.computeIfAbsent(entry.getUserId(), userId -> new ConcurrentSkipListMap<>())
+                .putIfAbsent(entry.getSeq(), entry) == null;
+    }
+
+    private List<LedgerEntry> tail(String userId, long afterSeq) {
+        ConcurrentSkipListMap<Long, LedgerEntry> entries = ledger.get(userId);
+        return entries == null ? new ArrayList<>() : new ArrayList<>(entries.tailMap(afterSeq, false).values());
+    }
+
+    public TransactionRepo transactionRepo() {
+        return proxy(TransactionRepo.class, (method, args) -> switch (method.getName()) {
+            case "save", "insert" -> {
+                transactionWriteCalls.incrementAndGet();
+                if (transactionWriteNanos > 0) {
+                    LockSupport.parkNanos(transactionWriteNanos);
+                }
+                if (args[0] instanceof List<?> batch) {
+                    for (Object transaction : batch) {
+                        transactions.add((Transaction) transaction);
+                    }
+                } else {
+                    transactions.add((Transaction) args[0]);
+                }
+                yield args[0];
+            }
+            case "insertUnordered" -> {
+                transactionWriteCalls.incrementAndGet();
+                if (transactionWriteNanos > 0) {
+                    LockSupport.parkNanos(transactionWriteNanos);
+                }
+                for (Object transaction : (List<?>) args[0]) {
+                    transactions.add((Transaction) transaction);
+                }
+                yield Map.of();
+            }
+            case "findByFromUserIdOrToUserIdOrderByCreatedAtDesc" -> {
+                List<Transaction> matches = new ArrayList<>();
+                for (Transaction transaction : transactions) {
+                    if (args[0].equals(transaction.getFromUserId()) || args[1].equals(transaction.getToUserId())) {
+                        matches.add(transaction);
+                    }
+                }
+                matches.sort(Comparator.comparing(Transaction::getCreatedAt).reversed());
+                yield matches;
+            }
+            case "streamStatement" -> transactions.stream()
+                    .filter(t -> args[0].equals(t.getFromUserId()) || args[0].equals(t.getToUserId()))
+                    .sorted(Comparator.comparing(Transaction::getTransactionId));
+            default -> unsupported(method);
+        });
+    }
+
+    // $inc upserts are a merge into the stored document under its lock
+    @SuppressWarnings("unchecked")
+    public TransactionSummaryRepo transactionSummaryRepo() {
+        return proxy(TransactionSummaryRepo.class, (method, args) -> switch (method.getName()) {
+            case "applyAll" -> {
+                for (TransactionSummary delta : (Collection<TransactionSummary>) args[0]) {
+                    TransactionSummary summary = summaries.computeIfAbsent(delta.getId(), id -> TransactionSummary.of(
+                            delta.getUserId(), delta.getKind(), delta.getPeriod(), delta.getCounterpartyId()));
+                    synchronized (summary) {
+                        summary.setSentPaise(summary.getSentPaise() + delta.getSentPaise());
+                        summary.setSentCount(summary.getSentCount() + delta.getSentCount());
+                        summary.setReceivedPaise(summary.getReceivedPaise() + delta.getReceivedPaise());
+                        summary.setReceivedCount(summary.getReceivedCount() + delta.getReceivedCount());
+                        summary.setDepositedPaise(summary.getDepositedPaise() + delta.getDepositedPaise());
+                        summary.setDepositCount(summary.getDepositCount() + delta.getDepositCount());
+                        summary.setTotalPaise(summary.getTotalPaise() + delta.getTotalPaise());
+                        summary.setLastUpdatedAt(delta.getLastUpdatedAt());
+                    }
+                }
+                yield null;
+            }
+            case "findById" -> Optional.ofNullable(summaries.get((String) args[0]));
+            case "findTopCounterparties" -> summaries.values().stream()
+                    .filter(s -> args[0].equals(s.getUserId()) && TransactionSummary.COUNTERPARTY.equals(s.getKind())
+                            && args[1].equals(s.getPeriod()))
+                    .sorted(Comparator.comparingLong(TransactionSummary::getTotalPaise).reversed())
+                    .limit((Integer) args[2])
+                    .toList();
+            case "findDays" -> summaries.values().stream()
+                    .filter(s -> args[0].equals(s.getUserId()) && TransactionSummary.DAY.equals(s.getKind())
+                            && s.getPeriod().compareTo((String) args[1]) >= 0 && s.getPeriod().compareTo((String) args[2]) <= 0)
+                    .sorted(Comparator.comparing(TransactionSummary::getPeriod))
+                    .toList();
+            default -> unsupported(method);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public UserRepo userRepo() {
+        return proxy(UserRepo.class, (method, args) -> switch (method.getName()) {
+            case "findById", "findByUserId" -> Optional.ofNullable(users.get((String) args[0]));
+            case "findByEmail" -> users.values().stream().filter(u -> args[0].equals(u.getEmail())).findFirst();
+            case "findByEmailOrMobile" -> users.values().stream()
+                    .filter(u -> args[0].equals(u.getEmail()) || args[1].equals(u.getMobile())).findFirst();
+            case "findAllById", "findNamesByUserIdIn" -> {
+                List<User> matches = new ArrayList<>();
+                for (String userId : (Iterable<String>) args[0]) {
+                    User user = users.get(userId);
+                    if (user != null) matches.add(user);
+                }
+                yield matches;
+            }
+            case "save" -> {
+                User user = (User) args[0];
+                users.put(user.getUserId(), user);
+                yield user;
+            }
+            default -> unsupported(method);
+        });
+    }
+
+    public User addUser(String userId) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setFirstName("First" + userId);
+        user.setLastName("Last" + userId);
+        user.setEmail(userId + "@example.com");
+        user.setMobile("9" + String.format("%09d", Math.abs(userId.hashCode()) % 1_000_000_000));
+        users.put(userId, user);
+        return user;
+    }
+
+    public void addWallet(String userId, long balancePaise) {
+        Wallet wallet = newWallet(userId);
+        wallet.setBalancePaise(balancePaise);
+        wallets.put(userId, wallet);
+    }
+
+    private Wallet newWallet(String userId) {
+        Wallet wallet = new Wallet();
+        wallet.setWalletId("w-" + userId);
+        wallet.setUserId(userId);
+        return wallet;
+    }
+
+    private Wallet copy(Wallet wallet) {
+        Wallet copy = new Wallet();
+        copy.setWalletId(wallet.getWalletId());
+        copy.setUserId(wallet.getUserId());
+        copy.setBalancePaise(wallet.getBalancePaise());
+        copy.setRevision(wallet.getRevision());
+        copy.setLedgerSeq(wallet.getLedgerSeq());
+        copy.setStripes(wallet.getStripes());
+        copy.setLastUpdatedAt(wallet.getLastUpdatedAt());
+        return copy;
+    }
+
+    private WalletStripe copy(WalletStripe stripe) {
+        WalletStripe copy = new WalletStripe();
+        copy.setStripeId(stripe.getStripeId());
+        copy.setUserId(stripe.getUserId());
+        copy.setStripe(stripe.getStripe());
+        copy.setBalancePaise(stripe.getBalancePaise());
+        copy.setLedgerSeq(stripe.getLedgerSeq());
+        copy.setLastUpdatedAt(stripe.getLastUpdatedAt());
+        return copy;
+    }
+
+    private Object unsupported(Method method) {
+        throw new UnsupportedOperationException("Not stubbed for benchmarks: " + method.getName());
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName() + "(in-memory)";
+                };
+            }
+            return handler.handle(method, args);
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import com.payment.wallet.PaymentWallet.service.WalletCache;
+import com.payment.wallet.PaymentWallet.service.WalletLedger;
+import com.payment.wallet.PaymentWallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.ReflectionTestUtils.getField;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+// Cost of the ledger model: a cache-miss balance read replays the entries after the last snapshot,
+// so it grows with the tail (at most snapshot-interval - 1 entries), and concurrent writers to one
+// wallet race for the same sequence slot, so the losers pay a tail read and a second insert; a hot
+// wallet's stripes give those writers separate slots to race for.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerBenchmark {
+
+    private static final List<String> TRANSACTION_IDS = List.of("benchmark");
+
+    @State(Scope.Benchmark)
+    public static class Tail {
+
+        @Param({"0", "50", "99"})
+        public int tailLength;
+
+        private WalletService walletService;
+        private WalletCache walletCache;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            InMemoryRepositories repositories = new InMemoryRepositories();
+            repositories.addUser("reader");
+            repositories.addWallet("reader", 0);
+            walletService = Fixtures.walletService(repositories, Fixtures.otpService(Fixtures.otpStore()));
+            walletCache = (WalletCache) getField(getField(walletService, "walletLedger"), "walletCache");
+            for (int i = 0; i < tailLength; i++) {
+                walletService.addMoney("reader", 100, "benchmark");
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Payee {
+
+        @Param({"1", "8", "32"})
+        public int stripes;
+
+        private WalletLedger walletLedger;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            InMemoryRepositories repositories = new InMemoryRepositories();
+            repositories.addUser("merchant");
+            repositories.addWallet("merchant", 0);
+            WalletService walletService = Fixtures.walletService(repositories, Fixtures.otpService(Fixtures.otpStore()));
+            if (stripes > 1) {
+                walletService.enableHotWallet("merchant", stripes);
+            }
+            walletLedger = (WalletLedger) getField(walletService, "walletLedger");
+            // Report how long one chain makes writers wait rather than shedding them with 503
+            setField(walletLedger, "maxAttempts", Integer.MAX_VALUE);
+            // A Mongo round trip per ledger call is what makes a lost slot expensive
+            repositories.walletCallNanos = TimeUnit.MICROSECONDS.toNanos(100);
+        }
+    }
+
+    @Benchmark
+    public long coldBalance(Tail tail) {
+        tail.walletCache.invalidate("reader");
+        return tail.walletService.getBalance("reader");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Wallet contendedCredit(Payee payee) {
+        return payee.walletLedger.credit("merchant", 100, TRANSACTION_IDS);
+    }
+}
@@ -0,0 +1,74 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Boxed Double rupees (the old Wallet path) versus primitive long paise; run with -prof gc for allocations
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    private static final int OPERATIONS = 1_000;
+
+    private Double boxedBalance = 1_000_000.0;
+    private Double[] boxedAmounts;
+
+    private long balancePaise = 100_000_000L;
+    private long[] amountsPaise;
+
+    // Varying amounts keep the JIT from folding the loops away
+    @Setup
+    public void setUp() {
+        boxedAmounts = new Double[OPERATIONS];
+        amountsPaise = new long[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            amountsPaise[i] = 100 + (i * 7919L) % 100_000;
+            boxedAmounts[i] = amountsPaise[i] / 100.0;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public Double boxedDoubleDebitCredit() {
+        Double balance = boxedBalance;
+        for (int i = 0; i < OPERATIONS; i++) {
+            Double amount = boxedAmounts[i];
+            if (balance >= amount) {
+                balance -= amount;
+            }
+            balance += amount / 2;
+        }
+        boxedBalance = balance;
+        return balance;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public long primitivePaiseDebitCredit() {
+        long balance = balancePaise;
+        for (int i = 0; i < OPERATIONS; i++) {
+            long amount = amountsPaise[i];
+            if (balance >= amount) {
+                balance -= amount;
+            }
+            balance += amount / 2;
+        }
+        balancePaise = balance;
+        return balance;
+    }
+}
@@ -0,0 +1,81 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.service.InMemoryOTPStore;
+import com.payment.wallet.PaymentWallet.service.OTPPurpose;
+import com.payment.wallet.PaymentWallet.service.OTPService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// OTP generate/send/verify with several threads sharing one store
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class OTPServiceBenchmark {
+
+    private InMemoryOTPStore store;
+    private OTPService otpService;
+
+    @State(Scope.Thread)
+    public static class ThreadUser {
+        private static final AtomicInteger IDS = new AtomicInteger();
+        String userId;
+
+        // A pending TRANSACTION OTP that verifyOTP probes with a wrong code
+        @Setup
+        public void setUp(OTPServiceBenchmark benchmark) {
+            userId = "user" + IDS.incrementAndGet();
+            benchmark.store.put(userId, OTPPurpose.TRANSACTION, "123456", Duration.ofHours(1));
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        store = Fixtures.otpStore();
+        otpService = Fixtures.otpService(store);
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.stopWheel();
+    }
+
+    @Benchmark
+    public String generateOTP() {
+        return otpService.generateOTP();
+    }
+
+    @Benchmark
+    public boolean sendOTP(ThreadUser user) {
+        return otpService.sendOTP(user.userId, user.userId + "@example.com", "9999999999", "LOGIN");
+    }
+
+    // Wrong code against a pending OTP: lookup and compare without consuming it
+    @Benchmark
+    public boolean verifyOTP(ThreadUser user) {
+        return otpService.verifyOTP(user.userId, "not-it", "TRANSACTION");
+    }
+
+    @Benchmark
+    public boolean sendThenVerify(ThreadUser user) {
+        store.put(user.userId, OTPPurpose.ADD_MONEY, "123456", Duration.ofMinutes(5));
+        return otpService.verifyOTP(user.userId, "123456", "ADD_MONEY");
+    }
+}
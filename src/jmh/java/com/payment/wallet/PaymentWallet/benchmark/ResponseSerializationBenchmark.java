@@ -0,0 +1,92 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Jackson cost of the controllers' Map-based {success, message, data} envelopes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1", "50", "1000"})
+    private int transactions;
+
+    private ObjectMapper objectMapper;
+    private List<Transaction> history;
+    private Transaction single;
+
+    @Setup
+    public void setUp() {
+        // Same defaults Spring Boot applies to the MVC ObjectMapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        history = new ArrayList<>(transactions);
+        LocalDateTime start = LocalDateTime.now();
+        for (int i = 0; i < transactions; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(String.format("%024x", i));
+            transaction.setFromUserId("sender");
+            transaction.setToUserId("receiver");
+            transaction.setFromUserName("Sender Name");
+            transaction.setToUserName("Receiver Name");
+            transaction.setAmountPaise(12_345 + i);
+            transaction.setType("TRANSFER");
+            transaction.setDescription("Dinner");
+            transaction.setReferenceNumber("REF" + i);
+            transaction.setCreatedAt(start.plusSeconds(i));
+            transaction.markCompleted();
+            history.add(transaction);
+        }
+        single = history.get(0);
+    }
+
+    @Benchmark
+    public byte[] balanceEnvelope() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Balance retrieved successfully");
+        response.put("data", Map.of("balance", single.getAmount()));
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] transactionEnvelope() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Money sent successfully");
+        response.put("data", single);
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] historyEnvelope() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Transactions retrieved successfully");
+        response.put("data", history);
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
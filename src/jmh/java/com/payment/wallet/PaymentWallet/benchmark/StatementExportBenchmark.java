@@ -0,0 +1,98 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.dto.StatementExport;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.service.StatementExportService;
+import com.payment.wallet.PaymentWallet.service.TransactionIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// One whole statement export per operation, from the in-memory history to a file in a temp directory:
+// name resolution, encoding and (optionally) gzip on the export worker. rows / score is the row rate.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx256m"})
+public class StatementExportBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"csv", "ndjson"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private Path directory;
+    private StatementExportService exportService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        InMemoryRepositories repositories = new InMemoryRepositories();
+        repositories.addUser("owner");
+        for (int i = 0; i < 100; i++) {
+            repositories.addUser("counterparty" + i);
+        }
+        TransactionIdGenerator idGenerator = Fixtures.idGenerator();
+        for (int i = 0; i < rows; i++) {
+            boolean sent = i % 2 == 0;
+            String counterparty = "counterparty" + (i % 100);
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(idGenerator.next().hex());
+            transaction.setFromUserId(sent ? "owner" : counterparty);
+            transaction.setToUserId(sent ? counterparty : "owner");
+            transaction.setAmountPaise(10_000 + i);
+            transaction.setType("TRANSFER");
+            transaction.setDescription(i % 10 == 0 ? "rent, \"March\"" : "benchmark");
+            transaction.setReferenceNumber("REF" + i);
+            transaction.setCreatedAt(LocalDateTime.now());
+            transaction.markCompleted();
+            repositories.transactions.add(transaction);
+        }
+
+        directory = Files.createTempDirectory("statement-bench");
+        exportService = Fixtures.statementExportService(repositories, directory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        exportService.stopExporters();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long export() {
+        StatementExport job = exportService.start("owner", format, gzip, null, null);
+        StatementExport status = job;
+        while (!"COMPLETED".equals(status.status())) {
+            if ("FAILED".equals(status.status())) {
+                throw new IllegalStateException("Export failed");
+            }
+            LockSupport.parkNanos(100_000);
+            status = exportService.status("owner", job.jobId());
+        }
+        return status.bytesWritten();
+    }
+}
@@ -0,0 +1,94 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.dto.MonthlySummary;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
+import com.payment.wallet.PaymentWallet.service.TransactionSummaryService;
+import com.payment.wallet.PaymentWallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.springframework.test.util.ReflectionTestUtils.getField;
+
+// A month's dashboard read from the materialized summaries versus folding the month's history on
+// every request; the summary read stays flat while the fold grows with the history
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SummaryBenchmark {
+
+    private static final int COUNTERPARTIES = 50;
+
+    @Param({"1000", "10000"})
+    public int history;
+
+    private TransactionSummaryService summaryService;
+    private TransactionRepo transactionRepo;
+    private String monthStartId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryRepositories repositories = new InMemoryRepositories();
+        repositories.addUser("merchant");
+        repositories.addWallet("merchant", Long.MAX_VALUE / 2);
+        for (int i = 0; i < COUNTERPARTIES; i++) {
+            repositories.addUser("payee" + i);
+            repositories.addWallet("payee" + i, 0);
+        }
+        WalletService walletService = Fixtures.walletService(repositories, Fixtures.otpService(Fixtures.otpStore()));
+        for (int i = 0; i < history; i++) {
+            walletService.sendMoney("merchant", "payee" + (i % COUNTERPARTIES) + "@example.com", 100 + i % 7, "benchmark");
+        }
+        summaryService = (TransactionSummaryService) getField(walletService, "transactionSummaryService");
+        transactionRepo = repositories.transactionRepo();
+        long monthStart = YearMonth.now().atDay(1).atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+        monthStartId = String.format("%08x%016x", monthStart, 0);
+    }
+
+    @Benchmark
+    public MonthlySummary summary() {
+        return summaryService.monthly("merchant", null, 5);
+    }
+
+    // What the dashboard would otherwise do: read the month's transactions and total them per counterparty
+    @Benchmark
+    public void foldHistory(Blackhole blackhole) {
+        long sent = 0;
+        Map<String, Long> byCounterparty = new HashMap<>();
+        try (Stream<Transaction> stream = transactionRepo.streamStatement("merchant", monthStartId, null)) {
+            Iterator<Transaction> rows = stream.iterator();
+            while (rows.hasNext()) {
+                Transaction transaction = rows.next();
+                sent += transaction.getAmountPaise();
+                byCounterparty.merge(transaction.getToUserId(), transaction.getAmountPaise(), Long::sum);
+            }
+        }
+        blackhole.consume(sent);
+        blackhole.consume(byCounterparty.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(5)
+                .toList());
+    }
+}
@@ -0,0 +1,65 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// getUserTransactions name enrichment as history length grows
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionHistoryBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int historySize;
+
+    @Param({"20"})
+    private int counterparties;
+
+    private WalletService walletService;
+
+    @Setup
+    public void setUp() {
+        InMemoryRepositories repositories = new InMemoryRepositories();
+        repositories.addUser("owner");
+        for (int i = 0; i < counterparties; i++) {
+            repositories.addUser("peer" + i);
+        }
+
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < historySize; i++) {
+            String peer = "peer" + (i % counterparties);
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId("t" + i);
+            transaction.setFromUserId(i % 2 == 0 ? "owner" : peer);
+            transaction.setToUserId(i % 2 == 0 ? peer : "owner");
+            transaction.setAmountPaise(100 + i);
+            transaction.setType("TRANSFER");
+            transaction.setCreatedAt(start.plusSeconds(i));
+            repositories.transactions.add(transaction);
+        }
+        walletService = Fixtures.walletService(repositories, Fixtures.otpService(Fixtures.otpStore()));
+    }
+
+    @Benchmark
+    public List<Transaction> getUserTransactions() {
+        return walletService.getUserTransactions("owner");
+    }
+}
@@ -0,0 +1,51 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.service.TransactionIdGenerator;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Striped ID generator against the ObjectId + currentTimeMillis pair it replaced
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class TransactionIdGeneratorBenchmark {
+
+    private TransactionIdGenerator idGenerator;
+
+    @Setup
+    public void setUp() {
+        idGenerator = Fixtures.idGenerator();
+    }
+
+    @Benchmark
+    public TransactionIdGenerator.TransactionId nextId() {
+        return idGenerator.next();
+    }
+
+    @Benchmark
+    public String nextIdAndReference() {
+        TransactionIdGenerator.TransactionId id = idGenerator.next();
+        return id.hex() + id.reference("REF");
+    }
+
+    @Benchmark
+    public String objectIdAndMillis() {
+        return new ObjectId().toHexString() + "REF" + System.currentTimeMillis();
+    }
+}
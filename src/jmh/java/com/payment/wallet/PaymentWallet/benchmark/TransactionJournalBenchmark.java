@@ -0,0 +1,86 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
+import com.payment.wallet.PaymentWallet.service.TransactionIdGenerator;
+import com.payment.wallet.PaymentWallet.service.TransactionJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// One acknowledged save per transaction against group commit, with a simulated Mongo round trip
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+public class TransactionJournalBenchmark {
+
+    @Param({"500"})
+    public long writeMicros;
+
+    @Param({"0", "200", "2000"})
+    public long lingerMicros;
+
+    private InMemoryRepositories repositories;
+    private TransactionRepo transactionRepo;
+    private TransactionJournal journal;
+    private TransactionIdGenerator idGenerator;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        repositories = new InMemoryRepositories();
+        repositories.transactionWriteNanos = TimeUnit.MICROSECONDS.toNanos(writeMicros);
+        transactionRepo = repositories.transactionRepo();
+        journal = Fixtures.transactionJournal(repositories, Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(lingerMicros)));
+        idGenerator = Fixtures.idGenerator();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        journal.stopFlushers();
+        System.out.printf("%n%d transactions in %d write round trips%n",
+                repositories.transactions.size(), repositories.transactionWriteCalls.get());
+    }
+
+    @Benchmark
+    public Transaction directSave() {
+        return transactionRepo.save(newTransaction());
+    }
+
+    @Benchmark
+    public Transaction journalAppend() {
+        return journal.append(newTransaction());
+    }
+
+    private Transaction newTransaction() {
+        TransactionIdGenerator.TransactionId id = idGenerator.next();
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id.hex());
+        transaction.setFromUserId("sender");
+        transaction.setToUserId("receiver");
+        transaction.setAmountPaise(100);
+        transaction.setType("TRANSFER");
+        transaction.setReferenceNumber(id.reference("REF"));
+        transaction.setCreatedAt(LocalDateTime.now());
+        transaction.markCompleted();
+        return transaction;
+    }
+}
@@ -0,0 +1,93 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// A wave of concurrent transfers with simulated Mongo round trips, served the way Tomcat would:
+// a 200-thread platform pool (its default max) or one virtual thread per request.
+// The virtual variant needs a Java 21 runtime (mvn -Pjava21 -Pbenchmark verify); on 17 its setup fails.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+
+    private static final int PLATFORM_POOL_SIZE = 200;
+
+    @Param({"platform", "virtual"})
+    public String executor;
+
+    @Param({"200", "2000"})
+    public int concurrency;
+
+    @Param({"1000"})
+    public long roundTripMicros;
+
+    private InMemoryRepositories repositories;
+    private WalletService walletService;
+    private ExecutorService platformPool;
+    private Executor requestExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repositories = new InMemoryRepositories();
+        repositories.walletCallNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+        repositories.transactionWriteNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+        // One sender and receiver per request so the wave measures waiting on I/O, not contention on one wallet
+        for (int i = 0; i < concurrency; i++) {
+            repositories.addUser("sender" + i);
+            repositories.addWallet("sender" + i, Long.MAX_VALUE / 2);
+            repositories.addUser("receiver" + i);
+            repositories.addWallet("receiver" + i, 0);
+        }
+        walletService = Fixtures.walletService(repositories, Fixtures.otpService(Fixtures.otpStore()));
+
+        if ("virtual".equals(executor)) {
+            requestExecutor = new VirtualThreadTaskExecutor("bench-v-");
+        } else {
+            platformPool = Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+            requestExecutor = platformPool;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (platformPool != null) {
+            platformPool.shutdownNow();
+        }
+    }
+
+    // Time for the whole wave to complete; requests per second is concurrency / this
+    @Benchmark
+    public void transferWave() {
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            String senderId = "sender" + i;
+            String receiverEmail = "receiver" + i + "@example.com";
+            requests[i] = CompletableFuture.runAsync(
+                    () -> walletService.sendMoney(senderId, receiverEmail, 100, "benchmark"), requestExecutor);
+        }
+        CompletableFuture.allOf(requests).join();
+    }
+}
@@ -0,0 +1,50 @@
+package com.payment.wallet.PaymentWallet.benchmark;
+
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Transfer and add-money through WalletService with in-memory repositories
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WalletServiceBenchmark {
+
+    private InMemoryRepositories repositories;
+    private WalletService walletService;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        repositories = new InMemoryRepositories();
+        repositories.addUser("sender");
+        repositories.addUser("receiver");
+        repositories.addWallet("sender", Long.MAX_VALUE / 2);
+        repositories.addWallet("receiver", 0);
+        walletService = Fixtures.walletService(repositories, Fixtures.otpService(Fixtures.otpStore()));
+    }
+
+    @Benchmark
+    public Transaction transfer() {
+        return walletService.sendMoney("sender", "receiver@example.com", 100, "benchmark");
+    }
+
+    @Benchmark
+    public Transaction addMoney() {
+        return walletService.addMoney("receiver", 100, "benchmark");
+    }
+}
@@ -0,0 +1,94 @@
+package com.payment.wallet.PaymentWallet.config;
+
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.service.ConcurrencyLimiter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+// Admission control for the servlet stack: every API request takes a slot from the concurrency
+// limiter before it reaches a controller, or is turned away with 503 without touching Mongo.
+// Runs right after the security chain, so shed responses still pass through CORS handling.
+@Component
+@Profile("!reactive")
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private ConcurrencyLimiter limiter;
+
+    // Renders ServerBusyException through ApiExceptionHandler, as if a controller had thrown it
+    @Autowired
+    @Qualifier("handlerExceptionResolver")
+    private HandlerExceptionResolver exceptionResolver;
+
+    // Health checks and scrapes must answer during overload; preflights cost nothing
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !limiter.isEnabled()
+                || "OPTIONS".equals(request.getMethod())
+                || request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long startNanos;
+        try {
+            startNanos = limiter.acquire(laneOf(request.getMethod()));
+        } catch (ServerBusyException e) {
+            exceptionResolver.resolveException(request, response, null, e);
+            return;
+        }
+
+        boolean streaming = false;
+        try {
+            chain.doFilter(request, response);
+            streaming = request.isAsyncStarted();
+        } finally {
+            if (streaming) {
+                // Streamed bodies keep their slot until the last byte is written
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+            } else {
+                limiter.release(startNanos);
+            }
+        }
+    }
+
+    // Cheap reads get the whole limit; anything that writes gets the smaller share
+    static ConcurrencyLimiter.Lane laneOf(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) ? ConcurrencyLimiter.Lane.READ : ConcurrencyLimiter.Lane.WRITE;
+    }
+
+    private final class ReleaseOnComplete implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.releaseWithoutSample();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
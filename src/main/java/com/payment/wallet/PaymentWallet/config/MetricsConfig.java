@@ -0,0 +1,113 @@
+package com.payment.wallet.PaymentWallet.config;
+
+import com.payment.wallet.PaymentWallet.service.ConcurrencyLimiter;
+import com.payment.wallet.PaymentWallet.service.InMemoryOTPStore;
+import com.payment.wallet.PaymentWallet.service.NotificationService;
+import com.payment.wallet.PaymentWallet.service.TransactionJournal;
+import com.payment.wallet.PaymentWallet.service.TransactionSummaryService;
+import com.payment.wallet.PaymentWallet.service.UserRateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+// Exposes the counters the services already keep; Prometheus scrapes them from /actuator/prometheus
+@Configuration
+public class MetricsConfig {
+
+    // Only the in-memory store has a size and expirations to report; Mongo expires OTPs with a TTL index
+    @Bean
+    public MeterBinder otpStoreMetrics(ObjectProvider<InMemoryOTPStore> otpStore) {
+        return registry -> otpStore.ifAvailable(store -> {
+            Gauge.builder("wallet.otp.store.size", store, InMemoryOTPStore::size)
+                    .description("Pending OTPs held in memory")
+                    .register(registry);
+            otpStoreCounter(registry, store, "expired", InMemoryOTPStore::getExpired);
+            otpStoreCounter(registry, store, "evicted", InMemoryOTPStore::getEvicted);
+        });
+    }
+
+    @Bean
+    public MeterBinder notificationMetrics(NotificationService notificationService) {
+        return registry -> {
+            for (NotificationService.Channel channel : NotificationService.Channel.values()) {
+                String tag = channel.name().toLowerCase();
+                NotificationService.ChannelStats stats = notificationService.getStats(channel);
+                Gauge.builder("wallet.notification.queue.depth", notificationService, service -> service.getQueueDepth(channel))
+                        .tag("channel", tag)
+                        .register(registry);
+                notificationCounter(registry, stats, tag, "delivered", NotificationService.ChannelStats::getDelivered);
+                notificationCounter(registry, stats, tag, "retried", NotificationService.ChannelStats::getRetried);
+                notificationCounter(registry, stats, tag, "failed", NotificationService.ChannelStats::getFailed);
+                notificationCounter(registry, stats, tag, "dropped", NotificationService.ChannelStats::getDropped);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder transactionJournalMetrics(TransactionJournal journal) {
+        return registry -> {
+            Gauge.builder("wallet.journal.queue.depth", journal, TransactionJournal::getQueueDepth)
+                    .register(registry);
+            FunctionCounter.builder("wallet.journal.batches", journal, TransactionJournal::getBatches)
+                    .register(registry);
+            FunctionCounter.builder("wallet.journal.records", journal, TransactionJournal::getRecords)
+                    .register(registry);
+            FunctionCounter.builder("wallet.journal.fallbacks", journal, TransactionJournal::getFallbacks)
+                    .description("Batches that failed and were retried record by record")
+                    .register(registry);
+            FunctionCounter.builder("wallet.journal.direct.writes", journal, TransactionJournal::getDirectWrites)
+                    .description("Records saved directly because the journal queue was full")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder transactionSummaryMetrics(TransactionSummaryService summaryService) {
+        return registry -> FunctionCounter.builder("wallet.summary.failures", summaryService, TransactionSummaryService::getFailures)
+                .description("Summary updates that failed after their transactions completed")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder admissionMetrics(ConcurrencyLimiter limiter, UserRateLimiter rateLimiter) {
+        return registry -> {
+            Gauge.builder("wallet.admission.limit", limiter, ConcurrencyLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .register(registry);
+            Gauge.builder("wallet.admission.in.flight", limiter, ConcurrencyLimiter::getInFlight)
+                    .register(registry);
+            FunctionCounter.builder("wallet.admission.shed", limiter, ConcurrencyLimiter::getShedReads)
+                    .tag("lane", "read")
+                    .register(registry);
+            FunctionCounter.builder("wallet.admission.shed", limiter, ConcurrencyLimiter::getShedWrites)
+                    .tag("lane", "write")
+                    .register(registry);
+            for (UserRateLimiter.Action action : UserRateLimiter.Action.values()) {
+                FunctionCounter.builder("wallet.admission.throttled", rateLimiter, throttling -> throttling.getThrottled(action))
+                        .tag("action", action.name().toLowerCase())
+                        .register(registry);
+            }
+        };
+    }
+
+    private void otpStoreCounter(MeterRegistry registry, InMemoryOTPStore store, String reason,
+                                 ToDoubleFunction<InMemoryOTPStore> count) {
+        FunctionCounter.builder("wallet.otp.store.removed", store, count)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private void notificationCounter(MeterRegistry registry, NotificationService.ChannelStats stats, String channel,
+                                     String outcome, ToDoubleFunction<NotificationService.ChannelStats> count) {
+        FunctionCounter.builder("wallet.notification.deliveries", stats, count)
+                .tag("channel", channel)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,38 @@
+package com.payment.wallet.PaymentWallet.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+// Converts documents written with Double rupee fields to Int64 paise; a no-op once migrated.
+// Runs while the context is being built, so the web server only starts once every document reads as paise
+@Component
+public class MoneyFieldMigration {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        migrate("wallets", "balance", "balancePaise");
+        migrate("transactions", "amount", "amountPaise");
+    }
+
+    // newField = round(oldField * 100) as a long, then drop oldField
+    private void migrate(String collection, String rupeeField, String paiseField) {
+        Query legacy = new Query(Criteria.where(paiseField).exists(false).and(rupeeField).exists(true));
+        AggregationUpdate update = AggregationUpdate.update()
+                .set(paiseField).toValue(ConvertOperators.ToLong.toLong(
+                        ArithmeticOperators.Round.roundValueOf(
+                                ArithmeticOperators.valueOf(rupeeField).multiplyBy(100)).place(0)))
+                .unset(rupeeField);
+
+        mongoTemplate.updateMulti(legacy, update, collection);
+    }
+}
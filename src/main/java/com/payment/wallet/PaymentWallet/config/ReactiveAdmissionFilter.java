@@ -0,0 +1,79 @@
+package com.payment.wallet.PaymentWallet.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.wallet.PaymentWallet.dto.ApiResponse;
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.service.ConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PostConstruct;
+
+// AdmissionFilter for the reactive profile, ordered after the CORS filter. WebFilter errors never
+// reach the controller advice, so the 503 envelope is written here, serialized once up front.
+@Component
+@Profile("reactive")
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ReactiveAdmissionFilter implements WebFilter {
+
+    @Autowired
+    private ConcurrencyLimiter limiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private byte[] serverBusyBody;
+
+    @PostConstruct
+    public void initializeBody() throws JsonProcessingException {
+        serverBusyBody = objectMapper.writeValueAsBytes(ApiResponse.failure(ServerBusyException.MESSAGE));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (!limiter.isEnabled() || HttpMethod.OPTIONS.equals(method)
+                || exchange.getRequest().getPath().value().startsWith("/actuator")) {
+            return chain.filter(exchange);
+        }
+
+        long startNanos;
+        try {
+            startNanos = limiter.acquire(AdmissionFilter.laneOf(method.name()));
+        } catch (ServerBusyException e) {
+            return reject(exchange.getResponse(), e);
+        }
+
+        return chain.filter(exchange).doFinally(signal -> {
+            // A streamed body's or a download's duration says nothing about load
+            HttpHeaders headers = exchange.getResponse().getHeaders();
+            MediaType contentType = headers.getContentType();
+            if (contentType != null && MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                    || headers.getContentDisposition().isAttachment()) {
+                limiter.releaseWithoutSample();
+            } else {
+                limiter.release(startNanos);
+            }
+        });
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, ServerBusyException e) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(serverBusyBody)));
+    }
+}
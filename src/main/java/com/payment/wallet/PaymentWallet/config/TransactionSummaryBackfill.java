@@ -0,0 +1,117 @@
+package com.payment.wallet.PaymentWallet.config;
+
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
+import com.payment.wallet.PaymentWallet.service.TransactionSummaryService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+// Folds transactions written before summaries existed into them, in _id order, on a background thread.
+// A marker document records the cutoff (the first summary-writing start), how far the backfill got and
+// which instance holds the lease, so a restart resumes where it stopped and only one instance runs it.
+// A crash between a batch's increments and its progress update counts that batch twice.
+@Component
+public class TransactionSummaryBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionSummaryBackfill.class);
+
+    private static final String MARKERS = "migrations";
+    private static final String MARKER_ID = "transaction_summaries";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Autowired
+    private TransactionSummaryService transactionSummaryService;
+
+    @Value("${wallet.summaries.backfill-batch-size:1000}")
+    private int batchSize;
+
+    @Value("${wallet.summaries.backfill-lease:5m}")
+    private Duration lease;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread backfill = new Thread(this::backfill, "summary-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    private void backfill() {
+        try {
+            Document marker = takeLease();
+            if (marker == null) {
+                return;
+            }
+            String cutoffId = marker.getString("cutoffId");
+            String resumeAfterId = marker.getString("resumeAfterId");
+            long folded = 0;
+            while (true) {
+                List<Transaction> batch = transactionRepo.findBatchBefore(resumeAfterId, cutoffId, batchSize);
+                if (batch.isEmpty()) {
+                    mongoTemplate.updateFirst(markerQuery(), new Update().set("completed", true).unset("leaseUntil"), MARKERS);
+                    log.info("Transaction summary backfill completed, {} transactions folded in", folded);
+                    return;
+                }
+                transactionSummaryService.backfill(batch);
+                String lastId = batch.get(batch.size() - 1).getTransactionId();
+                if (!advance(resumeAfterId, lastId)) {
+                    log.warn("Transaction summary backfill lost its lease after {}", lastId);
+                    return;
+                }
+                resumeAfterId = lastId;
+                folded += batch.size();
+            }
+        } catch (RuntimeException e) {
+            // The next start resumes after the last recorded batch
+            log.error("Transaction summary backfill stopped", e);
+        }
+    }
+
+    // Creates the marker on first start, then claims it unless it is done or another instance holds it
+    private Document takeLease() {
+        mongoTemplate.upsert(markerQuery(), new Update()
+                .setOnInsert("cutoffId", transactionSummaryService.getRecordingSince())
+                .setOnInsert("completed", false), MARKERS);
+
+        Query claimable = Query.query(Criteria.where("_id").is(MARKER_ID)
+                .and("completed").is(false)
+                .orOperator(Criteria.where("leaseUntil").exists(false), Criteria.where("leaseUntil").lt(new Date())));
+        return mongoTemplate.findAndModify(claimable, new Update().set("leaseUntil", leaseUntil()),
+                FindAndModifyOptions.options().returnNew(true), Document.class, MARKERS);
+    }
+
+    // Records progress and renews the lease, only if nobody else has moved the marker since our last batch
+    private boolean advance(String previousId, String lastId) {
+        Query ours = Query.query(Criteria.where("_id").is(MARKER_ID).and("resumeAfterId").is(previousId));
+        Update update = new Update().set("resumeAfterId", lastId).set("leaseUntil", leaseUntil());
+        return mongoTemplate.updateFirst(ours, update, MARKERS).getMatchedCount() == 1;
+    }
+
+    private Query markerQuery() {
+        return Query.query(Criteria.where("_id").is(MARKER_ID));
+    }
+
+    private Date leaseUntil() {
+        return Date.from(Instant.now().plus(lease));
+    }
+}
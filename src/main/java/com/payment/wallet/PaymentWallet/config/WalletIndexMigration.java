@@ -0,0 +1,91 @@
+package com.payment.wallet.PaymentWallet.config;
+
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Merges the duplicate wallets the old create-on-read path left behind, then builds the unique userId index.
+// Runs while the context is being built and after MoneyFieldMigration, so balances are paise by then and the
+// web server only starts once every user has one wallet. Each duplicate is folded into the kept wallet by a
+// $inc guarded on its id and then deleted, so a restart part way through neither loses nor doubles money.
+@Component
+@DependsOn("moneyFieldMigration")
+public class WalletIndexMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(WalletIndexMigration.class);
+
+    private static final String MERGED = "mergedWalletIds";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        for (String userId : duplicatedUserIds()) {
+            merge(userId);
+        }
+        createIndex();
+    }
+
+    private List<String> duplicatedUserIds() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.group("userId").count().as("copies"),
+                Aggregation.match(Criteria.where("copies").gt(1)));
+        return mongoTemplate.aggregate(duplicates, Wallet.class, Document.class).getMappedResults().stream()
+                .map(group -> group.getString("_id"))
+                .toList();
+    }
+
+    // Keeps the copy the ledger snapshots went to (else the oldest) and adds the others' balances to it.
+    // Only the kept copy may be past ledger entry 0: two copies with their own snapshots would count the
+    // same entries twice, and which one is right needs a person to decide
+    private void merge(String userId) {
+        Query copies = new Query(Criteria.where("userId").is(userId)).with(Sort.by(
+                Sort.Order.desc("ledgerSeq"), Sort.Order.asc("createdAt"), Sort.Order.asc("walletId")));
+        List<Wallet> wallets = mongoTemplate.find(copies, Wallet.class);
+        if (wallets.size() < 2) {
+            return;
+        }
+        Wallet kept = wallets.get(0);
+        List<Wallet> duplicates = wallets.subList(1, wallets.size());
+        if (duplicates.stream().anyMatch(duplicate -> duplicate.getLedgerSeq() > 0)) {
+            throw new IllegalStateException("User " + userId + " has " + wallets.size()
+                    + " wallets with ledger snapshots of their own; merge them by hand before starting");
+        }
+        for (Wallet duplicate : duplicates) {
+            Query unmerged = new Query(Criteria.where("walletId").is(kept.getWalletId()).and(MERGED).ne(duplicate.getWalletId()));
+            Update fold = new Update()
+                    .inc("balancePaise", duplicate.getBalancePaise())
+                    .max("stripes", duplicate.getStripes())
+                    .addToSet(MERGED, duplicate.getWalletId());
+            mongoTemplate.updateFirst(unmerged, fold, Wallet.class);
+            mongoTemplate.remove(new Query(Criteria.where("walletId").is(duplicate.getWalletId())), Wallet.class);
+        }
+        log.warn("Merged {} duplicate wallets of user {} into {}", duplicates.size(), userId, kept.getWalletId());
+    }
+
+    private void createIndex() {
+        try {
+            mongoTemplate.indexOps(Wallet.class).ensureIndex(
+                    new Index().on("userId", Sort.Direction.ASC).unique().named("userId"));
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("Could not build the unique index on wallets.userId; if the error names"
+                    + " a duplicate key, a wallet was created for that user while merging, so restart to merge it", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.payment.wallet.PaymentWallet.controllers;
+
+import com.payment.wallet.PaymentWallet.dto.ApiResponse;
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+
+// One place that turns exceptions into the {success, message} envelope
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiExceptionHandler.class);
+
+    // Expected failures already carry their status and body
+    @ExceptionHandler(WalletException.class)
+    public ResponseEntity<ApiResponse<Void>> handleWalletException(WalletException e) {
+        return e.getResponse();
+    }
+
+    // Shed by admission control: tell the client when it is worth trying again
+    @ExceptionHandler(ServerBusyException.class)
+    public ResponseEntity<ApiResponse<Void>> handleServerBusy(ServerBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(Responses.SERVER_BUSY);
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUnreadableBody(HttpMessageNotReadableException e) {
+        return Responses.MALFORMED_REQUEST;
+    }
+
+    // WebFlux (reactive profile) wraps an unreadable body in a ServerWebInputException
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ApiResponse<Void>> handleBadInput(ServerWebInputException e) {
+        if (e.getCause() instanceof DecodingException) {
+            return Responses.MALFORMED_REQUEST;
+        }
+        return handleUnexpected(e);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiResponse<Void>> handleUnexpected(Exception e) {
+        // Spring MVC's own errors (missing parameter, wrong method, unknown path) keep their status
+        if (e instanceof ErrorResponse errorResponse) {
+            return ResponseEntity.status(errorResponse.getStatusCode())
+                    .body(ApiResponse.failure(errorResponse.getBody().getDetail()));
+        }
+        // Anything else is a bug or an outage: log it, and do not leak its message
+        log.error("Unhandled error", e);
+        return Responses.SERVER_ERROR;
+    }
+}
@@ -0,0 +1,100 @@
+package com.payment.wallet.PaymentWallet.controllers;
+
+import com.payment.wallet.PaymentWallet.dto.ApiResponse;
+import com.payment.wallet.PaymentWallet.dto.ContactListResponse;
+import com.payment.wallet.PaymentWallet.dto.LoginRequest;
+import com.payment.wallet.PaymentWallet.dto.OTPRequest;
+import com.payment.wallet.PaymentWallet.dto.UserContact;
+import com.payment.wallet.PaymentWallet.entity.User;
+import com.payment.wallet.PaymentWallet.service.ReactiveUserService;
+import com.payment.wallet.PaymentWallet.service.UserService;
+import com.payment.wallet.PaymentWallet.service.UserRateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// UserController's endpoints for the reactive profile, same paths and bodies
+@RestController
+@RequestMapping("/user")
+@CrossOrigin(origins = "https://paynow-ruby.vercel.app/")
+@Profile("reactive")
+public class ReactiveUserController {
+
+    @Autowired
+    private ReactiveUserService reactiveUserService;
+
+    @Autowired
+    private UserRateLimiter rateLimiter;
+
+    // ID generation and contact search are in-memory, so the blocking service answers them directly
+    @Autowired
+    private UserService userService;
+
+    // Generate user and account IDs
+    @GetMapping("/")
+    public ResponseEntity<ApiResponse<String[]>> createUserAccountId() {
+        return Responses.created("IDs generated successfully", userService.createUserAccountId());
+    }
+
+    // Create new user
+    @PostMapping("/save-user")
+    public Mono<ResponseEntity<ApiResponse<User>>> createUser(@RequestBody User user) {
+        return reactiveUserService.createUser(user)
+                .map(savedUser -> Responses.created("User registered successfully", savedUser));
+    }
+
+    // Send login OTP
+    @PostMapping("/send-login-otp")
+    public Mono<ResponseEntity<ApiResponse<Void>>> sendLoginOTP(@RequestBody LoginRequest request) {
+        rateLimiter.check(UserRateLimiter.Action.OTP, request.emailOrMobile());
+        return reactiveUserService.sendLoginOTP(request.emailOrMobile())
+                .map(sent -> sent ? Responses.OTP_SENT : Responses.OTP_NOT_SENT);
+    }
+
+    // Login with OTP
+    @PostMapping("/login-otp")
+    public Mono<ResponseEntity<ApiResponse<User>>> loginWithOTP(@RequestBody LoginRequest request) {
+        return reactiveUserService.loginWithOTP(request.emailOrMobile(), request.otpCode())
+                .map(user -> Responses.ok("Login successful", user));
+    }
+
+    // Send OTP for user actions
+    @PostMapping("/send-action-otp")
+    public Mono<ResponseEntity<ApiResponse<Void>>> sendActionOTP(@RequestBody OTPRequest request) {
+        rateLimiter.check(UserRateLimiter.Action.OTP, request.userId());
+        return reactiveUserService.sendUserActionOTP(request.userId(), request.purpose())
+                .map(sent -> sent ? Responses.OTP_SENT : Responses.OTP_NOT_SENT);
+    }
+
+    // Verify OTP for user actions
+    @PostMapping("/verify-action-otp")
+    public Mono<ResponseEntity<ApiResponse<Void>>> verifyActionOTP(@RequestBody OTPRequest request) {
+        return reactiveUserService.verifyUserActionOTP(request.userId(), request.otpCode(), request.purpose())
+                .map(verified -> verified ? Responses.OTP_VERIFIED : Responses.OTP_INVALID);
+    }
+
+    // Get user by ID
+    @GetMapping("/{userId}")
+    public Mono<ResponseEntity<ApiResponse<User>>> getUserById(@PathVariable String userId) {
+        return reactiveUserService.findUserById(userId)
+                .map(user -> Responses.ok("User found", user));
+    }
+
+    // Type-ahead payee search by name, email or mobile prefix
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<UserContact>>> searchContacts(@RequestParam String q,
+                                                                         @RequestParam(required = false) Integer limit) {
+        return Responses.ok("Contacts retrieved successfully", userService.searchContacts(q, limit));
+    }
+
+    // Contacts list, one page at a time
+    @GetMapping("/all")
+    public Mono<ContactListResponse> getAllUsers(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer size) {
+        return reactiveUserService.getContactsPage(cursor, size);
+    }
+}
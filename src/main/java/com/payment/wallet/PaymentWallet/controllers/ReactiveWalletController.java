@@ -0,0 +1,228 @@
+package com.payment.wallet.PaymentWallet.controllers;
+
+import com.payment.wallet.PaymentWallet.dto.AddMoneyRequest;
+import com.payment.wallet.PaymentWallet.dto.ApiResponse;
+import com.payment.wallet.PaymentWallet.dto.BalanceResponse;
+import com.payment.wallet.PaymentWallet.dto.BulkSendRequest;
+import com.payment.wallet.PaymentWallet.dto.BulkTransferItem;
+import com.payment.wallet.PaymentWallet.dto.BulkTransferResult;
+import com.payment.wallet.PaymentWallet.dto.DailySummary;
+import com.payment.wallet.PaymentWallet.dto.MonthlySummary;
+import com.payment.wallet.PaymentWallet.dto.OTPRequest;
+import com.payment.wallet.PaymentWallet.dto.SendMoneyRequest;
+import com.payment.wallet.PaymentWallet.dto.StatementExport;
+import com.payment.wallet.PaymentWallet.dto.TransactionPage;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import com.payment.wallet.PaymentWallet.service.IdempotencyService;
+import com.payment.wallet.PaymentWallet.service.ReactiveIdempotencyService;
+import com.payment.wallet.PaymentWallet.service.ReactiveTransactionSummaryService;
+import com.payment.wallet.PaymentWallet.service.ReactiveWalletService;
+import com.payment.wallet.PaymentWallet.service.StatementExportService;
+import com.payment.wallet.PaymentWallet.service.UserRateLimiter;
+import com.payment.wallet.PaymentWallet.util.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// WalletController's endpoints for the reactive profile, same paths and bodies
+@RestController
+@RequestMapping("/wallet")
+@CrossOrigin(origins = "https://paynow-ruby.vercel.app/")
+@Profile("reactive")
+public class ReactiveWalletController {
+
+    @Autowired
+    private ReactiveWalletService walletService;
+
+    @Autowired
+    private UserRateLimiter rateLimiter;
+
+    @Autowired
+    private ReactiveIdempotencyService idempotencyService;
+
+    @Autowired
+    private StatementExportService statementExportService;
+
+    @Autowired
+    private ReactiveTransactionSummaryService transactionSummaryService;
+
+    // Get user balance
+    @GetMapping("/balance/{userId}")
+    public Mono<ResponseEntity<ApiResponse<BalanceResponse>>> getBalance(@PathVariable String userId) {
+        return walletService.getBalance(userId)
+                .map(balance -> Responses.ok("Balance retrieved successfully", new BalanceResponse(Money.toRupees(balance))));
+    }
+
+    // Get user transactions
+    @GetMapping("/transactions/{userId}")
+    public Mono<ResponseEntity<ApiResponse<List<Transaction>>>> getTransactions(@PathVariable String userId) {
+        return walletService.getUserTransactions(userId)
+                .map(transactions -> Responses.ok("Transactions retrieved successfully", transactions));
+    }
+
+    // Get user transactions one page at a time
+    @GetMapping("/transactions/{userId}/page")
+    public Mono<ResponseEntity<ApiResponse<TransactionPage>>> getTransactionsPage(@PathVariable String userId,
+                                                                                  @RequestParam(required = false) String cursor,
+                                                                                  @RequestParam(required = false) Integer size) {
+        return walletService.getUserTransactionsPage(userId, cursor, size)
+                .map(page -> Responses.ok("Transactions retrieved successfully", page));
+    }
+
+    // Stream user transactions as NDJSON; WebFlux writes each document as it arrives
+    @GetMapping(value = "/transactions/{userId}/stream", produces = "application/x-ndjson")
+    public Flux<Transaction> streamTransactions(@PathVariable String userId) {
+        return walletService.streamUserTransactions(userId);
+    }
+
+    // Month totals and top counterparties from the materialized summaries; month is yyyy-MM
+    @GetMapping("/summary/{userId}")
+    public Mono<ResponseEntity<ApiResponse<MonthlySummary>>> getMonthlySummary(@PathVariable String userId,
+                                                                               @RequestParam(required = false) String month,
+                                                                               @RequestParam(required = false) Integer top) {
+        return transactionSummaryService.monthly(userId, month, top)
+                .map(summary -> Responses.ok("Summary retrieved successfully", summary));
+    }
+
+    // Per-day totals over [from, to], defaulting to the last 30 days
+    @GetMapping("/summary/{userId}/daily")
+    public Mono<ResponseEntity<ApiResponse<List<DailySummary>>>> getDailySummary(@PathVariable String userId,
+                                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return transactionSummaryService.daily(userId, from, to)
+                .map(days -> Responses.ok("Summary retrieved successfully", days));
+    }
+
+    // Start a statement export on the export workers; poll its status, then download the file
+    @PostMapping("/statements/{userId}")
+    public Mono<ResponseEntity<ApiResponse<StatementExport>>> exportStatement(@PathVariable String userId,
+                                                                              @RequestParam(defaultValue = "csv") String format,
+                                                                              @RequestParam(defaultValue = "false") boolean gzip,
+                                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return Mono.fromSupplier(() -> Responses.accepted("Statement export started",
+                statementExportService.start(userId, format, gzip, from, to)));
+    }
+
+    @GetMapping("/statements/{userId}/{jobId}")
+    public Mono<ResponseEntity<ApiResponse<StatementExport>>> getStatementExport(@PathVariable String userId, @PathVariable String jobId) {
+        return Mono.fromSupplier(() -> Responses.ok("Statement export status retrieved", statementExportService.status(userId, jobId)));
+    }
+
+    // A file resource is written with zero-copy transfer where the server supports it
+    @GetMapping("/statements/{userId}/{jobId}/download")
+    public Mono<ResponseEntity<Resource>> downloadStatement(@PathVariable String userId, @PathVariable String jobId) {
+        return Mono.fromSupplier(() -> {
+            StatementExportService.StatementFile file = statementExportService.file(userId, jobId);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(file.contentType()))
+                    .contentLength(file.size())
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(file.fileName()).build().toString())
+                    .body(new FileSystemResource(file.path()));
+        });
+    }
+
+    // Send OTP for transaction
+    @PostMapping("/send-transaction-otp")
+    public Mono<ResponseEntity<ApiResponse<Void>>> sendTransactionOTP(@RequestBody OTPRequest request) {
+        rateLimiter.check(UserRateLimiter.Action.OTP, request.userId());
+        // purpose is TRANSACTION or ADD_MONEY
+        return walletService.sendTransactionOTP(request.userId(), request.purpose())
+                .map(sent -> sent ? Responses.OTP_SENT : Responses.OTP_NOT_SENT);
+    }
+
+    // Send money with OTP
+    @PostMapping("/send-with-otp")
+    public Mono<ResponseEntity<ApiResponse<Transaction>>> sendMoneyWithOTP(@RequestBody SendMoneyRequest request,
+                                                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        rateLimiter.check(UserRateLimiter.Action.TRANSFER, request.fromUserId());
+        long amount = Money.parsePaise(request.amount());
+        return idempotencyService.execute("SEND", request.fromUserId(), idempotencyKey,
+                        IdempotencyService.fingerprint(amount, request.toUserId() != null ? request.toUserId() : request.toUserEmail()),
+                        () -> walletService.sendMoneyWithOTP(request.fromUserId(), request.toUserId(), request.toUserEmail(), amount,
+                                request.description(), request.otpCode()))
+                .map(transaction -> Responses.ok("Money sent successfully", transaction));
+    }
+
+    // Add money with OTP
+    @PostMapping("/add-money-with-otp")
+    public Mono<ResponseEntity<ApiResponse<Transaction>>> addMoneyWithOTP(@RequestBody AddMoneyRequest request,
+                                                                          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        rateLimiter.check(UserRateLimiter.Action.TRANSFER, request.userId());
+        long amount = Money.parsePaise(request.amount());
+        return idempotencyService.execute("ADD_MONEY", request.userId(), idempotencyKey,
+                        IdempotencyService.fingerprint(amount, request.userId()),
+                        () -> walletService.addMoneyWithOTP(request.userId(), amount, request.description(), request.otpCode()))
+                .map(transaction -> Responses.ok("Money added successfully", transaction));
+    }
+
+    // Legacy endpoints (without OTP) for backward compatibility
+    @PostMapping("/send")
+    public Mono<ResponseEntity<ApiResponse<Transaction>>> sendMoney(@RequestBody SendMoneyRequest request,
+                                                                    @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        rateLimiter.check(UserRateLimiter.Action.TRANSFER, request.fromUserId());
+        long amount = Money.parsePaise(request.amount());
+        return idempotencyService.execute("SEND", request.fromUserId(), idempotencyKey,
+                        IdempotencyService.fingerprint(amount, request.toUserId() != null ? request.toUserId() : request.toUserEmail()),
+                        () -> walletService.sendMoney(request.fromUserId(), request.toUserId(), request.toUserEmail(),
+                                amount, request.description()))
+                .map(transaction -> Responses.ok("Money sent successfully", transaction));
+    }
+
+    @PostMapping("/add-money")
+    public Mono<ResponseEntity<ApiResponse<Transaction>>> addMoney(@RequestBody AddMoneyRequest request,
+                                                                   @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        rateLimiter.check(UserRateLimiter.Action.TRANSFER, request.userId());
+        long amount = Money.parsePaise(request.amount());
+        return idempotencyService.execute("ADD_MONEY", request.userId(), idempotencyKey,
+                        IdempotencyService.fingerprint(amount, request.userId()),
+                        () -> walletService.addMoney(request.userId(), amount, request.description()))
+                .map(transaction -> Responses.ok("Money added successfully", transaction));
+    }
+
+    // Pay many recipients from one wallet; each item reports its own outcome
+    @PostMapping("/bulk-send")
+    public Mono<ResponseEntity<ApiResponse<List<BulkTransferResult>>>> bulkSend(@RequestBody BulkSendRequest request) {
+        rateLimiter.check(UserRateLimiter.Action.TRANSFER, request.fromUserId());
+        List<BulkTransferItem> items = new ArrayList<>();
+        if (request.items() != null) {
+            for (BulkSendRequest.Item item : request.items()) {
+                items.add(new BulkTransferItem(item.toUserEmail(), Money.parsePaise(item.amount()), item.description()));
+            }
+        }
+
+        return walletService.bulkTransfer(request.fromUserId(), items).map(results -> {
+            long completed = results.stream().filter(r -> "COMPLETED".equals(r.getStatus())).count();
+            String message = completed + " of " + results.size() + " transfers completed";
+            return ResponseEntity.ok(new ApiResponse<>(completed > 0, message, results));
+        });
+    }
+
+    // Create wallet for user
+    @PostMapping("/create/{userId}")
+    public Mono<ResponseEntity<ApiResponse<Wallet>>> createWallet(@PathVariable String userId) {
+        return walletService.createWallet(userId)
+                .map(wallet -> Responses.created("Wallet created successfully", wallet));
+    }
+
+    // Opt a wallet that receives many concurrent payments into striped balances
+    @PostMapping("/hot/{userId}")
+    public Mono<ResponseEntity<ApiResponse<Wallet>>> enableHotWallet(@PathVariable String userId, @RequestParam int stripes) {
+        return walletService.enableHotWallet(userId, stripes)
+                .map(wallet -> Responses.ok("Hot wallet mode enabled", wallet));
+    }
+}
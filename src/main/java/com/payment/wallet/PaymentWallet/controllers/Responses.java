@@ -0,0 +1,34 @@
+package com.payment.wallet.PaymentWallet.controllers;
+
+import com.payment.wallet.PaymentWallet.dto.ApiResponse;
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// Envelopes shared by the controllers; the fixed-message ones are built once and reused
+final class Responses {
+
+    static final ResponseEntity<ApiResponse<Void>> OTP_SENT = ResponseEntity.ok(new ApiResponse<>(true, "OTP sent successfully", null));
+    static final ResponseEntity<ApiResponse<Void>> OTP_NOT_SENT = ResponseEntity.ok(ApiResponse.failure("Failed to send OTP"));
+    static final ResponseEntity<ApiResponse<Void>> OTP_VERIFIED = ResponseEntity.ok(new ApiResponse<>(true, "OTP verified successfully", null));
+    static final ResponseEntity<ApiResponse<Void>> OTP_INVALID = ResponseEntity.ok(ApiResponse.failure("Invalid or expired OTP"));
+    static final ResponseEntity<ApiResponse<Void>> MALFORMED_REQUEST = ResponseEntity.badRequest().body(ApiResponse.failure("Malformed request body"));
+    static final ResponseEntity<ApiResponse<Void>> SERVER_ERROR = ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiResponse.failure("Something went wrong, try again later"));
+
+    static final ApiResponse<Void> SERVER_BUSY = ApiResponse.failure(ServerBusyException.MESSAGE);
+
+    private Responses() {
+    }
+
+    static <T> ResponseEntity<ApiResponse<T>> ok(String message, T data) {
+        return ResponseEntity.ok(ApiResponse.ok(message, data));
+    }
+
+    static <T> ResponseEntity<ApiResponse<T>> created(String message, T data) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(ApiResponse.ok(message, data));
+    }
+
+    static <T> ResponseEntity<ApiResponse<T>> accepted(String message, T data) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.ok(message, data));
+    }
+}
@@ -1,201 +1,128 @@
 package com.payment.wallet.PaymentWallet.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.wallet.PaymentWallet.dto.ApiResponse;
+import com.payment.wallet.PaymentWallet.dto.LoginRequest;
+import com.payment.wallet.PaymentWallet.dto.OTPRequest;
+import com.payment.wallet.PaymentWallet.dto.UserContact;
 import com.payment.wallet.PaymentWallet.entity.User;
 import com.payment.wallet.PaymentWallet.service.UserService;
+import com.payment.wallet.PaymentWallet.service.UserRateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/user")
 @CrossOrigin(origins = "https://paynow-ruby.vercel.app/")
+@Profile("!reactive")
 public class UserController {
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserRateLimiter rateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Generate user and account IDs
     @Transactional
     @GetMapping("/")
-    public ResponseEntity<?> createUserAccountId() {
-        try {
-            String[] ids = userService.createUserAccountId();
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "IDs generated successfully");
-            response.put("data", ids);
-            
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Server is busy, try again later!");
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    public ResponseEntity<ApiResponse<String[]>> createUserAccountId() {
+        return Responses.created("IDs generated successfully", userService.createUserAccountId());
     }
 
     // Create new user
     @Transactional
     @PostMapping("/save-user")
-    public ResponseEntity<?> createUser(@RequestBody User user) {
-        try {
-            User createdUser = userService.createUser(user);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "User registered successfully");
-            response.put("data", createdUser);
-            
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", e.getMessage());
-            
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
-        }
+    public ResponseEntity<ApiResponse<User>> createUser(@RequestBody User user) {
+        return Responses.created("User registered successfully", userService.createUser(user));
     }
 
     // Send login OTP
     @PostMapping("/send-login-otp")
-    public ResponseEntity<?> sendLoginOTP(@RequestBody Map<String, String> request) {
-        try {
-            String emailOrMobile = request.get("emailOrMobile");
-            
-            boolean sent = userService.sendLoginOTP(emailOrMobile);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", sent);
-            response.put("message", sent ? "OTP sent successfully" : "Failed to send OTP");
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", e.getMessage());
-            
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-        }
+    public ResponseEntity<ApiResponse<Void>> sendLoginOTP(@RequestBody LoginRequest request) {
+        rateLimiter.check(UserRateLimiter.Action.OTP, request.emailOrMobile());
+        boolean sent = userService.sendLoginOTP(request.emailOrMobile());
+        return sent ? Responses.OTP_SENT : Responses.OTP_NOT_SENT;
     }
 
     // Login with OTP
     @PostMapping("/login-otp")
-    public ResponseEntity<?> loginWithOTP(@RequestBody Map<String, String> request) {
-        try {
-            String emailOrMobile = request.get("emailOrMobile");
-            String otpCode = request.get("otpCode");
-            
-            User user = userService.loginWithOTP(emailOrMobile, otpCode);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Login successful");
-            response.put("data", user);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", e.getMessage());
-            
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
-        }
+    public ResponseEntity<ApiResponse<User>> loginWithOTP(@RequestBody LoginRequest request) {
+        return Responses.ok("Login successful", userService.loginWithOTP(request.emailOrMobile(), request.otpCode()));
     }
 
     // Send OTP for user actions
     @PostMapping("/send-action-otp")
-    public ResponseEntity<?> sendActionOTP(@RequestBody Map<String, String> request) {
-        try {
-            String userId = request.get("userId");
-            String purpose = request.get("purpose");
-            
-            boolean sent = userService.sendUserActionOTP(userId, purpose);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", sent);
-            response.put("message", sent ? "OTP sent successfully" : "Failed to send OTP");
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", e.getMessage());
-            
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-        }
+    public ResponseEntity<ApiResponse<Void>> sendActionOTP(@RequestBody OTPRequest request) {
+        rateLimiter.check(UserRateLimiter.Action.OTP, request.userId());
+        boolean sent = userService.sendUserActionOTP(request.userId(), request.purpose());
+        return sent ? Responses.OTP_SENT : Responses.OTP_NOT_SENT;
     }
 
     // Verify OTP for user actions
     @PostMapping("/verify-action-otp")
-    public ResponseEntity<?> verifyActionOTP(@RequestBody Map<String, String> request) {
-        try {
-            String userId = request.get("userId");
-            String otpCode = request.get("otpCode");
-            String purpose = request.get("purpose");
-            
-            boolean verified = userService.verifyUserActionOTP(userId, otpCode, purpose);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", verified);
-            response.put("message", verified ? "OTP verified successfully" : "Invalid or expired OTP");
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", e.getMessage());
-            
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-        }
+    public ResponseEntity<ApiResponse<Void>> verifyActionOTP(@RequestBody OTPRequest request) {
+        boolean verified = userService.verifyUserActionOTP(request.userId(), request.otpCode(), request.purpose());
+        return verified ? Responses.OTP_VERIFIED : Responses.OTP_INVALID;
     }
 
     // Get user by ID
     @GetMapping("/{userId}")
-    public ResponseEntity<?> getUserById(@PathVariable String userId) {
-        try {
-            User user = userService.findUserById(userId);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "User found");
-            response.put("data", user);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "User not found");
-            
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
-        }
+    public ResponseEntity<ApiResponse<User>> getUserById(@PathVariable String userId) {
+        return Responses.ok("User found", userService.findUserById(userId));
+    }
+
+    // Type-ahead payee search by name, email or mobile prefix
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<UserContact>>> searchContacts(@RequestParam String q,
+                                                                         @RequestParam(required = false) Integer limit) {
+        return Responses.ok("Contacts retrieved successfully", userService.searchContacts(q, limit));
     }
 
-    // Get all users (for contacts)
+    // Contacts list, one page at a time, streamed from the Mongo cursor into the response envelope
     @GetMapping("/all")
-    public ResponseEntity<?> getAllUsers() {
-        try {
-            List<User> users = userService.getAllUsers();
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Users retrieved successfully");
-            response.put("data", users);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Failed to retrieve users");
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    public ResponseEntity<StreamingResponseBody> getAllUsers(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size) {
+        int pageSize = userService.contactPageSize(size);
+        // Reject a bad cursor while an error status can still be sent
+        userService.decodeContactCursor(cursor);
+        
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator json = objectMapper.createGenerator(outputStream)) {
+                json.writeStartObject();
+                json.writeBooleanField("success", true);
+                json.writeStringField("message", "Users retrieved successfully");
+                json.writeArrayFieldStart("data");
+                String nextCursor = userService.forEachContact(cursor, pageSize, contact -> {
+                    try {
+                        json.writeObject(contact);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+                json.writeStringField("nextCursor", nextCursor);
+                json.writeEndObject();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 }
@@ -1,216 +1,265 @@
 package com.payment.wallet.PaymentWallet.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.payment.wallet.PaymentWallet.dto.AddMoneyRequest;
+import com.payment.wallet.PaymentWallet.dto.ApiResponse;
+import com.payment.wallet.PaymentWallet.dto.BalanceResponse;
+import com.payment.wallet.PaymentWallet.dto.BulkSendRequest;
+import com.payment.wallet.PaymentWallet.dto.BulkTransferItem;
+import com.payment.wallet.PaymentWallet.dto.BulkTransferResult;
+import com.payment.wallet.PaymentWallet.dto.DailySummary;
+import com.payment.wallet.PaymentWallet.dto.MonthlySummary;
+import com.payment.wallet.PaymentWallet.dto.OTPRequest;
+import com.payment.wallet.PaymentWallet.dto.SendMoneyRequest;
+import com.payment.wallet.PaymentWallet.dto.StatementExport;
+import com.payment.wallet.PaymentWallet.dto.TransactionPage;
 import com.payment.wallet.PaymentWallet.entity.Transaction;
 import com.payment.wallet.PaymentWallet.entity.Wallet;
+import com.payment.wallet.PaymentWallet.service.IdempotencyService;
+import com.payment.wallet.PaymentWallet.service.StatementExportService;
+import com.payment.wallet.PaymentWallet.service.TransactionSummaryService;
 import com.payment.wallet.PaymentWallet.service.WalletService;
+import com.payment.wallet.PaymentWallet.service.UserRateLimiter;
+import com.payment.wallet.PaymentWallet.util.Money;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/wallet")
 @CrossOrigin(origins = "https://paynow-ruby.vercel.app/")
+@Profile("!reactive")
 public class WalletController {
 
     @Autowired
     private WalletService walletService;
 
+    @Autowired
+    private UserRateLimiter rateLimiter;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private StatementExportService statementExportService;
+
+    @Autowired
+    private TransactionSummaryService transactionSummaryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Get user balance
     @GetMapping("/balance/{userId}")
-    public ResponseEntity<?> getBalance(@PathVariable String userId) {
-        try {
-            Double balance = walletService.getBalance(userId);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Balance retrieved successfully");
-            response.put("data", Map.of("balance", balance));
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Failed to get balance");
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    public ResponseEntity<ApiResponse<BalanceResponse>> getBalance(@PathVariable String userId) {
+        long balance = walletService.getBalance(userId);
+        return Responses.ok("Balance retrieved successfully", new BalanceResponse(Money.toRupees(balance)));
     }
 
     // Get user transactions
     @GetMapping("/transactions/{userId}")
-    public ResponseEntity<?> getTransactions(@PathVariable String userId) {
-        try {
-            List<Transaction> transactions = walletService.getUserTransactions(userId);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Transactions retrieved successfully");
-            response.put("data", transactions);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Failed to get transactions");
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    public ResponseEntity<ApiResponse<List<Transaction>>> getTransactions(@PathVariable String userId) {
+        return Responses.ok("Transactions retrieved successfully", walletService.getUserTransactions(userId));
+    }
+
+    // Get user transactions one page at a time
+    @GetMapping("/transactions/{userId}/page")
+    public ResponseEntity<ApiResponse<TransactionPage>> getTransactionsPage(@PathVariable String userId,
+                                                                            @RequestParam(required = false) String cursor,
+                                                                            @RequestParam(required = false) Integer size) {
+        return Responses.ok("Transactions retrieved successfully", walletService.getUserTransactionsPage(userId, cursor, size));
+    }
+
+    // Stream user transactions as NDJSON, one document per line, straight from the Mongo cursor
+    @GetMapping(value = "/transactions/{userId}/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamTransactions(@PathVariable String userId) {
+        // Leave the response stream open between documents
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        
+        StreamingResponseBody body = outputStream -> {
+            try {
+                walletService.forEachUserTransactionBatch(userId, batch -> {
+                    try {
+                        for (Transaction transaction : batch) {
+                            writer.writeValue(outputStream, transaction);
+                            outputStream.write('\n');
+                        }
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // Month totals and top counterparties from the materialized summaries; month is yyyy-MM
+    @GetMapping("/summary/{userId}")
+    public ResponseEntity<ApiResponse<MonthlySummary>> getMonthlySummary(@PathVariable String userId,
+                                                                         @RequestParam(required = false) String month,
+                                                                         @RequestParam(required = false) Integer top) {
+        return Responses.ok("Summary retrieved successfully", transactionSummaryService.monthly(userId, month, top));
+    }
+
+    // Per-day totals over [from, to], defaulting to the last 30 days
+    @GetMapping("/summary/{userId}/daily")
+    public ResponseEntity<ApiResponse<List<DailySummary>>> getDailySummary(@PathVariable String userId,
+                                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return Responses.ok("Summary retrieved successfully", transactionSummaryService.daily(userId, from, to));
+    }
+
+    // Start a statement export in the background; poll its status, then download the file
+    @PostMapping("/statements/{userId}")
+    public ResponseEntity<ApiResponse<StatementExport>> exportStatement(@PathVariable String userId,
+                                                                        @RequestParam(defaultValue = "csv") String format,
+                                                                        @RequestParam(defaultValue = "false") boolean gzip,
+                                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return Responses.accepted("Statement export started", statementExportService.start(userId, format, gzip, from, to));
+    }
+
+    @GetMapping("/statements/{userId}/{jobId}")
+    public ResponseEntity<ApiResponse<StatementExport>> getStatementExport(@PathVariable String userId, @PathVariable String jobId) {
+        return Responses.ok("Statement export status retrieved", statementExportService.status(userId, jobId));
+    }
+
+    // Copied channel to channel on the async executor, so a large file does not hold a request thread
+    @GetMapping("/statements/{userId}/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> downloadStatement(@PathVariable String userId, @PathVariable String jobId) {
+        StatementExportService.StatementFile file = statementExportService.file(userId, jobId);
+        
+        StreamingResponseBody body = outputStream -> {
+            try (FileChannel channel = FileChannel.open(file.path())) {
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                long position = 0;
+                while (position < file.size()) {
+                    position += channel.transferTo(position, file.size() - position, target);
+                }
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(file.contentType()))
+                .contentLength(file.size())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(file.fileName()).build().toString())
+                .body(body);
     }
 
     // Send OTP for transaction
     @PostMapping("/send-transaction-otp")
-    public ResponseEntity<?> sendTransactionOTP(@RequestBody Map<String, String> request) {
-        try {
-            String userId = request.get("userId");
-            String purpose = request.get("purpose"); // TRANSACTION or ADD_MONEY
-            
-            boolean sent = walletService.sendTransactionOTP(userId, purpose);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", sent);
-            response.put("message", sent ? "OTP sent successfully" : "Failed to send OTP");
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Failed to send OTP");
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    public ResponseEntity<ApiResponse<Void>> sendTransactionOTP(@RequestBody OTPRequest request) {
+        rateLimiter.check(UserRateLimiter.Action.OTP, request.userId());
+        // purpose is TRANSACTION or ADD_MONEY
+        boolean sent = walletService.sendTransactionOTP(request.userId(), request.purpose());
+        return sent ? Responses.OTP_SENT : Responses.OTP_NOT_SENT;
     }
 
     // Send money with OTP
     @Transactional
     @PostMapping("/send-with-otp")
-    public ResponseEntity<?> sendMoneyWithOTP(@RequestBody Map<String, Object> request) {
-        try {
-            String fromUserId = (String) request.get("fromUserId");
-            String toUserEmail = (String) request.get("toUserEmail");
-            Double amount = Double.valueOf(request.get("amount").toString());
-            String description = (String) request.get("description");
-            String otpCode = (String) request.get("otpCode");
-            
-            Transaction transaction = walletService.sendMoneyWithOTP(fromUserId, toUserEmail, amount, description, otpCode);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Money sent successfully");
-            response.put("data", transaction);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", e.getMessage());
-            
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-        }
+    public ResponseEntity<ApiResponse<Transaction>> sendMoneyWithOTP(@RequestBody SendMoneyRequest request,
+                                                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        rateLimiter.check(UserRateLimiter.Action.TRANSFER, request.fromUserId());
+        long amount = Money.parsePaise(request.amount());
+        Transaction transaction = idempotencyService.execute("SEND", request.fromUserId(), idempotencyKey,
+                IdempotencyService.fingerprint(amount, request.toUserId() != null ? request.toUserId() : request.toUserEmail()),
+                () -> walletService.sendMoneyWithOTP(request.fromUserId(), request.toUserId(), request.toUserEmail(), amount,
+                        request.description(), request.otpCode()));
+        return Responses.ok("Money sent successfully", transaction);
     }
 
     // Add money with OTP
     @Transactional
     @PostMapping("/add-money-with-otp")
-    public ResponseEntity<?> addMoneyWithOTP(@RequestBody Map<String, Object> request) {
-        try {
-            String userId = (String) request.get("userId");
-            Double amount = Double.valueOf(request.get("amount").toString());
-            String description = (String) request.get("description");
-            String otpCode = (String) request.get("otpCode");
-            
-            Transaction transaction = walletService.addMoneyWithOTP(userId, amount, description, otpCode);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Money added successfully");
-            response.put("data", transaction);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", e.getMessage());
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    public ResponseEntity<ApiResponse<Transaction>> addMoneyWithOTP(@RequestBody AddMoneyRequest request,
+                                                                    @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        rateLimiter.check(UserRateLimiter.Action.TRANSFER, request.userId());
+        long amount = Money.parsePaise(request.amount());
+        Transaction transaction = idempotencyService.execute("ADD_MONEY", request.userId(), idempotencyKey,
+                IdempotencyService.fingerprint(amount, request.userId()),
+                () -> walletService.addMoneyWithOTP(request.userId(), amount, request.description(), request.otpCode()));
+        return Responses.ok("Money added successfully", transaction);
     }
 
     // Legacy endpoints (without OTP) for backward compatibility
     @Transactional
     @PostMapping("/send")
-    public ResponseEntity<?> sendMoney(@RequestBody Map<String, Object> request) {
-        try {
-            String fromUserId = (String) request.get("fromUserId");
-            String toUserEmail = (String) request.get("toUserEmail");
-            Double amount = Double.valueOf(request.get("amount").toString());
-            String description = (String) request.get("description");
-            
-            Transaction transaction = walletService.sendMoney(fromUserId, toUserEmail, amount, description);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Money sent successfully");
-            response.put("data", transaction);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", e.getMessage());
-            
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-        }
+    public ResponseEntity<ApiResponse<Transaction>> sendMoney(@RequestBody SendMoneyRequest request,
+                                                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        rateLimiter.check(UserRateLimiter.Action.TRANSFER, request.fromUserId());
+        long amount = Money.parsePaise(request.amount());
+        Transaction transaction = idempotencyService.execute("SEND", request.fromUserId(), idempotencyKey,
+                IdempotencyService.fingerprint(amount, request.toUserId() != null ? request.toUserId() : request.toUserEmail()),
+                () -> walletService.sendMoney(request.fromUserId(), request.toUserId(), request.toUserEmail(),
+                        amount, request.description()));
+        return Responses.ok("Money sent successfully", transaction);
     }
 
     @Transactional
     @PostMapping("/add-money")
-    public ResponseEntity<?> addMoney(@RequestBody Map<String, Object> request) {
-        try {
-            String userId = (String) request.get("userId");
-            Double amount = Double.valueOf(request.get("amount").toString());
-            String description = (String) request.get("description");
-            
-            Transaction transaction = walletService.addMoney(userId, amount, description);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Money added successfully");
-            response.put("data", transaction);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Failed to add money");
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    public ResponseEntity<ApiResponse<Transaction>> addMoney(@RequestBody AddMoneyRequest request,
+                                                             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        rateLimiter.check(UserRateLimiter.Action.TRANSFER, request.userId());
+        long amount = Money.parsePaise(request.amount());
+        Transaction transaction = idempotencyService.execute("ADD_MONEY", request.userId(), idempotencyKey,
+                IdempotencyService.fingerprint(amount, request.userId()),
+                () -> walletService.addMoney(request.userId(), amount, request.description()));
+        return Responses.ok("Money added successfully", transaction);
+    }
+
+    // Pay many recipients from one wallet; each item reports its own outcome
+    @Transactional
+    @PostMapping("/bulk-send")
+    public ResponseEntity<ApiResponse<List<BulkTransferResult>>> bulkSend(@RequestBody BulkSendRequest request) {
+        rateLimiter.check(UserRateLimiter.Action.TRANSFER, request.fromUserId());
+        List<BulkTransferItem> items = new ArrayList<>();
+        if (request.items() != null) {
+            for (BulkSendRequest.Item item : request.items()) {
+                items.add(new BulkTransferItem(item.toUserEmail(), Money.parsePaise(item.amount()), item.description()));
+            }
         }
+        
+        List<BulkTransferResult> results = walletService.bulkTransfer(request.fromUserId(), items);
+        long completed = results.stream().filter(r -> "COMPLETED".equals(r.getStatus())).count();
+        
+        String message = completed + " of " + results.size() + " transfers completed";
+        return ResponseEntity.ok(new ApiResponse<>(completed > 0, message, results));
     }
 
     // Create wallet for user
     @PostMapping("/create/{userId}")
-    public ResponseEntity<?> createWallet(@PathVariable String userId) {
-        try {
-            Wallet wallet = walletService.createWallet(userId);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Wallet created successfully");
-            response.put("data", wallet);
-            
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Failed to create wallet");
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    public ResponseEntity<ApiResponse<Wallet>> createWallet(@PathVariable String userId) {
+        return Responses.created("Wallet created successfully", walletService.createWallet(userId));
+    }
+
+    // Opt a wallet that receives many concurrent payments into striped balances
+    @PostMapping("/hot/{userId}")
+    public ResponseEntity<ApiResponse<Wallet>> enableHotWallet(@PathVariable String userId, @RequestParam int stripes) {
+        return Responses.ok("Hot wallet mode enabled", walletService.enableHotWallet(userId, stripes));
     }
 }
@@ -0,0 +1,7 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import java.math.BigDecimal;
+
+// Body of /wallet/add-money and /wallet/add-money-with-otp; amount is in rupees
+public record AddMoneyRequest(String userId, BigDecimal amount, String description, String otpCode) {
+}
@@ -0,0 +1,16 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// The {success, message, data} envelope every JSON endpoint returns; data is omitted when null
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ApiResponse<T>(boolean success, String message, T data) {
+
+    public static <T> ApiResponse<T> ok(String message, T data) {
+        return new ApiResponse<>(true, message, data);
+    }
+
+    public static ApiResponse<Void> failure(String message) {
+        return new ApiResponse<>(false, message, null);
+    }
+}
@@ -0,0 +1,6 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import java.math.BigDecimal;
+
+public record BalanceResponse(BigDecimal balance) {
+}
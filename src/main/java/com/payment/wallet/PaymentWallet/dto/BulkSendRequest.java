@@ -0,0 +1,11 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Body of /wallet/bulk-send
+public record BulkSendRequest(String fromUserId, List<Item> items) {
+
+    public record Item(String toUserEmail, BigDecimal amount, String description) {
+    }
+}
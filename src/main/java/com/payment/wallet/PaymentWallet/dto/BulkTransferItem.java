@@ -0,0 +1,12 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkTransferItem {
+    private String toUserEmail;
+    private long amountPaise;
+    private String description;
+}
@@ -0,0 +1,31 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import lombok.Data;
+
+@Data
+public class BulkTransferResult {
+    private int index; // position in the request's items list
+    private String toUserEmail;
+    private String status; // COMPLETED, FAILED
+    private String message;
+    private String transactionId;
+
+    public static BulkTransferResult failed(int index, String toUserEmail, String message) {
+        BulkTransferResult result = new BulkTransferResult();
+        result.setIndex(index);
+        result.setToUserEmail(toUserEmail);
+        result.setStatus("FAILED");
+        result.setMessage(message);
+        return result;
+    }
+
+    public static BulkTransferResult completed(int index, String toUserEmail, String transactionId) {
+        BulkTransferResult result = new BulkTransferResult();
+        result.setIndex(index);
+        result.setToUserEmail(toUserEmail);
+        result.setStatus("COMPLETED");
+        result.setMessage("Money sent successfully");
+        result.setTransactionId(transactionId);
+        return result;
+    }
+}
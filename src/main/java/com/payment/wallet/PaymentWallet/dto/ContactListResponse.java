@@ -0,0 +1,11 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import java.util.List;
+
+// Same body as the streamed /user/all response: the usual envelope plus the continuation cursor
+public record ContactListResponse(boolean success, String message, List<UserContact> data, String nextCursor) {
+
+    public static ContactListResponse ok(List<UserContact> data, String nextCursor) {
+        return new ContactListResponse(true, "Users retrieved successfully", data, nextCursor);
+    }
+}
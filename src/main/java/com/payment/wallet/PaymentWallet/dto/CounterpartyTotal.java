@@ -0,0 +1,7 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import java.math.BigDecimal;
+
+// What a user exchanged with one other user in a month, in rupees
+public record CounterpartyTotal(String userId, String name, BigDecimal sent, BigDecimal received, long count) {
+}
@@ -0,0 +1,10 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import java.math.BigDecimal;
+
+// One day's totals in rupees; days without activity are all zeros
+public record DailySummary(String day,
+                           BigDecimal sent, long sentCount,
+                           BigDecimal received, long receivedCount,
+                           BigDecimal deposited, long depositCount) {
+}
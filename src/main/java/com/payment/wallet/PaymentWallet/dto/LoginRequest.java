@@ -0,0 +1,5 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+// Body of /user/send-login-otp and /user/login-otp; otpCode is only read when logging in
+public record LoginRequest(String emailOrMobile, String otpCode) {
+}
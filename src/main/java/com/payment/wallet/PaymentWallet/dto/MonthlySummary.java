@@ -0,0 +1,12 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// One month's totals in rupees, with the counterparties the most money moved with
+public record MonthlySummary(String month,
+                             BigDecimal sent, long sentCount,
+                             BigDecimal received, long receivedCount,
+                             BigDecimal deposited, long depositCount,
+                             List<CounterpartyTotal> topCounterparties) {
+}
@@ -0,0 +1,5 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+// Body of the send and verify OTP endpoints; otpCode is only read when verifying
+public record OTPRequest(String userId, String purpose, String otpCode) {
+}
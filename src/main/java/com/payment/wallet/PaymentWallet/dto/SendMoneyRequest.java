@@ -0,0 +1,8 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import java.math.BigDecimal;
+
+// Body of /wallet/send and /wallet/send-with-otp; amount is in rupees, otpCode only for the OTP variant.
+// The receiver is toUserId when set (contacts only expose a masked email), otherwise toUserEmail.
+public record SendMoneyRequest(String fromUserId, String toUserId, String toUserEmail, BigDecimal amount, String description, String otpCode) {
+}
@@ -0,0 +1,18 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Progress of a statement export; poll it until status is COMPLETED, then download the file
+public record StatementExport(String jobId,
+                              String status, // QUEUED, RUNNING, COMPLETED, FAILED
+                              String format,
+                              boolean gzip,
+                              LocalDate from,
+                              LocalDate to,
+                              long rowsWritten,
+                              long bytesWritten,
+                              LocalDateTime requestedAt,
+                              LocalDateTime completedAt,
+                              String error) {
+}
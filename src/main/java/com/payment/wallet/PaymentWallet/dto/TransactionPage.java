@@ -0,0 +1,14 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TransactionPage {
+    private List<Transaction> items;
+    private String nextCursor; // null when there are no more transactions
+}
@@ -0,0 +1,32 @@
+package com.payment.wallet.PaymentWallet.dto;
+
+import com.payment.wallet.PaymentWallet.entity.User;
+import lombok.Data;
+
+// What the contacts list shows about another user; no password, mobile or full email
+@Data
+public class UserContact {
+    private String userId;
+    private String name;
+    private String maskedEmail; // j***@example.com
+
+    public static UserContact from(User user) {
+        UserContact contact = new UserContact();
+        contact.setUserId(user.getUserId());
+        contact.setName(user.getFullName());
+        contact.setMaskedEmail(maskEmail(user.getEmail()));
+        return contact;
+    }
+
+    // Keep the first character of the local part and the whole domain
+    static String maskEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        int at = email.indexOf('@');
+        if (at <= 0) {
+            return "***";
+        }
+        return email.charAt(0) + "***" + email.substring(at);
+    }
+}
@@ -0,0 +1,27 @@
+package com.payment.wallet.PaymentWallet.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Document(collection = "idempotencyKeys")
+public class IdempotencyRecord {
+    @Id
+    private String id; // OPERATION:userId:key, unique by being the _id
+
+    // Amount and recipient of the first request; a retry with different ones is refused
+    private String fingerprint;
+
+    private String transactionId; // null while the first request is still running
+
+    // The first request failed after it may have moved money; retries are refused until the record expires
+    private boolean failed;
+
+    // Mongo's TTL monitor removes the document once this passes
+    @Indexed(name = "idempotency_ttl", expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
@@ -0,0 +1,32 @@
+package com.payment.wallet.PaymentWallet.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One debit or credit against a wallet; entries are only ever inserted, and an entry is the balance
+// change: nothing else records it. The unique (userId, seq) index makes each sequence number a slot that
+// exactly one writer can take, and a writer only builds entry n + 1 from a state that has applied 1..n,
+// so an entry's balancePaise always follows from the complete prefix before it.
+@Data
+@Document(collection = "ledger")
+@CompoundIndex(name = "wallet_seq", def = "{ 'userId': 1, 'seq': 1 }", unique = true)
+public class LedgerEntry {
+    @Id
+    private String entryId;
+
+    private String userId; // userId#stripe for a hot wallet's stripes other than 0
+    private long seq; // 1, 2, 3... per wallet, no gaps
+
+    private long amountPaise; // negative for debits
+    private long balancePaise; // balance after this entry
+
+    // The transactions this entry settles: one for a transfer or deposit, several for a bulk payout
+    private List<String> transactionIds;
+
+    private LocalDateTime createdAt;
+}
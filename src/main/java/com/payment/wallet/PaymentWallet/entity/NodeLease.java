@@ -0,0 +1,19 @@
+package com.payment.wallet.PaymentWallet.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// One transaction-ID node id held by one running instance; taken over only once expiresAt has passed
+@Data
+@Document(collection = "nodeIds")
+public class NodeLease {
+    @Id
+    private int nodeId; // 0..65535, the node field of TransactionIdGenerator IDs
+
+    private String owner; // host/pid/random, unique per process start
+
+    private Instant expiresAt;
+}
@@ -0,0 +1,21 @@
+package com.payment.wallet.PaymentWallet.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Document(collection = "otps")
+public class OTPRecord {
+    @Id
+    private String id; // userId:PURPOSE
+
+    private String otpCode;
+
+    // Mongo's TTL monitor removes the document once this passes
+    @Indexed(name = "otp_ttl", expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
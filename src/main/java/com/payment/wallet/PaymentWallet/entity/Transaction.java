@@ -1,24 +1,36 @@
 package com.payment.wallet.PaymentWallet.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.payment.wallet.PaymentWallet.util.Money;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @Document(collection = "transactions")
+@CompoundIndexes({
+    // Keyset pagination over a user's history, one index per side of the $or; _id is time-ordered
+    @CompoundIndex(name = "from_id", def = "{ 'fromUserId': 1, '_id': -1 }"),
+    @CompoundIndex(name = "to_id", def = "{ 'toUserId': 1, '_id': -1 }")
+})
 public class Transaction {
     @Id
     private String transactionId;
     
     private String fromUserId;
     private String toUserId;
-    private Double amount; // Using Double for simplicity
+    @JsonIgnore
+    private long amountPaise; // stored as Int64, exposed as "amount" in rupees
     private String currency = "INR";
     
     private String type; // SEND, RECEIVE, DEPOSIT, WITHDRAW, TRANSFER
-    private String status = "PENDING"; // PENDING, COMPLETED, FAILED
+    private String status = "PENDING"; // PENDING, COMPLETED, FAILED, REFUND_FAILED
     
     private String description;
     private String referenceNumber;
@@ -30,6 +42,11 @@ public class Transaction {
     private String fromUserName; // Will be populated by service
     private String toUserName;   // Will be populated by service
     
+    // Amount in rupees for API responses
+    @JsonProperty("amount")
+    public BigDecimal getAmount() {
+        return Money.toRupees(amountPaise);
+    }
 
     public void markCompleted() {
         this.status = "COMPLETED";
@@ -39,4 +56,9 @@ public class Transaction {
     public void markFailed() {
         this.status = "FAILED";
     }
+
+    // Failed after the debit, and the refund could not be written either
+    public void markRefundFailed() {
+        this.status = "REFUND_FAILED";
+    }
 }
\ No newline at end of file
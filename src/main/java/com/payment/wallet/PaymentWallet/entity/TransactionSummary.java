@@ -0,0 +1,73 @@
+package com.payment.wallet.PaymentWallet.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Running totals for one user over one period, kept up to date with $inc upserts as transactions
+// complete. MONTH and DAY documents hold the user's own totals; a COUNTERPARTY document holds what
+// the user exchanged with one other user in a month, so a month's top counterparties are an index
+// walk rather than an ever-growing array inside the month document.
+@Data
+@Document(collection = "transaction_summaries")
+@CompoundIndex(name = "user_kind_period_total", def = "{ 'userId': 1, 'kind': 1, 'period': 1, 'totalPaise': -1 }")
+public class TransactionSummary {
+
+    public static final String MONTH = "MONTH";
+    public static final String DAY = "DAY";
+    public static final String COUNTERPARTY = "COUNTERPARTY";
+
+    @Id
+    private String id; // userId:kind:period[:counterpartyId]
+
+    private String userId;
+    private String kind; // MONTH, DAY, COUNTERPARTY
+    private String period; // yyyy-MM for MONTH and COUNTERPARTY, yyyy-MM-dd for DAY
+    private String counterpartyId; // COUNTERPARTY only
+
+    private long sentPaise;
+    private long sentCount;
+    private long receivedPaise;
+    private long receivedCount;
+    private long depositedPaise;
+    private long depositCount;
+    private long totalPaise; // everything that moved in either direction; orders counterparties
+
+    private LocalDateTime lastUpdatedAt;
+
+    public static TransactionSummary of(String userId, String kind, String period, String counterpartyId) {
+        TransactionSummary summary = new TransactionSummary();
+        summary.setId(idOf(userId, kind, period, counterpartyId));
+        summary.setUserId(userId);
+        summary.setKind(kind);
+        summary.setPeriod(period);
+        summary.setCounterpartyId(counterpartyId);
+        return summary;
+    }
+
+    public static String idOf(String userId, String kind, String period, String counterpartyId) {
+        String id = userId + ":" + kind + ":" + period;
+        return counterpartyId == null ? id : id + ":" + counterpartyId;
+    }
+
+    public void addSent(long amountPaise) {
+        sentPaise += amountPaise;
+        sentCount++;
+        totalPaise += amountPaise;
+    }
+
+    public void addReceived(long amountPaise) {
+        receivedPaise += amountPaise;
+        receivedCount++;
+        totalPaise += amountPaise;
+    }
+
+    public void addDeposit(long amountPaise) {
+        depositedPaise += amountPaise;
+        depositCount++;
+        totalPaise += amountPaise;
+    }
+}
@@ -1,9 +1,13 @@
 package com.payment.wallet.PaymentWallet.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.payment.wallet.PaymentWallet.util.Money;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -12,32 +16,48 @@ public class Wallet {
     @Id
     private String walletId;
     
-    private String userId;
-    private Double balance = 0.0;
+    private String userId; // unique; WalletIndexMigration merges old duplicates and builds the index
+    @JsonIgnore
+    private long balancePaise = 0; // stored as Int64, exposed as "balance" in rupees
     private String currency = "INR";
     private String status = "ACTIVE"; // ACTIVE, INACTIVE, BLOCKED
     
+    @JsonIgnore
+    private long revision = 0; // last ledger entry applied to this copy, orders cached copies
+
+    @JsonIgnore
+    private long ledgerSeq = 0; // ledger entry the stored balancePaise snapshot is taken at
+
+    @JsonIgnore
+    private int stripes = 0; // hot wallets spread credits over this many ledger chains (this one and WalletStripes 1..n-1); 0 or 1 is a plain wallet
+    
     private LocalDateTime createdAt = LocalDateTime.now();
     private LocalDateTime lastUpdatedAt = LocalDateTime.now();
     
-    // Simple method to add money
-    public void addMoney(Double amount) {
-        this.balance += amount;
+    // Balance in rupees for API responses
+    @JsonProperty("balance")
+    public BigDecimal getBalance() {
+        return Money.toRupees(balancePaise);
+    }
+    
+    // Simple method to add money (amount in paise)
+    public void addMoney(long amountPaise) {
+        this.balancePaise += amountPaise;
         this.lastUpdatedAt = LocalDateTime.now();
     }
     
-    // Simple method to deduct money
-    public boolean deductMoney(Double amount) {
-        if (this.balance >= amount) {
-            this.balance -= amount;
+    // Simple method to deduct money (amount in paise)
+    public boolean deductMoney(long amountPaise) {
+        if (this.balancePaise >= amountPaise) {
+            this.balancePaise -= amountPaise;
             this.lastUpdatedAt = LocalDateTime.now();
             return true;
         }
         return false;
     }
     
-    // Check if wallet has sufficient balance
-    public boolean hasSufficientBalance(Double amount) {
-        return this.balance >= amount;
+    // Check if wallet has sufficient balance (amount in paise)
+    public boolean hasSufficientBalance(long amountPaise) {
+        return this.balancePaise >= amountPaise;
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.payment.wallet.PaymentWallet.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// The snapshot of one of a hot wallet's extra ledger chains (stripe 0's is the wallet document itself).
+// Created by the chain's first snapshot, so there is no insert for concurrent loads to race; until then
+// the chain is read as empty at entry 0.
+@Data
+@Document(collection = "walletStripes")
+public class WalletStripe {
+    @Id
+    private String stripeId; // userId#stripe, also the userId of the chain's ledger entries
+
+    private String userId;
+    private int stripe; // 1..stripes - 1
+
+    private long balancePaise;
+    private long ledgerSeq; // ledger entry the balancePaise snapshot is taken at
+
+    private LocalDateTime lastUpdatedAt;
+}
@@ -1,7 +1,33 @@
 package com.payment.wallet.PaymentWallet.exceptions;
 
-public class ServerBusyException extends Exception{
-    public ServerBusyException(){
-        super("Server is busy, try again later!");
+import java.time.Duration;
+
+// Request shed by admission control; mapped to 503 with Retry-After. Like WalletException it skips the
+// stack trace, since it is thrown most often exactly when the server can least afford the work.
+public class ServerBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String MESSAGE = "Server is busy, try again later!";
+
+    private final Duration retryAfter;
+
+    public ServerBusyException() {
+        this(Duration.ofSeconds(1));
+    }
+
+    public ServerBusyException(Duration retryAfter) {
+        super(MESSAGE, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    // Whole seconds for the Retry-After header, rounded up and never zero
+    public long getRetryAfterSeconds() {
+        long seconds = (retryAfter.toMillis() + 999) / 1000;
+        return Math.max(1, seconds);
     }
 }
@@ -0,0 +1,55 @@
+package com.payment.wallet.PaymentWallet.exceptions;
+
+import com.payment.wallet.PaymentWallet.dto.ApiResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// Expected business failure. It carries its HTTP status and a ready-made response body, and skips
+// the stack trace, so the fixed-message instances below can be shared and rethrown freely.
+public class WalletException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final WalletException AMOUNT_REQUIRED = new WalletException(HttpStatus.BAD_REQUEST, "Amount is required");
+    public static final WalletException INVALID_AMOUNT = new WalletException(HttpStatus.BAD_REQUEST, "Invalid amount");
+    public static final WalletException TOO_MANY_DECIMALS = new WalletException(HttpStatus.BAD_REQUEST, "Amount can have at most 2 decimal places");
+    public static final WalletException AMOUNT_NOT_POSITIVE = new WalletException(HttpStatus.BAD_REQUEST, "Amount must be greater than zero");
+    public static final WalletException INSUFFICIENT_BALANCE = new WalletException(HttpStatus.BAD_REQUEST, "Insufficient balance");
+    public static final WalletException RECEIVER_NOT_FOUND = new WalletException(HttpStatus.BAD_REQUEST, "Receiver not found");
+    public static final WalletException USER_NOT_FOUND = new WalletException(HttpStatus.NOT_FOUND, "User not found");
+    public static final WalletException USER_EXISTS = new WalletException(HttpStatus.CONFLICT, "User with this email or mobile already exists");
+    public static final WalletException INVALID_OTP = new WalletException(HttpStatus.BAD_REQUEST, "Invalid or expired OTP");
+    public static final WalletException LOGIN_FAILED = new WalletException(HttpStatus.UNAUTHORIZED, "Invalid OTP or user not found");
+    public static final WalletException INVALID_CURSOR = new WalletException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    public static final WalletException SEARCH_QUERY_REQUIRED = new WalletException(HttpStatus.BAD_REQUEST, "Search query is required");
+    public static final WalletException TRANSACTION_FAILED = new WalletException(HttpStatus.INTERNAL_SERVER_ERROR, "Transaction failed");
+    public static final WalletException ADD_MONEY_FAILED = new WalletException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to add money");
+    public static final WalletException NO_TRANSFERS = new WalletException(HttpStatus.BAD_REQUEST, "No transfers given");
+    public static final WalletException REQUEST_IN_PROGRESS = new WalletException(HttpStatus.CONFLICT, "A request with this idempotency key is already in progress");
+    public static final WalletException REQUEST_OUTCOME_UNKNOWN = new WalletException(HttpStatus.CONFLICT, "A request with this idempotency key failed part way; check your transactions before retrying with a new key");
+    public static final WalletException IDEMPOTENCY_KEY_REUSED = new WalletException(HttpStatus.UNPROCESSABLE_ENTITY, "This idempotency key was already used for a different amount or recipient");
+    public static final WalletException INVALID_STATEMENT_FORMAT = new WalletException(HttpStatus.BAD_REQUEST, "Statement format must be csv or ndjson");
+    public static final WalletException INVALID_STATEMENT_RANGE = new WalletException(HttpStatus.BAD_REQUEST, "Statement start date is after its end date");
+    public static final WalletException STATEMENT_IN_PROGRESS = new WalletException(HttpStatus.CONFLICT, "A statement export is already running for this user");
+    public static final WalletException STATEMENT_NOT_FOUND = new WalletException(HttpStatus.NOT_FOUND, "Statement export not found");
+    public static final WalletException STATEMENT_NOT_READY = new WalletException(HttpStatus.CONFLICT, "Statement export has not completed");
+    public static final WalletException INVALID_MONTH = new WalletException(HttpStatus.BAD_REQUEST, "Month must be given as yyyy-MM");
+    public static final WalletException INVALID_SUMMARY_RANGE = new WalletException(HttpStatus.BAD_REQUEST, "Summary start date is after its end date");
+
+    private final HttpStatus status;
+    private final transient ResponseEntity<ApiResponse<Void>> response;
+
+    public WalletException(HttpStatus status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+        this.response = ResponseEntity.status(status).body(ApiResponse.failure(message));
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public ResponseEntity<ApiResponse<Void>> getResponse() {
+        return response;
+    }
+}
@@ -0,0 +1,7 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IdempotencyRepo extends MongoRepository<IdempotencyRecord, String> {
+}
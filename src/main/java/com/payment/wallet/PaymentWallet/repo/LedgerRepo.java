@@ -0,0 +1,11 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.LedgerEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface LedgerRepo extends MongoRepository<LedgerEntry, String>, LedgerRepoCustom {
+    // The tail after a snapshot, in sequence order
+    List<LedgerEntry> findByUserIdAndSeqGreaterThanOrderBySeqAsc(String userId, long afterSeq);
+}
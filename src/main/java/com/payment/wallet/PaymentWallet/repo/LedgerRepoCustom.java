@@ -0,0 +1,13 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.LedgerEntry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface LedgerRepoCustom {
+    boolean append(LedgerEntry entry);
+    Set<String> appendAll(List<LedgerEntry> entries);
+    List<LedgerEntry> findTails(Map<String, Long> afterSeqByUserId);
+}
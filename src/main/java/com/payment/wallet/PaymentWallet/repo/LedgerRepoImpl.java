@@ -0,0 +1,75 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.payment.wallet.PaymentWallet.entity.LedgerEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Appends take a sequence slot or lose it to a concurrent writer; nothing here updates or deletes
+public class LedgerRepoImpl implements LedgerRepoCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // False when another writer already took this entry's sequence number
+    @Override
+    public boolean append(LedgerEntry entry) {
+        try {
+            mongoTemplate.insert(entry);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // One unordered insert for entries on different wallets; returns the userIds whose entry was not written,
+    // whether it lost its slot or failed on its own
+    @Override
+    public Set<String> appendAll(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return Set.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LedgerEntry.class);
+        bulk.insert(entries);
+        try {
+            bulk.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            return unwritten(entries, e);
+        }
+    }
+
+    static Set<String> unwritten(List<LedgerEntry> entries, BulkOperationException e) {
+        Set<String> failed = new HashSet<>();
+        for (BulkWriteError error : e.getErrors()) {
+            failed.add(entries.get(error.getIndex()).getUserId());
+        }
+        return failed;
+    }
+
+    // Tails of several wallets in one query, in sequence order per wallet
+    @Override
+    public List<LedgerEntry> findTails(Map<String, Long> afterSeqByUserId) {
+        if (afterSeqByUserId.isEmpty()) {
+            return List.of();
+        }
+        List<Criteria> tails = new ArrayList<>();
+        for (Map.Entry<String, Long> tail : afterSeqByUserId.entrySet()) {
+            tails.add(Criteria.where("userId").is(tail.getKey()).and("seq").gt(tail.getValue()));
+        }
+        Query query = new Query(new Criteria().orOperator(tails)).with(Sort.by("userId", "seq"));
+        return mongoTemplate.find(query, LedgerEntry.class);
+    }
+}
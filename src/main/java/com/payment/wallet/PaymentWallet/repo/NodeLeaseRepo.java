@@ -0,0 +1,7 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.NodeLease;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface NodeLeaseRepo extends MongoRepository<NodeLease, Integer>, NodeLeaseRepoCustom {
+}
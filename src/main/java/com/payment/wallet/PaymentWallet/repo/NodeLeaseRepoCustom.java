@@ -0,0 +1,9 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import java.time.Instant;
+
+public interface NodeLeaseRepoCustom {
+    boolean claim(int nodeId, String owner, Instant now, Instant expiresAt);
+    boolean renew(int nodeId, String owner, Instant expiresAt);
+    void release(int nodeId, String owner);
+}
@@ -0,0 +1,46 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.NodeLease;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+// Each lease is one document keyed by the node id, so the _id index decides every race for an id
+public class NodeLeaseRepoImpl implements NodeLeaseRepoCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Take the id if nobody holds it, its lease has run out, or we already hold it. A live lease of
+    // another owner does not match, so the upsert tries to insert a second _id and is refused.
+    @Override
+    public boolean claim(int nodeId, String owner, Instant now, Instant expiresAt) {
+        Query query = new Query(Criteria.where("_id").is(nodeId)
+                .orOperator(Criteria.where("expiresAt").lt(now), Criteria.where("owner").is(owner)));
+        Update update = new Update().set("owner", owner).set("expiresAt", expiresAt);
+        try {
+            mongoTemplate.upsert(query, update, NodeLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // False once someone else has taken the id over
+    @Override
+    public boolean renew(int nodeId, String owner, Instant expiresAt) {
+        Query query = new Query(Criteria.where("_id").is(nodeId).and("owner").is(owner));
+        return mongoTemplate.updateFirst(query, new Update().set("expiresAt", expiresAt), NodeLease.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public void release(int nodeId, String owner) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(nodeId).and("owner").is(owner)), NodeLease.class);
+    }
+}
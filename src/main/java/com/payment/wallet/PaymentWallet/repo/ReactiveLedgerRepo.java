@@ -0,0 +1,10 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.LedgerEntry;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveLedgerRepo extends ReactiveMongoRepository<LedgerEntry, String>, ReactiveLedgerRepoCustom {
+    // The tail after a snapshot, in sequence order
+    Flux<LedgerEntry> findByUserIdAndSeqGreaterThanOrderBySeqAsc(String userId, long afterSeq);
+}
@@ -0,0 +1,15 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.LedgerEntry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ReactiveLedgerRepoCustom {
+    Mono<Boolean> append(LedgerEntry entry);
+    Mono<Set<String>> appendAll(List<LedgerEntry> entries);
+    Flux<LedgerEntry> findTails(Map<String, Long> afterSeqByUserId);
+}
@@ -0,0 +1,62 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.LedgerEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Same appends as LedgerRepoImpl, on the reactive driver
+public class ReactiveLedgerRepoImpl implements ReactiveLedgerRepoCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    // False when another writer already took this entry's sequence number
+    @Override
+    public Mono<Boolean> append(LedgerEntry entry) {
+        return reactiveMongoTemplate.insert(entry)
+                .thenReturn(true)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false));
+    }
+
+    // One unordered insert for entries on different wallets; emits the userIds whose entry was not written
+    @Override
+    public Mono<Set<String>> appendAll(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        ReactiveBulkOperations bulk = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LedgerEntry.class);
+        bulk.insert(entries);
+
+        return bulk.execute()
+                .<Set<String>>thenReturn(Set.of())
+                .onErrorResume(BulkOperationException.class, e -> Mono.just(LedgerRepoImpl.unwritten(entries, e)));
+    }
+
+    // Tails of several wallets in one query, in sequence order per wallet
+    @Override
+    public Flux<LedgerEntry> findTails(Map<String, Long> afterSeqByUserId) {
+        if (afterSeqByUserId.isEmpty()) {
+            return Flux.empty();
+        }
+        List<Criteria> tails = new ArrayList<>();
+        for (Map.Entry<String, Long> tail : afterSeqByUserId.entrySet()) {
+            tails.add(Criteria.where("userId").is(tail.getKey()).and("seq").gt(tail.getValue()));
+        }
+        Query query = new Query(new Criteria().orOperator(tails)).with(Sort.by("userId", "seq"));
+        return reactiveMongoTemplate.find(query, LedgerEntry.class);
+    }
+}
@@ -0,0 +1,9 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveTransactionRepo extends ReactiveMongoRepository<Transaction, String>, ReactiveTransactionRepoCustom {
+    Flux<Transaction> findByFromUserIdOrToUserIdOrderByCreatedAtDesc(String fromUserId, String toUserId);
+}
@@ -0,0 +1,9 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveTransactionRepoCustom {
+    Flux<Transaction> findPageForUser(String userId, String afterTransactionId, int limit);
+    Flux<Transaction> streamForUser(String userId);
+}
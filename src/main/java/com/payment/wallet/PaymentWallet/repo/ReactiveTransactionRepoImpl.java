@@ -0,0 +1,43 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+// Keyset queries over a user's history, newest first, as in TransactionRepoImpl
+public class ReactiveTransactionRepoImpl implements ReactiveTransactionRepoCustom {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "_id");
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    // Next page strictly older than afterTransactionId; first page when it is null
+    @Override
+    public Flux<Transaction> findPageForUser(String userId, String afterTransactionId, int limit) {
+        Criteria criteria = involvingUser(userId);
+        if (afterTransactionId != null) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where("_id").lt(afterTransactionId));
+        }
+
+        Query query = new Query(criteria).with(NEWEST_FIRST).limit(limit);
+        return reactiveMongoTemplate.find(query, Transaction.class);
+    }
+
+    // Whole history; the driver fetches further batches only as the subscriber requests them
+    @Override
+    public Flux<Transaction> streamForUser(String userId) {
+        Query query = new Query(involvingUser(userId)).with(NEWEST_FIRST);
+        return reactiveMongoTemplate.find(query, Transaction.class);
+    }
+
+    private Criteria involvingUser(String userId) {
+        return new Criteria().orOperator(
+                Criteria.where("fromUserId").is(userId),
+                Criteria.where("toUserId").is(userId));
+    }
+}
@@ -0,0 +1,7 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.TransactionSummary;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveTransactionSummaryRepo extends ReactiveMongoRepository<TransactionSummary, String>, ReactiveTransactionSummaryRepoCustom {
+}
@@ -0,0 +1,13 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.TransactionSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveTransactionSummaryRepoCustom {
+    Mono<Void> applyAll(Collection<TransactionSummary> deltas);
+    Flux<TransactionSummary> findTopCounterparties(String userId, String month, int limit);
+    Flux<TransactionSummary> findDays(String userId, String fromDay, String toDay);
+}
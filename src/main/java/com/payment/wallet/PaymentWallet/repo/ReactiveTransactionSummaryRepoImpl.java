@@ -0,0 +1,52 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.TransactionSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+// Same increments and reads as TransactionSummaryRepoImpl, on the reactive driver
+public class ReactiveTransactionSummaryRepoImpl implements ReactiveTransactionSummaryRepoCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Void> applyAll(Collection<TransactionSummary> deltas) {
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations bulk = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransactionSummary.class);
+        for (TransactionSummary delta : deltas) {
+            bulk.upsert(Query.query(Criteria.where("_id").is(delta.getId())), TransactionSummaryRepoImpl.increment(delta));
+        }
+        return bulk.execute().then();
+    }
+
+    @Override
+    public Flux<TransactionSummary> findTopCounterparties(String userId, String month, int limit) {
+        Query query = Query.query(Criteria.where("userId").is(userId)
+                        .and("kind").is(TransactionSummary.COUNTERPARTY)
+                        .and("period").is(month))
+                .with(Sort.by(Sort.Direction.DESC, "totalPaise"))
+                .limit(limit);
+        return reactiveMongoTemplate.find(query, TransactionSummary.class);
+    }
+
+    @Override
+    public Flux<TransactionSummary> findDays(String userId, String fromDay, String toDay) {
+        Query query = Query.query(Criteria.where("userId").is(userId)
+                        .and("kind").is(TransactionSummary.DAY)
+                        .and("period").gte(fromDay).lte(toDay))
+                .with(Sort.by("period"));
+        return reactiveMongoTemplate.find(query, TransactionSummary.class);
+    }
+}
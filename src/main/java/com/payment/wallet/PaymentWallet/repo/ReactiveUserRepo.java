@@ -0,0 +1,19 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.User;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveUserRepo extends ReactiveMongoRepository<User, String>, ReactiveUserRepoCustom {
+    Mono<User> findByEmail(String email);
+    Mono<User> findByEmailOrMobile(String email, String mobile);
+    Flux<User> findByEmailIn(Collection<String> emails);
+
+    // Only first and last name are loaded, for display purposes
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ 'firstName': 1, 'lastName': 1 }")
+    Flux<User> findNamesByUserIdIn(Collection<String> userIds);
+}
@@ -0,0 +1,12 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface ReactiveUserRepoCustom {
+    Flux<User> streamContacts(String afterUserId, int limit);
+    Mono<User> recordLogin(String userId, LocalDateTime loginAt);
+}
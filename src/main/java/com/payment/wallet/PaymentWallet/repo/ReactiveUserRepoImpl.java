@@ -0,0 +1,46 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+// Contact listing in _id order, projected like UserRepoImpl
+public class ReactiveUserRepoImpl implements ReactiveUserRepoCustom {
+
+    private static final int CURSOR_BATCH_SIZE = 500;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    // Users strictly after afterUserId
+    @Override
+    public Flux<User> streamContacts(String afterUserId, int limit) {
+        Query query = new Query();
+        if (afterUserId != null) {
+            query.addCriteria(Criteria.where("_id").gt(afterUserId));
+        }
+        query.fields().include("firstName", "lastName", "email");
+        query.with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(limit)
+                .cursorBatchSize(Math.min(limit, CURSOR_BATCH_SIZE));
+        return reactiveMongoTemplate.find(query, User.class);
+    }
+
+    // As in UserRepoImpl.recordLogin: a targeted $set, never a whole-document write
+    @Override
+    public Mono<User> recordLogin(String userId, LocalDateTime loginAt) {
+        return reactiveMongoTemplate.findAndModify(new Query(Criteria.where("_id").is(userId)),
+                new Update().set("lastLoginAt", loginAt),
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+    }
+}
@@ -0,0 +1,13 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveWalletRepo extends ReactiveMongoRepository<Wallet, String>, ReactiveWalletRepoCustom {
+    Mono<Wallet> findByUserId(String userId);
+    Flux<Wallet> findByUserIdIn(Collection<String> userIds);
+}
@@ -0,0 +1,8 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveWalletRepoCustom {
+    Mono<Boolean> saveSnapshot(String userId, long balancePaise, long ledgerSeq);
+    Mono<Void> raiseStripes(String userId, int stripes);
+}
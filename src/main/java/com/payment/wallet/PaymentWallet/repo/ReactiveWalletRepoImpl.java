@@ -0,0 +1,30 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+// Same snapshot writes as WalletRepoImpl, on the reactive driver
+public class ReactiveWalletRepoImpl implements ReactiveWalletRepoCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    // Move the snapshot forward to ledgerSeq; never back
+    @Override
+    public Mono<Boolean> saveSnapshot(String userId, long balancePaise, long ledgerSeq) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("ledgerSeq").lt(ledgerSeq));
+        return reactiveMongoTemplate.updateFirst(query, WalletRepoImpl.snapshotUpdate(balancePaise, ledgerSeq), Wallet.class)
+                .map(result -> result.getModifiedCount() > 0);
+    }
+
+    @Override
+    public Mono<Void> raiseStripes(String userId, int stripes) {
+        return reactiveMongoTemplate.updateFirst(new Query(Criteria.where("userId").is(userId)), new Update().max("stripes", stripes), Wallet.class)
+                .then();
+    }
+}
@@ -0,0 +1,7 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.WalletStripe;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveWalletStripeRepo extends ReactiveMongoRepository<WalletStripe, String>, ReactiveWalletStripeRepoCustom {
+}
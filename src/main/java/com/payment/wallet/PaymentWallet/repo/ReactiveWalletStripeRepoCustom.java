@@ -0,0 +1,7 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveWalletStripeRepoCustom {
+    Mono<Boolean> saveSnapshot(String userId, int stripe, long balancePaise, long ledgerSeq);
+}
@@ -0,0 +1,22 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.WalletStripe;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+// Same stripe snapshots as WalletStripeRepoImpl, on the reactive driver
+public class ReactiveWalletStripeRepoImpl implements ReactiveWalletStripeRepoCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Boolean> saveSnapshot(String userId, int stripe, long balancePaise, long ledgerSeq) {
+        return reactiveMongoTemplate.upsert(WalletStripeRepoImpl.snapshotQuery(userId, stripe, ledgerSeq),
+                        WalletStripeRepoImpl.snapshotUpdate(userId, stripe, balancePaise, ledgerSeq), WalletStripe.class)
+                .map(WalletStripeRepoImpl::saved)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false));
+    }
+}
@@ -5,8 +5,8 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
 
-public interface TransactionRepo extends MongoRepository<Transaction, String> {
+public interface TransactionRepo extends MongoRepository<Transaction, String>, TransactionRepoCustom {
     List<Transaction> findByFromUserIdOrToUserIdOrderByCreatedAtDesc(String fromUserId, String toUserId);
     List<Transaction> findByFromUserIdOrderByCreatedAtDesc(String fromUserId);
     List<Transaction> findByToUserIdOrderByCreatedAtDesc(String toUserId);
-}
\ No newline at end of file
+}
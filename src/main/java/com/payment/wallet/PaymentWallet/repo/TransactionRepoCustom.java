@@ -0,0 +1,15 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface TransactionRepoCustom {
+    List<Transaction> findPageForUser(String userId, String afterTransactionId, int limit);
+    Stream<Transaction> streamForUser(String userId);
+    Stream<Transaction> streamStatement(String userId, String fromTransactionId, String toTransactionId);
+    List<Transaction> findBatchBefore(String afterTransactionId, String beforeTransactionId, int limit);
+    Map<Integer, Integer> insertUnordered(List<Transaction> transactions);
+}
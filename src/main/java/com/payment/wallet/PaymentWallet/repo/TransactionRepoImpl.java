@@ -0,0 +1,104 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Keyset queries over a user's history, newest first; transaction IDs are time-ordered so _id alone orders them
+public class TransactionRepoImpl implements TransactionRepoCustom {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "_id");
+    private static final Sort OLDEST_FIRST = Sort.by(Sort.Direction.ASC, "_id");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Next page strictly older than afterTransactionId; first page when it is null
+    @Override
+    public List<Transaction> findPageForUser(String userId, String afterTransactionId, int limit) {
+        Criteria criteria = involvingUser(userId);
+        if (afterTransactionId != null) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where("_id").lt(afterTransactionId));
+        }
+
+        Query query = new Query(criteria).with(NEWEST_FIRST).limit(limit);
+        return mongoTemplate.find(query, Transaction.class);
+    }
+
+    // Whole history backed by a live cursor; the caller must close the stream
+    @Override
+    public Stream<Transaction> streamForUser(String userId) {
+        Query query = new Query(involvingUser(userId)).with(NEWEST_FIRST);
+        return mongoTemplate.stream(query, Transaction.class);
+    }
+
+    // History in statement order over [fromTransactionId, toTransactionId); either bound may be null.
+    // Same indexes as the pages, walked the other way; the caller must close the stream
+    @Override
+    public Stream<Transaction> streamStatement(String userId, String fromTransactionId, String toTransactionId) {
+        Criteria criteria = involvingUser(userId);
+        if (fromTransactionId != null || toTransactionId != null) {
+            Criteria range = Criteria.where("_id");
+            if (fromTransactionId != null) {
+                range = range.gte(fromTransactionId);
+            }
+            if (toTransactionId != null) {
+                range = range.lt(toTransactionId);
+            }
+            criteria = new Criteria().andOperator(criteria, range);
+        }
+
+        Query query = new Query(criteria).with(OLDEST_FIRST);
+        return mongoTemplate.stream(query, Transaction.class);
+    }
+
+    // Every user's transactions in (afterTransactionId, beforeTransactionId), oldest first; for backfills
+    @Override
+    public List<Transaction> findBatchBefore(String afterTransactionId, String beforeTransactionId, int limit) {
+        Criteria range = Criteria.where("_id").lt(beforeTransactionId);
+        if (afterTransactionId != null) {
+            range = range.gt(afterTransactionId);
+        }
+
+        Query query = new Query(range).with(OLDEST_FIRST).limit(limit);
+        return mongoTemplate.find(query, Transaction.class);
+    }
+
+    private Criteria involvingUser(String userId) {
+        return new Criteria().orOperator(
+                Criteria.where("fromUserId").is(userId),
+                Criteria.where("toUserId").is(userId));
+    }
+
+    // One unordered insertMany, so a bad record does not stop the ones after it; returns the position of
+    // each record that was not written with its Mongo error code (11000 for a duplicate _id)
+    @Override
+    public Map<Integer, Integer> insertUnordered(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return Map.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class);
+        bulk.insert(transactions);
+        try {
+            bulk.execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            Map<Integer, Integer> failed = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.put(error.getIndex(), error.getCode());
+            }
+            return failed;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.TransactionSummary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface TransactionSummaryRepo extends MongoRepository<TransactionSummary, String>, TransactionSummaryRepoCustom {
+}
@@ -0,0 +1,12 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.TransactionSummary;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TransactionSummaryRepoCustom {
+    void applyAll(Collection<TransactionSummary> deltas);
+    List<TransactionSummary> findTopCounterparties(String userId, String month, int limit);
+    List<TransactionSummary> findDays(String userId, String fromDay, String toDay);
+}
@@ -0,0 +1,80 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.TransactionSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+// Summaries are only ever incremented, never read-modified-written, so concurrent writers cannot lose updates
+public class TransactionSummaryRepoImpl implements TransactionSummaryRepoCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // One unordered bulk of $inc upserts, one per summary document touched
+    @Override
+    public void applyAll(Collection<TransactionSummary> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransactionSummary.class);
+        for (TransactionSummary delta : deltas) {
+            bulk.upsert(Query.query(Criteria.where("_id").is(delta.getId())), increment(delta));
+        }
+        bulk.execute();
+    }
+
+    // Indexed walk down one month's counterparties, largest first
+    @Override
+    public List<TransactionSummary> findTopCounterparties(String userId, String month, int limit) {
+        Query query = Query.query(Criteria.where("userId").is(userId)
+                        .and("kind").is(TransactionSummary.COUNTERPARTY)
+                        .and("period").is(month))
+                .with(Sort.by(Sort.Direction.DESC, "totalPaise"))
+                .limit(limit);
+        return mongoTemplate.find(query, TransactionSummary.class);
+    }
+
+    // Days with any activity in [fromDay, toDay], oldest first
+    @Override
+    public List<TransactionSummary> findDays(String userId, String fromDay, String toDay) {
+        Query query = Query.query(Criteria.where("userId").is(userId)
+                        .and("kind").is(TransactionSummary.DAY)
+                        .and("period").gte(fromDay).lte(toDay))
+                .with(Sort.by("period"));
+        return mongoTemplate.find(query, TransactionSummary.class);
+    }
+
+    static Update increment(TransactionSummary delta) {
+        Update update = new Update()
+                .setOnInsert("userId", delta.getUserId())
+                .setOnInsert("kind", delta.getKind())
+                .setOnInsert("period", delta.getPeriod())
+                .set("lastUpdatedAt", delta.getLastUpdatedAt());
+        if (delta.getCounterpartyId() != null) {
+            update.setOnInsert("counterpartyId", delta.getCounterpartyId());
+        }
+        incrementIfSet(update, "sentPaise", delta.getSentPaise());
+        incrementIfSet(update, "sentCount", delta.getSentCount());
+        incrementIfSet(update, "receivedPaise", delta.getReceivedPaise());
+        incrementIfSet(update, "receivedCount", delta.getReceivedCount());
+        incrementIfSet(update, "depositedPaise", delta.getDepositedPaise());
+        incrementIfSet(update, "depositCount", delta.getDepositCount());
+        incrementIfSet(update, "totalPaise", delta.getTotalPaise());
+        return update;
+    }
+
+    // A missing field reads as zero, so untouched counters are left out of the update
+    private static void incrementIfSet(Update update, String field, long amount) {
+        if (amount != 0) {
+            update.inc(field, amount);
+        }
+    }
+}
@@ -2,12 +2,20 @@ package com.payment.wallet.PaymentWallet.repo;
 
 import com.payment.wallet.PaymentWallet.entity.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface UserRepo extends MongoRepository<User, String> {
+public interface UserRepo extends MongoRepository<User, String>, UserRepoCustom {
     Optional<User> findByEmail(String email);
     Optional<User> findByMobile(String mobile);
     Optional<User> findByEmailOrMobile(String email, String mobile);
     Optional<User> findByUserId(String userId);
-}
\ No newline at end of file
+    List<User> findByEmailIn(Collection<String> emails);
+
+    // Only first and last name are loaded, for display purposes
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ 'firstName': 1, 'lastName': 1 }")
+    List<User> findNamesByUserIdIn(Collection<String> userIds);
+}
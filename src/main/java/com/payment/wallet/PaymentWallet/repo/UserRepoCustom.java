@@ -0,0 +1,12 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public interface UserRepoCustom {
+    Stream<User> streamContacts(String afterUserId, int limit);
+    Stream<User> streamForSearchIndex();
+    User recordLogin(String userId, LocalDateTime loginAt);
+}
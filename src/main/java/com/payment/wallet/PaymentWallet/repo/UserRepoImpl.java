@@ -0,0 +1,55 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+// Contact listing in _id order; only the fields a contact row needs ever leave the database
+public class UserRepoImpl implements UserRepoCustom {
+
+    private static final int CURSOR_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Users strictly after afterUserId, from a live cursor; the caller must close the stream
+    @Override
+    public Stream<User> streamContacts(String afterUserId, int limit) {
+        Query query = new Query();
+        if (afterUserId != null) {
+            query.addCriteria(Criteria.where("_id").gt(afterUserId));
+        }
+        query.fields().include("firstName", "lastName", "email");
+        query.with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(limit)
+                .cursorBatchSize(Math.min(limit, CURSOR_BATCH_SIZE));
+        return mongoTemplate.stream(query, User.class);
+    }
+
+    // Every user with just the fields the contact search index tokenizes
+    @Override
+    public Stream<User> streamForSearchIndex() {
+        Query query = new Query();
+        query.fields().include("firstName", "lastName", "email", "mobile");
+        query.cursorBatchSize(CURSOR_BATCH_SIZE);
+        return mongoTemplate.stream(query, User.class);
+    }
+
+    // Only lastLoginAt is written, so a stale copy of the user can never put back an old password hash;
+    // returns the stored document after the update, or null when the user is gone
+    @Override
+    public User recordLogin(String userId, LocalDateTime loginAt) {
+        return mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(userId)),
+                new Update().set("lastLoginAt", loginAt),
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+    }
+}
@@ -3,8 +3,11 @@ package com.payment.wallet.PaymentWallet.repo;
 import com.payment.wallet.PaymentWallet.entity.Wallet;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface WalletRepo extends MongoRepository<Wallet, String> {
+public interface WalletRepo extends MongoRepository<Wallet, String>, WalletRepoCustom {
     Optional<Wallet> findByUserId(String userId);
-}
\ No newline at end of file
+    List<Wallet> findByUserIdIn(Collection<String> userIds);
+}
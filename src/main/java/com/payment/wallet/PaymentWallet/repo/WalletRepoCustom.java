@@ -0,0 +1,6 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+public interface WalletRepoCustom {
+    boolean saveSnapshot(String userId, long balancePaise, long ledgerSeq);
+    void raiseStripes(String userId, int stripes);
+}
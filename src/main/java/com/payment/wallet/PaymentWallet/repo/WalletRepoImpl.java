@@ -0,0 +1,37 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+
+// The wallet document only holds the balance snapshot; money moves through LedgerRepo
+public class WalletRepoImpl implements WalletRepoCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Move the snapshot forward to ledgerSeq; never back, so a slow snapshot writer cannot undo a newer one
+    @Override
+    public boolean saveSnapshot(String userId, long balancePaise, long ledgerSeq) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("ledgerSeq").lt(ledgerSeq));
+        return mongoTemplate.updateFirst(query, snapshotUpdate(balancePaise, ledgerSeq), Wallet.class).getModifiedCount() > 0;
+    }
+
+    static Update snapshotUpdate(long balancePaise, long ledgerSeq) {
+        return new Update()
+                .set("balancePaise", balancePaise)
+                .set("ledgerSeq", ledgerSeq)
+                .set("lastUpdatedAt", LocalDateTime.now());
+    }
+
+    // $max, so two instances enabling different counts settle on the larger
+    @Override
+    public void raiseStripes(String userId, int stripes) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("userId").is(userId)), new Update().max("stripes", stripes), Wallet.class);
+    }
+}
@@ -0,0 +1,7 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.payment.wallet.PaymentWallet.entity.WalletStripe;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface WalletStripeRepo extends MongoRepository<WalletStripe, String>, WalletStripeRepoCustom {
+}
@@ -0,0 +1,5 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+public interface WalletStripeRepoCustom {
+    boolean saveSnapshot(String userId, int stripe, long balancePaise, long ledgerSeq);
+}
@@ -0,0 +1,47 @@
+package com.payment.wallet.PaymentWallet.repo;
+
+import com.mongodb.client.result.UpdateResult;
+import com.payment.wallet.PaymentWallet.entity.WalletStripe;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+// A stripe's snapshot, kept the way WalletRepoImpl keeps the wallet's
+public class WalletStripeRepoImpl implements WalletStripeRepoCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Upserts, so a stripe's first snapshot creates its document; a newer snapshot already in place turns
+    // the upsert into a duplicate key, which leaves it there
+    @Override
+    public boolean saveSnapshot(String userId, int stripe, long balancePaise, long ledgerSeq) {
+        try {
+            return saved(mongoTemplate.upsert(snapshotQuery(userId, stripe, ledgerSeq),
+                    snapshotUpdate(userId, stripe, balancePaise, ledgerSeq), WalletStripe.class));
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    static boolean saved(UpdateResult result) {
+        return result.getModifiedCount() > 0 || result.getUpsertedId() != null;
+    }
+
+    static String stripeId(String userId, int stripe) {
+        return userId + "#" + stripe;
+    }
+
+    static Query snapshotQuery(String userId, int stripe, long ledgerSeq) {
+        return new Query(Criteria.where("_id").is(stripeId(userId, stripe)).and("ledgerSeq").lt(ledgerSeq));
+    }
+
+    static Update snapshotUpdate(String userId, int stripe, long balancePaise, long ledgerSeq) {
+        return WalletRepoImpl.snapshotUpdate(balancePaise, ledgerSeq)
+                .setOnInsert("userId", userId)
+                .setOnInsert("stripe", stripe);
+    }
+}
@@ -0,0 +1,156 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Global cap on requests in flight, adapted to observed latency. Each window compares its average
+// latency with a long-run average; when requests start queueing the short one rises and the limit
+// shrinks, and while latency stays near the long-run level the limit grows by about sqrt(limit).
+// Reads may use the whole limit, writes only a share of it, so balance checks outlive a write spike.
+@Service
+public class ConcurrencyLimiter {
+
+    public enum Lane { READ, WRITE }
+
+    private static final ServerBusyException SHED = new ServerBusyException(Duration.ofSeconds(1));
+
+    @Value("${wallet.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wallet.admission.initial-limit:200}")
+    private int initialLimit;
+
+    @Value("${wallet.admission.min-limit:20}")
+    private int minLimit;
+
+    @Value("${wallet.admission.max-limit:2000}")
+    private int maxLimit;
+
+    @Value("${wallet.admission.write-share:0.8}")
+    private double writeShare;
+
+    // How far the window latency may rise over the long-run average before the limit shrinks
+    @Value("${wallet.admission.tolerance:1.5}")
+    private double tolerance;
+
+    @Value("${wallet.admission.window:100ms}")
+    private Duration window;
+
+    @Value("${wallet.admission.min-window-samples:10}")
+    private int minWindowSamples;
+
+    // Windows averaged into the long-run latency
+    @Value("${wallet.admission.long-window:600}")
+    private int longWindow;
+
+    private volatile double limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final AtomicLong windowLatencyNanos = new AtomicLong();
+    private final AtomicInteger windowSamples = new AtomicInteger();
+    private final AtomicBoolean updating = new AtomicBoolean();
+    private volatile long windowStart = System.nanoTime();
+    private double longRttNanos;
+
+    private final AtomicLong shedReads = new AtomicLong();
+    private final AtomicLong shedWrites = new AtomicLong();
+
+    @PostConstruct
+    public void initializeLimit() {
+        limit = initialLimit;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Admit a request or throw; the returned start time goes back to release()
+    public long acquire(Lane lane) {
+        int cap = lane == Lane.READ ? (int) limit : Math.max(1, (int) (limit * writeShare));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= cap) {
+                (lane == Lane.READ ? shedReads : shedWrites).incrementAndGet();
+                throw SHED;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                return System.nanoTime();
+            }
+        }
+    }
+
+    // Free the slot and feed the request's latency into the current window
+    public void release(long startNanos) {
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        windowLatencyNanos.addAndGet(now - startNanos);
+        windowSamples.incrementAndGet();
+        if (now - windowStart >= window.toNanos() && windowSamples.get() >= minWindowSamples
+                && updating.compareAndSet(false, true)) {
+            try {
+                updateLimit(now);
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    // Free the slot without a latency sample, for streams whose duration says nothing about load
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    private void updateLimit(long now) {
+        int samples = windowSamples.getAndSet(0);
+        long latency = windowLatencyNanos.getAndSet(0);
+        int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+        windowStart = now;
+        if (samples == 0) {
+            return;
+        }
+        double shortRtt = (double) latency / samples;
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos += (shortRtt - longRttNanos) * 2 / (longWindow + 1);
+        }
+        // After a long overload the average has absorbed the queueing delay; let it fall back quickly
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRtt));
+        double next = current * gradient + Math.sqrt(current);
+        next = current * 0.8 + next * 0.2;
+        // A limit the traffic is not using says nothing about capacity, so it is not raised
+        if (next > current && maxInFlight < current / 2) {
+            return;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getShedReads() {
+        return shedReads.get();
+    }
+
+    public long getShedWrites() {
+        return shedWrites.get();
+    }
+}
@@ -0,0 +1,318 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.dto.UserContact;
+import com.payment.wallet.PaymentWallet.entity.User;
+import com.payment.wallet.PaymentWallet.repo.UserRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Type-ahead over first name, last name, email and mobile, answered from memory.
+// Keys are "token\0userId" in one sorted array (the base) plus a skip list (the delta) holding
+// users added since the last merge; a prefix query is a range scan over both, merged in key order.
+@Service
+public class ContactSearchIndex implements ApplicationRunner {
+
+    private static final char KEY_SEPARATOR = '\0';
+    private static final Comparator<Map.Entry<String, ContactEntry>> BY_KEY = Map.Entry.comparingByKey();
+    private static final Pattern PHONE_QUERY = Pattern.compile("[0-9+()\\-\\s]+");
+    private static final Pattern NON_DIGITS = Pattern.compile("[^0-9]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Value("${wallet.contact-search.merge-threshold:10000}")
+    private int mergeThreshold;
+
+    // Latest entry per user; anything in the base or delta that is not this entry is stale
+    private final Map<String, ContactEntry> entriesByUserId = new ConcurrentHashMap<>();
+    private final NavigableMap<String, ContactEntry> delta = new ConcurrentSkipListMap<>();
+    private final AtomicInteger deltaSize = new AtomicInteger();
+    private final AtomicBoolean mergeScheduled = new AtomicBoolean();
+    private volatile Snapshot base = new Snapshot(new String[0], new ContactEntry[0]);
+    private ExecutorService merger;
+
+    @PostConstruct
+    public void startMerger() {
+        merger = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "contact-index-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stopMerger() {
+        merger.shutdownNow();
+    }
+
+    // Startup load: one projected pass over the users collection
+    @Override
+    public void run(ApplicationArguments args) {
+        try (Stream<User> users = userRepo.streamForSearchIndex()) {
+            load(users);
+        }
+    }
+
+    // Build the base from a full scan; users added while it runs stay in the delta
+    public void load(Stream<User> users) {
+        List<Map.Entry<String, ContactEntry>> keys = new ArrayList<>();
+        users.forEach(user -> {
+            ContactEntry entry = new ContactEntry(user);
+            if (entriesByUserId.putIfAbsent(user.getUserId(), entry) == null) {
+                for (String token : entry.tokens) {
+                    keys.add(Map.entry(key(token, user.getUserId()), entry));
+                }
+            }
+        });
+        keys.sort(BY_KEY);
+        synchronized (this) {
+            base = merge(base, keys);
+        }
+    }
+
+    // Index a new or changed user; visible to the next search
+    public void add(User user) {
+        ContactEntry entry = new ContactEntry(user);
+        entriesByUserId.put(user.getUserId(), entry);
+        int added = 0;
+        for (String token : entry.tokens) {
+            if (delta.put(key(token, user.getUserId()), entry) == null) {
+                added++;
+            }
+        }
+        if (deltaSize.addAndGet(added) >= mergeThreshold && mergeScheduled.compareAndSet(false, true)) {
+            merger.execute(this::mergeDelta);
+        }
+    }
+
+    // Drop a deleted user; their keys are now stale, so searches skip them and the next merge drops them
+    public void remove(String userId) {
+        entriesByUserId.remove(userId);
+    }
+
+    // Up to limit distinct users whose tokens start with every query term, in key order
+    public List<UserContact> search(String query, int limit) {
+        String[] terms = normalizeQuery(query);
+        if (terms.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        // Scan on the longest term, usually the most selective; the others are checked per entry
+        String prefix = terms[0];
+        for (String term : terms) {
+            if (term.length() > prefix.length()) {
+                prefix = term;
+            }
+        }
+        Snapshot snapshot = base;
+        int baseIndex = lowerBound(snapshot.keys, prefix);
+        Iterator<Map.Entry<String, ContactEntry>> deltaIterator = delta.tailMap(prefix, true).entrySet().iterator();
+        Map.Entry<String, ContactEntry> nextDelta = deltaIterator.hasNext() ? deltaIterator.next() : null;
+
+        List<UserContact> results = new ArrayList<>(limit);
+        Set<String> seen = new HashSet<>();
+        while (results.size() < limit) {
+            String baseKey = baseIndex < snapshot.keys.length && snapshot.keys[baseIndex].startsWith(prefix)
+                    ? snapshot.keys[baseIndex] : null;
+            String deltaKey = nextDelta != null && nextDelta.getKey().startsWith(prefix) ? nextDelta.getKey() : null;
+            if (baseKey == null && deltaKey == null) {
+                break;
+            }
+
+            ContactEntry entry;
+            if (deltaKey == null || (baseKey != null && baseKey.compareTo(deltaKey) <= 0)) {
+                entry = snapshot.entries[baseIndex++];
+            } else {
+                entry = nextDelta.getValue();
+                nextDelta = deltaIterator.hasNext() ? deltaIterator.next() : null;
+            }
+
+            String userId = entry.contact.getUserId();
+            if (entriesByUserId.get(userId) != entry || !entry.matchesAll(terms)) {
+                continue;
+            }
+            if (seen.add(userId)) {
+                results.add(entry.contact);
+            }
+        }
+        return results;
+    }
+
+    public int size() {
+        return entriesByUserId.size();
+    }
+
+    // Fold the delta into a new base array, dropping stale entries
+    private void mergeDelta() {
+        try {
+            List<Map.Entry<String, ContactEntry>> pending = new ArrayList<>(delta.entrySet());
+            synchronized (this) {
+                base = merge(base, pending);
+            }
+            // Searches dedupe by user, so keys briefly present in both base and delta are harmless
+            for (Map.Entry<String, ContactEntry> merged : pending) {
+                if (delta.remove(merged.getKey(), merged.getValue())) {
+                    deltaSize.decrementAndGet();
+                }
+            }
+        } finally {
+            mergeScheduled.set(false);
+        }
+    }
+
+    // Linear merge of the sorted base with sorted additions
+    private Snapshot merge(Snapshot current, List<Map.Entry<String, ContactEntry>> additions) {
+        int capacity = current.keys.length + additions.size();
+        String[] keys = new String[capacity];
+        ContactEntry[] entries = new ContactEntry[capacity];
+        int i = 0, j = 0, n = 0;
+        while (i < current.keys.length || j < additions.size()) {
+            String key;
+            ContactEntry entry;
+            boolean takeBase = j == additions.size()
+                    || (i < current.keys.length && current.keys[i].compareTo(additions.get(j).getKey()) <= 0);
+            if (takeBase) {
+                key = current.keys[i];
+                entry = current.entries[i++];
+            } else {
+                key = additions.get(j).getKey();
+                entry = additions.get(j++).getValue();
+            }
+            if (entriesByUserId.get(entry.contact.getUserId()) != entry) {
+                continue;
+            }
+            if (n > 0 && keys[n - 1].equals(key)) {
+                entries[n - 1] = entry;
+                continue;
+            }
+            keys[n] = key;
+            entries[n++] = entry;
+        }
+        return new Snapshot(Arrays.copyOf(keys, n), Arrays.copyOf(entries, n));
+    }
+
+    private static int lowerBound(String[] keys, String prefix) {
+        int low = 0, high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String key(String token, String userId) {
+        return token + KEY_SEPARATOR + userId;
+    }
+
+    // A query that is only digits and phone punctuation is one mobile-number term
+    static String[] normalizeQuery(String query) {
+        if (query == null) {
+            return new String[0];
+        }
+        String trimmed = query.trim();
+        if (trimmed.isEmpty()) {
+            return new String[0];
+        }
+        if (PHONE_QUERY.matcher(trimmed).matches()) {
+            String digits = NON_DIGITS.matcher(trimmed).replaceAll("");
+            return digits.isEmpty() ? new String[0] : new String[]{digits};
+        }
+        return WHITESPACE.split(trimmed.toLowerCase(Locale.ROOT));
+    }
+
+    private static final class Snapshot {
+        private final String[] keys;
+        private final ContactEntry[] entries;
+
+        private Snapshot(String[] keys, ContactEntry[] entries) {
+            this.keys = keys;
+            this.entries = entries;
+        }
+    }
+
+    private static final class ContactEntry {
+        private final UserContact contact;
+        private final String[] tokens;
+
+        private ContactEntry(User user) {
+            this.contact = UserContact.from(user);
+            this.tokens = tokensOf(user);
+        }
+
+        private boolean matchesAll(String[] terms) {
+            for (String term : terms) {
+                boolean matched = false;
+                for (String token : tokens) {
+                    if (token.startsWith(term)) {
+                        matched = true;
+                        break;
+                    }
+                }
+                if (!matched) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Each name word, the full email, and the mobile digits with and without country code
+        private static String[] tokensOf(User user) {
+            Set<String> tokens = new HashSet<>();
+            addWords(tokens, user.getFirstName());
+            addWords(tokens, user.getLastName());
+            if (user.getEmail() != null && !user.getEmail().isBlank()) {
+                tokens.add(user.getEmail().trim().toLowerCase(Locale.ROOT));
+            }
+            if (user.getMobile() != null) {
+                String digits = NON_DIGITS.matcher(user.getMobile()).replaceAll("");
+                if (!digits.isEmpty()) {
+                    tokens.add(digits);
+                }
+                if (digits.length() > 10) {
+                    tokens.add(digits.substring(digits.length() - 10));
+                }
+            }
+            return tokens.toArray(new String[0]);
+        }
+
+        private static void addWords(Set<String> tokens, String value) {
+            if (value == null) {
+                return;
+            }
+            for (String word : WHITESPACE.split(value.trim().toLowerCase(Locale.ROOT))) {
+                if (!word.isEmpty()) {
+                    tokens.add(word);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.payment.wallet.PaymentWallet.entity.IdempotencyRecord;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.repo.IdempotencyRepo;
+import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Runs a money operation at most once per idempotency key; replays get the original Transaction
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    @Autowired
+    private IdempotencyRepo idempotencyRepo;
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Value("${wallet.idempotency.cache-size:100000}")
+    private long cacheSize;
+
+    @Value("${wallet.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    private Cache<String, Outcome> recentResults;
+
+    // A finished request and the fingerprint of the body it was made with
+    record Outcome(String fingerprint, Transaction transaction) {
+    }
+
+    @PostConstruct
+    public void initializeCache() {
+        recentResults = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    // What a retry must repeat exactly for the key to name the same request
+    public static String fingerprint(long amountPaise, String recipient) {
+        return amountPaise + ":" + recipient;
+    }
+
+    public Transaction execute(String operation, String userId, String idempotencyKey, String fingerprint, Supplier<Transaction> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        String id = operation + ":" + userId + ":" + idempotencyKey.trim();
+
+        Outcome cached = recentResults.getIfPresent(id);
+        if (cached != null) {
+            checkFingerprint(cached.fingerprint(), fingerprint);
+            return cached.transaction();
+        }
+
+        // Claim the key; the unique _id makes concurrent retries race on this insert, not on the wallets
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setFingerprint(fingerprint);
+        record.setExpiresAt(Instant.now().plus(ttl));
+        try {
+            idempotencyRepo.insert(record);
+        } catch (DuplicateKeyException e) {
+            return replay(id, fingerprint);
+        }
+
+        Transaction transaction;
+        try {
+            transaction = action.get();
+        } catch (RuntimeException e) {
+            if (failedBeforeMovingMoney(e)) {
+                // Nothing was committed under this key, so let the client retry it
+                idempotencyRepo.deleteById(id);
+            } else {
+                record.setFailed(true);
+                saveRecord(record);
+            }
+            throw e;
+        }
+
+        recentResults.put(id, new Outcome(fingerprint, transaction));
+        record.setTransactionId(transaction.getTransactionId());
+        saveRecord(record);
+        return transaction;
+    }
+
+    // Validation, a short balance and a bad OTP are all rejected with a client error before any debit, and
+    // a request shed as busy never reaches it either: once the debit lands, the services turn any failure
+    // into a 500. Anything else may have happened after money moved, so a retry must not run the action again.
+    static boolean failedBeforeMovingMoney(Throwable e) {
+        return e instanceof ServerBusyException
+                || e instanceof WalletException walletException && walletException.getStatus().is4xxClientError();
+    }
+
+    // Reusing a key for a different amount or recipient is a client bug, not a retry
+    static void checkFingerprint(String stored, String fingerprint) {
+        if (stored != null && !Objects.equals(stored, fingerprint)) {
+            throw WalletException.IDEMPOTENCY_KEY_REUSED;
+        }
+    }
+
+    // One retry; a record left without its outcome answers retries with 409 until it expires
+    private void saveRecord(IdempotencyRecord record) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                idempotencyRepo.save(record);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == 2) {
+                    log.error("Failed to record the outcome of idempotency key {}; retries get 409 until it expires",
+                            record.getId(), e);
+                    return;
+                }
+            }
+        }
+    }
+
+    private Transaction replay(String id, String fingerprint) {
+        Optional<IdempotencyRecord> record = idempotencyRepo.findById(id);
+        record.ifPresent(stored -> checkFingerprint(stored.getFingerprint(), fingerprint));
+        if (record.isPresent() && record.get().isFailed()) {
+            throw WalletException.REQUEST_OUTCOME_UNKNOWN;
+        }
+        if (record.isEmpty() || record.get().getTransactionId() == null) {
+            throw WalletException.REQUEST_IN_PROGRESS;
+        }
+        Optional<Transaction> transaction = transactionRepo.findById(record.get().getTransactionId());
+        if (transaction.isEmpty()) {
+            throw WalletException.REQUEST_IN_PROGRESS;
+        }
+        recentResults.put(id, new Outcome(record.get().getFingerprint(), transaction.get()));
+        return transaction.get();
+    }
+}
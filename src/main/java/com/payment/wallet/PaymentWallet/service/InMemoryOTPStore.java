@@ -0,0 +1,227 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Capacity-bounded OTP store; expiry is driven by a hashed timing wheel instead of full scans.
+// Each slot is kept in deadline order, so the sweep and eviction only ever look at slot heads
+@Component
+@ConditionalOnProperty(name = "wallet.otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOTPStore implements OTPStore {
+
+    @Value("${wallet.otp.capacity:100000}")
+    private int capacity;
+
+    @Value("${wallet.otp.wheel-slots:64}")
+    private int wheelSlots;
+
+    @Value("${wallet.otp.wheel-tick:1s}")
+    private Duration wheelTick;
+
+    // Deadline first, then issue order so two codes due at the same nanosecond are both kept
+    private static final Comparator<Entry> BY_DEADLINE = (a, b) -> a.expiresAt != b.expiresAt
+            ? Long.signum(a.expiresAt - b.expiresAt)
+            : Long.compare(a.order, b.order);
+
+    private final Map<OTPKey, Entry> entries = new ConcurrentHashMap<>();
+    private List<NavigableSet<Entry>> wheel;
+    private long tickNanos;
+    private long lastTick;
+    private ScheduledExecutorService ticker;
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong verified = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong evictionProbes = new AtomicLong(); // slot heads looked at while evicting
+
+    @PostConstruct
+    public void startWheel() {
+        wheel = new ArrayList<>(wheelSlots);
+        for (int i = 0; i < wheelSlots; i++) {
+            wheel.add(new ConcurrentSkipListSet<>(BY_DEADLINE));
+        }
+        tickNanos = wheelTick.toNanos();
+        lastTick = Math.floorDiv(System.nanoTime(), tickNanos);
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "otp-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void stopWheel() {
+        ticker.shutdownNow();
+    }
+
+    @Override
+    public void put(String userId, OTPPurpose purpose, String otpCode, Duration ttl) {
+        long expiresAt = System.nanoTime() + ttl.toNanos();
+        // Filed one tick past its deadline so the slot is only swept once it is really due
+        int slot = (int) Math.floorMod(Math.floorDiv(expiresAt, tickNanos) + 1, (long) wheelSlots);
+
+        OTPKey key = new OTPKey(userId, purpose);
+        Entry entry = new Entry(key, otpCode.getBytes(StandardCharsets.US_ASCII), expiresAt, slot, issued.incrementAndGet());
+        wheel.get(slot).add(entry);
+
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            wheel.get(previous.slot).remove(previous);
+        }
+
+        while (entries.size() > capacity && evictSoonestExpiring()) {
+            evicted.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean verifyAndRemove(String userId, OTPPurpose purpose, String otpCode) {
+        Entry entry = userId == null ? null : entries.get(new OTPKey(userId, purpose));
+        if (entry == null || otpCode == null) {
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            if (remove(entry)) {
+                expired.incrementAndGet();
+            }
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        if (MessageDigest.isEqual(entry.code, otpCode.getBytes(StandardCharsets.US_ASCII)) && remove(entry)) {
+            verified.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getIssued() { return issued.get(); }
+    public long getVerified() { return verified.get(); }
+    public long getRejected() { return rejected.get(); }
+    public long getExpired() { return expired.get(); }
+    public long getEvicted() { return evicted.get(); }
+    public long getEvictionProbes() { return evictionProbes.get(); }
+
+    // Sweep every slot the clock has passed since the previous tick. A slot also holds codes due on later
+    // laps, which sort after the due ones, so the sweep stops at the first code that is still live
+    private void advance() {
+        long currentTick = Math.floorDiv(System.nanoTime(), tickNanos);
+        long from = Math.max(lastTick + 1, currentTick - wheelSlots + 1);
+        long now = System.nanoTime();
+
+        for (long tick = from; tick <= currentTick; tick++) {
+            NavigableSet<Entry> slot = wheel.get((int) Math.floorMod(tick, (long) wheelSlots));
+            for (Entry entry = head(slot); entry != null && now - entry.expiresAt >= 0; entry = head(slot)) {
+                if (remove(entry)) {
+                    expired.incrementAndGet();
+                }
+            }
+        }
+        lastTick = currentTick;
+    }
+
+    // Drop the code due soonest: the earliest of the slot heads, whatever lap it is on. That is one look
+    // per slot however full the store is
+    private boolean evictSoonestExpiring() {
+        while (true) {
+            Entry soonest = null;
+            for (NavigableSet<Entry> slot : wheel) {
+                Entry head = head(slot);
+                evictionProbes.incrementAndGet();
+                if (head != null && (soonest == null || BY_DEADLINE.compare(head, soonest) < 0)) {
+                    soonest = head;
+                }
+            }
+            if (soonest == null) {
+                return false;
+            }
+            // Losing to a concurrent verify or sweep still took the code off the wheel, so look again
+            if (remove(soonest)) {
+                return true;
+            }
+        }
+    }
+
+    private static Entry head(NavigableSet<Entry> slot) {
+        Iterator<Entry> entries = slot.iterator();
+        return entries.hasNext() ? entries.next() : null;
+    }
+
+    private boolean remove(Entry entry) {
+        wheel.get(entry.slot).remove(entry);
+        return entries.remove(entry.key, entry);
+    }
+
+    // User ID plus purpose; no string concatenation per lookup
+    private static final class OTPKey {
+        private final String userId;
+        private final OTPPurpose purpose;
+        private final int hash;
+
+        private OTPKey(String userId, OTPPurpose purpose) {
+            this.userId = userId;
+            this.purpose = purpose;
+            this.hash = 31 * userId.hashCode() + purpose.ordinal();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof OTPKey)) return false;
+            OTPKey that = (OTPKey) other;
+            return purpose == that.purpose && userId.equals(that.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        private final OTPKey key;
+        private final byte[] code;
+        private final long expiresAt; // System.nanoTime() deadline
+        private final int slot;
+        private final long order;
+
+        private Entry(OTPKey key, byte[] code, long expiresAt, int slot, long order) {
+            this.key = key;
+            this.code = code;
+            this.expiresAt = expiresAt;
+            this.slot = slot;
+            this.order = order;
+        }
+    }
+}
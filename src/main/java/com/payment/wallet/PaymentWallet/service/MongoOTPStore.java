@@ -0,0 +1,49 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.entity.OTPRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Shared OTP store so send and verify may land on different instances. Every verify asks Mongo: a code
+// sent through another instance is only visible there
+@Component
+@ConditionalOnProperty(name = "wallet.otp.store", havingValue = "mongo")
+public class MongoOTPStore implements OTPStore {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void put(String userId, OTPPurpose purpose, String otpCode, Duration ttl) {
+        OTPRecord record = new OTPRecord();
+        record.setId(key(userId, purpose));
+        record.setOtpCode(otpCode);
+        record.setExpiresAt(Instant.now().plus(ttl));
+
+        mongoTemplate.save(record);
+    }
+
+    @Override
+    public boolean verifyAndRemove(String userId, OTPPurpose purpose, String otpCode) {
+        if (userId == null || otpCode == null) {
+            return false;
+        }
+
+        // Match and delete in one atomic step; the TTL monitor lags, so check expiry here too
+        Query query = new Query(Criteria.where("_id").is(key(userId, purpose))
+                .and("otpCode").is(otpCode)
+                .and("expiresAt").gt(Instant.now()));
+        return mongoTemplate.findAndRemove(query, OTPRecord.class) != null;
+    }
+
+    private String key(String userId, OTPPurpose purpose) {
+        return userId + ":" + purpose.name();
+    }
+}
@@ -0,0 +1,154 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Delivers notifications on background workers so callers never wait on SMTP or Twilio
+@Service
+public class NotificationService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+
+    public enum Channel { EMAIL, SMS }
+
+    public enum OverflowPolicy { DROP_NEWEST, DROP_OLDEST }
+
+    @FunctionalInterface
+    public interface Delivery {
+        void deliver() throws Exception;
+    }
+
+    @Value("${wallet.notifications.workers-per-channel:2}")
+    private int workersPerChannel;
+
+    @Value("${wallet.notifications.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${wallet.notifications.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${wallet.notifications.initial-backoff:1s}")
+    private Duration initialBackoff;
+
+    @Value("${wallet.notifications.max-backoff:30s}")
+    private Duration maxBackoff;
+
+    @Value("${wallet.notifications.overflow-policy:DROP_NEWEST}")
+    private OverflowPolicy overflowPolicy;
+
+    private final Map<Channel, ThreadPoolExecutor> workers = new EnumMap<>(Channel.class);
+    private final Map<Channel, ChannelStats> stats = new EnumMap<>(Channel.class);
+    private ScheduledExecutorService retryScheduler;
+
+    @PostConstruct
+    public void startWorkers() {
+        for (Channel channel : Channel.values()) {
+            ChannelStats channelStats = new ChannelStats();
+            stats.put(channel, channelStats);
+            workers.put(channel, new ThreadPoolExecutor(
+                    workersPerChannel, workersPerChannel, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    namedThreads("notify-" + channel.name().toLowerCase()),
+                    overflowHandler(channelStats)));
+        }
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(namedThreads("notify-retry"));
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        retryScheduler.shutdownNow();
+        for (ThreadPoolExecutor executor : workers.values()) {
+            executor.shutdown();
+        }
+    }
+
+    // Queue a delivery on the given channel; returns immediately
+    public void enqueue(Channel channel, Delivery delivery) {
+        submit(channel, delivery, 1);
+    }
+
+    public ChannelStats getStats(Channel channel) {
+        return stats.get(channel);
+    }
+
+    public int getQueueDepth(Channel channel) {
+        return workers.get(channel).getQueue().size();
+    }
+
+    private void submit(Channel channel, Delivery delivery, int attempt) {
+        ChannelStats channelStats = stats.get(channel);
+        workers.get(channel).execute(() -> {
+            try {
+                delivery.deliver();
+                channelStats.delivered.incrementAndGet();
+            } catch (Exception e) {
+                if (attempt < maxAttempts && !retryScheduler.isShutdown()) {
+                    channelStats.retried.incrementAndGet();
+                    retryScheduler.schedule(() -> submit(channel, delivery, attempt + 1),
+                            backoffMillis(attempt), TimeUnit.MILLISECONDS);
+                } else {
+                    channelStats.failed.incrementAndGet();
+                    log.error("Giving up on {} notification after {} attempts", channel, attempt, e);
+                }
+            }
+        });
+    }
+
+    // Exponential backoff: initial, 2x initial, 4x initial ... capped at max
+    private long backoffMillis(int attempt) {
+        long delay = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+        return Math.min(delay, maxBackoff.toMillis());
+    }
+
+    private RejectedExecutionHandler overflowHandler(ChannelStats channelStats) {
+        return (task, executor) -> {
+            channelStats.dropped.incrementAndGet();
+            if (executor.isShutdown()) {
+                return;
+            }
+            if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                executor.getQueue().poll();
+                executor.execute(task);
+            }
+        };
+    }
+
+    private ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static class ChannelStats {
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong retried = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+
+        public long getDelivered() { return delivered.get(); }
+        public long getRetried() { return retried.get(); }
+        public long getFailed() { return failed.get(); }
+        public long getDropped() { return dropped.get(); }
+    }
+}
@@ -0,0 +1,24 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import org.springframework.http.HttpStatus;
+
+public enum OTPPurpose {
+    LOGIN,
+    TRANSACTION,
+    ADD_MONEY,
+    PASSWORD_RESET,
+    PROFILE_UPDATE;
+
+    // Map the purpose string sent by clients; unknown purposes are rejected
+    public static OTPPurpose from(String purpose) {
+        if (purpose != null) {
+            for (OTPPurpose value : values()) {
+                if (value.name().equalsIgnoreCase(purpose.trim())) {
+                    return value;
+                }
+            }
+        }
+        throw new WalletException(HttpStatus.BAD_REQUEST, "Unsupported OTP purpose: " + purpose);
+    }
+}
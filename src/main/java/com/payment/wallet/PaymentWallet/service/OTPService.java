@@ -3,6 +3,11 @@ package com.payment.wallet.PaymentWallet.service;
 import com.twilio.Twilio;
 import com.twilio.rest.api.v2010.account.Message;
 import com.twilio.type.PhoneNumber;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.mail.SimpleMailMessage;
@@ -11,17 +16,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import jakarta.annotation.PostConstruct;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
-import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class OTPService {
 
+    private static final Logger log = LoggerFactory.getLogger(OTPService.class);
+
     @Autowired(required = false)
     private JavaMailSender mailSender;
 
+    @Autowired
+    private NotificationService notificationService;
+
     @Value("${spring.mail.username:}")
     private String fromEmail;
 
@@ -34,32 +46,85 @@ public class OTPService {
     @Value("${twilio.phone.number:}")
     private String twilioPhoneNumber;
 
-    private Map<String, OTPData> otpStorage = new ConcurrentHashMap<>();
+    // Hand OTP delivery to the notification workers instead of calling SMTP/Twilio on the request thread
+    @Value("${wallet.otp.async-delivery:false}")
+    private boolean asyncDelivery;
+
+    private static final Duration OTP_VALIDITY = Duration.ofMinutes(5);
+
+    // SecureRandom is thread-safe; one shared instance instead of a new Random per OTP
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private OTPStore otpStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     private boolean twilioInitialized = false;
 
+    private Counter otpIssued;
+    private Counter otpAccepted;
+    private Counter otpRejected;
+    // channel:kind:outcome -> timer, all built at startup; read-only afterwards
+    private final Map<String, Timer> sendTimers = new HashMap<>();
+    // channel:kind:exception -> counter; exception types are only known once they happen
+    private final Map<String, Counter> failureCounters = new ConcurrentHashMap<>();
+
+    // One init method, so Twilio setup and meter registration run in a known order
     @PostConstruct
-    public void initializeTwilio() {
+    public void initialize() {
+        initializeTwilio();
+        initializeMetrics();
+    }
+
+    private void initializeTwilio() {
         if (twilioAccountSid != null && !twilioAccountSid.trim().isEmpty() &&
                 twilioAuthToken != null && !twilioAuthToken.trim().isEmpty()) {
             try {
                 Twilio.init(twilioAccountSid, twilioAuthToken);
                 twilioInitialized = true;
             } catch (Exception e) {
-                e.printStackTrace();
+                log.error("Twilio initialization failed; SMS is disabled", e);
                 twilioInitialized = false;
             }
         }
     }
 
+    // Counted here rather than in the store so both store implementations report the same way
+    private void initializeMetrics() {
+        otpIssued = Counter.builder("wallet.otp.issued").register(meterRegistry);
+        otpAccepted = Counter.builder("wallet.otp.verifications").tag("outcome", "accepted").register(meterRegistry);
+        otpRejected = Counter.builder("wallet.otp.verifications").tag("outcome", "rejected").register(meterRegistry);
+        for (String channel : new String[] {"email", "sms"}) {
+            for (String kind : new String[] {"otp", "alert"}) {
+                for (String outcome : new String[] {"success", "failure"}) {
+                    sendTimers.put(channel + ":" + kind + ":" + outcome, Timer.builder("wallet.notification.send")
+                            .tag("channel", channel)
+                            .tag("kind", kind)
+                            .tag("outcome", outcome)
+                            .register(meterRegistry));
+                }
+            }
+        }
+    }
+
+    // Six random digits, zero padded
     public String generateOTP() {
-        return String.format("%06d", new Random().nextInt(1000000));
+        int value = RANDOM.nextInt(1000000);
+        char[] digits = new char[6];
+        for (int i = 5; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
     }
 
     public boolean sendOTP(String userId, String email, String mobile, String purpose) {
-        String otpCode = generateOTP();
-        OTPData otpData = new OTPData(otpCode, purpose, LocalDateTime.now().plusMinutes(5));
-        otpStorage.put(userId + "_" + purpose, otpData);
+        if (asyncDelivery) {
+            return queueOTP(userId, email, mobile, purpose);
+        }
+        String otpCode = issueOTP(userId, purpose);
 
         sendEmailOTP(email, otpCode, purpose);
         sendSMSOTP(mobile, otpCode, purpose);
@@ -67,16 +132,48 @@ public class OTPService {
         return true;
     }
 
-    public boolean verifyOTP(String userId, String otpCode, String purpose) {
-        String key = userId + "_" + purpose;
-        OTPData otpData = otpStorage.get(key);
+    // Like sendOTP, but SMTP and Twilio are called from the notification workers, with their retries
+    public boolean queueOTP(String userId, String email, String mobile, String purpose) {
+        String otpCode = issueOTP(userId, purpose);
 
-        if (otpData != null && otpData.getOtpCode().equals(otpCode) &&
-                LocalDateTime.now().isBefore(otpData.getExpiryTime())) {
-            otpStorage.remove(key);
-            return true;
+        if (mailSender != null && fromEmail != null && !fromEmail.trim().isEmpty()) {
+            notificationService.enqueue(NotificationService.Channel.EMAIL, () -> {
+                SimpleMailMessage message = new SimpleMailMessage();
+                message.setFrom(fromEmail);
+                message.setTo(email);
+                message.setSubject("PayWallet OTP - " + purpose);
+                message.setText(buildEmailBody(otpCode, purpose));
+                timedSend("email", "otp", () -> mailSender.send(message));
+            });
         }
-        return false;
+
+        if (canSendSms(mobile)) {
+            String cleanMobile = toE164(mobile);
+            String messageBody = buildSmsBody(otpCode, purpose);
+            notificationService.enqueue(NotificationService.Channel.SMS, () -> timedSend("sms", "otp", () ->
+                    Message.creator(new PhoneNumber(cleanMobile), new PhoneNumber(twilioPhoneNumber), messageBody).create()));
+        }
+
+        return true;
+    }
+
+    // Whether the OTP store answers without I/O, so it is safe to call from an event loop
+    public boolean isStoreInMemory() {
+        return otpStore instanceof InMemoryOTPStore;
+    }
+
+    private String issueOTP(String userId, String purpose) {
+        OTPPurpose otpPurpose = OTPPurpose.from(purpose);
+        String otpCode = generateOTP();
+        otpStore.put(userId, otpPurpose, otpCode, OTP_VALIDITY);
+        otpIssued.increment();
+        return otpCode;
+    }
+
+    public boolean verifyOTP(String userId, String otpCode, String purpose) {
+        boolean valid = otpStore.verifyAndRemove(userId, OTPPurpose.from(purpose), otpCode);
+        (valid ? otpAccepted : otpRejected).increment();
+        return valid;
     }
 
     private boolean sendEmailOTP(String toEmail, String otpCode, String purpose) {
@@ -87,59 +184,90 @@ public class OTPService {
                 message.setTo(toEmail);
                 message.setSubject("PayWallet OTP - " + purpose);
                 message.setText(buildEmailBody(otpCode, purpose));
-                mailSender.send(message);
+                timedSend("email", "otp", () -> mailSender.send(message));
                 return true;
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("Failed to send {} OTP email", purpose, e);
         }
         return false;
     }
 
     private boolean sendSMSOTP(String mobile, String otpCode, String purpose) {
         try {
-            if (!twilioInitialized || twilioPhoneNumber == null || twilioPhoneNumber.trim().isEmpty()) return false;
+            if (!canSendSms(mobile)) return false;
 
-            String cleanMobile = mobile.replaceAll("[^0-9]", "");
-            if (cleanMobile.length() == 10) cleanMobile = "+91" + cleanMobile;
-            else if (!cleanMobile.startsWith("+")) cleanMobile = "+" + cleanMobile;
+            String cleanMobile = toE164(mobile);
 
-            String messageBody = String.format(
-                    "PayNow OTP for %s: %s. Valid for 5 minutes. Do not share it.",
-                    purpose, otpCode
-            );
+            String messageBody = buildSmsBody(otpCode, purpose);
 
-            Message.creator(new PhoneNumber(cleanMobile), new PhoneNumber(twilioPhoneNumber), messageBody).create();
+            timedSend("sms", "otp", () ->
+                    Message.creator(new PhoneNumber(cleanMobile), new PhoneNumber(twilioPhoneNumber), messageBody).create());
             return true;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("Failed to send {} OTP SMS", purpose, e);
             return false;
         }
     }
 
+    // Queue transaction alerts; delivery and retries happen on the notification workers
     public void sendTransactionNotification(String email, String mobile, String message) {
-        try {
-            if (mailSender != null && fromEmail != null && !fromEmail.trim().isEmpty()) {
+        if (mailSender != null && fromEmail != null && !fromEmail.trim().isEmpty()) {
+            notificationService.enqueue(NotificationService.Channel.EMAIL, () -> {
                 SimpleMailMessage emailMsg = new SimpleMailMessage();
                 emailMsg.setFrom(fromEmail);
                 emailMsg.setTo(email);
                 emailMsg.setSubject("PayWallet Transaction Alert");
                 emailMsg.setText(message);
-                mailSender.send(emailMsg);
-            }
+                timedSend("email", "alert", () -> mailSender.send(emailMsg));
+            });
+        }
 
-            if (twilioInitialized && twilioPhoneNumber != null && !twilioPhoneNumber.trim().isEmpty()) {
-                String cleanMobile = mobile.replaceAll("[^0-9]", "");
-                if (cleanMobile.length() == 10) cleanMobile = "+91" + cleanMobile;
-                else if (!cleanMobile.startsWith("+")) cleanMobile = "+" + cleanMobile;
+        if (canSendSms(mobile)) {
+            String cleanMobile = toE164(mobile);
+            notificationService.enqueue(NotificationService.Channel.SMS, () -> timedSend("sms", "alert", () ->
+                    Message.creator(new PhoneNumber(cleanMobile), new PhoneNumber(twilioPhoneNumber), message).create()));
+        }
+    }
 
-                Message.creator(new PhoneNumber(cleanMobile), new PhoneNumber(twilioPhoneNumber), message).create();
-            }
+    // Time one SMTP or Twilio call, tagged with its outcome; failures are also counted by exception type
+    private void timedSend(String channel, String kind, NotificationService.Delivery delivery) throws Exception {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            delivery.deliver();
+            outcome = "success";
         } catch (Exception e) {
-            e.printStackTrace();
+            String exception = e.getClass().getSimpleName();
+            failureCounters.computeIfAbsent(channel + ":" + kind + ":" + exception, key -> Counter.builder("wallet.notification.failures")
+                    .tag("channel", channel)
+                    .tag("kind", kind)
+                    .tag("exception", exception)
+                    .register(meterRegistry))
+                    .increment();
+            throw e;
+        } finally {
+            sendTimers.get(channel + ":" + kind + ":" + outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
+    // Twilio is set up and the user has a number; users without one still get their email
+    private boolean canSendSms(String mobile) {
+        return twilioInitialized && twilioPhoneNumber != null && !twilioPhoneNumber.trim().isEmpty()
+                && mobile != null && !mobile.isBlank();
+    }
+
+    private String toE164(String mobile) {
+        String cleanMobile = mobile.replaceAll("[^0-9]", "");
+        if (cleanMobile.length() == 10) cleanMobile = "+91" + cleanMobile;
+        else if (!cleanMobile.startsWith("+")) cleanMobile = "+" + cleanMobile;
+        return cleanMobile;
+    }
+
+    private String buildSmsBody(String otpCode, String purpose) {
+        return String.format("PayNow OTP for %s: %s. Valid for 5 minutes. Do not share it.", purpose, otpCode);
+    }
+
     private String buildEmailBody(String otpCode, String purpose) {
         return String.format(
                 """
@@ -156,26 +284,4 @@ public class OTPService {
                 PayWallet Team
                 """, purpose, otpCode);
     }
-
-    public void cleanExpiredOTPs() {
-        LocalDateTime now = LocalDateTime.now();
-        otpStorage.entrySet().removeIf(e -> now.isAfter(e.getValue().getExpiryTime()));
-    }
-
-
-    private static class OTPData {
-        private final String otpCode;
-        private final String purpose;
-        private final LocalDateTime expiryTime;
-
-        public OTPData(String otpCode, String purpose, LocalDateTime expiryTime) {
-            this.otpCode = otpCode;
-            this.purpose = purpose;
-            this.expiryTime = expiryTime;
-        }
-
-        public String getOtpCode() { return otpCode; }
-        public String getPurpose() { return purpose; }
-        public LocalDateTime getExpiryTime() { return expiryTime; }
-    }
 }
@@ -0,0 +1,13 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import java.time.Duration;
+
+// Where pending OTPs live; selected with wallet.otp.store (memory or mongo)
+public interface OTPStore {
+
+    // Store an OTP, replacing any pending one for the same user and purpose
+    void put(String userId, OTPPurpose purpose, String otpCode, Duration ttl);
+
+    // Consume the OTP if it matches and has not expired; each OTP verifies at most once
+    boolean verifyAndRemove(String userId, OTPPurpose purpose, String otpCode);
+}
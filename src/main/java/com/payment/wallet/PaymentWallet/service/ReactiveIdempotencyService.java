@@ -0,0 +1,117 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.payment.wallet.PaymentWallet.entity.IdempotencyRecord;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.repo.ReactiveIdempotencyRepo;
+import com.payment.wallet.PaymentWallet.repo.ReactiveTransactionRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+// IdempotencyService for the reactive API: same keys and collection, the action is a Mono
+@Service
+@Profile("reactive")
+public class ReactiveIdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveIdempotencyService.class);
+
+    @Autowired
+    private ReactiveIdempotencyRepo idempotencyRepo;
+
+    @Autowired
+    private ReactiveTransactionRepo transactionRepo;
+
+    @Value("${wallet.idempotency.cache-size:100000}")
+    private long cacheSize;
+
+    @Value("${wallet.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    private Cache<String, IdempotencyService.Outcome> recentResults;
+
+    @PostConstruct
+    public void initializeCache() {
+        recentResults = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Mono<Transaction> execute(String operation, String userId, String idempotencyKey, String fingerprint, Supplier<Mono<Transaction>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        String id = operation + ":" + userId + ":" + idempotencyKey.trim();
+
+        IdempotencyService.Outcome cached = recentResults.getIfPresent(id);
+        if (cached != null) {
+            return Mono.fromCallable(() -> {
+                IdempotencyService.checkFingerprint(cached.fingerprint(), fingerprint);
+                return cached.transaction();
+            });
+        }
+
+        // Claim the key; the unique _id makes concurrent retries race on this insert, not on the wallets
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setFingerprint(fingerprint);
+        record.setExpiresAt(Instant.now().plus(ttl));
+        return idempotencyRepo.insert(record)
+                .thenReturn(true)
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false))
+                .flatMap(claimed -> claimed ? runClaimed(id, record, action) : replay(id, fingerprint));
+    }
+
+    private Mono<Transaction> runClaimed(String id, IdempotencyRecord record, Supplier<Mono<Transaction>> action) {
+        return Mono.defer(action)
+                .onErrorResume(e -> {
+                    if (IdempotencyService.failedBeforeMovingMoney(e)) {
+                        // Nothing was committed under this key, so let the client retry it
+                        return idempotencyRepo.deleteById(id).then(Mono.error(e));
+                    }
+                    record.setFailed(true);
+                    return saveRecord(record).then(Mono.error(e));
+                })
+                .flatMap(transaction -> {
+                    recentResults.put(id, new IdempotencyService.Outcome(record.getFingerprint(), transaction));
+                    record.setTransactionId(transaction.getTransactionId());
+                    return saveRecord(record).thenReturn(transaction);
+                });
+    }
+
+    // One retry, as in IdempotencyService; never fails the request
+    private Mono<Void> saveRecord(IdempotencyRecord record) {
+        return idempotencyRepo.save(record)
+                .retry(1)
+                .onErrorResume(e -> {
+                    log.error("Failed to record the outcome of idempotency key {}; retries get 409 until it expires",
+                            record.getId(), e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Transaction> replay(String id, String fingerprint) {
+        return idempotencyRepo.findById(id)
+                .doOnNext(record -> IdempotencyService.checkFingerprint(record.getFingerprint(), fingerprint))
+                .flatMap(record -> record.isFailed() ? Mono.error(WalletException.REQUEST_OUTCOME_UNKNOWN) : Mono.just(record))
+                .filter(record -> record.getTransactionId() != null)
+                .flatMap(record -> transactionRepo.findById(record.getTransactionId())
+                        .doOnNext(transaction -> recentResults.put(id, new IdempotencyService.Outcome(record.getFingerprint(), transaction))))
+                .switchIfEmpty(Mono.error(WalletException.REQUEST_IN_PROGRESS));
+    }
+}
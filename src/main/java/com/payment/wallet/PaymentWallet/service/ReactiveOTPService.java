@@ -0,0 +1,32 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+// OTP issue and verify for the reactive API. The in-memory store answers inline; the Mongo store
+// is called on boundedElastic so it never holds an event loop, and delivery is always queued.
+@Service
+@Profile("reactive")
+public class ReactiveOTPService {
+
+    @Autowired
+    private OTPService otpService;
+
+    public Mono<Boolean> sendOTP(String userId, String email, String mobile, String purpose) {
+        return onStoreScheduler(() -> otpService.queueOTP(userId, email, mobile, purpose));
+    }
+
+    public Mono<Boolean> verifyOTP(String userId, String otpCode, String purpose) {
+        return onStoreScheduler(() -> otpService.verifyOTP(userId, otpCode, purpose));
+    }
+
+    private Mono<Boolean> onStoreScheduler(Callable<Boolean> storeCall) {
+        Mono<Boolean> result = Mono.fromCallable(storeCall);
+        return otpService.isStoreInMemory() ? result : result.subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,91 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.dto.DailySummary;
+import com.payment.wallet.PaymentWallet.dto.MonthlySummary;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.entity.TransactionSummary;
+import com.payment.wallet.PaymentWallet.repo.ReactiveTransactionSummaryRepo;
+import com.payment.wallet.PaymentWallet.repo.ReactiveUserRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// TransactionSummaryService for the reactive profile; validation, deltas and failure counting are shared with it
+@Service
+@Profile("reactive")
+public class ReactiveTransactionSummaryService {
+
+    @Autowired
+    private ReactiveTransactionSummaryRepo summaryRepo;
+
+    @Autowired
+    private ReactiveUserRepo userRepo;
+
+    @Autowired
+    private UserNameService userNameService;
+
+    @Autowired
+    private TransactionSummaryService transactionSummaryService;
+
+    // Completes empty even when the write fails; the transfer has already happened
+    public Mono<Void> record(Collection<Transaction> transactions) {
+        return Mono.defer(() -> {
+            Collection<TransactionSummary> deltas = TransactionSummaryService.deltas(transactions, LocalDateTime.now());
+            return summaryRepo.applyAll(deltas)
+                    .onErrorResume(e -> {
+                        transactionSummaryService.recordFailure(deltas, e);
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    public Mono<MonthlySummary> monthly(String userId, String month, Integer top) {
+        return Mono.defer(() -> {
+            String period = transactionSummaryService.monthOf(month);
+            int limit = transactionSummaryService.topLimit(top);
+            Mono<List<TransactionSummary>> counterparties = limit == 0 ? Mono.just(List.of())
+                    : summaryRepo.findTopCounterparties(userId, period, limit).collectList();
+            return summaryRepo.findById(TransactionSummary.idOf(userId, TransactionSummary.MONTH, period, null))
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .zipWith(counterparties)
+                    .flatMap(found -> resolveNames(found.getT2()).map(names ->
+                            TransactionSummaryService.toMonthly(period, found.getT1().orElse(null), found.getT2(), names)));
+        });
+    }
+
+    public Mono<List<DailySummary>> daily(String userId, LocalDate from, LocalDate to) {
+        return Mono.defer(() -> {
+            LocalDate[] range = transactionSummaryService.dayRange(from, to);
+            return summaryRepo.findDays(userId, range[0].toString(), range[1].toString())
+                    .collectList()
+                    .map(days -> TransactionSummaryService.toDaily(range[0], range[1], days));
+        });
+    }
+
+    // Names from the name cache, with at most one query for the misses
+    private Mono<Map<String, String>> resolveNames(List<TransactionSummary> counterparties) {
+        Set<String> counterpartyIds = new HashSet<>();
+        for (TransactionSummary counterparty : counterparties) {
+            counterpartyIds.add(counterparty.getCounterpartyId());
+        }
+        Set<String> missing = new HashSet<>();
+        Map<String, String> names = userNameService.cachedNames(counterpartyIds, missing);
+        if (missing.isEmpty()) {
+            return Mono.just(names);
+        }
+        return userRepo.findNamesByUserIdIn(missing)
+                .doOnNext(user -> names.put(user.getUserId(), userNameService.remember(user)))
+                .then(Mono.just(names));
+    }
+}
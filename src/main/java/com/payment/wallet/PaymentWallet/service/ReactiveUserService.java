@@ -0,0 +1,150 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.dto.ContactListResponse;
+import com.payment.wallet.PaymentWallet.dto.UserContact;
+import com.payment.wallet.PaymentWallet.entity.User;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.repo.ReactiveUserRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// UserService for the reactive API. Lookups go through the same UserCache, but misses are loaded
+// with the reactive driver; contact search and ID generation are in-memory and shared as they are.
+@Service
+@Profile("reactive")
+public class ReactiveUserService {
+
+    @Autowired
+    private ReactiveUserRepo userRepo;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ReactiveOTPService otpService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private ContactSearchIndex contactSearchIndex;
+
+    // Create a new user
+    public Mono<User> createUser(User user) {
+        return userRepo.findByEmailOrMobile(user.getEmail(), user.getMobile())
+                .flatMap(existing -> Mono.<User>error(WalletException.USER_EXISTS))
+                .switchIfEmpty(Mono.defer(() -> {
+                    user.setCreatedAt(LocalDateTime.now());
+                    user.setStatus("ACTIVE");
+                    return userRepo.save(user);
+                }))
+                .doOnNext(savedUser -> {
+                    userCache.put(savedUser);
+                    contactSearchIndex.add(savedUser);
+                });
+    }
+
+    // Send OTP for login
+    public Mono<Boolean> sendLoginOTP(String emailOrMobile) {
+        return userRepo.findByEmailOrMobile(emailOrMobile, emailOrMobile)
+                .switchIfEmpty(Mono.error(WalletException.USER_NOT_FOUND))
+                .flatMap(user -> otpService.sendOTP(user.getUserId(), user.getEmail(), user.getMobile(), "LOGIN"));
+    }
+
+    // Verify OTP and login
+    public Mono<User> loginWithOTP(String emailOrMobile, String otpCode) {
+        return userRepo.findByEmailOrMobile(emailOrMobile, emailOrMobile)
+                .filterWhen(user -> otpService.verifyOTP(user.getUserId(), otpCode, "LOGIN"))
+                .flatMap(user -> userRepo.recordLogin(user.getUserId(), LocalDateTime.now()))
+                .doOnNext(userCache::put)
+                .switchIfEmpty(Mono.error(WalletException.LOGIN_FAILED));
+    }
+
+    // Send OTP for user actions (profile changes, etc.)
+    public Mono<Boolean> sendUserActionOTP(String userId, String purpose) {
+        return findById(userId)
+                .switchIfEmpty(Mono.error(WalletException.USER_NOT_FOUND))
+                .flatMap(user -> otpService.sendOTP(user.getUserId(), user.getEmail(), user.getMobile(), purpose));
+    }
+
+    // Verify user action OTP
+    public Mono<Boolean> verifyUserActionOTP(String userId, String otpCode, String purpose) {
+        return otpService.verifyOTP(userId, otpCode, purpose);
+    }
+
+    // Find user by ID
+    public Mono<User> findUserById(String userId) {
+        return findById(userId).switchIfEmpty(Mono.error(WalletException.USER_NOT_FOUND));
+    }
+
+    // One page of contacts; pages are capped and projected, so the page is collected before it is written
+    public Mono<ContactListResponse> getContactsPage(String cursor, Integer size) {
+        return Mono.defer(() -> {
+            int pageSize = userService.contactPageSize(size);
+            String afterUserId = userService.decodeContactCursor(cursor);
+            // One extra row tells us whether another page exists without a count query
+            return userRepo.streamContacts(afterUserId, pageSize + 1)
+                    .collectList()
+                    .map(users -> {
+                        boolean hasMore = users.size() > pageSize;
+                        List<UserContact> contacts = new ArrayList<>(Math.min(users.size(), pageSize));
+                        for (User user : hasMore ? users.subList(0, pageSize) : users) {
+                            contacts.add(UserContact.from(user));
+                        }
+                        String nextCursor = hasMore ? userService.encodeContactCursor(users.get(pageSize - 1).getUserId()) : null;
+                        return ContactListResponse.ok(contacts, nextCursor);
+                    });
+        });
+    }
+
+    // Cached user, or one reactive query; empty when there is no such user
+    public Mono<User> findById(String userId) {
+        User cached = userCache.getIfPresent(userId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return userId == null ? Mono.empty() : userRepo.findById(userId).doOnNext(userCache::put);
+    }
+
+    public Mono<User> findByEmail(String email) {
+        User cached = userCache.getIfPresentByEmail(email);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return email == null ? Mono.empty() : userRepo.findByEmail(email).doOnNext(userCache::put);
+    }
+
+    // Users keyed by email: cached ones plus one query for the rest
+    public Mono<Map<String, User>> findAllByEmail(Collection<String> emails) {
+        Map<String, User> users = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String email : emails) {
+            User cached = userCache.getIfPresentByEmail(email);
+            if (cached != null) {
+                users.put(email, cached);
+            } else if (email != null) {
+                missing.add(email);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.just(users);
+        }
+        return userRepo.findByEmailIn(missing)
+                .doOnNext(user -> {
+                    userCache.put(user);
+                    users.put(user.getEmail(), user);
+                })
+                .then(Mono.just(users));
+    }
+}
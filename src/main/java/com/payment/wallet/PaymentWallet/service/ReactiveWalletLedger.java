@@ -0,0 +1,388 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.entity.LedgerEntry;
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.repo.ReactiveLedgerRepo;
+import com.payment.wallet.PaymentWallet.repo.ReactiveWalletRepo;
+import com.payment.wallet.PaymentWallet.repo.ReactiveWalletStripeRepo;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// WalletLedger for the reactive profile: the same slot-taking appends, snapshots, tails and stripes
+@Service
+@Profile("reactive")
+public class ReactiveWalletLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveWalletLedger.class);
+
+    @Autowired
+    private ReactiveWalletRepo walletRepo;
+
+    @Autowired
+    private ReactiveWalletStripeRepo walletStripeRepo;
+
+    @Autowired
+    private ReactiveLedgerRepo ledgerRepo;
+
+    @Autowired
+    private WalletCache walletCache;
+
+    @Value("${wallet.ledger.snapshot-interval:100}")
+    private int snapshotInterval;
+
+    @Value("${wallet.ledger.max-attempts:20}")
+    private int maxAttempts;
+
+    @Value("${wallet.ledger.entry-attempts:3}")
+    private int entryAttempts;
+
+    @Value("${wallet.ledger.max-stripes:64}")
+    private int maxStripes;
+
+    // Current wallet, served from the cache when possible; a hot wallet's balance is the sum of its stripes
+    public Mono<Wallet> current(String userId) {
+        return account(userId).flatMap(wallet -> stripes(userId).flatMap(stripes -> stripes <= 1 ? Mono.just(wallet)
+                : Flux.range(1, stripes - 1)
+                        .concatMap(stripe -> account(WalletLedger.stripeKey(userId, stripe)))
+                        .reduce(wallet.getBalancePaise(), (balance, stripe) -> balance + stripe.getBalancePaise())
+                        .map(balance -> WalletLedger.withBalance(wallet, balance))));
+    }
+
+    // Opt a wallet into hot mode; the stripe count only ever grows
+    public Mono<Wallet> enableStripes(String userId, int stripes) {
+        if (stripes < 2 || stripes > maxStripes) {
+            return Mono.error(new WalletException(HttpStatus.BAD_REQUEST, "Stripes must be between 2 and " + maxStripes));
+        }
+        return account(userId)
+                .then(walletRepo.raiseStripes(userId, stripes))
+                .then(Mono.fromRunnable(() -> walletCache.invalidate(userId)))
+                .then(Mono.defer(() -> current(userId)));
+    }
+
+    // Read-through, as in WalletLedger.createWallet
+    public Mono<Wallet> createWallet(String userId) {
+        return account(userId);
+    }
+
+    // Take amountPaise out; empty when the balance is short
+    public Mono<Wallet> debit(String userId, long amountPaise, List<String> transactionIds) {
+        return append(userId, -amountPaise, transactionIds)
+                // Short on stripe 0: ask the wallet document, as a cached count may predate another instance's enableStripes
+                .switchIfEmpty(Mono.defer(() -> readStripes(userId))
+                        .flatMap(stripes -> stripes <= 1 ? Mono.empty()
+                                : sweep(userId, amountPaise, transactionIds)
+                                        .then(Mono.defer(() -> append(userId, -amountPaise, transactionIds)))));
+    }
+
+    public Mono<Wallet> credit(String userId, long amountPaise, List<String> transactionIds) {
+        return stripes(userId).flatMap(stripes -> append(WalletLedger.creditKey(userId, stripes), amountPaise, transactionIds));
+    }
+
+    // Credit many wallets with one insert; emits the userIds whose credit could not be written
+    public Mono<Set<String>> creditAll(Map<String, Long> amountsByUserId, Map<String, List<String>> transactionIdsByUserId) {
+        Map<String, String> userIdsByKey = new HashMap<>();
+        return stripesAll(amountsByUserId.keySet()).flatMap(stripesByUserId -> {
+            for (Map.Entry<String, Integer> stripes : stripesByUserId.entrySet()) {
+                userIdsByKey.put(WalletLedger.creditKey(stripes.getKey(), stripes.getValue()), stripes.getKey());
+            }
+            return currentAll(userIdsByKey.keySet());
+        }).flatMap(states -> {
+            List<LedgerEntry> entries = new ArrayList<>();
+            for (Map.Entry<String, String> credit : userIdsByKey.entrySet()) {
+                entries.add(WalletLedger.newEntry(states.get(credit.getKey()), amountsByUserId.get(credit.getValue()),
+                        transactionIdsByUserId.get(credit.getValue())));
+            }
+            return appendAll(entries).flatMap(unwritten -> {
+                Mono<Void> written = Flux.fromIterable(entries)
+                        .filter(entry -> !unwritten.contains(entry.getUserId()))
+                        .concatMap(entry -> applied(WalletLedger.view(states.get(entry.getUserId()), entry)))
+                        .then();
+                // Someone else wrote to these wallets meanwhile, or the insert failed for them; retry them one at a time
+                Set<String> failed = new HashSet<>();
+                return written.thenMany(Flux.fromIterable(unwritten).map(userIdsByKey::get))
+                        .concatMap(userId -> credit(userId, amountsByUserId.get(userId), transactionIdsByUserId.get(userId))
+                                .then()
+                                .onErrorResume(e -> {
+                                    log.error("Ledger credit failed for {}", userId, e);
+                                    failed.add(userId);
+                                    return Mono.empty();
+                                }))
+                        .then(Mono.just(failed));
+            });
+        });
+    }
+
+    // As in WalletLedger.appendAll: after an unanswered insert, only the entries the ledger does not hold are retried
+    private Mono<Set<String>> appendAll(List<LedgerEntry> entries) {
+        return ledgerRepo.appendAll(entries).onErrorResume(e -> {
+            Map<String, String> keysByEntryId = new HashMap<>();
+            for (LedgerEntry entry : entries) {
+                keysByEntryId.put(entry.getEntryId(), entry.getUserId());
+            }
+            return ledgerRepo.findAllById(keysByEntryId.keySet())
+                    .doOnNext(written -> keysByEntryId.remove(written.getEntryId()))
+                    .then(Mono.fromCallable(() -> (Set<String>) new HashSet<>(keysByEntryId.values())))
+                    .onErrorResume(unknown -> {
+                        keysByEntryId.values().forEach(walletCache::invalidate);
+                        e.addSuppressed(unknown);
+                        return Mono.error(e);
+                    });
+        });
+    }
+
+    // As in WalletLedger.sweep: stripe by stripe from the ledger's balances, debit the stripe then credit
+    // stripe 0, putting a move back if its credit fails
+    private Mono<Void> sweep(String userId, long amountPaise, List<String> transactionIds) {
+        return stripes(userId).flatMap(stripes -> {
+            Set<String> keys = new HashSet<>();
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                keys.add(WalletLedger.stripeKey(userId, stripe));
+            }
+            return refreshAll(keys).flatMap(states -> {
+                long[] needed = {amountPaise - states.get(userId).getBalancePaise()};
+                return Flux.range(1, stripes - 1)
+                        .concatMap(stripe -> {
+                            String key = WalletLedger.stripeKey(userId, stripe);
+                            long moved = Math.min(states.get(key).getBalancePaise(), needed[0]);
+                            if (moved <= 0) {
+                                return Mono.empty();
+                            }
+                            return append(key, -moved, transactionIds)
+                                    .flatMap(debited -> append(userId, moved, transactionIds)
+                                            .doOnNext(credited -> needed[0] -= moved)
+                                            .onErrorResume(e -> append(key, moved, transactionIds).then(Mono.error(e))));
+                        })
+                        .then();
+            });
+        });
+    }
+
+    // Empty when a debit finds the balance short
+    private Mono<Wallet> append(String key, long amountPaise, List<String> transactionIds) {
+        return account(key).flatMap(state -> append(state, amountPaise, transactionIds, false, 0));
+    }
+
+    private Mono<Wallet> append(Wallet state, long amountPaise, List<String> transactionIds, boolean fresh, int attempt) {
+        if (attempt >= maxAttempts) {
+            return Mono.error(new ServerBusyException());
+        }
+        if (state.getBalancePaise() + amountPaise < 0) {
+            // The cached state may be missing another instance's credits
+            return fresh ? Mono.empty()
+                    : refresh(state).flatMap(next -> append(next, amountPaise, transactionIds, true, attempt + 1));
+        }
+        LedgerEntry entry = WalletLedger.newEntry(state, amountPaise, transactionIds);
+        return insert(entry).flatMap(taken -> {
+            if (taken) {
+                return applied(WalletLedger.view(state, entry));
+            }
+            // The winner is often a request on this instance that has already cached the state after its entry
+            Wallet cached = walletCache.getIfPresent(state.getUserId());
+            if (cached != null && cached.getRevision() > state.getRevision()) {
+                return append(cached, amountPaise, transactionIds, false, attempt + 1);
+            }
+            return refresh(state).flatMap(next -> append(next, amountPaise, transactionIds, true, attempt + 1));
+        });
+    }
+
+    // As in WalletLedger.insert: an unanswered insert is retried as the same entry, and a slot found taken
+    // on a retry may be its own
+    private Mono<Boolean> insert(LedgerEntry entry) {
+        AtomicInteger attempts = new AtomicInteger();
+        return Mono.defer(() -> attempts.incrementAndGet() == 1 ? ledgerRepo.append(entry)
+                        : ledgerRepo.append(entry).flatMap(taken -> taken ? Mono.just(true) : ledgerRepo.existsById(entry.getEntryId())))
+                .retry(entryAttempts - 1)
+                .doOnError(e -> walletCache.invalidate(entry.getUserId()));
+    }
+
+    // One ledger account: a plain wallet, stripe 0 of a hot wallet, or one of its other stripes
+    private Mono<Wallet> account(String key) {
+        Wallet cached = walletCache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return load(key).doOnNext(walletCache::update);
+    }
+
+    // Cached count, or the wallet document's; no document yet means a plain wallet
+    private Mono<Integer> stripes(String userId) {
+        Integer cached = walletCache.getStripesIfPresent(userId);
+        return cached != null ? Mono.just(cached) : readStripes(userId);
+    }
+
+    private Mono<Integer> readStripes(String userId) {
+        return walletRepo.findByUserId(userId)
+                .map(Wallet::getStripes)
+                .defaultIfEmpty(0)
+                .doOnNext(stripes -> walletCache.updateStripes(userId, stripes));
+    }
+
+    // Cached counts where present, the rest with one wallet query
+    private Mono<Map<String, Integer>> stripesAll(Set<String> userIds) {
+        Map<String, Integer> stripes = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String userId : userIds) {
+            Integer cached = walletCache.getStripesIfPresent(userId);
+            if (cached != null) {
+                stripes.put(userId, cached);
+            } else {
+                stripes.put(userId, 0);
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.just(stripes);
+        }
+        return walletRepo.findByUserIdIn(missing)
+                .doOnNext(wallet -> {
+                    walletCache.updateStripes(wallet.getUserId(), wallet.getStripes());
+                    stripes.put(wallet.getUserId(), wallet.getStripes());
+                })
+                .then(Mono.just(stripes));
+    }
+
+    // Snapshot plus tail, as in WalletLedger.load
+    private Mono<Wallet> load(String key) {
+        return snapshot(key).flatMap(snapshot -> ledgerRepo.findByUserIdAndSeqGreaterThanOrderBySeqAsc(key, snapshot.getLedgerSeq())
+                .collectList()
+                .map(tail -> WalletLedger.applyTail(snapshot, tail)));
+    }
+
+    // As in WalletLedger.snapshot
+    private Mono<Wallet> snapshot(String key) {
+        if (WalletLedger.stripeOf(key) > 0) {
+            return walletStripeRepo.findById(key)
+                    .map(WalletLedger::stripeState)
+                    .defaultIfEmpty(WalletLedger.emptyStripe(key));
+        }
+        return walletRepo.findByUserId(key)
+                .switchIfEmpty(Mono.defer(() -> insertWallet(key)))
+                .doOnNext(wallet -> walletCache.updateStripes(key, wallet.getStripes()))
+                .map(WalletLedger::snapshotState);
+    }
+
+    // Cached states where present, the rest with one query per snapshot collection and one tail query
+    private Mono<Map<String, Wallet>> currentAll(Set<String> keys) {
+        Map<String, Wallet> states = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String key : keys) {
+            Wallet cached = walletCache.getIfPresent(key);
+            if (cached != null) {
+                states.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.just(states);
+        }
+
+        Map<String, Wallet> snapshots = new HashMap<>();
+        return readAll(missing)
+                .doOnNext(snapshot -> snapshots.put(snapshot.getUserId(), snapshot))
+                .thenMany(Flux.defer(() -> Flux.fromIterable(missing)
+                        .filter(key -> !snapshots.containsKey(key))
+                        .concatMap(key -> WalletLedger.stripeOf(key) > 0 ? Mono.just(WalletLedger.emptyStripe(key))
+                                : insertWallet(key).map(WalletLedger::snapshotState))
+                        .doOnNext(snapshot -> snapshots.put(snapshot.getUserId(), snapshot))))
+                .then(Mono.defer(() -> catchUp(snapshots)))
+                .map(caughtUp -> {
+                    states.putAll(caughtUp);
+                    return states;
+                });
+    }
+
+    // The states of the given chains as the ledger has them now, with one tail query
+    private Mono<Map<String, Wallet>> refreshAll(Set<String> keys) {
+        return currentAll(keys).flatMap(this::catchUp);
+    }
+
+    // As in WalletLedger.catchUp
+    private Mono<Map<String, Wallet>> catchUp(Map<String, Wallet> states) {
+        Map<String, Long> afterSeq = new HashMap<>();
+        for (Wallet state : states.values()) {
+            afterSeq.put(state.getUserId(), state.getRevision());
+        }
+        return ledgerRepo.findTails(afterSeq).collectMultimap(LedgerEntry::getUserId).map(tails -> {
+            Map<String, Wallet> caughtUp = new HashMap<>();
+            for (Wallet state : states.values()) {
+                Wallet next = WalletLedger.applyTail(state, new ArrayList<>(tails.getOrDefault(state.getUserId(), List.of())));
+                walletCache.update(next);
+                caughtUp.put(next.getUserId(), next);
+            }
+            return caughtUp;
+        });
+    }
+
+    // The stored snapshots of wallets and stripes, one query for each; keys with no document are left out
+    private Flux<Wallet> readAll(Set<String> keys) {
+        Set<String> walletKeys = new HashSet<>();
+        Set<String> stripeKeys = new HashSet<>();
+        for (String key : keys) {
+            (WalletLedger.stripeOf(key) > 0 ? stripeKeys : walletKeys).add(key);
+        }
+        Flux<Wallet> wallets = walletKeys.isEmpty() ? Flux.empty() : walletRepo.findByUserIdIn(walletKeys)
+                .doOnNext(wallet -> walletCache.updateStripes(wallet.getUserId(), wallet.getStripes()))
+                .map(WalletLedger::snapshotState);
+        Flux<Wallet> stripes = stripeKeys.isEmpty() ? Flux.empty() : walletStripeRepo.findAllById(stripeKeys)
+                .map(WalletLedger::stripeState);
+        return wallets.concatWith(stripes);
+    }
+
+    private Mono<Wallet> refresh(Wallet state) {
+        return ledgerRepo.findByUserIdAndSeqGreaterThanOrderBySeqAsc(state.getUserId(), state.getRevision())
+                .collectList()
+                .map(tail -> WalletLedger.applyTail(state, tail))
+                .doOnNext(walletCache::update);
+    }
+
+    private Mono<Wallet> applied(Wallet next) {
+        walletCache.update(next);
+        if (next.getRevision() % snapshotInterval != 0) {
+            return Mono.just(next);
+        }
+        String key = next.getUserId();
+        int stripe = WalletLedger.stripeOf(key);
+        Mono<Boolean> saved = stripe == 0 ? walletRepo.saveSnapshot(key, next.getBalancePaise(), next.getRevision())
+                : walletStripeRepo.saveSnapshot(WalletLedger.ownerOf(key), stripe, next.getBalancePaise(), next.getRevision());
+        return saved
+                .onErrorResume(e -> {
+                    // The ledger already has the entry; the next snapshot covers this one
+                    log.warn("Failed to save balance snapshot for {}", key, e);
+                    return Mono.just(false);
+                })
+                .thenReturn(next);
+    }
+
+    // As in WalletLedger.insertWallet: an instance that loses the insert to another reads the winner's wallet
+    private Mono<Wallet> insertWallet(String userId) {
+        Wallet wallet = new Wallet();
+        wallet.setWalletId(new ObjectId().toHexString());
+        wallet.setUserId(userId);
+        wallet.setBalancePaise(0);
+        wallet.setCreatedAt(LocalDateTime.now());
+
+        return walletRepo.insert(wallet)
+                .onErrorResume(DuplicateKeyException.class, e -> walletRepo.findByUserId(userId).switchIfEmpty(Mono.error(e)));
+    }
+}
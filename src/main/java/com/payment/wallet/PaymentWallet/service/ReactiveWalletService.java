@@ -0,0 +1,506 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.dto.BulkTransferItem;
+import com.payment.wallet.PaymentWallet.dto.BulkTransferResult;
+import com.payment.wallet.PaymentWallet.dto.TransactionPage;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.entity.User;
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.repo.ReactiveTransactionRepo;
+import com.payment.wallet.PaymentWallet.repo.ReactiveUserRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// WalletService for the reactive API: the same ledger entries, credits and validation, but each
+// step is a Mono, so a request waiting on Mongo holds no thread. Transaction records are inserted
+// directly; the group-commit journal blocks its callers and stays with the servlet deployment.
+@Service
+@Profile("reactive")
+public class ReactiveWalletService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveWalletService.class);
+
+    @Autowired
+    private ReactiveWalletLedger walletLedger;
+
+    @Autowired
+    private ReactiveTransactionRepo transactionRepo;
+
+    @Autowired
+    private ReactiveUserRepo userRepo;
+
+    @Autowired
+    private ReactiveUserService userService;
+
+    @Autowired
+    private ReactiveOTPService reactiveOTPService;
+
+    // Only for queueing transaction alerts, which never blocks
+    @Autowired
+    private OTPService otpService;
+
+    @Autowired
+    private UserNameService userNameService;
+
+    @Autowired
+    private ReactiveTransactionSummaryService transactionSummaryService;
+
+    @Autowired
+    private TransactionIdGenerator idGenerator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${wallet.transactions.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${wallet.transactions.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${wallet.transactions.stream-batch-size:500}")
+    private int streamBatchSize;
+
+    @Value("${wallet.bulk.max-items:1000}")
+    private int maxBulkItems;
+
+    private Timer receiverLookupTimer;
+    private Timer debitTimer;
+    private Timer creditTimer;
+    private Timer notifyTimer;
+    private Timer saveTimer;
+
+    // Same meters as WalletService, so dashboards read the same in either deployment mode
+    @PostConstruct
+    public void initializeMetrics() {
+        receiverLookupTimer = stageTimer("receiver_lookup");
+        debitTimer = stageTimer("debit");
+        creditTimer = stageTimer("credit");
+        notifyTimer = stageTimer("notify");
+        saveTimer = stageTimer("transaction_save");
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("wallet.transfer.stage")
+                .description("Time spent in each step of a wallet-to-wallet transfer")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    // Time from subscription to completion or error
+    private <T> Mono<T> timed(Timer timer, Mono<T> stage) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return stage.doFinally(signal -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    // Create wallet for new user with 0 starting balance
+    public Mono<Wallet> createWallet(String userId) {
+        return walletLedger.createWallet(userId);
+    }
+
+    // Spread a busy payee's credits over several ledger chains; see WalletLedger
+    public Mono<Wallet> enableHotWallet(String userId, int stripes) {
+        return walletLedger.enableStripes(userId, stripes);
+    }
+
+    // Get wallet by user ID: balance snapshot plus ledger tail, served from the wallet cache when possible
+    public Mono<Wallet> getWalletByUserId(String userId) {
+        return walletLedger.current(userId);
+    }
+
+    // Get user balance in paise
+    public Mono<Long> getBalance(String userId) {
+        return getWalletByUserId(userId).map(Wallet::getBalancePaise);
+    }
+
+    // Send OTP for transaction
+    public Mono<Boolean> sendTransactionOTP(String userId, String purpose) {
+        return userService.findById(userId)
+                .flatMap(user -> reactiveOTPService.sendOTP(userId, user.getEmail(), user.getMobile(), purpose))
+                .defaultIfEmpty(false);
+    }
+
+    // Send money with OTP verification
+    public Mono<Transaction> sendMoneyWithOTP(String fromUserId, String toUserEmail, long amount, String description, String otpCode) {
+        return sendMoneyWithOTP(fromUserId, null, toUserEmail, amount, description, otpCode);
+    }
+
+    // Receiver by id when toUserId is set, otherwise by email
+    public Mono<Transaction> sendMoneyWithOTP(String fromUserId, String toUserId, String toUserEmail, long amount, String description, String otpCode) {
+        return reactiveOTPService.verifyOTP(fromUserId, otpCode, "TRANSACTION")
+                .flatMap(valid -> valid
+                        ? performMoneyTransfer(fromUserId, toUserId, toUserEmail, amount, description)
+                        : Mono.error(WalletException.INVALID_OTP));
+    }
+
+    // Add money with OTP verification
+    public Mono<Transaction> addMoneyWithOTP(String userId, long amount, String description, String otpCode) {
+        return reactiveOTPService.verifyOTP(userId, otpCode, "ADD_MONEY")
+                .flatMap(valid -> valid
+                        ? performAddMoney(userId, amount, description)
+                        : Mono.error(WalletException.INVALID_OTP));
+    }
+
+    // Legacy methods for backward compatibility (without OTP)
+    public Mono<Transaction> sendMoney(String fromUserId, String toUserEmail, long amount, String description) {
+        return performMoneyTransfer(fromUserId, null, toUserEmail, amount, description);
+    }
+
+    public Mono<Transaction> sendMoney(String fromUserId, String toUserId, String toUserEmail, long amount, String description) {
+        return performMoneyTransfer(fromUserId, toUserId, toUserEmail, amount, description);
+    }
+
+    public Mono<Transaction> addMoney(String userId, long amount, String description) {
+        return performAddMoney(userId, amount, description);
+    }
+
+    // Perform actual money transfer
+    private Mono<Transaction> performMoneyTransfer(String fromUserId, String receiverId, String receiverEmail, long amount, String description) {
+        return Mono.defer(() -> {
+                    WalletService.validateAmount(amount);
+                    return timed(receiverLookupTimer, receiverId != null
+                            ? userService.findById(receiverId)
+                            : userService.findByEmail(receiverEmail));
+                })
+                .switchIfEmpty(Mono.error(WalletException.RECEIVER_NOT_FOUND))
+                .flatMap(toUser -> {
+                    String toUserId = toUser.getUserId();
+                    Transaction transaction = newTransaction(fromUserId, toUserId, amount, "TRANSFER", description, "REF");
+
+                    // The debit entry is the balance check: it only lands on a sequence slot computed from the full ledger
+                    List<String> transactionIds = List.of(transaction.getTransactionId());
+                    return timed(debitTimer, walletLedger.debit(fromUserId, amount, transactionIds))
+                            .switchIfEmpty(Mono.error(WalletException.INSUFFICIENT_BALANCE))
+                            .flatMap(fromWallet -> timed(creditTimer, walletLedger.credit(toUserId, amount, transactionIds))
+                                    .onErrorResume(e -> {
+                                        log.error("Transfer {} failed after debiting {}", transaction.getTransactionId(), fromUserId, e);
+                                        return refundFailedTransfer(transaction, transactionIds)
+                                                .then(Mono.error(WalletException.TRANSACTION_FAILED));
+                                    }))
+                            .flatMap(toWallet -> {
+                                transaction.markCompleted();
+                                return timed(notifyTimer, sendTransactionNotifications(fromUserId, toUserId, amount, description, "SENT"));
+                            })
+                            .then(timed(saveTimer, Mono.defer(() -> transactionRepo.insert(transaction))))
+                            .flatMap(saved -> transactionSummaryService.record(List.of(saved)).thenReturn(saved));
+                });
+    }
+
+    // Perform add money operation
+    private Mono<Transaction> performAddMoney(String userId, long amount, String description) {
+        return Mono.defer(() -> {
+            WalletService.validateAmount(amount);
+            Transaction transaction = newTransaction("SYSTEM", userId, amount, "DEPOSIT",
+                    description != null ? description : "Balance added", "DEP");
+
+            return walletLedger.credit(userId, amount, List.of(transaction.getTransactionId()))
+                    .onErrorMap(e -> {
+                        log.error("Deposit {} to {} failed", transaction.getTransactionId(), userId, e);
+                        return WalletException.ADD_MONEY_FAILED;
+                    })
+                    .flatMap(wallet -> {
+                        transaction.markCompleted();
+                        return sendTransactionNotifications(userId, userId, amount, description, "DEPOSIT");
+                    })
+                    .then(Mono.defer(() -> transactionRepo.insert(transaction)))
+                    .flatMap(saved -> transactionSummaryService.record(List.of(saved)).thenReturn(saved));
+        });
+    }
+
+    // Give the sender back the debited amount and keep the failed transfer on record, as in WalletService
+    private Mono<Void> refundFailedTransfer(Transaction transaction, List<String> transactionIds) {
+        return walletLedger.credit(transaction.getFromUserId(), transaction.getAmountPaise(), transactionIds)
+                .doOnSuccess(wallet -> transaction.markFailed())
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Refund of {} paise to {} for transfer {} failed; the sender stays debited until reconciled",
+                            transaction.getAmountPaise(), transaction.getFromUserId(), transaction.getTransactionId(), e);
+                    transaction.markRefundFailed();
+                    return Mono.empty();
+                })
+                .then(Mono.defer(() -> recordFailedTransactions(List.of(transaction))));
+    }
+
+    // The same for the failed items of a bulk transfer, refunded together in one ledger entry
+    private Mono<Void> refundFailedTransfers(String fromUserId, List<Transaction> transactions) {
+        long refund = 0;
+        List<String> transactionIds = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            refund += transaction.getAmountPaise();
+            transactionIds.add(transaction.getTransactionId());
+        }
+        long refundPaise = refund;
+        return walletLedger.credit(fromUserId, refundPaise, transactionIds)
+                .doOnSuccess(wallet -> transactions.forEach(Transaction::markFailed))
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Refund of {} paise to {} for bulk transfers {} failed; the sender stays debited until reconciled",
+                            refundPaise, fromUserId, transactionIds, e);
+                    transactions.forEach(Transaction::markRefundFailed);
+                    return Mono.empty();
+                })
+                .then(Mono.defer(() -> recordFailedTransactions(transactions)));
+    }
+
+    // The money has already moved, so this never fails the request. A batch that fails is retried one record
+    // at a time, as TransactionJournal does, and a record that still cannot be saved is logged with its ids
+    private Mono<Void> recordCompletedTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> transactionRepo.insert(transactions).then())
+                .onErrorResume(e -> {
+                    log.warn("Recording {} bulk transfers failed, inserting individually", transactions.size(), e);
+                    return Flux.fromIterable(transactions).concatMap(this::retryRecord).then();
+                });
+    }
+
+    // A duplicate id is only accepted when the stored record is this one, written by the failed batch
+    private Mono<Void> retryRecord(Transaction transaction) {
+        return transactionRepo.insert(transaction)
+                .then()
+                .onErrorResume(DuplicateKeyException.class, e -> transactionRepo.findById(transaction.getTransactionId())
+                        .filter(stored -> TransactionJournal.sameRecord(stored, transaction))
+                        .switchIfEmpty(Mono.error(e))
+                        .then())
+                .onErrorResume(e -> {
+                    log.error("Transfer {} of {} paise from {} to {} completed but its record could not be saved",
+                            transaction.getTransactionId(), transaction.getAmountPaise(), transaction.getFromUserId(),
+                            transaction.getToUserId(), e);
+                    return Mono.empty();
+                });
+    }
+
+    // Best effort: the request is already failing, and the log carries the same ids
+    private Mono<Void> recordFailedTransactions(List<Transaction> transactions) {
+        return transactionRepo.insert(transactions)
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Failed to record {} failed transactions", transactions.size(), e);
+                    return Mono.empty();
+                });
+    }
+
+    private Transaction newTransaction(String fromUserId, String toUserId, long amount, String type, String description, String referencePrefix) {
+        TransactionIdGenerator.TransactionId id = idGenerator.next();
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id.hex());
+        transaction.setFromUserId(fromUserId);
+        transaction.setToUserId(toUserId);
+        transaction.setAmountPaise(amount);
+        transaction.setType(type);
+        transaction.setDescription(description);
+        transaction.setReferenceNumber(id.reference(referencePrefix));
+        transaction.setCreatedAt(LocalDateTime.now());
+        return transaction;
+    }
+
+    // Pay many recipients from one wallet: one recipient query, one debit, one ledger insert for the credits, one insert
+    public Mono<List<BulkTransferResult>> bulkTransfer(String fromUserId, List<BulkTransferItem> items) {
+        if (items == null || items.isEmpty()) {
+            return Mono.error(WalletException.NO_TRANSFERS);
+        }
+        if (items.size() > maxBulkItems) {
+            return Mono.error(new WalletException(HttpStatus.BAD_REQUEST, "At most " + maxBulkItems + " transfers per request"));
+        }
+
+        Set<String> emails = new HashSet<>();
+        for (BulkTransferItem item : items) {
+            emails.add(item.getToUserEmail());
+        }
+        return userService.findAllByEmail(emails).flatMap(recipients -> {
+            // Validate every item and total what will actually be paid out
+            BulkTransferResult[] results = new BulkTransferResult[items.size()];
+            Map<String, Long> creditsByUserId = new HashMap<>();
+            long total = 0;
+            for (int i = 0; i < items.size(); i++) {
+                BulkTransferItem item = items.get(i);
+                User recipient = recipients.get(item.getToUserEmail());
+                if (item.getAmountPaise() <= 0) {
+                    results[i] = BulkTransferResult.failed(i, item.getToUserEmail(), "Amount must be greater than zero");
+                } else if (recipient == null) {
+                    results[i] = BulkTransferResult.failed(i, item.getToUserEmail(), "Receiver not found");
+                } else {
+                    creditsByUserId.merge(recipient.getUserId(), item.getAmountPaise(), Math::addExact);
+                    total = Math.addExact(total, item.getAmountPaise());
+                }
+            }
+            if (total == 0) {
+                return Mono.just(Arrays.asList(results));
+            }
+
+            // Transactions first, so every ledger entry can name the ones it settles
+            Transaction[] transactions = new Transaction[items.size()];
+            List<String> transactionIds = new ArrayList<>();
+            Map<String, List<String>> transactionIdsByUserId = new HashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                if (results[i] != null) {
+                    continue;
+                }
+                BulkTransferItem item = items.get(i);
+                User recipient = recipients.get(item.getToUserEmail());
+                Transaction transaction = newTransaction(fromUserId, recipient.getUserId(), item.getAmountPaise(),
+                        "TRANSFER", item.getDescription(), "REF");
+                transactions[i] = transaction;
+                transactionIds.add(transaction.getTransactionId());
+                transactionIdsByUserId.computeIfAbsent(recipient.getUserId(), userId -> new ArrayList<>()).add(transaction.getTransactionId());
+            }
+
+            long debited = total;
+            return walletLedger.debit(fromUserId, debited, transactionIds)
+                    .switchIfEmpty(Mono.error(WalletException.INSUFFICIENT_BALANCE))
+                    .flatMap(fromWallet -> walletLedger.creditAll(creditsByUserId, transactionIdsByUserId)
+                            .onErrorResume(e -> {
+                                // Which credits landed is unknown, so nothing is refunded; the records stay PENDING for reconciliation
+                                log.error("Bulk transfer from {} failed after debiting {} paise; credits of {} transactions are unknown",
+                                        fromUserId, debited, transactionIds.size(), e);
+                                return recordFailedTransactions(Arrays.stream(transactions).filter(Objects::nonNull).toList())
+                                        .then(Mono.error(WalletException.TRANSACTION_FAILED));
+                            }))
+                    .flatMap(failedCredits -> {
+                        List<Transaction> completed = new ArrayList<>();
+                        List<Transaction> failed = new ArrayList<>();
+                        for (int i = 0; i < items.size(); i++) {
+                            Transaction transaction = transactions[i];
+                            if (transaction == null) {
+                                continue;
+                            }
+                            if (failedCredits.contains(transaction.getToUserId())) {
+                                failed.add(transaction);
+                                results[i] = BulkTransferResult.failed(i, items.get(i).getToUserEmail(), "Transaction failed");
+                                continue;
+                            }
+                            transaction.markCompleted();
+                            completed.add(transaction);
+                            results[i] = BulkTransferResult.completed(i, items.get(i).getToUserEmail(), transaction.getTransactionId());
+                        }
+
+                        return (failed.isEmpty() ? Mono.<Void>empty() : refundFailedTransfers(fromUserId, failed))
+                                .then(recordCompletedTransactions(completed))
+                                .then(transactionSummaryService.record(completed))
+                                .then(sendBulkTransferNotifications(fromUserId, completed, items.size(), recipients.values()))
+                                .thenReturn(Arrays.asList(results));
+                    });
+        });
+    }
+
+    // Queue transaction notifications; delivery happens on the notification workers
+    private Mono<Void> sendTransactionNotifications(String fromUserId, String toUserId, long amount, String description, String type) {
+        Mono<Void> toSender = userService.findById(fromUserId)
+                .doOnNext(fromUser -> notifyUser(fromUser, amount, description, type))
+                .then();
+        // Send notification to receiver if different from sender
+        Mono<Void> toReceiver = fromUserId.equals(toUserId) ? Mono.empty() : userService.findById(toUserId)
+                .doOnNext(toUser -> notifyUser(toUser, amount, description, "RECEIVED"))
+                .then();
+        return Mono.when(toSender, toReceiver)
+                .onErrorResume(e -> {
+                    log.warn("Failed to send transaction notifications", e);
+                    return Mono.empty();
+                });
+    }
+
+    // Queue notifications for a bulk payout using the users already resolved for it
+    private Mono<Void> sendBulkTransferNotifications(String fromUserId, List<Transaction> transactions, int requested, Collection<User> recipients) {
+        Map<String, User> usersById = new HashMap<>();
+        for (User recipient : recipients) {
+            usersById.put(recipient.getUserId(), recipient);
+        }
+        return userService.findById(fromUserId)
+                // One summary for the payer, as in WalletService
+                .doOnNext(fromUser -> otpService.sendTransactionNotification(fromUser.getEmail(), fromUser.getMobile(),
+                        WalletService.buildBulkTransferMessage(fromUser, transactions, requested)))
+                .then(Mono.fromRunnable(() -> {
+                    for (Transaction transaction : transactions) {
+                        User toUser = usersById.get(transaction.getToUserId());
+                        if (toUser != null && !toUser.getUserId().equals(fromUserId)) {
+                            notifyUser(toUser, transaction.getAmountPaise(), transaction.getDescription(), "RECEIVED");
+                        }
+                    }
+                }))
+                .onErrorResume(e -> {
+                    log.warn("Failed to send transaction notifications", e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void notifyUser(User user, long amount, String description, String type) {
+        String message = WalletService.buildTransactionMessage(user, amount, description, type);
+        otpService.sendTransactionNotification(user.getEmail(), user.getMobile(), message);
+    }
+
+    // Get user transactions with enhanced details
+    public Mono<List<Transaction>> getUserTransactions(String userId) {
+        return transactionRepo.findByFromUserIdOrToUserIdOrderByCreatedAtDesc(userId, userId)
+                .collectList()
+                .flatMap(this::enrichWithUserNames);
+    }
+
+    // Get one page of user transactions, continuing after the given cursor
+    public Mono<TransactionPage> getUserTransactionsPage(String userId, String cursor, Integer size) {
+        return Mono.defer(() -> {
+            int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+            String afterTransactionId = cursor == null || cursor.isBlank() ? null : WalletService.decodeCursor(cursor);
+
+            // Fetch one extra row to know whether another page exists
+            return transactionRepo.findPageForUser(userId, afterTransactionId, pageSize + 1)
+                    .collectList()
+                    .flatMap(transactions -> {
+                        boolean hasMore = transactions.size() > pageSize;
+                        List<Transaction> page = hasMore ? new ArrayList<>(transactions.subList(0, pageSize)) : transactions;
+                        return enrichWithUserNames(page).map(enriched -> new TransactionPage(enriched,
+                                hasMore ? WalletService.encodeCursor(enriched.get(enriched.size() - 1)) : null));
+                    });
+        });
+    }
+
+    // Whole history, named one batch at a time; the next batch is fetched only as the client keeps up
+    public Flux<Transaction> streamUserTransactions(String userId) {
+        return transactionRepo.streamForUser(userId)
+                .buffer(streamBatchSize)
+                .concatMap(this::enrichWithUserNames)
+                .concatMapIterable(batch -> batch);
+    }
+
+    // Fill in sender and receiver names from the name cache, with at most one query for the misses
+    private Mono<List<Transaction>> enrichWithUserNames(List<Transaction> transactions) {
+        Set<String> missing = new HashSet<>();
+        Map<String, String> names = userNameService.cachedNames(WalletService.counterpartyIds(transactions), missing);
+        Mono<Map<String, String>> resolved = missing.isEmpty()
+                ? Mono.just(names)
+                : userRepo.findNamesByUserIdIn(missing)
+                        .doOnNext(user -> names.put(user.getUserId(), userNameService.remember(user)))
+                        .then(Mono.just(names));
+        return resolved.map(allNames -> {
+            WalletService.applyUserNames(transactions, allNames);
+            return transactions;
+        });
+    }
+}
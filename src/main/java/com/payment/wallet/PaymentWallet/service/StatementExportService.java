@@ -0,0 +1,427 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.payment.wallet.PaymentWallet.dto.StatementExport;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
+import com.payment.wallet.PaymentWallet.util.Money;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Statement exports as background jobs on their own workers, never on a request thread. A job walks
+// the user's history from a live Mongo cursor, names it one batch at a time and writes it through a
+// file channel, so heap use is one batch and one buffer whatever the row count. Jobs and files live
+// on the instance that ran them and are swept after wallet.exports.retention.
+@Service
+public class StatementExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementExportService.class);
+
+    public enum Format {
+        CSV("csv", "text/csv"),
+        NDJSON("ndjson", "application/x-ndjson");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw WalletException.INVALID_STATEMENT_FORMAT;
+        }
+    }
+
+    // A finished export ready to be sent as-is
+    public record StatementFile(Path path, String fileName, String contentType, long size) {
+    }
+
+    private static final String CSV_HEADER = "transactionId,createdAt,completedAt,type,status,direction,amount,currency,"
+            + "fromUserId,fromUserName,toUserId,toUserName,referenceNumber,description\n";
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Autowired
+    private UserNameService userNameService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${wallet.exports.directory:${java.io.tmpdir}/paynow-exports}")
+    private String directory;
+
+    @Value("${wallet.exports.workers:2}")
+    private int workers;
+
+    @Value("${wallet.exports.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${wallet.exports.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${wallet.exports.buffer-size:64KB}")
+    private DataSize bufferSize;
+
+    @Value("${wallet.exports.retention:24h}")
+    private Duration retention;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    // userId -> jobId of the export still queued or running for that user
+    private final Map<String, String> activeByUser = new ConcurrentHashMap<>();
+    private Path exportDirectory;
+    private ThreadPoolExecutor exporters;
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void startExporters() throws IOException {
+        exportDirectory = Files.createDirectories(Paths.get(directory));
+        exporters = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("statement-export"));
+        sweeper = Executors.newSingleThreadScheduledExecutor(namedThreads("statement-sweep"));
+        sweeper.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stopExporters() {
+        sweeper.shutdownNow();
+        exporters.shutdownNow();
+    }
+
+    // Queue an export of the user's history between the given dates (inclusive, either may be null)
+    public StatementExport start(String userId, String format, boolean gzip, LocalDate from, LocalDate to) {
+        Format statementFormat = Format.parse(format == null ? "csv" : format);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw WalletException.INVALID_STATEMENT_RANGE;
+        }
+
+        ExportJob job = new ExportJob(new ObjectId().toHexString(), userId, statementFormat, gzip, from, to);
+        if (activeByUser.putIfAbsent(userId, job.jobId) != null) {
+            throw WalletException.STATEMENT_IN_PROGRESS;
+        }
+        jobs.put(job.jobId, job);
+        try {
+            exporters.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.jobId);
+            activeByUser.remove(userId, job.jobId);
+            throw new ServerBusyException(Duration.ofSeconds(30));
+        }
+        return job.snapshot();
+    }
+
+    public StatementExport status(String userId, String jobId) {
+        return find(userId, jobId).snapshot();
+    }
+
+    public StatementFile file(String userId, String jobId) {
+        ExportJob job = find(userId, jobId);
+        if (!"COMPLETED".equals(job.status)) {
+            throw WalletException.STATEMENT_NOT_READY;
+        }
+        return new StatementFile(job.file, job.fileName(), job.contentType(), job.bytesWritten);
+    }
+
+    private ExportJob find(String userId, String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null || !job.userId.equals(userId)) {
+            throw WalletException.STATEMENT_NOT_FOUND;
+        }
+        return job;
+    }
+
+    private void run(ExportJob job) {
+        job.status = "RUNNING";
+        Path part = exportDirectory.resolve(job.jobId + ".part");
+        String fromTransactionId = transactionIdAt(job.from);
+        String toTransactionId = job.to == null ? null : transactionIdAt(job.to.plusDays(1));
+        try {
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                 OutputStream out = open(channel, job.gzip);
+                 Stream<Transaction> stream = transactionRepo.streamStatement(job.userId, fromTransactionId, toTransactionId)) {
+                RowWriter writer = job.format == Format.CSV ? new CsvRowWriter(out, job.userId) : new NdjsonRowWriter(out);
+                Iterator<Transaction> rows = stream.iterator();
+                List<Transaction> batch = new ArrayList<>(batchSize);
+                while (rows.hasNext()) {
+                    batch.add(rows.next());
+                    if (batch.size() == batchSize || !rows.hasNext()) {
+                        WalletService.applyUserNames(batch, userNameService.resolveNames(WalletService.counterpartyIds(batch)));
+                        for (Transaction transaction : batch) {
+                            writer.write(transaction);
+                        }
+                        job.rowsWritten += batch.size();
+                        job.bytesWritten = channel.position();
+                        batch.clear();
+                    }
+                }
+                writer.finish();
+            }
+            job.file = exportDirectory.resolve(job.jobId + "." + job.extension());
+            Files.move(part, job.file, StandardCopyOption.ATOMIC_MOVE);
+            job.bytesWritten = Files.size(job.file);
+            finish(job, "COMPLETED");
+        } catch (Exception e) {
+            log.error("Statement export {} failed", job.jobId, e);
+            deleteQuietly(part);
+            job.error = "Export failed";
+            finish(job, "FAILED");
+        }
+    }
+
+    // Free the user's slot before the final status is visible, so a poller can start the next export at once
+    private void finish(ExportJob job, String status) {
+        activeByUser.remove(job.userId, job.jobId);
+        job.completedAt = LocalDateTime.now();
+        job.status = status;
+    }
+
+    // Compression, when asked for, runs before the buffer so the deflater sees large writes
+    private OutputStream open(FileChannel channel, boolean gzip) throws IOException {
+        int size = (int) bufferSize.toBytes();
+        OutputStream sink = Channels.newOutputStream(channel);
+        if (gzip) {
+            sink = new GZIPOutputStream(sink, size);
+        }
+        return new BufferedOutputStream(sink, size);
+    }
+
+    // Drop expired jobs, and any file older than the retention, including ones left by an earlier run
+    private void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+
+        long cutoffMillis = System.currentTimeMillis() - retention.toMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(exportDirectory)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < cutoffMillis) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to sweep statement exports", e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", file, e);
+        }
+    }
+
+    // Lowest transaction ID at the start of the given day; IDs open with their creation second
+    static String transactionIdAt(LocalDate date) {
+        if (date == null) {
+            return null;
+        }
+        long seconds = date.atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+        return String.format("%08x%016x", Math.min(Math.max(seconds, 0), 0xFFFFFFFFL), 0);
+    }
+
+    private ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private interface RowWriter {
+        void write(Transaction transaction) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    // One line per transaction, from the user's side: DEBIT when the money left their wallet
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private final String userId;
+
+        CsvRowWriter(OutputStream out, String userId) throws IOException {
+            // Fields go out as many small writes; the encoder behind the writer allocates per call, so batch them first
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.userId = userId;
+            writer.write(CSV_HEADER);
+        }
+
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            boolean debit = userId.equals(transaction.getFromUserId()) && !userId.equals(transaction.getToUserId());
+            writer.write(transaction.getTransactionId());
+            writer.write(',');
+            writer.write(String.valueOf(transaction.getCreatedAt()));
+            writer.write(',');
+            writer.write(transaction.getCompletedAt() == null ? "" : transaction.getCompletedAt().toString());
+            writer.write(',');
+            writeField(transaction.getType());
+            writer.write(',');
+            writeField(transaction.getStatus());
+            writer.write(',');
+            writer.write(debit ? "DEBIT" : "CREDIT");
+            writer.write(',');
+            writer.write(Money.toRupees(transaction.getAmountPaise()).toPlainString());
+            writer.write(',');
+            writeField(transaction.getCurrency());
+            writer.write(',');
+            writeField(transaction.getFromUserId());
+            writer.write(',');
+            writeField(transaction.getFromUserName());
+            writer.write(',');
+            writeField(transaction.getToUserId());
+            writer.write(',');
+            writeField(transaction.getToUserName());
+            writer.write(',');
+            writeField(transaction.getReferenceNumber());
+            writer.write(',');
+            writeField(transaction.getDescription());
+            writer.write('\n');
+        }
+
+        // RFC 4180 quoting; text a spreadsheet would read as a formula gets a leading quote
+        private void writeField(String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            char first = value.charAt(0);
+            boolean formula = first == '=' || first == '+' || first == '-' || first == '@';
+            boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            if (formula) {
+                writer.write('\'');
+            }
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    // The same documents as the /stream endpoint, one per line
+    private final class NdjsonRowWriter implements RowWriter {
+        private final OutputStream out;
+        private final ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        NdjsonRowWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            writer.writeValue(out, transaction);
+            out.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+
+    // Written by the export worker, read by status polls
+    private static final class ExportJob {
+        private final String jobId;
+        private final String userId;
+        private final Format format;
+        private final boolean gzip;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final LocalDateTime requestedAt = LocalDateTime.now();
+
+        private volatile String status = "QUEUED";
+        private volatile long rowsWritten;
+        private volatile long bytesWritten;
+        private volatile LocalDateTime completedAt;
+        private volatile String error;
+        private volatile Path file;
+
+        ExportJob(String jobId, String userId, Format format, boolean gzip, LocalDate from, LocalDate to) {
+            this.jobId = jobId;
+            this.userId = userId;
+            this.format = format;
+            this.gzip = gzip;
+            this.from = from;
+            this.to = to;
+        }
+
+        String extension() {
+            return gzip ? format.extension + ".gz" : format.extension;
+        }
+
+        String fileName() {
+            return "statement-" + userId + "-" + jobId + "." + extension();
+        }
+
+        String contentType() {
+            return gzip ? "application/gzip" : format.contentType;
+        }
+
+        StatementExport snapshot() {
+            return new StatementExport(jobId, status, format.extension, gzip, from, to,
+                    rowsWritten, bytesWritten, requestedAt, completedAt, error);
+        }
+    }
+}
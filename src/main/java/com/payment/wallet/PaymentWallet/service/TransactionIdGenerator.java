@@ -0,0 +1,229 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.repo.NodeLeaseRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Unique, time-ordered 96-bit transaction IDs without a shared lock.
+//
+// Layout (big-endian, 12 bytes, a valid ObjectId so it sorts with existing IDs):
+//   4 bytes unix seconds | 2 bytes millis within the second | 2 bytes node | 1 byte stripe | 3 bytes sequence
+//
+// Threads are spread over independent stripes by thread ID; each stripe is a single CAS on its own slot,
+// and the stripe is part of the ID, so stripes never collide with each other.
+//
+// Instances must never share a node id. Unless wallet.ids.node-id pins one, each instance leases a free id
+// from the nodeIds collection at startup and keeps renewing it; if the lease lapses, it stops issuing IDs
+// until it holds one again.
+@Component
+public class TransactionIdGenerator {
+
+    private static final int STRIPES = 64;
+    private static final int SEQUENCE_BITS = 24;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    // Millisecond clock is kept relative to 2024-01-01 so (millis << 24 | sequence) fits in a long
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    // One slot per cache line (8 longs) so stripes don't false-share
+    private static final int PADDING = 8;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionIdGenerator.class);
+
+    @Autowired
+    private NodeLeaseRepo nodeLeaseRepo;
+
+    @Value("${wallet.ids.node-id:-1}")
+    private int configuredNodeId;
+
+    @Value("${wallet.ids.lease-ttl:2m}")
+    private Duration leaseTtl;
+
+    private volatile int nodeId;
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPES * PADDING);
+
+    private final String owner = processName() + "/" + UUID.randomUUID();
+    private boolean leased;
+    private volatile long leaseDeadline; // System.nanoTime() by which the lease must have been renewed
+    private ScheduledExecutorService leaseRenewer;
+
+    @PostConstruct
+    public void initializeNode() {
+        if (configuredNodeId >= 0) {
+            nodeId = configuredNodeId & 0xFFFF;
+            return;
+        }
+        leased = true;
+        nodeId = claimNodeId(processName().hashCode() & 0xFFFF);
+        log.info("Leased transaction node id {}", nodeId);
+
+        leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "node-id-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, leaseTtl.toMillis() / 3);
+        leaseRenewer.scheduleWithFixedDelay(this::renewLease, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void releaseNode() {
+        if (!leased) {
+            return;
+        }
+        leaseRenewer.shutdownNow();
+        try {
+            nodeLeaseRepo.release(nodeId, owner);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release transaction node id {}; it frees up when the lease expires", nodeId, e);
+        }
+    }
+
+    public TransactionId next() {
+        // Past the deadline another instance may already hold this node id
+        if (leased && System.nanoTime() - leaseDeadline > 0) {
+            throw new ServerBusyException();
+        }
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        int slot = stripe * PADDING;
+
+        long next;
+        while (true) {
+            long current = stripes.get(slot);
+            long lastMillis = current >>> SEQUENCE_BITS;
+            long nowMillis = System.currentTimeMillis() - EPOCH_MILLIS;
+
+            if (nowMillis > lastMillis) {
+                next = nowMillis << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // Same millisecond, or the clock stepped back: keep counting from the last value
+                next = current + 1;
+            } else {
+                // Sequence exhausted for this millisecond: borrow the next one
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+            if (stripes.compareAndSet(slot, current, next)) {
+                break;
+            }
+        }
+
+        long unixMillis = (next >>> SEQUENCE_BITS) + EPOCH_MILLIS;
+        long high = ((unixMillis / 1000) << 32) | ((unixMillis % 1000) << 16) | nodeId;
+        int low = (stripe << SEQUENCE_BITS) | (int) (next & SEQUENCE_MASK);
+        return new TransactionId(high, low);
+    }
+
+    // The first id at or after preferred that nobody holds; a restarted process usually gets its old one back
+    int claimNodeId(int preferred) {
+        for (int i = 0; i <= 0xFFFF; i++) {
+            int candidate = (preferred + i) & 0xFFFF;
+            long deadline = System.nanoTime() + leaseTtl.toNanos();
+            Instant now = Instant.now();
+            if (nodeLeaseRepo.claim(candidate, owner, now, now.plus(leaseTtl))) {
+                leaseDeadline = deadline;
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("All 65536 transaction node ids are leased");
+    }
+
+    // Runs every third of the TTL. A lease lost to a takeover (a long pause or partition) means moving to
+    // another id; a failed renewal is retried next period, and next() refuses once the lease runs out.
+    void renewLease() {
+        try {
+            long deadline = System.nanoTime() + leaseTtl.toNanos();
+            if (nodeLeaseRepo.renew(nodeId, owner, Instant.now().plus(leaseTtl))) {
+                leaseDeadline = deadline;
+                return;
+            }
+            int lost = nodeId;
+            nodeId = claimNodeId(lost);
+            log.warn("Transaction node id {} was taken over; now using {}", lost, nodeId);
+        } catch (RuntimeException e) {
+            log.error("Failed to renew the lease on transaction node id {}", nodeId, e);
+        }
+    }
+
+    int getNodeId() {
+        return nodeId;
+    }
+
+    private static String processName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    public static final class TransactionId {
+        private final long high; // seconds, millis, node
+        private final int low;   // stripe, sequence
+
+        private TransactionId(long high, int low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        // 24 lowercase hex characters, the same shape as an ObjectId
+        public String hex() {
+            char[] out = new char[24];
+            for (int i = 0; i < 16; i++) {
+                out[i] = HEX[(int) (high >>> (60 - 4 * i)) & 0xF];
+            }
+            for (int i = 0; i < 8; i++) {
+                out[16 + i] = HEX[(low >>> (28 - 4 * i)) & 0xF];
+            }
+            return new String(out);
+        }
+
+        // Prefix plus the same 96 bits in Crockford base32 (20 characters, order preserving)
+        public String reference(String prefix) {
+            char[] out = new char[prefix.length() + 20];
+            prefix.getChars(0, prefix.length(), out, 0);
+            // Five bits at a time from the top, left-padded to 100 bits
+            for (int i = 0; i < 20; i++) {
+                int group = 0;
+                for (int position = 99 - 5 * i; position > 94 - 5 * i; position--) {
+                    group = (group << 1) | bit(position);
+                }
+                out[prefix.length() + i] = CROCKFORD[group];
+            }
+            return new String(out);
+        }
+
+        // Bit 95 is the top of high, bit 0 the bottom of low; anything above is padding
+        private int bit(int position) {
+            if (position > 95) {
+                return 0;
+            }
+            return position >= 32
+                    ? (int) (high >>> (position - 32)) & 1
+                    : (low >>> position) & 1;
+        }
+
+        @Override
+        public String toString() {
+            return hex();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Group commit for transaction records: concurrent appends share one insertMany per batch
+@Service
+public class TransactionJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionJournal.class);
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private TransactionRepo transactionRepo;
+
+    @Value("${wallet.journal.max-batch-size:256}")
+    private int maxBatchSize;
+
+    @Value("${wallet.journal.linger:500us}")
+    private Duration linger;
+
+    @Value("${wallet.journal.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${wallet.journal.flushers:4}")
+    private int flusherCount;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private BlockingQueue<PendingWrite> queue;
+    private final List<Thread> flushers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong directWrites = new AtomicLong();
+
+    @PostConstruct
+    public void startFlushers() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        // Flushers spend nearly all their time waiting on insertMany, so they follow the request threads onto virtual threads
+        ThreadFactory virtualFactory = virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)
+                ? new VirtualThreadTaskExecutor("txn-journal-v").getVirtualThreadFactory()
+                : null;
+        for (int i = 1; i <= flusherCount; i++) {
+            Thread flusher = virtualFactory != null
+                    ? virtualFactory.newThread(this::flushLoop)
+                    : new Thread(this::flushLoop, "txn-journal-" + i);
+            flusher.setDaemon(true);
+            flusher.start();
+            flushers.add(flusher);
+        }
+    }
+
+    @PreDestroy
+    public void stopFlushers() {
+        running = false;
+        for (Thread flusher : flushers) {
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Anything still queued is written before the context goes away
+        List<PendingWrite> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        if (!leftover.isEmpty()) {
+            flush(leftover);
+        }
+    }
+
+    // Persist the transaction; returns once the batch holding it is acknowledged
+    public Transaction append(Transaction transaction) {
+        try {
+            return submit(transaction).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for transaction " + transaction.getTransactionId() + " to be saved");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Failed to save transaction: " + cause.getMessage(), cause);
+        }
+    }
+
+    // Queue several transactions at once so they share batches; each future completes with its own outcome
+    public List<CompletableFuture<Transaction>> appendAll(List<Transaction> transactions) {
+        List<CompletableFuture<Transaction>> writes = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            writes.add(submit(transaction));
+        }
+        return writes;
+    }
+
+    private CompletableFuture<Transaction> submit(Transaction transaction) {
+        PendingWrite pending = new PendingWrite(transaction);
+        // After a successful offer, a shutdown that began meanwhile leaves nobody to drain it unless a flusher already took it
+        if (running && queue.offer(pending) && (running || !queue.remove(pending))) {
+            return pending.acknowledged;
+        }
+        // Journal is saturated or stopping: fall back to a plain acknowledged write
+        directWrites.incrementAndGet();
+        try {
+            pending.acknowledged.complete(transactionRepo.insert(transaction));
+        } catch (RuntimeException e) {
+            pending.acknowledged.completeExceptionally(e);
+        }
+        return pending.acknowledged;
+    }
+
+    // Polls rather than blocking forever so shutdown never has to interrupt an in-flight insert
+    private void flushLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Take whatever is already queued, then wait up to the linger for the batch to fill.
+    // A lone write means there is no concurrent load to group with, so it goes out at once.
+    private void fillBatch(List<PendingWrite> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        if (batch.size() == 1) {
+            return;
+        }
+        long deadline = System.nanoTime() + linger.toNanos();
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        for (PendingWrite pending : batch) {
+            transactions.add(pending.transaction);
+        }
+        Map<Integer, Integer> failed;
+        try {
+            failed = transactionRepo.insertUnordered(transactions);
+        } catch (Exception e) {
+            // Not a per-record error (a timeout, a dropped connection): any record may or may not be written
+            fallbacks.incrementAndGet();
+            log.warn("Journal batch of {} failed, inserting individually", batch.size(), e);
+            for (PendingWrite pending : batch) {
+                retry(pending);
+            }
+            return;
+        }
+
+        batches.incrementAndGet();
+        records.addAndGet(batch.size() - failed.size());
+        if (!failed.isEmpty()) {
+            fallbacks.incrementAndGet();
+            log.warn("Journal batch of {} wrote all but {} records", batch.size(), failed.size());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite pending = batch.get(i);
+            Integer code = failed.get(i);
+            if (code == null) {
+                pending.acknowledged.complete(pending.transaction);
+            } else if (code == DUPLICATE_KEY) {
+                // The ID is already taken by another transaction; nothing is overwritten
+                pending.acknowledged.completeExceptionally(duplicate(pending.transaction));
+            } else {
+                retry(pending);
+            }
+        }
+    }
+
+    // A plain insert, never an upsert: a duplicate _id is only accepted when the stored record is this one,
+    // written by the batch whose outcome was unknown
+    private void retry(PendingWrite pending) {
+        Transaction transaction = pending.transaction;
+        try {
+            pending.acknowledged.complete(transactionRepo.insert(transaction));
+            records.incrementAndGet();
+        } catch (DuplicateKeyException e) {
+            Optional<Transaction> stored = transactionRepo.findById(transaction.getTransactionId());
+            if (stored.isPresent() && sameRecord(stored.get(), transaction)) {
+                pending.acknowledged.complete(stored.get());
+            } else {
+                pending.acknowledged.completeExceptionally(duplicate(transaction));
+            }
+        } catch (Exception e) {
+            pending.acknowledged.completeExceptionally(e);
+        }
+    }
+
+    // Mongo keeps dates to the millisecond
+    static boolean sameRecord(Transaction stored, Transaction transaction) {
+        return Objects.equals(stored.getFromUserId(), transaction.getFromUserId())
+                && Objects.equals(stored.getToUserId(), transaction.getToUserId())
+                && stored.getAmountPaise() == transaction.getAmountPaise()
+                && Objects.equals(stored.getType(), transaction.getType())
+                && Objects.equals(truncate(stored), truncate(transaction));
+    }
+
+    private static LocalDateTime truncate(Transaction transaction) {
+        return transaction.getCreatedAt() == null ? null : transaction.getCreatedAt().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private static DuplicateKeyException duplicate(Transaction transaction) {
+        log.error("Transaction id {} is already used by another record", transaction.getTransactionId());
+        return new DuplicateKeyException("Transaction id " + transaction.getTransactionId() + " already exists");
+    }
+
+    public long getBatches() { return batches.get(); }
+    public long getRecords() { return records.get(); }
+    public long getFallbacks() { return fallbacks.get(); }
+    public long getDirectWrites() { return directWrites.get(); }
+    public int getQueueDepth() { return queue.size(); }
+
+    private static class PendingWrite {
+        private final Transaction transaction;
+        private final CompletableFuture<Transaction> acknowledged = new CompletableFuture<>();
+
+        PendingWrite(Transaction transaction) {
+            this.transaction = transaction;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.dto.CounterpartyTotal;
+import com.payment.wallet.PaymentWallet.dto.DailySummary;
+import com.payment.wallet.PaymentWallet.dto.MonthlySummary;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.entity.TransactionSummary;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.repo.TransactionSummaryRepo;
+import com.payment.wallet.PaymentWallet.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-user monthly, daily and per-counterparty totals, incremented as transactions complete so a
+// dashboard reads one month document and one short index range instead of aggregating the history
+@Service
+public class TransactionSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionSummaryService.class);
+
+    @Autowired
+    private TransactionSummaryRepo summaryRepo;
+
+    @Autowired
+    private UserNameService userNameService;
+
+    @Value("${wallet.summaries.top-counterparties:5}")
+    private int defaultTopCounterparties;
+
+    @Value("${wallet.summaries.max-top-counterparties:50}")
+    private int maxTopCounterparties;
+
+    @Value("${wallet.summaries.max-days:366}")
+    private int maxDays;
+
+    private String recordingSince;
+    private final AtomicLong failures = new AtomicLong();
+
+    // Every transaction created from here on is recorded by this instance; older ones are left to the backfill
+    @PostConstruct
+    public void markRecordingStart() {
+        recordingSince = String.format("%08x%016x", System.currentTimeMillis() / 1000, 0);
+    }
+
+    public void record(Transaction transaction) {
+        record(List.of(transaction));
+    }
+
+    // The transfer has already happened, so a failed summary write is logged and counted, never thrown
+    public void record(Collection<Transaction> transactions) {
+        Collection<TransactionSummary> deltas = deltas(transactions, LocalDateTime.now());
+        try {
+            summaryRepo.applyAll(deltas);
+        } catch (RuntimeException e) {
+            recordFailure(deltas, e);
+        }
+    }
+
+    // Same increments, but a failure propagates; the backfill must not move past a batch it could not apply
+    public void backfill(Collection<Transaction> transactions) {
+        summaryRepo.applyAll(deltas(transactions, LocalDateTime.now()));
+    }
+
+    void recordFailure(Collection<TransactionSummary> deltas, Throwable e) {
+        failures.incrementAndGet();
+        log.error("Failed to update {} transaction summaries", deltas.size(), e);
+    }
+
+    // One month's totals and top counterparties; month is yyyy-MM and defaults to the current one
+    public MonthlySummary monthly(String userId, String month, Integer top) {
+        String period = monthOf(month);
+        int limit = topLimit(top);
+        TransactionSummary totals = summaryRepo.findById(TransactionSummary.idOf(userId, TransactionSummary.MONTH, period, null))
+                .orElse(null);
+        List<TransactionSummary> counterparties = limit == 0 ? List.of()
+                : summaryRepo.findTopCounterparties(userId, period, limit);
+        Set<String> counterpartyIds = new HashSet<>();
+        for (TransactionSummary counterparty : counterparties) {
+            counterpartyIds.add(counterparty.getCounterpartyId());
+        }
+        return toMonthly(period, totals, counterparties, userNameService.resolveNames(counterpartyIds));
+    }
+
+    // Totals for every day in [from, to], zeros where nothing happened; defaults to the last 30 days
+    public List<DailySummary> daily(String userId, LocalDate from, LocalDate to) {
+        LocalDate[] range = dayRange(from, to);
+        return toDaily(range[0], range[1], summaryRepo.findDays(userId, range[0].toString(), range[1].toString()));
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public String getRecordingSince() {
+        return recordingSince;
+    }
+
+    String monthOf(String month) {
+        if (month == null || month.isBlank()) {
+            return YearMonth.now().toString();
+        }
+        try {
+            return YearMonth.parse(month).toString();
+        } catch (DateTimeParseException e) {
+            throw WalletException.INVALID_MONTH;
+        }
+    }
+
+    int topLimit(Integer top) {
+        return top == null ? defaultTopCounterparties : Math.min(Math.max(top, 0), maxTopCounterparties);
+    }
+
+    LocalDate[] dayRange(LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw WalletException.INVALID_SUMMARY_RANGE;
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxDays) {
+            throw new WalletException(HttpStatus.BAD_REQUEST, "At most " + maxDays + " days per request");
+        }
+        return new LocalDate[] {start, end};
+    }
+
+    // The increments a batch of transactions makes, merged so each summary document is written once
+    static Collection<TransactionSummary> deltas(Collection<Transaction> transactions, LocalDateTime now) {
+        Map<String, TransactionSummary> deltas = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            if (!"COMPLETED".equals(transaction.getStatus())) {
+                continue;
+            }
+            LocalDate day = transaction.getCreatedAt().toLocalDate();
+            String month = YearMonth.from(day).toString();
+            long amount = transaction.getAmountPaise();
+            String from = transaction.getFromUserId();
+            String to = transaction.getToUserId();
+
+            if ("DEPOSIT".equals(transaction.getType())) {
+                delta(deltas, to, TransactionSummary.MONTH, month, null, now).addDeposit(amount);
+                delta(deltas, to, TransactionSummary.DAY, day.toString(), null, now).addDeposit(amount);
+                continue;
+            }
+            delta(deltas, from, TransactionSummary.MONTH, month, null, now).addSent(amount);
+            delta(deltas, from, TransactionSummary.DAY, day.toString(), null, now).addSent(amount);
+            delta(deltas, from, TransactionSummary.COUNTERPARTY, month, to, now).addSent(amount);
+            delta(deltas, to, TransactionSummary.MONTH, month, null, now).addReceived(amount);
+            delta(deltas, to, TransactionSummary.DAY, day.toString(), null, now).addReceived(amount);
+            delta(deltas, to, TransactionSummary.COUNTERPARTY, month, from, now).addReceived(amount);
+        }
+        return deltas.values();
+    }
+
+    private static TransactionSummary delta(Map<String, TransactionSummary> deltas, String userId, String kind,
+                                            String period, String counterpartyId, LocalDateTime now) {
+        return deltas.computeIfAbsent(TransactionSummary.idOf(userId, kind, period, counterpartyId), id -> {
+            TransactionSummary delta = TransactionSummary.of(userId, kind, period, counterpartyId);
+            delta.setLastUpdatedAt(now);
+            return delta;
+        });
+    }
+
+    static MonthlySummary toMonthly(String month, TransactionSummary totals, List<TransactionSummary> counterparties,
+                                    Map<String, String> names) {
+        if (totals == null) {
+            totals = TransactionSummary.of(null, TransactionSummary.MONTH, month, null);
+        }
+        List<CounterpartyTotal> top = new ArrayList<>(counterparties.size());
+        for (TransactionSummary counterparty : counterparties) {
+            top.add(new CounterpartyTotal(counterparty.getCounterpartyId(), names.get(counterparty.getCounterpartyId()),
+                    Money.toRupees(counterparty.getSentPaise()), Money.toRupees(counterparty.getReceivedPaise()),
+                    counterparty.getSentCount() + counterparty.getReceivedCount()));
+        }
+        return new MonthlySummary(month,
+                Money.toRupees(totals.getSentPaise()), totals.getSentCount(),
+                Money.toRupees(totals.getReceivedPaise()), totals.getReceivedCount(),
+                Money.toRupees(totals.getDepositedPaise()), totals.getDepositCount(),
+                top);
+    }
+
+    static List<DailySummary> toDaily(LocalDate from, LocalDate to, List<TransactionSummary> days) {
+        Map<String, TransactionSummary> byDay = new HashMap<>();
+        for (TransactionSummary day : days) {
+            byDay.put(day.getPeriod(), day);
+        }
+        List<DailySummary> result = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            TransactionSummary day = byDay.get(date.toString());
+            result.add(day == null
+                    ? new DailySummary(date.toString(), Money.toRupees(0), 0, Money.toRupees(0), 0, Money.toRupees(0), 0)
+                    : new DailySummary(date.toString(),
+                            Money.toRupees(day.getSentPaise()), day.getSentCount(),
+                            Money.toRupees(day.getReceivedPaise()), day.getReceivedCount(),
+                            Money.toRupees(day.getDepositedPaise()), day.getDepositCount()));
+        }
+        return result;
+    }
+}
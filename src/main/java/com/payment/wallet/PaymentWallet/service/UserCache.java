@@ -0,0 +1,208 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.payment.wallet.PaymentWallet.entity.User;
+import com.payment.wallet.PaymentWallet.repo.UserRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Users by id, with email and mobile indexes pointing at the id entry
+@Component
+public class UserCache {
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Value("${wallet.user-cache.size:50000}")
+    private long cacheSize;
+
+    @Value("${wallet.user-cache.ttl:5m}")
+    private Duration cacheTtl;
+
+    @Value("${wallet.user-cache.negative-ttl:30s}")
+    private Duration negativeTtl;
+
+    private Cache<String, User> usersById;
+    private Cache<String, String> idsByEmail;
+    private Cache<String, String> idsByMobile;
+
+    // Emails and mobiles that matched no user, so repeated bad lookups stay off Mongo
+    private Cache<String, Boolean> unknownContacts;
+
+    @PostConstruct
+    public void initializeCache() {
+        usersById = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterWrite(cacheTtl).recordStats().build();
+        idsByEmail = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterWrite(cacheTtl).build();
+        idsByMobile = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterWrite(cacheTtl).build();
+        unknownContacts = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterWrite(negativeTtl).build();
+    }
+
+    public Optional<User> findById(String userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        User cached = usersById.getIfPresent(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepo.findById(userId);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    public Optional<User> findByEmail(String email) {
+        if (email == null || unknownContacts.getIfPresent(email) != null) {
+            return Optional.empty();
+        }
+        User cached = fromIndex(idsByEmail, email);
+        if (cached != null && email.equals(cached.getEmail())) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepo.findByEmail(email);
+        remember(email, user);
+        return user;
+    }
+
+    // Login identifier that may be either an email or a mobile number
+    public Optional<User> findByEmailOrMobile(String emailOrMobile) {
+        if (emailOrMobile == null || unknownContacts.getIfPresent(emailOrMobile) != null) {
+            return Optional.empty();
+        }
+        User cached = fromIndex(idsByEmail, emailOrMobile);
+        if (cached == null) {
+            cached = fromIndex(idsByMobile, emailOrMobile);
+        }
+        if (cached != null && (emailOrMobile.equals(cached.getEmail()) || emailOrMobile.equals(cached.getMobile()))) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepo.findByEmailOrMobile(emailOrMobile, emailOrMobile);
+        remember(emailOrMobile, user);
+        return user;
+    }
+
+    // Cache-only lookups for callers that load misses themselves; null on a miss
+    public User getIfPresent(String userId) {
+        return userId == null ? null : usersById.getIfPresent(userId);
+    }
+
+    public User getIfPresentByEmail(String email) {
+        User cached = email == null ? null : fromIndex(idsByEmail, email);
+        return cached != null && email.equals(cached.getEmail()) ? cached : null;
+    }
+
+    // Users keyed by email: cached ones plus one query for the rest, unknown emails are remembered
+    public Map<String, User> findAllByEmail(Collection<String> emails) {
+        Map<String, User> users = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String email : emails) {
+            if (email == null || unknownContacts.getIfPresent(email) != null) {
+                continue;
+            }
+            User cached = fromIndex(idsByEmail, email);
+            if (cached != null && email.equals(cached.getEmail())) {
+                users.put(email, cached);
+            } else {
+                missing.add(email);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (User user : userRepo.findByEmailIn(missing)) {
+                put(user);
+                users.put(user.getEmail(), user);
+                missing.remove(user.getEmail());
+            }
+            for (String email : missing) {
+                unknownContacts.put(email, Boolean.TRUE);
+            }
+        }
+        return users;
+    }
+
+    // Cached users plus one query for the rest
+    public Map<String, User> findAllById(Collection<String> userIds) {
+        Map<String, User> users = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String userId : userIds) {
+            User cached = usersById.getIfPresent(userId);
+            if (cached != null) {
+                users.put(userId, cached);
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (User user : userRepo.findAllById(missing)) {
+                put(user);
+                users.put(user.getUserId(), user);
+            }
+        }
+        return users;
+    }
+
+    // Record a freshly written user, replacing whatever was cached for it
+    public void put(User user) {
+        if (user == null || user.getUserId() == null) {
+            return;
+        }
+        User previous = usersById.getIfPresent(user.getUserId());
+        if (previous != null) {
+            dropIndexes(previous);
+        }
+        usersById.put(user.getUserId(), user);
+        if (user.getEmail() != null) {
+            idsByEmail.put(user.getEmail(), user.getUserId());
+            unknownContacts.invalidate(user.getEmail());
+        }
+        if (user.getMobile() != null) {
+            idsByMobile.put(user.getMobile(), user.getUserId());
+            unknownContacts.invalidate(user.getMobile());
+        }
+    }
+
+    public void invalidate(String userId) {
+        User previous = usersById.getIfPresent(userId);
+        usersById.invalidate(userId);
+        if (previous != null) {
+            dropIndexes(previous);
+        }
+    }
+
+    public CacheStats stats() {
+        return usersById.stats();
+    }
+
+    private User fromIndex(Cache<String, String> index, String key) {
+        String userId = index.getIfPresent(key);
+        return userId == null ? null : usersById.getIfPresent(userId);
+    }
+
+    private void remember(String contact, Optional<User> user) {
+        if (user.isPresent()) {
+            put(user.get());
+        } else {
+            unknownContacts.put(contact, Boolean.TRUE);
+        }
+    }
+
+    private void dropIndexes(User user) {
+        if (user.getEmail() != null) {
+            idsByEmail.invalidate(user.getEmail());
+        }
+        if (user.getMobile() != null) {
+            idsByMobile.invalidate(user.getMobile());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.payment.wallet.PaymentWallet.entity.User;
+import com.payment.wallet.PaymentWallet.repo.UserRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class UserNameService {
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Value("${wallet.user-names.cache-size:10000}")
+    private long cacheSize;
+
+    @Value("${wallet.user-names.cache-ttl:10m}")
+    private Duration cacheTtl;
+
+    private Cache<String, String> nameCache;
+
+    @PostConstruct
+    public void initializeCache() {
+        nameCache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    // Resolve display names for the given user IDs with at most one query for cache misses
+    public Map<String, String> resolveNames(Collection<String> userIds) {
+        Set<String> missing = new HashSet<>();
+        Map<String, String> names = cachedNames(userIds, missing);
+
+        if (!missing.isEmpty()) {
+            for (User user : userRepo.findNamesByUserIdIn(missing)) {
+                names.put(user.getUserId(), remember(user));
+            }
+        }
+
+        return names;
+    }
+
+    // Names already cached; the IDs still to be loaded are added to missing
+    public Map<String, String> cachedNames(Collection<String> userIds, Set<String> missing) {
+        Map<String, String> names = new HashMap<>();
+        for (String userId : userIds) {
+            String cached = nameCache.getIfPresent(userId);
+            if (cached != null) {
+                names.put(userId, cached);
+            } else {
+                missing.add(userId);
+            }
+        }
+        return names;
+    }
+
+    // Cache the display name of a user loaded with at least first and last name
+    public String remember(User user) {
+        String fullName = user.getFirstName() + " " + user.getLastName();
+        nameCache.put(user.getUserId(), fullName);
+        return fullName;
+    }
+
+    // Drop a cached name, e.g. after the user's profile changes
+    public void evict(String userId) {
+        nameCache.invalidate(userId);
+    }
+}
@@ -0,0 +1,104 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket per user and action, so one client hammering transfers or OTP sends is throttled
+// without touching anyone else's budget. Buckets live in memory and idle ones expire.
+@Service
+public class UserRateLimiter {
+
+    public enum Action { TRANSFER, OTP }
+
+    @Value("${wallet.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wallet.admission.transfer.per-minute:60}")
+    private int transfersPerMinute;
+
+    @Value("${wallet.admission.transfer.burst:20}")
+    private int transferBurst;
+
+    @Value("${wallet.admission.otp.per-minute:5}")
+    private int otpPerMinute;
+
+    @Value("${wallet.admission.otp.burst:3}")
+    private int otpBurst;
+
+    @Value("${wallet.admission.buckets.max-users:100000}")
+    private long maxUsers;
+
+    private final Map<Action, Cache<String, TokenBucket>> buckets = new EnumMap<>(Action.class);
+    private final Map<Action, AtomicLong> throttled = new EnumMap<>(Action.class);
+
+    @PostConstruct
+    public void initializeBuckets() {
+        buckets.put(Action.TRANSFER, bucketCache(transfersPerMinute, transferBurst));
+        buckets.put(Action.OTP, bucketCache(otpPerMinute, otpBurst));
+        for (Action action : Action.values()) {
+            throttled.put(action, new AtomicLong());
+        }
+    }
+
+    // A bucket left alone long enough to refill completely is the same as a new one, so it can expire
+    private Cache<String, TokenBucket> bucketCache(int perMinute, int burst) {
+        Duration refillTime = Duration.ofMillis(Math.max(1, 60_000L * burst / perMinute));
+        return Caffeine.newBuilder().maximumSize(maxUsers).expireAfterAccess(refillTime).build();
+    }
+
+    // Take one token for the user or throw with the time until the next one; a missing key is
+    // left for the endpoint's own validation to reject
+    public void check(Action action, String key) {
+        if (!enabled || key == null || key.isBlank()) {
+            return;
+        }
+        int perMinute = action == Action.TRANSFER ? transfersPerMinute : otpPerMinute;
+        int burst = action == Action.TRANSFER ? transferBurst : otpBurst;
+        TokenBucket bucket = buckets.get(action).get(key, k -> new TokenBucket(burst, perMinute));
+        long waitNanos = bucket.tryTake(System.nanoTime());
+        if (waitNanos > 0) {
+            throttled.get(action).incrementAndGet();
+            throw new ServerBusyException(Duration.ofNanos(waitNanos));
+        }
+    }
+
+    public long getThrottled(Action action) {
+        return throttled.get(action).get();
+    }
+
+    // Refilled lazily on each take; the lock is held for a few arithmetic operations only
+    private static final class TokenBucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(int capacity, int perMinute) {
+            this.capacity = capacity;
+            this.tokensPerNano = perMinute / (double) Duration.ofMinutes(1).toNanos();
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        // 0 when a token was taken, otherwise nanoseconds until one is available
+        private synchronized long tryTake(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
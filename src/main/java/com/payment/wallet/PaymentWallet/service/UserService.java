@@ -1,15 +1,23 @@
 package com.payment.wallet.PaymentWallet.service;
 
+import com.payment.wallet.PaymentWallet.dto.UserContact;
 import com.payment.wallet.PaymentWallet.entity.User;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
 import com.payment.wallet.PaymentWallet.repo.UserRepo;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
@@ -22,6 +30,24 @@ public class UserService {
     
     @Autowired
     private OTPService otpService;
+    
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private ContactSearchIndex contactSearchIndex;
+
+    @Value("${wallet.contacts.page-size:500}")
+    private int defaultContactPageSize;
+
+    @Value("${wallet.contacts.max-page-size:5000}")
+    private int maxContactPageSize;
+
+    @Value("${wallet.contact-search.default-limit:10}")
+    private int defaultSearchLimit;
+
+    @Value("${wallet.contact-search.max-limit:50}")
+    private int maxSearchLimit;
 
     // Generate new user and account IDs
     public String[] createUserAccountId() {
@@ -34,55 +60,63 @@ public class UserService {
     public User createUser(User user) {
         Optional<User> existingUser = userRepo.findByEmailOrMobile(user.getEmail(), user.getMobile());
         if (existingUser.isPresent()) {
-            throw new RuntimeException("User with this email or mobile already exists");
+            throw WalletException.USER_EXISTS;
         }
         user.setCreatedAt(LocalDateTime.now());
         user.setStatus("ACTIVE");
         
-        return userRepo.save(user);
+        User savedUser = userRepo.save(user);
+        userCache.put(savedUser);
+        contactSearchIndex.add(savedUser);
+        return savedUser;
     }
 
 
     // Send OTP for login
     public boolean sendLoginOTP(String emailOrMobile) {
-        Optional<User> dbUser = userRepo.findByEmailOrMobile(emailOrMobile, emailOrMobile);
+        Optional<User> dbUser = userCache.findByEmailOrMobile(emailOrMobile);
         
         if (dbUser.isPresent()) {
             User user = dbUser.get();
             return otpService.sendOTP(user.getUserId(), user.getEmail(), user.getMobile(), "LOGIN");
         }
         
-        throw new RuntimeException("User not found");
+        throw WalletException.USER_NOT_FOUND;
     }
 
     // Verify OTP and login
     public User loginWithOTP(String emailOrMobile, String otpCode) {
-        Optional<User> dbUser = userRepo.findByEmailOrMobile(emailOrMobile, emailOrMobile);
+        Optional<User> dbUser = userCache.findByEmailOrMobile(emailOrMobile);
         
         if (dbUser.isPresent()) {
             User user = dbUser.get();
             
             if (otpService.verifyOTP(user.getUserId(), otpCode, "LOGIN")) {
-                user.updateLastLogin();
-                userRepo.save(user);
-                return user;
+                // The cached user is shared and may be stale, so it is neither changed nor written back
+                User loggedIn = userRepo.recordLogin(user.getUserId(), LocalDateTime.now());
+                if (loggedIn == null) {
+                    userCache.invalidate(user.getUserId());
+                    throw WalletException.LOGIN_FAILED;
+                }
+                userCache.put(loggedIn);
+                return loggedIn;
             }
         }
         
-        throw new RuntimeException("Invalid OTP or user not found");
+        throw WalletException.LOGIN_FAILED;
     }
 
 
     // Send OTP for user actions (profile changes, etc.)
     public boolean sendUserActionOTP(String userId, String purpose) {
-        Optional<User> dbUser = userRepo.findById(userId);
+        Optional<User> dbUser = userCache.findById(userId);
         
         if (dbUser.isPresent()) {
             User user = dbUser.get();
             return otpService.sendOTP(user.getUserId(), user.getEmail(), user.getMobile(), purpose);
         }
         
-        throw new RuntimeException("User not found");
+        throw WalletException.USER_NOT_FOUND;
     }
 
     // Verify user action OTP
@@ -92,16 +126,66 @@ public class UserService {
 
     // Find user by ID
     public User findUserById(String userId) {
-        Optional<User> user = userRepo.findById(userId);
+        Optional<User> user = userCache.findById(userId);
         if (user.isPresent()) {
             return user.get();
         }
-        throw new RuntimeException("User not found");
+        throw WalletException.USER_NOT_FOUND;
+    }
+
+    // Type-ahead contact search, answered from the in-memory index
+    public List<UserContact> searchContacts(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw WalletException.SEARCH_QUERY_REQUIRED;
+        }
+        int resultLimit = limit == null ? defaultSearchLimit : Math.max(1, Math.min(limit, maxSearchLimit));
+        return contactSearchIndex.search(query, resultLimit);
+    }
+
+    // Resolve the page size for the contacts list, clamped to the configured maximum
+    public int contactPageSize(Integer size) {
+        return size == null ? defaultContactPageSize : Math.max(1, Math.min(size, maxContactPageSize));
+    }
+
+    // Hand one page of contacts to the consumer straight off the Mongo cursor; returns the next cursor or null
+    public String forEachContact(String cursor, int pageSize, Consumer<UserContact> consumer) {
+        String afterUserId = decodeContactCursor(cursor);
+        // One extra row tells us whether another page exists without a count query
+        try (Stream<User> users = userRepo.streamContacts(afterUserId, pageSize + 1)) {
+            Iterator<User> iterator = users.iterator();
+            String lastUserId = null;
+            int written = 0;
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                if (written == pageSize) {
+                    return encodeContactCursor(lastUserId);
+                }
+                consumer.accept(UserContact.from(user));
+                lastUserId = user.getUserId();
+                written++;
+            }
+            return null;
+        }
+    }
+
+    // Null for the first page; throws on anything that is not a cursor we issued
+    public String decodeContactCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String userId = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!ObjectId.isValid(userId)) {
+                throw new IllegalArgumentException();
+            }
+            return userId;
+        } catch (Exception e) {
+            throw WalletException.INVALID_CURSOR;
+        }
     }
 
-    // Get all users (for contacts)
-    public List<User> getAllUsers() {
-        return userRepo.findAll();
+    String encodeContactCursor(String lastUserId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastUserId.getBytes(StandardCharsets.UTF_8));
     }
 
     // Update user password with OTP verification
@@ -111,12 +195,12 @@ public class UserService {
             if (dbUser.isPresent()) {
                 User user = dbUser.get();
                 user.setPassword(passwordEncoder.encode(newPassword));
-                userRepo.save(user);
+                userCache.put(userRepo.save(user));
             } else {
-                throw new RuntimeException("User not found");
+                throw WalletException.USER_NOT_FOUND;
             }
         } else {
-            throw new RuntimeException("Invalid or expired OTP");
+            throw WalletException.INVALID_OTP;
         }
     }
 }
\ No newline at end of file
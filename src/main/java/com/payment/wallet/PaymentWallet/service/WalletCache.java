@@ -0,0 +1,119 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Wallets by userId; local writes are pushed in so reads never trail them
+@Component
+public class WalletCache {
+
+    @Value("${wallet.wallet-cache.size:10000}")
+    private long cacheSize;
+
+    @Value("${wallet.wallet-cache.ttl:10s}")
+    private Duration cacheTtl;
+
+    @Value("${wallet.wallet-cache.stripes-ttl:10s}")
+    private Duration stripesTtl;
+
+    private Cache<String, Wallet> wallets;
+
+    // Hot wallet stripe counts, kept apart from the states: every ledger write refreshes a state's
+    // expiry, so a count carried in the state would never see another instance's enableStripes
+    private Cache<String, Integer> stripeCounts;
+
+    // Loads in progress, so concurrent misses for one user share a single Mongo read (and a single insert)
+    private final Map<String, CompletableFuture<Wallet>> loading = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initializeCache() {
+        wallets = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        stripeCounts = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(stripesTtl)
+                .build();
+    }
+
+    // Read-through. The loader runs outside any map lock: Caffeine's get(key, loader) would run it inside
+    // ConcurrentHashMap.compute, whose monitor pins a virtual thread's carrier for the whole Mongo call
+    public Wallet get(String userId, Function<String, Wallet> loader) {
+        Wallet cached = wallets.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<Wallet> load = new CompletableFuture<>();
+        CompletableFuture<Wallet> inFlight = loading.putIfAbsent(userId, load);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Wallet wallet = loader.apply(userId);
+            update(wallet);
+            load.complete(wallet);
+            return wallet;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(userId, load);
+        }
+    }
+
+    // Cache-only lookup for callers that load misses themselves
+    public Wallet getIfPresent(String userId) {
+        return wallets.getIfPresent(userId);
+    }
+
+    // Write-through; a slower writer holding an older revision never replaces a newer one
+    public void update(Wallet wallet) {
+        if (wallet == null) {
+            return;
+        }
+        wallets.asMap().merge(wallet.getUserId(), wallet,
+                (current, incoming) -> incoming.getRevision() >= current.getRevision() ? incoming : current);
+    }
+
+    public void invalidate(String userId) {
+        wallets.invalidate(userId);
+        stripeCounts.invalidate(userId);
+    }
+
+    // Null when the count has not been read from the wallet document within stripes-ttl
+    public Integer getStripesIfPresent(String userId) {
+        return stripeCounts.getIfPresent(userId);
+    }
+
+    // Only for counts just read from the wallet document; the count only grows, so an older read never wins
+    public void updateStripes(String userId, int stripes) {
+        stripeCounts.asMap().merge(userId, stripes, Math::max);
+    }
+
+    public CacheStats stats() {
+        return wallets.stats();
+    }
+
+    public long size() {
+        return wallets.estimatedSize();
+    }
+}
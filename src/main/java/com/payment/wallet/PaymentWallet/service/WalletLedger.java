@@ -0,0 +1,521 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.entity.LedgerEntry;
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import com.payment.wallet.PaymentWallet.entity.WalletStripe;
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.repo.LedgerRepo;
+import com.payment.wallet.PaymentWallet.repo.WalletRepo;
+import com.payment.wallet.PaymentWallet.repo.WalletStripeRepo;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Balances as an append-only ledger. An entry is a balance change: it is committed when its insert takes
+// the next sequence slot of its wallet, which the unique (userId, seq) index lets only one writer do. The
+// wallet document is a snapshot (balancePaise as of entry ledgerSeq) moved forward every snapshot-interval
+// entries; the live balance is that snapshot plus the entries after it. WalletCache holds the live state
+// with revision = last applied entry, so an append is a single insert at the next sequence number. Losing
+// the slot means another writer got there first: apply the new tail and try again.
+//
+// A hot wallet (stripes > 1) spreads its credits over that many independent chains so concurrent payers
+// do not all race for one slot: stripe 0 is the wallet's own chain, stripe i is a ledger account of its
+// own under the key userId#i, with its own sequence, WalletStripe snapshot and cache entry. The balance is
+// the sum of the stripes; debits come out of stripe 0, which sweeps from the others when it runs short.
+// The stripe count is read from the wallet document and cached on its own (WalletCache.getStripesIfPresent),
+// so another instance's enableStripes shows up within stripes-ttl however busy the wallet is.
+@Service
+public class WalletLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(WalletLedger.class);
+
+    @Autowired
+    private WalletRepo walletRepo;
+
+    @Autowired
+    private WalletStripeRepo walletStripeRepo;
+
+    @Autowired
+    private LedgerRepo ledgerRepo;
+
+    @Autowired
+    private WalletCache walletCache;
+
+    @Value("${wallet.ledger.snapshot-interval:100}")
+    private int snapshotInterval;
+
+    @Value("${wallet.ledger.max-attempts:20}")
+    private int maxAttempts;
+
+    @Value("${wallet.ledger.entry-attempts:3}")
+    private int entryAttempts;
+
+    @Value("${wallet.ledger.max-stripes:64}")
+    private int maxStripes;
+
+    // Current wallet, served from the cache when possible; a hot wallet's balance is the sum of its stripes
+    public Wallet current(String userId) {
+        Wallet wallet = account(userId);
+        int stripes = stripes(userId);
+        if (stripes <= 1) {
+            return wallet;
+        }
+        long balance = wallet.getBalancePaise();
+        for (int stripe = 1; stripe < stripes; stripe++) {
+            balance += account(stripeKey(userId, stripe)).getBalancePaise();
+        }
+        return withBalance(wallet, balance);
+    }
+
+    // Opt a wallet into hot mode; the stripe count only ever grows, so no stripe is left holding money unseen
+    public Wallet enableStripes(String userId, int stripes) {
+        if (stripes < 2 || stripes > maxStripes) {
+            throw new WalletException(HttpStatus.BAD_REQUEST, "Stripes must be between 2 and " + maxStripes);
+        }
+        account(userId);
+        walletRepo.raiseStripes(userId, stripes);
+        walletCache.invalidate(userId);
+        return current(userId);
+    }
+
+    // Read-through, so a wallet another instance created first is read rather than inserted again
+    public Wallet createWallet(String userId) {
+        return account(userId);
+    }
+
+    // Take amountPaise out; null when the balance is short
+    public Wallet debit(String userId, long amountPaise, List<String> transactionIds) {
+        Wallet debited = append(userId, -amountPaise, transactionIds);
+        // Short on stripe 0: ask the wallet document, as a cached count may predate another instance's enableStripes
+        if (debited != null || readStripes(userId) <= 1) {
+            return debited;
+        }
+        sweep(userId, amountPaise, transactionIds);
+        return append(userId, -amountPaise, transactionIds);
+    }
+
+    public Wallet credit(String userId, long amountPaise, List<String> transactionIds) {
+        return append(creditKey(userId, stripes(userId)), amountPaise, transactionIds);
+    }
+
+    // Credit many wallets with one insert; returns the userIds whose credit could not be written
+    public Set<String> creditAll(Map<String, Long> amountsByUserId, Map<String, List<String>> transactionIdsByUserId) {
+        Map<String, String> userIdsByKey = new HashMap<>();
+        for (Map.Entry<String, Integer> stripes : stripesAll(amountsByUserId.keySet()).entrySet()) {
+            userIdsByKey.put(creditKey(stripes.getKey(), stripes.getValue()), stripes.getKey());
+        }
+        Map<String, Wallet> states = currentAll(userIdsByKey.keySet());
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (Map.Entry<String, String> credit : userIdsByKey.entrySet()) {
+            entries.add(newEntry(states.get(credit.getKey()), amountsByUserId.get(credit.getValue()),
+                    transactionIdsByUserId.get(credit.getValue())));
+        }
+
+        Set<String> unwritten = appendAll(entries);
+        for (LedgerEntry entry : entries) {
+            if (!unwritten.contains(entry.getUserId())) {
+                applied(view(states.get(entry.getUserId()), entry));
+            }
+        }
+
+        // Someone else wrote to these wallets meanwhile, or the insert failed for them; retry them one at a time
+        Set<String> failed = new HashSet<>();
+        for (String key : unwritten) {
+            String userId = userIdsByKey.get(key);
+            try {
+                credit(userId, amountsByUserId.get(userId), transactionIdsByUserId.get(userId));
+            } catch (RuntimeException e) {
+                log.error("Ledger credit failed for {}", userId, e);
+                failed.add(userId);
+            }
+        }
+        return failed;
+    }
+
+    // The keys whose entry the bulk insert did not write. An insert that fails without an answer may have
+    // written some of them, so the ledger is asked which ones it holds before any is retried.
+    private Set<String> appendAll(List<LedgerEntry> entries) {
+        try {
+            return ledgerRepo.appendAll(entries);
+        } catch (RuntimeException e) {
+            Map<String, String> keysByEntryId = new HashMap<>();
+            for (LedgerEntry entry : entries) {
+                keysByEntryId.put(entry.getEntryId(), entry.getUserId());
+            }
+            try {
+                for (LedgerEntry written : ledgerRepo.findAllById(keysByEntryId.keySet())) {
+                    keysByEntryId.remove(written.getEntryId());
+                }
+            } catch (RuntimeException unknown) {
+                // Which entries landed is unknown; the next read of each chain goes to the ledger
+                keysByEntryId.values().forEach(walletCache::invalidate);
+                e.addSuppressed(unknown);
+                throw e;
+            }
+            return new HashSet<>(keysByEntryId.values());
+        }
+    }
+
+    // Move just enough from the other stripes into stripe 0 to cover amountPaise, going by the ledger
+    // rather than the cache. Each move is a debit on the stripe then a credit on stripe 0, both naming the
+    // transactions that needed it; money only ever moves between chains of the same wallet, so a move that
+    // fails halfway is put back where it came from.
+    private void sweep(String userId, long amountPaise, List<String> transactionIds) {
+        int stripes = stripes(userId);
+        Set<String> keys = new HashSet<>();
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            keys.add(stripeKey(userId, stripe));
+        }
+        Map<String, Wallet> states = refreshAll(keys);
+
+        long needed = amountPaise - states.get(userId).getBalancePaise();
+        for (int stripe = 1; stripe < stripes && needed > 0; stripe++) {
+            String key = stripeKey(userId, stripe);
+            long moved = Math.min(states.get(key).getBalancePaise(), needed);
+            if (moved <= 0 || append(key, -moved, transactionIds) == null) {
+                continue;
+            }
+            try {
+                append(userId, moved, transactionIds);
+            } catch (RuntimeException e) {
+                append(key, moved, transactionIds);
+                throw e;
+            }
+            needed -= moved;
+        }
+    }
+
+    // Null when a debit finds the balance short
+    private Wallet append(String key, long amountPaise, List<String> transactionIds) {
+        Wallet state = account(key);
+        boolean fresh = false;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            if (state.getBalancePaise() + amountPaise < 0) {
+                if (fresh) {
+                    return null;
+                }
+                // The cached state may be missing another instance's credits
+                state = refresh(state);
+                fresh = true;
+                continue;
+            }
+            LedgerEntry entry = newEntry(state, amountPaise, transactionIds);
+            if (insert(entry)) {
+                return applied(view(state, entry));
+            }
+            // The winner is often a thread on this instance that has already cached the state after its entry
+            Wallet cached = walletCache.getIfPresent(key);
+            if (cached != null && cached.getRevision() > state.getRevision()) {
+                state = cached;
+                fresh = false;
+            } else {
+                state = refresh(state);
+                fresh = true;
+            }
+        }
+        throw new ServerBusyException();
+    }
+
+    // True once the entry holds its slot, false when another writer took it. An insert that fails without
+    // an answer may still have landed, so it is retried as the same entry, and a slot found taken on a retry
+    // is checked for being this entry's own.
+    private boolean insert(LedgerEntry entry) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return ledgerRepo.append(entry) || attempt > 1 && ledgerRepo.existsById(entry.getEntryId());
+            } catch (RuntimeException e) {
+                if (attempt >= entryAttempts) {
+                    // Whether it landed is unknown; the next read of this chain goes to the ledger
+                    walletCache.invalidate(entry.getUserId());
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // One ledger account: a plain wallet, stripe 0 of a hot wallet, or one of its other stripes
+    private Wallet account(String key) {
+        return walletCache.get(key, this::load);
+    }
+
+    // Credits land on a random stripe, stripe 0 included
+    static String creditKey(String userId, int stripes) {
+        if (stripes <= 1) {
+            return userId;
+        }
+        return stripeKey(userId, ThreadLocalRandom.current().nextInt(stripes));
+    }
+
+    // Cached count, or the wallet document's; no document yet means a plain wallet
+    private int stripes(String userId) {
+        Integer cached = walletCache.getStripesIfPresent(userId);
+        return cached != null ? cached : readStripes(userId);
+    }
+
+    private int readStripes(String userId) {
+        int stripes = walletRepo.findByUserId(userId).map(Wallet::getStripes).orElse(0);
+        walletCache.updateStripes(userId, stripes);
+        return stripes;
+    }
+
+    // Cached counts where present, the rest with one wallet query
+    private Map<String, Integer> stripesAll(Set<String> userIds) {
+        Map<String, Integer> stripes = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String userId : userIds) {
+            Integer cached = walletCache.getStripesIfPresent(userId);
+            if (cached != null) {
+                stripes.put(userId, cached);
+            } else {
+                stripes.put(userId, 0);
+                missing.add(userId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Wallet wallet : walletRepo.findByUserIdIn(missing)) {
+                walletCache.updateStripes(wallet.getUserId(), wallet.getStripes());
+                stripes.put(wallet.getUserId(), wallet.getStripes());
+            }
+        }
+        return stripes;
+    }
+
+    static String stripeKey(String userId, int stripe) {
+        return stripe == 0 ? userId : userId + "#" + stripe;
+    }
+
+    // 0 for a wallet's own key
+    static int stripeOf(String key) {
+        int hash = key.lastIndexOf('#');
+        return hash < 0 ? 0 : Integer.parseInt(key.substring(hash + 1));
+    }
+
+    static String ownerOf(String key) {
+        int hash = key.lastIndexOf('#');
+        return hash < 0 ? key : key.substring(0, hash);
+    }
+
+    // Snapshot plus tail; an audit rebuild is the same walk, starting from the latest snapshot
+    Wallet load(String key) {
+        Wallet snapshot = snapshot(key);
+        return applyTail(snapshot, ledgerRepo.findByUserIdAndSeqGreaterThanOrderBySeqAsc(key, snapshot.getLedgerSeq()));
+    }
+
+    // A stripe's snapshot, or an empty stripe if none has been taken yet; otherwise the wallet document,
+    // inserted if the user has none. Runs inside the cache loader, so it must not touch the cached states.
+    private Wallet snapshot(String key) {
+        if (stripeOf(key) > 0) {
+            return walletStripeRepo.findById(key).map(WalletLedger::stripeState).orElseGet(() -> emptyStripe(key));
+        }
+        Wallet wallet = walletRepo.findByUserId(key).orElseGet(() -> insertWallet(key));
+        walletCache.updateStripes(key, wallet.getStripes());
+        return snapshotState(wallet);
+    }
+
+    // Cached states where present, the rest with one query per snapshot collection and one tail query
+    private Map<String, Wallet> currentAll(Set<String> keys) {
+        Map<String, Wallet> states = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String key : keys) {
+            Wallet cached = walletCache.getIfPresent(key);
+            if (cached != null) {
+                states.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return states;
+        }
+
+        Map<String, Wallet> snapshots = readAll(missing);
+        for (String key : missing) {
+            snapshots.computeIfAbsent(key, id -> stripeOf(id) > 0 ? emptyStripe(id) : snapshotState(insertWallet(id)));
+        }
+        states.putAll(catchUp(snapshots));
+        return states;
+    }
+
+    // The states of the given chains as the ledger has them now, with one tail query
+    private Map<String, Wallet> refreshAll(Set<String> keys) {
+        return catchUp(currentAll(keys));
+    }
+
+    // Each state with the entries after its revision applied, all tails in one query
+    private Map<String, Wallet> catchUp(Map<String, Wallet> states) {
+        Map<String, Long> afterSeq = new HashMap<>();
+        for (Wallet state : states.values()) {
+            afterSeq.put(state.getUserId(), state.getRevision());
+        }
+        Map<String, List<LedgerEntry>> tails = new HashMap<>();
+        for (LedgerEntry entry : ledgerRepo.findTails(afterSeq)) {
+            tails.computeIfAbsent(entry.getUserId(), id -> new ArrayList<>()).add(entry);
+        }
+        Map<String, Wallet> caughtUp = new HashMap<>();
+        for (Wallet state : states.values()) {
+            Wallet next = applyTail(state, tails.getOrDefault(state.getUserId(), List.of()));
+            walletCache.update(next);
+            caughtUp.put(next.getUserId(), next);
+        }
+        return caughtUp;
+    }
+
+    // The stored snapshots of wallets and stripes, one query for each; keys with no document are left out
+    private Map<String, Wallet> readAll(Set<String> keys) {
+        Set<String> walletKeys = new HashSet<>();
+        Set<String> stripeKeys = new HashSet<>();
+        for (String key : keys) {
+            (stripeOf(key) > 0 ? stripeKeys : walletKeys).add(key);
+        }
+        Map<String, Wallet> snapshots = new HashMap<>();
+        if (!walletKeys.isEmpty()) {
+            for (Wallet wallet : walletRepo.findByUserIdIn(walletKeys)) {
+                walletCache.updateStripes(wallet.getUserId(), wallet.getStripes());
+                snapshots.put(wallet.getUserId(), snapshotState(wallet));
+            }
+        }
+        if (!stripeKeys.isEmpty()) {
+            for (WalletStripe stripe : walletStripeRepo.findAllById(stripeKeys)) {
+                snapshots.put(stripe.getStripeId(), stripeState(stripe));
+            }
+        }
+        return snapshots;
+    }
+
+    private Wallet refresh(Wallet state) {
+        Wallet next = applyTail(state, ledgerRepo.findByUserIdAndSeqGreaterThanOrderBySeqAsc(state.getUserId(), state.getRevision()));
+        walletCache.update(next);
+        return next;
+    }
+
+    private Wallet applied(Wallet next) {
+        walletCache.update(next);
+        if (next.getRevision() % snapshotInterval == 0) {
+            try {
+                saveSnapshot(next);
+            } catch (RuntimeException e) {
+                // The ledger already has the entry; the next snapshot covers this one
+                log.warn("Failed to save balance snapshot for {}", next.getUserId(), e);
+            }
+        }
+        return next;
+    }
+
+    private void saveSnapshot(Wallet state) {
+        String key = state.getUserId();
+        int stripe = stripeOf(key);
+        if (stripe == 0) {
+            walletRepo.saveSnapshot(key, state.getBalancePaise(), state.getRevision());
+        } else {
+            walletStripeRepo.saveSnapshot(ownerOf(key), stripe, state.getBalancePaise(), state.getRevision());
+        }
+    }
+
+    // The unique userId index lets only one of several instances loading a new user insert; the others
+    // read the wallet it inserted
+    private Wallet insertWallet(String userId) {
+        Wallet wallet = new Wallet();
+        wallet.setWalletId(new ObjectId().toHexString());
+        wallet.setUserId(userId);
+        wallet.setBalancePaise(0);
+        wallet.setCreatedAt(LocalDateTime.now());
+
+        try {
+            return walletRepo.insert(wallet);
+        } catch (DuplicateKeyException e) {
+            return walletRepo.findByUserId(userId).orElseThrow(() -> e);
+        }
+    }
+
+    // A freshly read snapshot document as a live state: it has applied entries up to ledgerSeq
+    static Wallet snapshotState(Wallet snapshot) {
+        snapshot.setRevision(snapshot.getLedgerSeq());
+        return snapshot;
+    }
+
+    // A stripe snapshot as a ledger account state, under the key its ledger entries carry
+    static Wallet stripeState(WalletStripe stripe) {
+        Wallet state = new Wallet();
+        state.setWalletId(stripe.getStripeId());
+        state.setUserId(stripe.getStripeId());
+        state.setBalancePaise(stripe.getBalancePaise());
+        state.setLedgerSeq(stripe.getLedgerSeq());
+        state.setRevision(stripe.getLedgerSeq());
+        state.setLastUpdatedAt(stripe.getLastUpdatedAt());
+        return state;
+    }
+
+    static Wallet emptyStripe(String key) {
+        WalletStripe stripe = new WalletStripe();
+        stripe.setStripeId(key);
+        return stripeState(stripe);
+    }
+
+    static LedgerEntry newEntry(Wallet state, long amountPaise, List<String> transactionIds) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setEntryId(new ObjectId().toHexString());
+        entry.setUserId(state.getUserId());
+        entry.setSeq(state.getRevision() + 1);
+        entry.setAmountPaise(amountPaise);
+        entry.setBalancePaise(state.getBalancePaise() + amountPaise);
+        entry.setTransactionIds(transactionIds);
+        entry.setCreatedAt(LocalDateTime.now());
+        return entry;
+    }
+
+    // Fold entries after the state's revision into a new state; entries it already has are skipped
+    static Wallet applyTail(Wallet state, List<LedgerEntry> tail) {
+        Wallet current = state;
+        for (LedgerEntry entry : tail) {
+            if (entry.getSeq() == current.getRevision() + 1) {
+                current = view(current, entry);
+            }
+        }
+        return current;
+    }
+
+    // Cached wallets are shared, so every state change is a new copy
+    static Wallet view(Wallet state, LedgerEntry entry) {
+        Wallet next = new Wallet();
+        next.setWalletId(state.getWalletId());
+        next.setUserId(state.getUserId());
+        next.setCurrency(state.getCurrency());
+        next.setStatus(state.getStatus());
+        next.setCreatedAt(state.getCreatedAt());
+        next.setLedgerSeq(state.getLedgerSeq());
+        next.setBalancePaise(state.getBalancePaise() + entry.getAmountPaise());
+        next.setRevision(entry.getSeq());
+        next.setLastUpdatedAt(entry.getCreatedAt());
+        return next;
+    }
+
+    // A hot wallet as callers see it: stripe 0's state with the balance of all stripes
+    static Wallet withBalance(Wallet state, long balancePaise) {
+        Wallet total = new Wallet();
+        total.setWalletId(state.getWalletId());
+        total.setUserId(state.getUserId());
+        total.setCurrency(state.getCurrency());
+        total.setStatus(state.getStatus());
+        total.setCreatedAt(state.getCreatedAt());
+        total.setLedgerSeq(state.getLedgerSeq());
+        total.setBalancePaise(balancePaise);
+        total.setRevision(state.getRevision());
+        total.setLastUpdatedAt(state.getLastUpdatedAt());
+        return total;
+    }
+}
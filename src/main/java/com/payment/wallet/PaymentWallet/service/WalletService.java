@@ -1,66 +1,136 @@
 package com.payment.wallet.PaymentWallet.service;
 
+import com.payment.wallet.PaymentWallet.dto.BulkTransferItem;
+import com.payment.wallet.PaymentWallet.dto.BulkTransferResult;
+import com.payment.wallet.PaymentWallet.dto.TransactionPage;
 import com.payment.wallet.PaymentWallet.entity.Transaction;
 import com.payment.wallet.PaymentWallet.entity.User;
 import com.payment.wallet.PaymentWallet.entity.Wallet;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
 import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
-import com.payment.wallet.PaymentWallet.repo.UserRepo;
-import com.payment.wallet.PaymentWallet.repo.WalletRepo;
+import com.payment.wallet.PaymentWallet.util.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class WalletService {
 
+    private static final Logger log = LoggerFactory.getLogger(WalletService.class);
+
     @Autowired
-    private WalletRepo walletRepo;
+    private WalletLedger walletLedger;
     
     @Autowired
     private TransactionRepo transactionRepo;
     
     @Autowired
-    private UserRepo userRepo;
+    private OTPService otpService;
     
     @Autowired
-    private OTPService otpService;
+    private UserNameService userNameService;
+    
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private TransactionIdGenerator idGenerator;
+    
+    @Autowired
+    private TransactionJournal transactionJournal;
+
+    @Autowired
+    private TransactionSummaryService transactionSummaryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${wallet.transactions.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${wallet.transactions.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${wallet.transactions.stream-batch-size:500}")
+    private int streamBatchSize;
+
+    @Value("${wallet.bulk.max-items:1000}")
+    private int maxBulkItems;
+
+    private Timer receiverLookupTimer;
+    private Timer debitTimer;
+    private Timer creditTimer;
+    private Timer notifyTimer;
+    private Timer saveTimer;
+
+    // One timer per transfer stage, built once so the hot path does no meter lookups
+    @PostConstruct
+    public void initializeMetrics() {
+        receiverLookupTimer = stageTimer("receiver_lookup");
+        debitTimer = stageTimer("debit");
+        creditTimer = stageTimer("credit");
+        notifyTimer = stageTimer("notify");
+        saveTimer = stageTimer("transaction_save");
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("wallet.transfer.stage")
+                .description("Time spent in each step of a wallet-to-wallet transfer")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
 
     // Create wallet for new user with 0 starting balance
     public Wallet createWallet(String userId) {
-        Wallet wallet = new Wallet();
-        wallet.setWalletId(new ObjectId().toHexString());
-        wallet.setUserId(userId);
-        wallet.setBalance(0.0);
-        wallet.setCreatedAt(LocalDateTime.now());
-        
-        return walletRepo.save(wallet);
+        return walletLedger.createWallet(userId);
+    }
+
+    // Spread a busy payee's credits over several ledger chains; see WalletLedger
+    public Wallet enableHotWallet(String userId, int stripes) {
+        return walletLedger.enableStripes(userId, stripes);
     }
 
-    // Get wallet by user ID
+    // Get wallet by user ID: balance snapshot plus ledger tail, served from the wallet cache when possible
     public Wallet getWalletByUserId(String userId) {
-        Optional<Wallet> wallet = walletRepo.findByUserId(userId);
-        
-        if (wallet.isPresent()) {
-            return wallet.get();
-        } else {
-            return createWallet(userId);
-        }
+        return walletLedger.current(userId);
     }
 
-    // Get user balance
-    public Double getBalance(String userId) {
+    // Get user balance in paise
+    public long getBalance(String userId) {
         Wallet wallet = getWalletByUserId(userId);
-        return wallet.getBalance();
+        return wallet.getBalancePaise();
     }
 
     // Send OTP for transaction
     public boolean sendTransactionOTP(String userId, String purpose) {
-        Optional<User> user = userRepo.findById(userId);
+        Optional<User> user = userCache.findById(userId);
         if (user.isPresent()) {
             User userData = user.get();
             return otpService.sendOTP(userId, userData.getEmail(), userData.getMobile(), purpose);
@@ -69,87 +139,96 @@ public class WalletService {
     }
 
     // Send money with OTP verification
-    public Transaction sendMoneyWithOTP(String fromUserId, String toUserEmail, Double amount, String description, String otpCode) {
+    public Transaction sendMoneyWithOTP(String fromUserId, String toUserEmail, long amount, String description, String otpCode) {
+        return sendMoneyWithOTP(fromUserId, null, toUserEmail, amount, description, otpCode);
+    }
+
+    // Receiver by id when toUserId is set, otherwise by email
+    public Transaction sendMoneyWithOTP(String fromUserId, String toUserId, String toUserEmail, long amount, String description, String otpCode) {
         // Verify OTP first
         if (!otpService.verifyOTP(fromUserId, otpCode, "TRANSACTION")) {
-            throw new RuntimeException("Invalid or expired OTP");
+            throw WalletException.INVALID_OTP;
         }
         
-        return performMoneyTransfer(fromUserId, toUserEmail, amount, description);
+        return performMoneyTransfer(fromUserId, toUserId, toUserEmail, amount, description);
     }
 
     // Add money with OTP verification
-    public Transaction addMoneyWithOTP(String userId, Double amount, String description, String otpCode) {
+    public Transaction addMoneyWithOTP(String userId, long amount, String description, String otpCode) {
         // Verify OTP first
         if (!otpService.verifyOTP(userId, otpCode, "ADD_MONEY")) {
-            throw new RuntimeException("Invalid or expired OTP");
+            throw WalletException.INVALID_OTP;
         }
         
         return performAddMoney(userId, amount, description);
     }
 
     // Perform actual money transfer
-    private Transaction performMoneyTransfer(String fromUserId, String toUserEmail, Double amount, String description) {
-        Wallet fromWallet = getWalletByUserId(fromUserId);
-        
-        Optional<User> toUser = userRepo.findByEmail(toUserEmail);
+    private Transaction performMoneyTransfer(String fromUserId, String receiverId, String receiverEmail, long amount, String description) {
+        validateAmount(amount);
+
+        Optional<User> toUser = receiverLookupTimer.record(() -> receiverId != null
+                ? userCache.findById(receiverId)
+                : userCache.findByEmail(receiverEmail));
         if (!toUser.isPresent()) {
-            throw new RuntimeException("Receiver not found");
-        }
-        
-        Wallet toWallet = getWalletByUserId(toUser.get().getUserId());
-        
-        if (!fromWallet.hasSufficientBalance(amount)) {
-            throw new RuntimeException("Insufficient balance");
+            throw WalletException.RECEIVER_NOT_FOUND;
         }
+        String toUserId = toUser.get().getUserId();
         
+        TransactionIdGenerator.TransactionId id = idGenerator.next();
         Transaction transaction = new Transaction();
-        transaction.setTransactionId(new ObjectId().toHexString());
+        transaction.setTransactionId(id.hex());
         transaction.setFromUserId(fromUserId);
-        transaction.setToUserId(toUser.get().getUserId());
-        transaction.setAmount(amount);
+        transaction.setToUserId(toUserId);
+        transaction.setAmountPaise(amount);
         transaction.setType("TRANSFER");
         transaction.setDescription(description);
-        transaction.setReferenceNumber("REF" + System.currentTimeMillis());
+        transaction.setReferenceNumber(id.reference("REF"));
         transaction.setCreatedAt(LocalDateTime.now());
         
+        // The debit entry is the balance check: it only lands on a sequence slot computed from the full ledger
+        List<String> transactionIds = List.of(transaction.getTransactionId());
+        Wallet fromWallet = debitTimer.record(() -> walletLedger.debit(fromUserId, amount, transactionIds));
+        if (fromWallet == null) {
+            throw WalletException.INSUFFICIENT_BALANCE;
+        }
+        
         try {
-            fromWallet.deductMoney(amount);
-            walletRepo.save(fromWallet);
-            
-            toWallet.addMoney(amount);
-            walletRepo.save(toWallet);
+            creditTimer.record(() -> walletLedger.credit(toUserId, amount, transactionIds));
             
             transaction.markCompleted();
             
             // Send notifications
-            sendTransactionNotifications(fromUserId, toUser.get().getUserId(), amount, description, "SENT");
+            notifyTimer.record(() -> sendTransactionNotifications(fromUserId, toUserId, amount, description, "SENT"));
             
         } catch (Exception e) {
-            transaction.markFailed();
-            throw new RuntimeException("Transaction failed: " + e.getMessage());
+            log.error("Transfer {} failed after debiting {}", transaction.getTransactionId(), fromUserId, e);
+            refundFailedTransfer(transaction, transactionIds);
+            throw WalletException.TRANSACTION_FAILED;
         }
         
-        return transactionRepo.save(transaction);
+        Transaction saved = saveTimer.record(() -> transactionJournal.append(transaction));
+        transactionSummaryService.record(saved);
+        return saved;
     }
 
     // Perform add money operation
-    private Transaction performAddMoney(String userId, Double amount, String description) {
-        Wallet wallet = getWalletByUserId(userId);
+    private Transaction performAddMoney(String userId, long amount, String description) {
+        validateAmount(amount);
         
+        TransactionIdGenerator.TransactionId id = idGenerator.next();
         Transaction transaction = new Transaction();
-        transaction.setTransactionId(new ObjectId().toHexString());
+        transaction.setTransactionId(id.hex());
         transaction.setFromUserId("SYSTEM");
         transaction.setToUserId(userId);
-        transaction.setAmount(amount);
+        transaction.setAmountPaise(amount);
         transaction.setType("DEPOSIT");
         transaction.setDescription(description != null ? description : "Balance added");
-        transaction.setReferenceNumber("DEP" + System.currentTimeMillis());
+        transaction.setReferenceNumber(id.reference("DEP"));
         transaction.setCreatedAt(LocalDateTime.now());
         
         try {
-            wallet.addMoney(amount);
-            walletRepo.save(wallet);
+            walletLedger.credit(userId, amount, List.of(transaction.getTransactionId()));
             
             transaction.markCompleted();
             
@@ -157,36 +236,251 @@ public class WalletService {
             sendTransactionNotifications(userId, userId, amount, description, "DEPOSIT");
             
         } catch (Exception e) {
+            log.error("Deposit {} to {} failed", transaction.getTransactionId(), userId, e);
             transaction.markFailed();
-            throw new RuntimeException("Failed to add money: " + e.getMessage());
+            throw WalletException.ADD_MONEY_FAILED;
+        }
+        
+        Transaction saved = transactionJournal.append(transaction);
+        transactionSummaryService.record(saved);
+        return saved;
+    }
+
+    // Pay many recipients from one wallet: one recipient query, one debit, one ledger insert for the credits, one journal submission
+    public List<BulkTransferResult> bulkTransfer(String fromUserId, List<BulkTransferItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw WalletException.NO_TRANSFERS;
+        }
+        if (items.size() > maxBulkItems) {
+            throw new WalletException(HttpStatus.BAD_REQUEST, "At most " + maxBulkItems + " transfers per request");
+        }
+        
+        Set<String> emails = new HashSet<>();
+        for (BulkTransferItem item : items) {
+            emails.add(item.getToUserEmail());
+        }
+        Map<String, User> recipients = userCache.findAllByEmail(emails);
+        
+        // Validate every item and total what will actually be paid out
+        BulkTransferResult[] results = new BulkTransferResult[items.size()];
+        Map<String, Long> creditsByUserId = new HashMap<>();
+        long total = 0;
+        for (int i = 0; i < items.size(); i++) {
+            BulkTransferItem item = items.get(i);
+            User recipient = recipients.get(item.getToUserEmail());
+            if (item.getAmountPaise() <= 0) {
+                results[i] = BulkTransferResult.failed(i, item.getToUserEmail(), "Amount must be greater than zero");
+            } else if (recipient == null) {
+                results[i] = BulkTransferResult.failed(i, item.getToUserEmail(), "Receiver not found");
+            } else {
+                creditsByUserId.merge(recipient.getUserId(), item.getAmountPaise(), Math::addExact);
+                total = Math.addExact(total, item.getAmountPaise());
+            }
+        }
+        if (total == 0) {
+            return Arrays.asList(results);
+        }
+        
+        // Transactions first, so every ledger entry can name the ones it settles
+        Transaction[] transactions = new Transaction[items.size()];
+        List<String> transactionIds = new ArrayList<>();
+        Map<String, List<String>> transactionIdsByUserId = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < items.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            BulkTransferItem item = items.get(i);
+            User recipient = recipients.get(item.getToUserEmail());
+            
+            TransactionIdGenerator.TransactionId id = idGenerator.next();
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(id.hex());
+            transaction.setFromUserId(fromUserId);
+            transaction.setToUserId(recipient.getUserId());
+            transaction.setAmountPaise(item.getAmountPaise());
+            transaction.setType("TRANSFER");
+            transaction.setDescription(item.getDescription());
+            transaction.setReferenceNumber(id.reference("REF"));
+            transaction.setCreatedAt(now);
+            transactions[i] = transaction;
+            transactionIds.add(transaction.getTransactionId());
+            transactionIdsByUserId.computeIfAbsent(recipient.getUserId(), userId -> new ArrayList<>()).add(transaction.getTransactionId());
+        }
+        
+        Wallet fromWallet = walletLedger.debit(fromUserId, total, transactionIds);
+        if (fromWallet == null) {
+            throw WalletException.INSUFFICIENT_BALANCE;
+        }
+        
+        Set<String> failedCredits;
+        try {
+            failedCredits = walletLedger.creditAll(creditsByUserId, transactionIdsByUserId);
+        } catch (RuntimeException e) {
+            // Which credits landed is unknown, so nothing is refunded; the records stay PENDING for reconciliation
+            log.error("Bulk transfer from {} failed after debiting {} paise; credits of {} transactions are unknown",
+                    fromUserId, total, transactionIds.size(), e);
+            recordFailedTransactions(Arrays.stream(transactions).filter(Objects::nonNull).toList());
+            throw WalletException.TRANSACTION_FAILED;
+        }
+        
+        List<Transaction> completed = new ArrayList<>();
+        List<Transaction> failed = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            Transaction transaction = transactions[i];
+            if (transaction == null) {
+                continue;
+            }
+            if (failedCredits.contains(transaction.getToUserId())) {
+                failed.add(transaction);
+                results[i] = BulkTransferResult.failed(i, items.get(i).getToUserEmail(), "Transaction failed");
+                continue;
+            }
+            transaction.markCompleted();
+            completed.add(transaction);
+            results[i] = BulkTransferResult.completed(i, items.get(i).getToUserEmail(), transaction.getTransactionId());
         }
+        if (!failed.isEmpty()) {
+            refundFailedTransfers(fromUserId, failed);
+        }
+        recordCompletedTransactions(completed);
+        transactionSummaryService.record(completed);
         
-        return transactionRepo.save(transaction);
+        sendBulkTransferNotifications(fromUserId, completed, items.size(), recipients.values());
+        return Arrays.asList(results);
     }
 
-    // Send transaction notifications
-    private void sendTransactionNotifications(String fromUserId, String toUserId, Double amount, String description, String type) {
+    // Give the sender back the debited amount and keep the failed transfer on record. A refund that cannot
+    // be written leaves the sender debited, so its record is marked for reconciliation instead.
+    private void refundFailedTransfer(Transaction transaction, List<String> transactionIds) {
         try {
-            Optional<User> fromUser = userRepo.findById(fromUserId);
-            Optional<User> toUser = userRepo.findById(toUserId);
+            walletLedger.credit(transaction.getFromUserId(), transaction.getAmountPaise(), transactionIds);
+            transaction.markFailed();
+        } catch (RuntimeException e) {
+            log.error("Refund of {} paise to {} for transfer {} failed; the sender stays debited until reconciled",
+                    transaction.getAmountPaise(), transaction.getFromUserId(), transaction.getTransactionId(), e);
+            transaction.markRefundFailed();
+        }
+        recordFailedTransactions(List.of(transaction));
+    }
+
+    // The same for the failed items of a bulk transfer, refunded together in one ledger entry
+    private void refundFailedTransfers(String fromUserId, List<Transaction> transactions) {
+        long refund = 0;
+        List<String> transactionIds = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            refund += transaction.getAmountPaise();
+            transactionIds.add(transaction.getTransactionId());
+        }
+        try {
+            walletLedger.credit(fromUserId, refund, transactionIds);
+            transactions.forEach(Transaction::markFailed);
+        } catch (RuntimeException e) {
+            log.error("Refund of {} paise to {} for bulk transfers {} failed; the sender stays debited until reconciled",
+                    refund, fromUserId, transactionIds, e);
+            transactions.forEach(Transaction::markRefundFailed);
+        }
+        recordFailedTransactions(transactions);
+    }
+
+    // The money has already moved, so a record that cannot be saved must not fail the request; it is logged
+    // with what is needed to rebuild it, and the ledger entries name it too
+    private void recordCompletedTransactions(List<Transaction> transactions) {
+        List<CompletableFuture<Transaction>> writes = transactionJournal.appendAll(transactions);
+        for (int i = 0; i < transactions.size(); i++) {
+            try {
+                writes.get(i).join();
+            } catch (CompletionException e) {
+                Transaction transaction = transactions.get(i);
+                log.error("Transfer {} of {} paise from {} to {} completed but its record could not be saved",
+                        transaction.getTransactionId(), transaction.getAmountPaise(), transaction.getFromUserId(),
+                        transaction.getToUserId(), e.getCause());
+            }
+        }
+    }
+
+    // Best effort: the request is already failing, and the log carries the same ids
+    private void recordFailedTransactions(List<Transaction> transactions) {
+        try {
+            transactionRepo.insert(transactions);
+        } catch (RuntimeException e) {
+            log.error("Failed to record {} failed transactions", transactions.size(), e);
+        }
+    }
+
+    // Reject zero and negative amounts before touching balances
+    static void validateAmount(long amount) {
+        if (amount <= 0) {
+            throw WalletException.AMOUNT_NOT_POSITIVE;
+        }
+    }
+
+    // Queue transaction notifications; delivery happens off the request thread
+    private void sendTransactionNotifications(String fromUserId, String toUserId, long amount, String description, String type) {
+        try {
+            // Both parties from the user cache, at most one round trip
+            Map<String, User> users = userCache.findAllById(Arrays.asList(fromUserId, toUserId));
+            User fromUser = users.get(fromUserId);
+            User toUser = users.get(toUserId);
+            
+            if (fromUser != null) {
+                String message = buildTransactionMessage(fromUser, amount, description, type);
+                otpService.sendTransactionNotification(fromUser.getEmail(), fromUser.getMobile(), message);
+            }
             
+            // Send notification to receiver if different from sender
+            if (!fromUserId.equals(toUserId) && toUser != null) {
+                String message = buildTransactionMessage(toUser, amount, description, "RECEIVED");
+                otpService.sendTransactionNotification(toUser.getEmail(), toUser.getMobile(), message);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to send transaction notifications", e);
+        }
+    }
+
+    // Queue notifications for a bulk payout using the users already resolved for it
+    private void sendBulkTransferNotifications(String fromUserId, List<Transaction> transactions, int requested, Collection<User> recipients) {
+        try {
+            Map<String, User> usersById = new HashMap<>();
+            for (User recipient : recipients) {
+                usersById.put(recipient.getUserId(), recipient);
+            }
+            // One summary for the payer, so a large payout cannot fill the notification queue with its own alerts
+            Optional<User> fromUser = userCache.findById(fromUserId);
             if (fromUser.isPresent()) {
-                String message = buildTransactionMessage(fromUser.get(), amount, description, type);
+                String message = buildBulkTransferMessage(fromUser.get(), transactions, requested);
                 otpService.sendTransactionNotification(fromUser.get().getEmail(), fromUser.get().getMobile(), message);
             }
             
-            // Send notification to receiver if different from sender
-            if (!fromUserId.equals(toUserId) && toUser.isPresent()) {
-                String message = buildTransactionMessage(toUser.get(), amount, description, "RECEIVED");
-                otpService.sendTransactionNotification(toUser.get().getEmail(), toUser.get().getMobile(), message);
+            for (Transaction transaction : transactions) {
+                User toUser = usersById.get(transaction.getToUserId());
+                if (toUser != null && !toUser.getUserId().equals(fromUserId)) {
+                    String message = buildTransactionMessage(toUser, transaction.getAmountPaise(), transaction.getDescription(), "RECEIVED");
+                    otpService.sendTransactionNotification(toUser.getEmail(), toUser.getMobile(), message);
+                }
             }
         } catch (Exception e) {
-            System.err.println("Failed to send transaction notifications: " + e.getMessage());
+            log.warn("Failed to send transaction notifications", e);
         }
     }
 
     // Build transaction message
-    private String buildTransactionMessage(User user, Double amount, String description, String type) {
+    static String buildBulkTransferMessage(User user, List<Transaction> completed, int requested) {
+        long total = 0;
+        for (Transaction transaction : completed) {
+            total += transaction.getAmountPaise();
+        }
+        return String.format(
+            "Dear %s, %d of %d transfers completed, ₹%s total. Transaction time: %s",
+            user.getFirstName(),
+            completed.size(),
+            requested,
+            Money.toRupees(total).toPlainString(),
+            LocalDateTime.now().toString()
+        );
+    }
+
+    static String buildTransactionMessage(User user, long amount, String description, String type) {
         String action = switch (type) {
             case "SENT" -> "sent";
             case "RECEIVED" -> "received";
@@ -195,9 +489,9 @@ public class WalletService {
         };
         
         return String.format(
-            "Dear %s, ₹%.2f has been %s. %s. Transaction time: %s",
+            "Dear %s, ₹%s has been %s. %s. Transaction time: %s",
             user.getFirstName(),
-            amount,
+            Money.toRupees(amount).toPlainString(),
             action,
             description != null ? description : "",
             LocalDateTime.now().toString()
@@ -207,41 +501,107 @@ public class WalletService {
     // Get user transactions with enhanced details
     public List<Transaction> getUserTransactions(String userId) {
         List<Transaction> transactions = transactionRepo.findByFromUserIdOrToUserIdOrderByCreatedAtDesc(userId, userId);
+        enrichWithUserNames(transactions);
+        return transactions;
+    }
+
+    // Get one page of user transactions, continuing after the given cursor
+    public TransactionPage getUserTransactionsPage(String userId, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
         
-        // Enhance transactions with user names
-        return transactions.stream().map(transaction -> {
-            // Get sender name
-            if (!"SYSTEM".equals(transaction.getFromUserId())) {
-                Optional<User> fromUser = userRepo.findById(transaction.getFromUserId());
-                if (fromUser.isPresent()) {
-                    User user = fromUser.get();
-                    transaction.setFromUserName(user.getFirstName() + " " + user.getLastName());
-                } else {
-                    transaction.setFromUserName("Unknown User");
+        String afterTransactionId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            afterTransactionId = decodeCursor(cursor);
+        }
+        
+        // Fetch one extra row to know whether another page exists
+        List<Transaction> transactions = transactionRepo.findPageForUser(userId, afterTransactionId, pageSize + 1);
+        boolean hasMore = transactions.size() > pageSize;
+        if (hasMore) {
+            transactions = new ArrayList<>(transactions.subList(0, pageSize));
+        }
+        enrichWithUserNames(transactions);
+        
+        String nextCursor = hasMore ? encodeCursor(transactions.get(transactions.size() - 1)) : null;
+        return new TransactionPage(transactions, nextCursor);
+    }
+
+    // Walk the user's whole history from a live cursor, handing over enriched batches
+    public void forEachUserTransactionBatch(String userId, Consumer<List<Transaction>> batchConsumer) {
+        try (Stream<Transaction> stream = transactionRepo.streamForUser(userId)) {
+            Iterator<Transaction> iterator = stream.iterator();
+            List<Transaction> batch = new ArrayList<>(streamBatchSize);
+            
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == streamBatchSize) {
+                    enrichWithUserNames(batch);
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>(streamBatchSize);
                 }
-            } else {
-                transaction.setFromUserName("System");
             }
             
-            // Get receiver name
-            Optional<User> toUser = userRepo.findById(transaction.getToUserId());
-            if (toUser.isPresent()) {
-                User user = toUser.get();
-                transaction.setToUserName(user.getFirstName() + " " + user.getLastName());
+            if (!batch.isEmpty()) {
+                enrichWithUserNames(batch);
+                batchConsumer.accept(batch);
+            }
+        }
+    }
+
+    // Fill in sender and receiver names, resolving every counterparty once
+    private void enrichWithUserNames(List<Transaction> transactions) {
+        applyUserNames(transactions, userNameService.resolveNames(counterpartyIds(transactions)));
+    }
+
+    static Set<String> counterpartyIds(List<Transaction> transactions) {
+        Set<String> userIds = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            if (!"SYSTEM".equals(transaction.getFromUserId())) {
+                userIds.add(transaction.getFromUserId());
+            }
+            userIds.add(transaction.getToUserId());
+        }
+        return userIds;
+    }
+
+    static void applyUserNames(List<Transaction> transactions, Map<String, String> names) {
+        for (Transaction transaction : transactions) {
+            if ("SYSTEM".equals(transaction.getFromUserId())) {
+                transaction.setFromUserName("System");
             } else {
-                transaction.setToUserName("Unknown User");
+                transaction.setFromUserName(names.getOrDefault(transaction.getFromUserId(), "Unknown User"));
             }
-            
-            return transaction;
-        }).collect(Collectors.toList());
+            transaction.setToUserName(names.getOrDefault(transaction.getToUserId(), "Unknown User"));
+        }
+    }
+
+    // Opaque continuation token holding the transactionId of the last row
+    static String encodeCursor(Transaction last) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(last.getTransactionId().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeCursor(String cursor) {
+        try {
+            String transactionId = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!ObjectId.isValid(transactionId)) {
+                throw new IllegalArgumentException();
+            }
+            return transactionId;
+        } catch (Exception e) {
+            throw WalletException.INVALID_CURSOR;
+        }
     }
 
     // Legacy methods for backward compatibility (without OTP)
-    public Transaction sendMoney(String fromUserId, String toUserEmail, Double amount, String description) {
-        return performMoneyTransfer(fromUserId, toUserEmail, amount, description);
+    public Transaction sendMoney(String fromUserId, String toUserEmail, long amount, String description) {
+        return performMoneyTransfer(fromUserId, null, toUserEmail, amount, description);
+    }
+
+    public Transaction sendMoney(String fromUserId, String toUserId, String toUserEmail, long amount, String description) {
+        return performMoneyTransfer(fromUserId, toUserId, toUserEmail, amount, description);
     }
 
-    public Transaction addMoney(String userId, Double amount, String description) {
+    public Transaction addMoney(String userId, long amount, String description) {
         return performAddMoney(userId, amount, description);
     }
 }
\ No newline at end of file
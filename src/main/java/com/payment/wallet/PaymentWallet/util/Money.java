@@ -0,0 +1,51 @@
+package com.payment.wallet.PaymentWallet.util;
+
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+
+import java.math.BigDecimal;
+
+// Amounts are held as a long count of paise; rupee decimals exist only at the JSON edge
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    // Parse a rupee amount from a request ("125.50", 125.5, 125) into paise
+    public static long parsePaise(Object rupees) {
+        if (rupees == null) {
+            throw WalletException.AMOUNT_REQUIRED;
+        }
+        if (rupees instanceof BigDecimal decimal) {
+            return parsePaise(decimal);
+        }
+        BigDecimal value;
+        try {
+            value = new BigDecimal(rupees.toString().trim());
+        } catch (NumberFormatException e) {
+            throw WalletException.INVALID_AMOUNT;
+        }
+        return parsePaise(value);
+    }
+
+    // Rupees already parsed by Jackson from a typed request body
+    public static long parsePaise(BigDecimal value) {
+        if (value == null) {
+            throw WalletException.AMOUNT_REQUIRED;
+        }
+        if (value.scale() > SCALE && value.stripTrailingZeros().scale() > SCALE) {
+            throw WalletException.TOO_MANY_DECIMALS;
+        }
+        try {
+            return value.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw WalletException.INVALID_AMOUNT;
+        }
+    }
+
+    // Rupee value for JSON output and messages
+    public static BigDecimal toRupees(long paise) {
+        return BigDecimal.valueOf(paise, SCALE);
+    }
+}
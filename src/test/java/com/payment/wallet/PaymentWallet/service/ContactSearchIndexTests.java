@@ -0,0 +1,135 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.dto.UserContact;
+import com.payment.wallet.PaymentWallet.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.util.ReflectionTestUtils.getField;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class ContactSearchIndexTests {
+
+    private ContactSearchIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new ContactSearchIndex();
+        setField(index, "mergeThreshold", 10_000);
+        index.startMerger();
+    }
+
+    @AfterEach
+    void stopMerger() {
+        index.stopMerger();
+    }
+
+    private static User user(String userId, String firstName, String lastName, String email, String mobile) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail(email);
+        user.setMobile(mobile);
+        return user;
+    }
+
+    private void awaitMerged() {
+        AtomicInteger deltaSize = (AtomicInteger) getField(index, "deltaSize");
+        await().atMost(Duration.ofSeconds(2)).until(() -> deltaSize.get() == 0);
+    }
+
+    @Test
+    void prefixMatchesNamesAndEmailsCaseInsensitively() {
+        index.load(Stream.of(
+                user("u1", "Anna", "Smith", "anna.smith@example.com", "9876543210"),
+                user("u2", "Annie", "Jones", "aj@example.com", "9123456780"),
+                user("u3", "Bob", "Annand", "bob@example.com", null)));
+
+        // In token order: anna, annand, annie
+        assertThat(index.search("ANN", 10)).extracting(UserContact::getUserId).containsExactly("u1", "u3", "u2");
+        assertThat(index.search("jon", 10)).extracting(UserContact::getUserId).containsExactly("u2");
+        assertThat(index.search("bob@", 10)).singleElement().satisfies(contact -> {
+            assertThat(contact.getName()).isEqualTo("Bob Annand");
+            assertThat(contact.getMaskedEmail()).isEqualTo("b***@example.com");
+        });
+        // Every term must match some token of the same user
+        assertThat(index.search("ann smi", 10)).extracting(UserContact::getUserId).containsExactly("u1");
+        assertThat(index.search("ann zed", 10)).isEmpty();
+        assertThat(index.search("   ", 10)).isEmpty();
+    }
+
+    @Test
+    void phoneQueriesMatchTheDigitsWithOrWithoutCountryCode() {
+        index.add(user("u1", "Anna", "Smith", "anna@example.com", "+91 98765-43210"));
+
+        assertThat(index.search("98765", 10)).extracting(UserContact::getUserId).containsExactly("u1");
+        assertThat(index.search("+91 9876", 10)).extracting(UserContact::getUserId).containsExactly("u1");
+        assertThat(index.search("12345", 10)).isEmpty();
+    }
+
+    @Test
+    void resultsStopAtTheLimitAndListEachUserOnce() {
+        index.load(IntStream.range(0, 20).mapToObj(i -> user("u" + (100 + i), "Sam", "Sample" + i, "sam" + i + "@example.com", null)));
+        // Matches "sam" on first name, last name and email, and must still appear once
+        index.add(user("u999", "Samir", "Samson", "samir@example.com", null));
+
+        assertThat(index.search("sam", 5)).hasSize(5);
+        assertThat(index.search("sam", 100)).extracting(UserContact::getUserId).doesNotHaveDuplicates().hasSize(21);
+        assertThat(index.search("sam", 0)).isEmpty();
+    }
+
+    @Test
+    void changedUserIsFoundByTheNewNameOnly() {
+        index.load(Stream.of(user("u1", "Anna", "Smith", "anna@example.com", null)));
+
+        index.add(user("u1", "Anna", "Brown", "anna.brown@example.com", null));
+
+        assertThat(index.search("smith", 10)).isEmpty();
+        assertThat(index.search("anna@", 10)).isEmpty();
+        assertThat(index.search("brown", 10)).singleElement().satisfies(contact -> {
+            assertThat(contact.getName()).isEqualTo("Anna Brown");
+            assertThat(contact.getMaskedEmail()).isEqualTo("a***@example.com");
+        });
+        assertThat(index.search("anna", 10)).hasSize(1);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removedUserIsNoLongerFound() {
+        index.load(Stream.of(user("u1", "Anna", "Smith", "anna@example.com", null),
+                user("u2", "Anne", "Smart", "anne@example.com", null)));
+        index.add(user("u3", "Annika", "Small", "annika@example.com", null));
+
+        index.remove("u1");
+        index.remove("u3");
+
+        assertThat(index.search("ann", 10)).extracting(UserContact::getUserId).containsExactly("u2");
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void mergeKeepsOnlyTheLatestEntryOfEachUser() {
+        setField(index, "mergeThreshold", 8);
+        index.load(Stream.of(user("u1", "Anna", "Smith", "anna@example.com", null)));
+        index.add(user("u1", "Anna", "Brown", "anna@example.com", null));
+        index.add(user("u2", "Carl", "Stone", "carl@example.com", null));
+        index.remove("u2");
+        index.add(user("u3", "Dina", "Stark", "dina@example.com", null));
+
+        awaitMerged();
+
+        assertThat(index.search("s", 10)).extracting(UserContact::getUserId).containsExactly("u3");
+        assertThat(index.search("brown", 10)).extracting(UserContact::getUserId).containsExactly("u1");
+        String[] keys = (String[]) getField(getField(index, "base"), "keys");
+        assertThat(keys).noneMatch(key -> key.startsWith("smith") || key.startsWith("carl"));
+    }
+}
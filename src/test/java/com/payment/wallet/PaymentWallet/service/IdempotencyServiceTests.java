@@ -0,0 +1,98 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.entity.IdempotencyRecord;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.repo.IdempotencyRepo;
+import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class IdempotencyServiceTests {
+
+    private final IdempotencyRepo idempotencyRepo = mock(IdempotencyRepo.class);
+    private final TransactionRepo transactionRepo = mock(TransactionRepo.class);
+    private IdempotencyService service;
+
+    @BeforeEach
+    void createService() {
+        service = new IdempotencyService();
+        setField(service, "idempotencyRepo", idempotencyRepo);
+        setField(service, "transactionRepo", transactionRepo);
+        setField(service, "cacheSize", 100L);
+        setField(service, "ttl", Duration.ofHours(1));
+        service.initializeCache();
+    }
+
+    private static Transaction transaction(String id) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        return transaction;
+    }
+
+    @Test
+    void busyRequestReleasesTheKey() {
+        String fingerprint = IdempotencyService.fingerprint(100, "bob");
+        assertThatThrownBy(() -> service.execute("SEND", "alice", "k1", fingerprint, () -> {
+            throw new ServerBusyException();
+        })).isInstanceOf(ServerBusyException.class);
+
+        verify(idempotencyRepo).deleteById("SEND:alice:k1");
+        verify(idempotencyRepo, never()).save(any());
+    }
+
+    @Test
+    void failureAfterTheDebitKeepsTheKeyAsFailed() {
+        String fingerprint = IdempotencyService.fingerprint(100, "bob");
+        assertThatThrownBy(() -> service.execute("SEND", "alice", "k1", fingerprint, () -> {
+            throw new WalletException(HttpStatus.INTERNAL_SERVER_ERROR, "Transaction failed");
+        })).isInstanceOf(WalletException.class);
+
+        verify(idempotencyRepo, never()).deleteById(any());
+        verify(idempotencyRepo).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void retryWithTheSameBodyReplaysAndADifferentOneIsRefused() {
+        String fingerprint = IdempotencyService.fingerprint(100, "bob");
+        Transaction first = service.execute("SEND", "alice", "k1", fingerprint, () -> transaction("t1"));
+
+        assertThat(service.execute("SEND", "alice", "k1", fingerprint, () -> transaction("t2"))).isSameAs(first);
+        assertThatThrownBy(() -> service.execute("SEND", "alice", "k1", IdempotencyService.fingerprint(500, "bob"),
+                () -> transaction("t3")))
+                .isSameAs(WalletException.IDEMPOTENCY_KEY_REUSED);
+        assertThat(WalletException.IDEMPOTENCY_KEY_REUSED.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void storedRecordIsCheckedWhenTheKeyIsClaimedElsewhere() {
+        when(idempotencyRepo.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("claimed"));
+        IdempotencyRecord stored = new IdempotencyRecord();
+        stored.setId("SEND:alice:k1");
+        stored.setFingerprint(IdempotencyService.fingerprint(100, "bob"));
+        stored.setTransactionId("t1");
+        when(idempotencyRepo.findById("SEND:alice:k1")).thenReturn(Optional.of(stored));
+        when(transactionRepo.findById("t1")).thenReturn(Optional.of(transaction("t1")));
+
+        assertThatThrownBy(() -> service.execute("SEND", "alice", "k1", IdempotencyService.fingerprint(100, "carol"),
+                () -> transaction("t2")))
+                .isSameAs(WalletException.IDEMPOTENCY_KEY_REUSED);
+        assertThat(service.execute("SEND", "alice", "k1", IdempotencyService.fingerprint(100, "bob"),
+                () -> transaction("t2")).getTransactionId()).isEqualTo("t1");
+    }
+}
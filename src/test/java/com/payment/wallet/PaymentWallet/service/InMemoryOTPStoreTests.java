@@ -0,0 +1,128 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class InMemoryOTPStoreTests {
+
+    private InMemoryOTPStore store;
+
+    private InMemoryOTPStore store(int capacity, int wheelSlots, Duration wheelTick) {
+        store = new InMemoryOTPStore();
+        setField(store, "capacity", capacity);
+        setField(store, "wheelSlots", wheelSlots);
+        setField(store, "wheelTick", wheelTick);
+        store.startWheel();
+        return store;
+    }
+
+    @AfterEach
+    void stopWheel() {
+        store.stopWheel();
+    }
+
+    @Test
+    void codeVerifiesOnceForItsOwnUserAndPurpose() {
+        store(100, 64, Duration.ofSeconds(1));
+        store.put("u1", OTPPurpose.LOGIN, "123456", Duration.ofMinutes(5));
+
+        assertThat(store.verifyAndRemove("u2", OTPPurpose.LOGIN, "123456")).isFalse();
+        assertThat(store.verifyAndRemove("u1", OTPPurpose.TRANSACTION, "123456")).isFalse();
+        assertThat(store.verifyAndRemove("u1", OTPPurpose.LOGIN, "654321")).isFalse();
+        assertThat(store.verifyAndRemove("u1", OTPPurpose.LOGIN, "123456")).isTrue();
+        assertThat(store.verifyAndRemove("u1", OTPPurpose.LOGIN, "123456")).isFalse();
+        assertThat(store.size()).isZero();
+        assertThat(store.getVerified()).isEqualTo(1);
+        assertThat(store.getRejected()).isEqualTo(4);
+    }
+
+    @Test
+    void newCodeReplacesThePreviousOne() {
+        store(100, 64, Duration.ofSeconds(1));
+        store.put("u1", OTPPurpose.LOGIN, "111111", Duration.ofMinutes(5));
+        store.put("u1", OTPPurpose.LOGIN, "222222", Duration.ofMinutes(5));
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.verifyAndRemove("u1", OTPPurpose.LOGIN, "111111")).isFalse();
+        assertThat(store.verifyAndRemove("u1", OTPPurpose.LOGIN, "222222")).isTrue();
+    }
+
+    @Test
+    void expiredCodeIsRejectedBeforeTheWheelSweepsIt() throws InterruptedException {
+        store(100, 64, Duration.ofHours(1));
+        store.put("u1", OTPPurpose.LOGIN, "123456", Duration.ofMillis(20));
+        Thread.sleep(40);
+
+        assertThat(store.verifyAndRemove("u1", OTPPurpose.LOGIN, "123456")).isFalse();
+        assertThat(store.getExpired()).isEqualTo(1);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void wheelSweepsExpiredCodes() {
+        store(100, 8, Duration.ofMillis(10));
+        store.put("u1", OTPPurpose.LOGIN, "123456", Duration.ofMillis(30));
+        // Several times the wheel's 80ms span, so it sits in a slot through at least one lap and is
+        // still live when u1's sweep is seen
+        store.put("u2", OTPPurpose.LOGIN, "123456", Duration.ofMillis(500));
+
+        await().atMost(Duration.ofSeconds(2)).pollInterval(Duration.ofMillis(5)).until(() -> store.size() == 1);
+        assertThat(store.verifyAndRemove("u2", OTPPurpose.LOGIN, "123456")).isTrue();
+        await().atMost(Duration.ofSeconds(2)).until(() -> store.getExpired() == 1);
+    }
+
+    @Test
+    void fullStoreEvictsTheCodeDueSoonest() {
+        store(2, 64, Duration.ofSeconds(1));
+        store.put("late", OTPPurpose.LOGIN, "111111", Duration.ofSeconds(50));
+        store.put("soon", OTPPurpose.LOGIN, "222222", Duration.ofSeconds(5));
+        store.put("middle", OTPPurpose.LOGIN, "333333", Duration.ofSeconds(30));
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.getEvicted()).isEqualTo(1);
+        assertThat(store.verifyAndRemove("soon", OTPPurpose.LOGIN, "222222")).isFalse();
+        assertThat(store.verifyAndRemove("late", OTPPurpose.LOGIN, "111111")).isTrue();
+        assertThat(store.verifyAndRemove("middle", OTPPurpose.LOGIN, "333333")).isTrue();
+    }
+
+    @Test
+    void evictionFindsCodesDueOnALaterLap() {
+        // Every TTL is past the 8s span, so no slot holds a code due this lap
+        store(2, 8, Duration.ofSeconds(1));
+        store.put("a", OTPPurpose.LOGIN, "111111", Duration.ofSeconds(60));
+        store.put("b", OTPPurpose.LOGIN, "222222", Duration.ofSeconds(70));
+        store.put("c", OTPPurpose.LOGIN, "333333", Duration.ofSeconds(80));
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.getEvicted()).isEqualTo(1);
+        assertThat(store.verifyAndRemove("a", OTPPurpose.LOGIN, "111111")).isFalse();
+        assertThat(store.verifyAndRemove("b", OTPPurpose.LOGIN, "222222")).isTrue();
+    }
+
+    @Test
+    void evictionAtCapacityLooksAtOneHeadPerSlotHoweverFullTheStoreIs() {
+        // Five-minute codes on a 64s wheel, so most of the store is due on later laps
+        store(20_000, 64, Duration.ofSeconds(1));
+        for (int i = 0; i < 20_000; i++) {
+            store.put("u" + i, OTPPurpose.LOGIN, "123456", Duration.ofMinutes(5));
+        }
+        assertThat(store.getEvictionProbes()).isZero();
+
+        for (int i = 0; i < 1_000; i++) {
+            store.put("late" + i, OTPPurpose.LOGIN, "123456", Duration.ofMinutes(5));
+        }
+
+        assertThat(store.size()).isEqualTo(20_000);
+        assertThat(store.getEvicted()).isEqualTo(1_000);
+        assertThat(store.getEvictionProbes()).isEqualTo(1_000L * 64);
+        // The oldest codes went first
+        assertThat(store.verifyAndRemove("u999", OTPPurpose.LOGIN, "123456")).isFalse();
+        assertThat(store.verifyAndRemove("u1000", OTPPurpose.LOGIN, "123456")).isTrue();
+    }
+}
@@ -0,0 +1,92 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.entity.OTPRecord;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class MongoOTPStoreTests {
+
+    // The otps collection both instances share
+    private final Map<String, OTPRecord> otps = new ConcurrentHashMap<>();
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    @BeforeEach
+    void fakeCollection() {
+        when(mongoTemplate.save(any(OTPRecord.class))).thenAnswer(invocation -> {
+            OTPRecord record = invocation.getArgument(0);
+            otps.put(record.getId(), record);
+            return record;
+        });
+        // The store's query: _id, otpCode and expiresAt > now, matched and removed atomically
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(OTPRecord.class))).thenAnswer(invocation -> {
+            Document query = ((Query) invocation.getArgument(0)).getQueryObject();
+            Instant now = (Instant) query.get("expiresAt", Document.class).get("$gt");
+            OTPRecord[] removed = new OTPRecord[1];
+            otps.computeIfPresent(query.getString("_id"), (id, record) -> {
+                if (record.getOtpCode().equals(query.getString("otpCode")) && record.getExpiresAt().isAfter(now)) {
+                    removed[0] = record;
+                    return null;
+                }
+                return record;
+            });
+            return removed[0];
+        });
+    }
+
+    private MongoOTPStore instance() {
+        MongoOTPStore store = new MongoOTPStore();
+        setField(store, "mongoTemplate", mongoTemplate);
+        return store;
+    }
+
+    @Test
+    void codeSentThroughOneInstanceVerifiesOnAnother() {
+        MongoOTPStore sender = instance();
+        MongoOTPStore verifier = instance();
+
+        // A verify that finds nothing must not hide a code sent moments later through another instance
+        assertThat(verifier.verifyAndRemove("u1", OTPPurpose.LOGIN, "123456")).isFalse();
+        sender.put("u1", OTPPurpose.LOGIN, "123456", Duration.ofMinutes(5));
+
+        assertThat(verifier.verifyAndRemove("u1", OTPPurpose.LOGIN, "123456")).isTrue();
+        assertThat(sender.verifyAndRemove("u1", OTPPurpose.LOGIN, "123456")).isFalse();
+        assertThat(otps).isEmpty();
+    }
+
+    @Test
+    void reSendThroughAnotherInstanceReplacesTheConsumedCode() {
+        MongoOTPStore first = instance();
+        MongoOTPStore second = instance();
+        first.put("u1", OTPPurpose.TRANSACTION, "111111", Duration.ofMinutes(5));
+        assertThat(first.verifyAndRemove("u1", OTPPurpose.TRANSACTION, "111111")).isTrue();
+
+        second.put("u1", OTPPurpose.TRANSACTION, "222222", Duration.ofMinutes(5));
+
+        assertThat(first.verifyAndRemove("u1", OTPPurpose.TRANSACTION, "111111")).isFalse();
+        assertThat(first.verifyAndRemove("u1", OTPPurpose.TRANSACTION, "222222")).isTrue();
+    }
+
+    @Test
+    void expiredCodeIsRejectedBeforeTheTtlMonitorRemovesIt() {
+        MongoOTPStore store = instance();
+        store.put("u1", OTPPurpose.LOGIN, "123456", Duration.ofSeconds(-1));
+
+        assertThat(store.verifyAndRemove("u1", OTPPurpose.LOGIN, "123456")).isFalse();
+        assertThat(otps).containsKey("u1:LOGIN");
+    }
+}
@@ -0,0 +1,62 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class OTPServiceTests {
+
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final OTPStore otpStore = mock(OTPStore.class);
+    private OTPService service;
+
+    @BeforeEach
+    void createService() {
+        service = new OTPService();
+        setField(service, "mailSender", mock(JavaMailSender.class));
+        setField(service, "notificationService", notificationService);
+        setField(service, "otpStore", otpStore);
+        setField(service, "meterRegistry", new SimpleMeterRegistry());
+        setField(service, "fromEmail", "wallet@example.com");
+        setField(service, "twilioPhoneNumber", "+15550000000");
+        service.initialize();
+        // SMS configured without calling Twilio.init
+        setField(service, "twilioInitialized", true);
+    }
+
+    @Test
+    void alertToAUserWithoutAMobileStillGoesByEmail() {
+        service.sendTransactionNotification("bob@example.com", null, "You received 5.00");
+        service.sendTransactionNotification("bob@example.com", " ", "You received 5.00");
+
+        verify(notificationService, times(2)).enqueue(eq(NotificationService.Channel.EMAIL), any());
+        verify(notificationService, never()).enqueue(eq(NotificationService.Channel.SMS), any());
+    }
+
+    @Test
+    void queuedOtpForAUserWithoutAMobileIsIssuedAndEmailed() {
+        assertThat(service.queueOTP("bob", "bob@example.com", null, "LOGIN")).isTrue();
+
+        verify(otpStore).put(eq("bob"), eq(OTPPurpose.LOGIN), anyString(), any());
+        verify(notificationService).enqueue(eq(NotificationService.Channel.EMAIL), any());
+        verify(notificationService, never()).enqueue(eq(NotificationService.Channel.SMS), any());
+    }
+
+    @Test
+    void alertToAUserWithAMobileIsAlsoQueuedAsSms() {
+        service.sendTransactionNotification("bob@example.com", "98765 43210", "You received 5.00");
+
+        verify(notificationService).enqueue(eq(NotificationService.Channel.SMS), any());
+    }
+}
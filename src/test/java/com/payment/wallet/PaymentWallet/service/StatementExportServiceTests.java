@@ -0,0 +1,206 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payment.wallet.PaymentWallet.dto.StatementExport;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class StatementExportServiceTests {
+
+    @TempDir
+    Path directory;
+
+    private final TransactionRepo transactionRepo = mock(TransactionRepo.class);
+    private final UserNameService userNameService = mock(UserNameService.class);
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private StatementExportService service;
+
+    @BeforeEach
+    void createService() throws IOException {
+        when(userNameService.resolveNames(anyCollection())).thenReturn(Map.of("alice", "Alice", "bob", "Bob, Jr."));
+
+        service = new StatementExportService();
+        setField(service, "transactionRepo", transactionRepo);
+        setField(service, "userNameService", userNameService);
+        setField(service, "objectMapper", objectMapper);
+        setField(service, "directory", directory.toString());
+        setField(service, "workers", 1);
+        setField(service, "queueCapacity", 10);
+        setField(service, "batchSize", 2);
+        setField(service, "bufferSize", DataSize.ofKilobytes(4));
+        setField(service, "retention", Duration.ofHours(1));
+        service.startExporters();
+    }
+
+    @AfterEach
+    void stopExporters() {
+        service.stopExporters();
+    }
+
+    private static Transaction transaction(String id, String from, String to, long amountPaise, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setFromUserId(from);
+        transaction.setToUserId(to);
+        transaction.setAmountPaise(amountPaise);
+        transaction.setType("TRANSFER");
+        transaction.setDescription(description);
+        transaction.setReferenceNumber("REF" + id);
+        transaction.setCreatedAt(LocalDateTime.of(2026, 3, 1, 10, 0));
+        transaction.markCompleted();
+        return transaction;
+    }
+
+    private void history(Transaction... transactions) {
+        when(transactionRepo.streamStatement(eq("alice"), any(), any())).thenAnswer(invocation -> Stream.of(transactions));
+    }
+
+    private StatementExport awaitFinished(String jobId) {
+        await().atMost(Duration.ofSeconds(5)).until(() -> !service.status("alice", jobId).status().matches("QUEUED|RUNNING"));
+        return service.status("alice", jobId);
+    }
+
+    private List<String> lines(StatementExportService.StatementFile file, boolean gzip) throws IOException {
+        try (InputStream in = gzip ? new GZIPInputStream(Files.newInputStream(file.path())) : Files.newInputStream(file.path())) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+
+    @Test
+    void csvExportQuotesDescriptionsAndSidesEachRowFromTheUser() throws IOException {
+        history(transaction("t1", "alice", "bob", 12_345, "rent, March"),
+                transaction("t2", "bob", "alice", 500, "said \"thanks\""),
+                transaction("t3", "alice", "bob", 100, "=HYPERLINK(\"x\")"));
+
+        StatementExport job = service.start("alice", "csv", false, null, null);
+        assertThat(awaitFinished(job.jobId()).status()).isEqualTo("COMPLETED");
+
+        StatementExportService.StatementFile file = service.file("alice", job.jobId());
+        assertThat(file.contentType()).isEqualTo("text/csv");
+        assertThat(file.size()).isEqualTo(Files.size(file.path()));
+        List<String> lines = lines(file, false);
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).startsWith("transactionId,createdAt,completedAt,type,status,direction,amount");
+        assertThat(lines.get(1)).startsWith("t1,2026-03-01T10:00,")
+                .contains(",TRANSFER,COMPLETED,DEBIT,123.45,INR,alice,Alice,bob,\"Bob, Jr.\",REFt1,")
+                .endsWith(",\"rent, March\"");
+        assertThat(lines.get(2)).contains(",CREDIT,5.00,").endsWith(",\"said \"\"thanks\"\"\"");
+        // A spreadsheet must not run it as a formula
+        assertThat(lines.get(3)).endsWith(",\"'=HYPERLINK(\"\"x\"\")\"");
+        assertThat(service.status("alice", job.jobId()).rowsWritten()).isEqualTo(3);
+    }
+
+    @Test
+    void ndjsonExportWritesOneTransactionPerLineAndCanBeGzipped() throws IOException {
+        history(transaction("t1", "alice", "bob", 12_345, "rent, March"),
+                transaction("t2", "bob", "alice", 500, "line one\nline two"));
+
+        StatementExport job = service.start("alice", "ndjson", true, null, null);
+        assertThat(awaitFinished(job.jobId()).status()).isEqualTo("COMPLETED");
+
+        StatementExportService.StatementFile file = service.file("alice", job.jobId());
+        assertThat(file.contentType()).isEqualTo("application/gzip");
+        assertThat(file.fileName()).endsWith(".ndjson.gz");
+        List<String> lines = lines(file, true);
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("transactionId").asText()).isEqualTo("t1");
+        assertThat(first.get("toUserName").asText()).isEqualTo("Bob, Jr.");
+        assertThat(objectMapper.readTree(lines.get(1)).get("description").asText()).isEqualTo("line one\nline two");
+    }
+
+    @Test
+    void secondExportIsRefusedWhileTheFirstIsQueuedOrRunning() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionRepo.streamStatement(eq("alice"), any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return Stream.of(transaction("t1", "alice", "bob", 100, "rent"));
+        });
+
+        StatementExport running = service.start("alice", "csv", false, null, null);
+
+        assertThatThrownBy(() -> service.start("alice", "ndjson", false, null, null))
+                .isSameAs(WalletException.STATEMENT_IN_PROGRESS);
+        assertThatThrownBy(() -> service.file("alice", running.jobId())).isSameAs(WalletException.STATEMENT_NOT_READY);
+        assertThatThrownBy(() -> service.status("bob", running.jobId())).isSameAs(WalletException.STATEMENT_NOT_FOUND);
+
+        release.countDown();
+        assertThat(awaitFinished(running.jobId()).status()).isEqualTo("COMPLETED");
+        assertThat(service.start("alice", "csv", false, null, null).status()).isEqualTo("QUEUED");
+    }
+
+    @Test
+    void failedExportFreesTheUsersSlotAndLeavesNoFile() throws IOException {
+        when(transactionRepo.streamStatement(eq("alice"), any(), any())).thenThrow(new IllegalStateException("mongo down"));
+
+        StatementExport job = service.start("alice", "csv", false, null, null);
+
+        StatementExport failed = awaitFinished(job.jobId());
+        assertThat(failed.status()).isEqualTo("FAILED");
+        assertThat(failed.error()).isEqualTo("Export failed");
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+        service.start("alice", "csv", false, null, null);
+    }
+
+    @Test
+    void sweepRemovesExpiredJobsAndFilesOnly() throws IOException {
+        history(transaction("t1", "alice", "bob", 100, "rent"));
+        StatementExport old = service.start("alice", "csv", false, null, null);
+        awaitFinished(old.jobId());
+        Path oldFile = service.file("alice", old.jobId()).path();
+        // Past the retention: the finished job and its file, and a file left behind by an earlier run
+        setField(service, "retention", Duration.ofMinutes(30));
+        Files.setLastModifiedTime(oldFile, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Path leftover = Files.writeString(directory.resolve("earlier.part"), "partial");
+        Files.setLastModifiedTime(leftover, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Path recent = Files.writeString(directory.resolve("recent.csv"), "rows");
+
+        invokeMethod(service, "sweep");
+
+        assertThat(oldFile).doesNotExist();
+        assertThat(leftover).doesNotExist();
+        assertThat(recent).exists();
+        // The job finished moments ago, so its record stays until it is past the retention too
+        assertThat(service.status("alice", old.jobId()).status()).isEqualTo("COMPLETED");
+
+        setField(service, "retention", Duration.ofMillis(-1));
+        invokeMethod(service, "sweep");
+        assertThatThrownBy(() -> service.status("alice", old.jobId())).isSameAs(WalletException.STATEMENT_NOT_FOUND);
+    }
+}
@@ -0,0 +1,181 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.repo.NodeLeaseRepo;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.getField;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class TransactionIdGeneratorTests {
+
+    private static final String CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    private static TransactionIdGenerator generator(int nodeId) {
+        TransactionIdGenerator generator = new TransactionIdGenerator();
+        setField(generator, "configuredNodeId", nodeId);
+        generator.initializeNode();
+        return generator;
+    }
+
+    @Test
+    void idsFromOneThreadAreStrictlyIncreasing() {
+        TransactionIdGenerator generator = generator(7);
+        String previous = generator.next().hex();
+        for (int i = 0; i < 100_000; i++) {
+            String next = generator.next().hex();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreadsAndStripes() throws InterruptedException {
+        TransactionIdGenerator generator = generator(7);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        int threads = 32;
+        int perThread = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.next().hex());
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertThat(ids).hasSize(threads * perThread);
+    }
+
+    @Test
+    void hexCarriesTimeAndNode() {
+        long before = System.currentTimeMillis() / 1000;
+        String hex = generator(0xBEEF).next().hex();
+        long after = System.currentTimeMillis() / 1000;
+
+        assertThat(hex).hasSize(24).matches("[0-9a-f]{24}");
+        assertThat(Long.parseLong(hex.substring(0, 8), 16)).isBetween(before, after);
+        assertThat(Integer.parseInt(hex.substring(8, 12), 16)).isLessThan(1000);
+        assertThat(hex.substring(12, 16)).isEqualTo("beef");
+    }
+
+    @Test
+    void exhaustedSequenceBorrowsTheNextMillisecond() {
+        TransactionIdGenerator generator = generator(1);
+        // Park this thread's stripe on the last sequence number of a millisecond a minute ahead
+        int slot = (int) (Thread.currentThread().getId() & 63) * 8;
+        long futureMillis = System.currentTimeMillis() - 1_704_067_200_000L + 60_000;
+        AtomicLongArray stripes = (AtomicLongArray) getField(generator, "stripes");
+        stripes.set(slot, (futureMillis << 24) | 0xFFFFFF);
+
+        String hex = generator.next().hex();
+        long unixMillis = futureMillis + 1 + 1_704_067_200_000L;
+        assertThat(Long.parseLong(hex.substring(0, 8), 16)).isEqualTo(unixMillis / 1000);
+        assertThat(Long.parseLong(hex.substring(8, 12), 16)).isEqualTo(unixMillis % 1000);
+        assertThat(hex.substring(18)).isEqualTo("000000");
+    }
+
+    @Test
+    void referenceIsTheSameBitsInCrockfordBase32() {
+        TransactionIdGenerator generator = generator(42);
+        for (int i = 0; i < 1_000; i++) {
+            TransactionIdGenerator.TransactionId id = generator.next();
+            String reference = id.reference("REF");
+            assertThat(reference).startsWith("REF").hasSize(23);
+
+            BigInteger decoded = BigInteger.ZERO;
+            for (char c : reference.substring(3).toCharArray()) {
+                int digit = CROCKFORD.indexOf(c);
+                assertThat(digit).isNotNegative();
+                decoded = decoded.shiftLeft(5).add(BigInteger.valueOf(digit));
+            }
+            assertThat(decoded).isEqualTo(new BigInteger(id.hex(), 16));
+        }
+    }
+
+    @Test
+    void referencesSortInIdOrder() {
+        TransactionIdGenerator generator = generator(42);
+        String previous = generator.next().reference("TXN");
+        for (int i = 0; i < 10_000; i++) {
+            String next = generator.next().reference("TXN");
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void unpinnedNodeLeasesTheFirstFreeId() {
+        NodeLeaseRepo repo = mock(NodeLeaseRepo.class);
+        when(repo.claim(anyInt(), anyString(), any(), any())).thenReturn(false);
+        when(repo.claim(eq(0x0101), anyString(), any(), any())).thenReturn(true);
+        TransactionIdGenerator generator = leasingGenerator(repo);
+
+        assertThat(generator.claimNodeId(0x00FF)).isEqualTo(0x0101);
+        assertThat(generator.claimNodeId(0xFFFF)).isEqualTo(0x0101);
+    }
+
+    @Test
+    void lostLeaseMovesToAnotherId() {
+        NodeLeaseRepo repo = mock(NodeLeaseRepo.class);
+        when(repo.claim(anyInt(), anyString(), any(), any())).thenReturn(true);
+        when(repo.claim(eq(5), anyString(), any(), any())).thenReturn(false);
+        when(repo.renew(anyInt(), anyString(), any())).thenReturn(false);
+        TransactionIdGenerator generator = leasingGenerator(repo);
+        setField(generator, "nodeId", 5);
+
+        generator.renewLease();
+
+        assertThat(generator.getNodeId()).isEqualTo(6);
+        assertThat(generator.next().hex().substring(12, 16)).isEqualTo("0006");
+    }
+
+    @Test
+    void lapsedLeaseStopsIssuingIds() {
+        NodeLeaseRepo repo = mock(NodeLeaseRepo.class);
+        when(repo.renew(anyInt(), anyString(), any())).thenThrow(new IllegalStateException("mongo down"));
+        TransactionIdGenerator generator = leasingGenerator(repo);
+        setField(generator, "leaseDeadline", System.nanoTime() - 1);
+
+        generator.renewLease();
+
+        assertThatThrownBy(generator::next).isInstanceOf(ServerBusyException.class);
+    }
+
+    private static TransactionIdGenerator leasingGenerator(NodeLeaseRepo repo) {
+        TransactionIdGenerator generator = new TransactionIdGenerator();
+        setField(generator, "nodeLeaseRepo", repo);
+        setField(generator, "leaseTtl", Duration.ofMinutes(2));
+        setField(generator, "leased", true);
+        setField(generator, "leaseDeadline", System.nanoTime() + Duration.ofMinutes(2).toNanos());
+        return generator;
+    }
+}
@@ -0,0 +1,196 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.getField;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class TransactionJournalTests {
+
+    private final TransactionRepo repo = mock(TransactionRepo.class);
+
+    private TransactionJournal journal(int flushers, Duration linger) {
+        TransactionJournal journal = new TransactionJournal();
+        setField(journal, "transactionRepo", repo);
+        setField(journal, "maxBatchSize", 256);
+        setField(journal, "linger", linger);
+        setField(journal, "queueCapacity", 1000);
+        setField(journal, "flusherCount", flushers);
+        journal.startFlushers();
+        return journal;
+    }
+
+    private static Transaction transaction(String id) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setFromUserId("from");
+        transaction.setToUserId("to");
+        transaction.setAmountPaise(100);
+        transaction.setType("TRANSFER");
+        transaction.setCreatedAt(LocalDateTime.of(2026, 1, 1, 10, 0, 0, 123_456_789));
+        return transaction;
+    }
+
+    // Queue the appends with no flusher running, then let stopFlushers write them as one batch
+    private List<CompletableFuture<Transaction>> appendAsOneBatch(TransactionJournal journal, List<Transaction> transactions) {
+        List<CompletableFuture<Transaction>> results = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            results.add(CompletableFuture.supplyAsync(() -> journal.append(transaction)));
+            BlockingQueue<?> queue = (BlockingQueue<?>) getField(journal, "queue");
+            await().atMost(Duration.ofSeconds(2)).until(() -> queue.size() == results.size());
+        }
+        journal.stopFlushers();
+        return results;
+    }
+
+    @Test
+    void concurrentAppendsShareInserts() throws Exception {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(repo.insertUnordered(anyList())).thenAnswer(invocation -> {
+            batchSizes.add(((List<?>) invocation.getArgument(0)).size());
+            Thread.sleep(5);
+            return Map.of();
+        });
+        TransactionJournal journal = journal(1, Duration.ofMillis(20));
+
+        List<CompletableFuture<Transaction>> results = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            Transaction transaction = transaction("t" + i);
+            results.add(CompletableFuture.supplyAsync(() -> journal.append(transaction)));
+        }
+        for (CompletableFuture<Transaction> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isNotNull();
+        }
+        journal.stopFlushers();
+
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(64);
+        assertThat(batchSizes.size()).isLessThan(64);
+        assertThat(journal.getRecords()).isEqualTo(64);
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void onlyRecordsTheBatchDidNotWriteAreRetried() throws Exception {
+        TransactionJournal journal = journal(0, Duration.ZERO);
+        setField(journal, "queue", new ArrayBlockingQueue<>(10));
+        Transaction written = transaction("written");
+        Transaction duplicate = transaction("duplicate");
+        Transaction transient1 = transaction("transient");
+        when(repo.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            Map<Integer, Integer> failed = new HashMap<>();
+            failed.put(batch.indexOf(duplicate), 11000);
+            failed.put(batch.indexOf(transient1), 91);
+            return failed;
+        });
+        when(repo.insert(transient1)).thenReturn(transient1);
+
+        List<CompletableFuture<Transaction>> results = appendAsOneBatch(journal, List.of(written, duplicate, transient1));
+
+        assertThat(results.get(0).get()).isSameAs(written);
+        assertThatThrownBy(() -> results.get(1).get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(DuplicateKeyException.class);
+        assertThat(results.get(2).get()).isSameAs(transient1);
+        verify(repo, times(1)).insert(transient1);
+        verify(repo, never()).insert(written);
+        verify(repo, never()).insert(duplicate);
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void unknownBatchOutcomeAcceptsOnlyItsOwnRecordUnderAnExistingId() throws Exception {
+        TransactionJournal journal = journal(0, Duration.ZERO);
+        setField(journal, "queue", new ArrayBlockingQueue<>(10));
+        Transaction alreadyWritten = transaction("mine");
+        Transaction collided = transaction("theirs");
+        Transaction notWritten = transaction("missing");
+        when(repo.insertUnordered(anyList())).thenThrow(new IllegalStateException("socket timeout"));
+        when(repo.insert(alreadyWritten)).thenThrow(new DuplicateKeyException("mine"));
+        when(repo.insert(collided)).thenThrow(new DuplicateKeyException("theirs"));
+        when(repo.insert(notWritten)).thenReturn(notWritten);
+
+        // Mongo hands back what the failed batch stored: this record, to the millisecond
+        Transaction stored = transaction("mine");
+        stored.setCreatedAt(alreadyWritten.getCreatedAt().withNano(123_000_000));
+        when(repo.findById("mine")).thenReturn(Optional.of(stored));
+        Transaction other = transaction("theirs");
+        other.setFromUserId("someone-else");
+        when(repo.findById("theirs")).thenReturn(Optional.of(other));
+
+        List<CompletableFuture<Transaction>> results = appendAsOneBatch(journal, List.of(alreadyWritten, collided, notWritten));
+
+        assertThat(results.get(0).get()).isSameAs(stored);
+        assertThatThrownBy(() -> results.get(1).get()).hasCauseInstanceOf(DuplicateKeyException.class);
+        assertThat(results.get(2).get()).isSameAs(notWritten);
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void stoppedJournalWritesDirectlyWithInsert() {
+        TransactionJournal journal = journal(1, Duration.ZERO);
+        journal.stopFlushers();
+        Transaction transaction = transaction("late");
+        when(repo.insert(transaction)).thenReturn(transaction);
+
+        assertThat(journal.append(transaction)).isSameAs(transaction);
+        assertThat(journal.getDirectWrites()).isEqualTo(1);
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void appendAllQueuesEveryRecordIntoOneBatchAndReportsEachOutcome() throws Exception {
+        TransactionJournal journal = journal(0, Duration.ZERO);
+        Transaction written = transaction("written");
+        Transaction duplicate = transaction("duplicate");
+        when(repo.insertUnordered(anyList())).thenReturn(Map.of(1, 11000));
+
+        List<CompletableFuture<Transaction>> results = journal.appendAll(List.of(written, duplicate));
+        journal.stopFlushers();
+
+        assertThat(results.get(0).get()).isSameAs(written);
+        assertThatThrownBy(() -> results.get(1).get()).hasCauseInstanceOf(DuplicateKeyException.class);
+        verify(repo, times(1)).insertUnordered(anyList());
+        assertThat(journal.getDirectWrites()).isZero();
+    }
+
+    @Test
+    void appendAllOnAStoppedJournalReportsAFailedDirectWriteInsteadOfThrowing() {
+        TransactionJournal journal = journal(1, Duration.ZERO);
+        journal.stopFlushers();
+        Transaction transaction = transaction("late");
+        when(repo.insert(transaction)).thenThrow(new IllegalStateException("mongo down"));
+
+        List<CompletableFuture<Transaction>> results = journal.appendAll(List.of(transaction));
+
+        assertThat(results).singleElement().satisfies(result -> assertThat(result).isCompletedExceptionally());
+        assertThat(journal.getDirectWrites()).isEqualTo(1);
+    }
+}
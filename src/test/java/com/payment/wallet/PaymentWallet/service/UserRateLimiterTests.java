@@ -0,0 +1,86 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.service.UserRateLimiter.Action;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class UserRateLimiterTests {
+
+    private static UserRateLimiter limiter(boolean enabled, int perMinute, int burst) {
+        UserRateLimiter limiter = new UserRateLimiter();
+        setField(limiter, "enabled", enabled);
+        setField(limiter, "transfersPerMinute", perMinute);
+        setField(limiter, "transferBurst", burst);
+        setField(limiter, "otpPerMinute", 1);
+        setField(limiter, "otpBurst", 1);
+        setField(limiter, "maxUsers", 1000L);
+        limiter.initializeBuckets();
+        return limiter;
+    }
+
+    @Test
+    void burstIsAllowedThenThrottledWithTheWaitForTheNextToken() {
+        UserRateLimiter limiter = limiter(true, 60, 3);
+        for (int i = 0; i < 3; i++) {
+            limiter.check(Action.TRANSFER, "u1");
+        }
+
+        ServerBusyException busy = catchThrowableOfType(() -> limiter.check(Action.TRANSFER, "u1"), ServerBusyException.class);
+        // One token a second, so the next one is at most a second away
+        assertThat(busy.getRetryAfter()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(1));
+        assertThat(busy.getRetryAfterSeconds()).isEqualTo(1);
+        assertThat(limiter.getThrottled(Action.TRANSFER)).isEqualTo(1);
+    }
+
+    @Test
+    void tokensRefillOverTime() {
+        // 100 tokens a second: one every 10ms
+        UserRateLimiter limiter = limiter(true, 6_000, 2);
+        limiter.check(Action.TRANSFER, "u1");
+        limiter.check(Action.TRANSFER, "u1");
+        assertThatThrownBy(() -> limiter.check(Action.TRANSFER, "u1")).isInstanceOf(ServerBusyException.class);
+
+        await().atMost(Duration.ofSeconds(2)).pollInterval(Duration.ofMillis(5)).ignoreExceptions()
+                .untilAsserted(() -> limiter.check(Action.TRANSFER, "u1"));
+    }
+
+    @Test
+    void eachUserAndActionHasItsOwnBucket() {
+        UserRateLimiter limiter = limiter(true, 60, 1);
+        limiter.check(Action.TRANSFER, "u1");
+        assertThatThrownBy(() -> limiter.check(Action.TRANSFER, "u1")).isInstanceOf(ServerBusyException.class);
+
+        limiter.check(Action.TRANSFER, "u2");
+        limiter.check(Action.OTP, "u1");
+        assertThatThrownBy(() -> limiter.check(Action.OTP, "u1")).isInstanceOf(ServerBusyException.class);
+        assertThat(limiter.getThrottled(Action.TRANSFER)).isEqualTo(1);
+        assertThat(limiter.getThrottled(Action.OTP)).isEqualTo(1);
+    }
+
+    @Test
+    void disabledLimiterNeverThrottles() {
+        UserRateLimiter limiter = limiter(false, 60, 1);
+        for (int i = 0; i < 100; i++) {
+            limiter.check(Action.TRANSFER, "u1");
+        }
+        assertThat(limiter.getThrottled(Action.TRANSFER)).isZero();
+    }
+
+    @Test
+    void missingKeyIsLeftToValidation() {
+        UserRateLimiter limiter = limiter(true, 60, 1);
+        for (int i = 0; i < 10; i++) {
+            limiter.check(Action.TRANSFER, null);
+            limiter.check(Action.TRANSFER, " ");
+        }
+        assertThat(limiter.getThrottled(Action.TRANSFER)).isZero();
+    }
+}
@@ -0,0 +1,494 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.entity.LedgerEntry;
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import com.payment.wallet.PaymentWallet.entity.WalletStripe;
+import com.payment.wallet.PaymentWallet.exceptions.ServerBusyException;
+import com.payment.wallet.PaymentWallet.repo.LedgerRepo;
+import com.payment.wallet.PaymentWallet.repo.WalletRepo;
+import com.payment.wallet.PaymentWallet.repo.WalletStripeRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class WalletLedgerTests {
+
+    private static final List<String> IDS = List.of("t1");
+
+    // What Mongo holds: wallet snapshots by userId, stripe snapshots by stripeId and ledger entries by userId and seq
+    private final Map<String, Wallet> documents = new ConcurrentHashMap<>();
+    private final Map<String, WalletStripe> stripes = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListMap<Long, LedgerEntry>> entries = new ConcurrentHashMap<>();
+
+    private final WalletRepo walletRepo = mock(WalletRepo.class);
+    private final WalletStripeRepo walletStripeRepo = mock(WalletStripeRepo.class);
+    private final LedgerRepo ledgerRepo = mock(LedgerRepo.class);
+    private WalletCache walletCache;
+    private WalletLedger ledger;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void createLedger() {
+        when(walletRepo.findByUserId(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(documents.get((String) invocation.getArgument(0))).map(WalletLedgerTests::copy));
+        when(walletRepo.findByUserIdIn(any())).thenAnswer(invocation -> {
+            List<Wallet> found = new ArrayList<>();
+            for (String userId : (Collection<String>) invocation.getArgument(0)) {
+                Optional.ofNullable(documents.get(userId)).map(WalletLedgerTests::copy).ifPresent(found::add);
+            }
+            return found;
+        });
+        when(walletRepo.insert(any(Wallet.class))).thenAnswer(invocation -> {
+            Wallet wallet = invocation.getArgument(0);
+            if (documents.putIfAbsent(wallet.getUserId(), copy(wallet)) != null) {
+                throw new DuplicateKeyException(wallet.getUserId());
+            }
+            return wallet;
+        });
+        when(walletRepo.saveSnapshot(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            Wallet wallet = documents.get((String) invocation.getArgument(0));
+            synchronized (wallet) {
+                if (wallet.getLedgerSeq() >= (Long) invocation.getArgument(2)) {
+                    return false;
+                }
+                wallet.setBalancePaise(invocation.getArgument(1));
+                wallet.setLedgerSeq(invocation.getArgument(2));
+                return true;
+            }
+        });
+        when(walletStripeRepo.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(stripes.get((String) invocation.getArgument(0))).map(WalletLedgerTests::copy));
+        when(walletStripeRepo.findAllById(any())).thenAnswer(invocation -> {
+            List<WalletStripe> found = new ArrayList<>();
+            for (String stripeId : (Iterable<String>) invocation.getArgument(0)) {
+                Optional.ofNullable(stripes.get(stripeId)).map(WalletLedgerTests::copy).ifPresent(found::add);
+            }
+            return found;
+        });
+        when(walletStripeRepo.saveSnapshot(anyString(), anyInt(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            String userId = invocation.getArgument(0);
+            int stripe = invocation.getArgument(1);
+            WalletStripe document = stripes.computeIfAbsent(userId + "#" + stripe, id -> stripeDocument(userId, stripe, 0, 0));
+            synchronized (document) {
+                if (document.getLedgerSeq() >= (Long) invocation.getArgument(3)) {
+                    return false;
+                }
+                document.setBalancePaise(invocation.getArgument(2));
+                document.setLedgerSeq(invocation.getArgument(3));
+                return true;
+            }
+        });
+        when(ledgerRepo.append(any())).thenAnswer(invocation -> insert(invocation.getArgument(0)));
+        when(ledgerRepo.appendAll(anyList())).thenAnswer(invocation -> {
+            Set<String> lost = new HashSet<>();
+            for (LedgerEntry entry : (List<LedgerEntry>) invocation.getArgument(0)) {
+                if (!insert(entry)) {
+                    lost.add(entry.getUserId());
+                }
+            }
+            return lost;
+        });
+        when(ledgerRepo.existsById(anyString())).thenAnswer(invocation -> byId((String) invocation.getArgument(0)).isPresent());
+        when(ledgerRepo.findAllById(any())).thenAnswer(invocation -> {
+            List<LedgerEntry> found = new ArrayList<>();
+            for (String entryId : (Iterable<String>) invocation.getArgument(0)) {
+                byId(entryId).ifPresent(found::add);
+            }
+            return found;
+        });
+        when(ledgerRepo.findByUserIdAndSeqGreaterThanOrderBySeqAsc(anyString(), anyLong()))
+                .thenAnswer(invocation -> tail(invocation.getArgument(0), invocation.getArgument(1)));
+        when(ledgerRepo.findTails(anyMap())).thenAnswer(invocation -> {
+            List<LedgerEntry> found = new ArrayList<>();
+            for (Map.Entry<String, Long> after : ((Map<String, Long>) invocation.getArgument(0)).entrySet()) {
+                found.addAll(tail(after.getKey(), after.getValue()));
+            }
+            return found;
+        });
+
+        walletCache = new WalletCache();
+        setField(walletCache, "cacheSize", 1000L);
+        setField(walletCache, "cacheTtl", Duration.ofMinutes(1));
+        setField(walletCache, "stripesTtl", Duration.ofMinutes(1));
+        walletCache.initializeCache();
+
+        ledger = new WalletLedger();
+        setField(ledger, "walletRepo", walletRepo);
+        setField(ledger, "walletStripeRepo", walletStripeRepo);
+        setField(ledger, "ledgerRepo", ledgerRepo);
+        setField(ledger, "walletCache", walletCache);
+        setField(ledger, "snapshotInterval", 4);
+        setField(ledger, "maxAttempts", 20);
+        setField(ledger, "entryAttempts", 3);
+        setField(ledger, "maxStripes", 64);
+    }
+
+    // The unique (userId, seq) index: false when the slot is taken
+    private boolean insert(LedgerEntry entry) {
+        return entries.computeIfAbsent(entry.getUserId(), userId -> new ConcurrentSkipListMap<>()).putIfAbsent(entry.getSeq(), entry) == null;
+    }
+
+    private Optional<LedgerEntry> byId(String entryId) {
+        return entries.values().stream().flatMap(chain -> chain.values().stream())
+                .filter(entry -> entry.getEntryId().equals(entryId))
+                .findFirst();
+    }
+
+    private List<LedgerEntry> tail(String userId, long afterSeq) {
+        ConcurrentSkipListMap<Long, LedgerEntry> chain = entries.get(userId);
+        return chain == null ? new ArrayList<>() : new ArrayList<>(chain.tailMap(afterSeq, false).values());
+    }
+
+    private void document(String userId, long balancePaise, long ledgerSeq) {
+        Wallet wallet = new Wallet();
+        wallet.setWalletId("w-" + userId);
+        wallet.setUserId(userId);
+        wallet.setBalancePaise(balancePaise);
+        wallet.setLedgerSeq(ledgerSeq);
+        documents.put(userId, wallet);
+    }
+
+    private static WalletStripe stripeDocument(String userId, int stripe, long balancePaise, long ledgerSeq) {
+        WalletStripe document = new WalletStripe();
+        document.setStripeId(userId + "#" + stripe);
+        document.setUserId(userId);
+        document.setStripe(stripe);
+        document.setBalancePaise(balancePaise);
+        document.setLedgerSeq(ledgerSeq);
+        return document;
+    }
+
+    private static LedgerEntry entry(String userId, long seq, long amountPaise, long balancePaise) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setEntryId(userId + "-" + seq);
+        entry.setUserId(userId);
+        entry.setSeq(seq);
+        entry.setAmountPaise(amountPaise);
+        entry.setBalancePaise(balancePaise);
+        entry.setCreatedAt(LocalDateTime.now());
+        return entry;
+    }
+
+    private static WalletStripe copy(WalletStripe stripe) {
+        return stripeDocument(stripe.getUserId(), stripe.getStripe(), stripe.getBalancePaise(), stripe.getLedgerSeq());
+    }
+
+    private static Wallet copy(Wallet wallet) {
+        Wallet copy = new Wallet();
+        copy.setWalletId(wallet.getWalletId());
+        copy.setUserId(wallet.getUserId());
+        copy.setBalancePaise(wallet.getBalancePaise());
+        copy.setLedgerSeq(wallet.getLedgerSeq());
+        copy.setStripes(wallet.getStripes());
+        return copy;
+    }
+
+    @Test
+    void appendTakesTheNextSlotAndLeavesTheDocumentAsASnapshot() {
+        document("alice", 0, 0);
+
+        ledger.credit("alice", 500, IDS);
+        Wallet debited = ledger.debit("alice", 200, IDS);
+
+        assertThat(debited.getBalancePaise()).isEqualTo(300);
+        assertThat(debited.getRevision()).isEqualTo(2);
+        assertThat(tail("alice", 0)).extracting(LedgerEntry::getSeq, LedgerEntry::getAmountPaise, LedgerEntry::getBalancePaise)
+                .containsExactly(tuple(1L, 500L, 500L), tuple(2L, -200L, 300L));
+        assertThat(tail("alice", 0)).allSatisfy(entry -> assertThat(entry.getTransactionIds()).isEqualTo(IDS));
+        // Not yet snapshot-interval entries, so the document has not moved
+        assertThat(documents.get("alice").getBalancePaise()).isZero();
+        assertThat(documents.get("alice").getLedgerSeq()).isZero();
+        verify(walletRepo, never()).saveSnapshot(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void shortDebitWritesNoEntry() {
+        document("alice", 100, 0);
+
+        assertThat(ledger.debit("alice", 101, IDS)).isNull();
+
+        verify(ledgerRepo, never()).append(any());
+        assertThat(ledger.current("alice").getBalancePaise()).isEqualTo(100);
+    }
+
+    @Test
+    void shortDebitRereadsTheTailForAnotherInstancesCredits() {
+        document("alice", 0, 0);
+        assertThat(ledger.current("alice").getBalancePaise()).isZero();
+        insert(entry("alice", 1, 300, 300));
+
+        Wallet debited = ledger.debit("alice", 200, IDS);
+
+        assertThat(debited.getBalancePaise()).isEqualTo(100);
+        assertThat(tail("alice", 1)).singleElement().satisfies(entry -> assertThat(entry.getSeq()).isEqualTo(2));
+    }
+
+    @Test
+    void snapshotIsMovedEveryIntervalAndAColdReadIsSnapshotPlusTail() {
+        document("alice", 0, 0);
+
+        for (int i = 0; i < 6; i++) {
+            ledger.credit("alice", 10, IDS);
+        }
+
+        assertThat(documents.get("alice").getLedgerSeq()).isEqualTo(4);
+        assertThat(documents.get("alice").getBalancePaise()).isEqualTo(40);
+        walletCache.invalidate("alice");
+        Wallet current = ledger.current("alice");
+        assertThat(current.getBalancePaise()).isEqualTo(60);
+        assertThat(current.getRevision()).isEqualTo(6);
+        verify(ledgerRepo).findByUserIdAndSeqGreaterThanOrderBySeqAsc("alice", 4);
+    }
+
+    @Test
+    void failedSnapshotDoesNotFailTheWrite() {
+        document("alice", 0, 0);
+        doThrow(new IllegalStateException("mongo down")).when(walletRepo).saveSnapshot(anyString(), anyLong(), anyLong());
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(ledger.credit("alice", 10, IDS)).isNotNull();
+        }
+
+        assertThat(tail("alice", 0)).hasSize(4);
+        assertThat(ledger.current("alice").getBalancePaise()).isEqualTo(40);
+    }
+
+    @Test
+    void concurrentWritersLeaveAGapFreeChain() throws InterruptedException {
+        document("merchant", 0, 0);
+        setField(ledger, "maxAttempts", Integer.MAX_VALUE);
+        int threads = 8;
+        int perThread = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    assertThat(ledger.credit("merchant", 3, IDS)).isNotNull();
+                    assertThat(ledger.debit("merchant", 1, IDS)).isNotNull();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long writes = 2L * threads * perThread;
+        List<LedgerEntry> chain = tail("merchant", 0);
+        assertThat(chain).hasSize((int) writes);
+        long balance = 0;
+        for (int i = 0; i < chain.size(); i++) {
+            LedgerEntry entry = chain.get(i);
+            balance += entry.getAmountPaise();
+            assertThat(entry.getSeq()).isEqualTo(i + 1);
+            assertThat(entry.getBalancePaise()).isEqualTo(balance);
+        }
+        assertThat(balance).isEqualTo(2L * threads * perThread);
+        walletCache.invalidate("merchant");
+        assertThat(ledger.current("merchant").getBalancePaise()).isEqualTo(balance);
+    }
+
+    @Test
+    void writerThatKeepsLosingItsSlotGivesUpWithServerBusy() {
+        document("alice", 0, 0);
+        doReturn(false).when(ledgerRepo).append(any());
+
+        assertThatThrownBy(() -> ledger.credit("alice", 10, IDS)).isInstanceOf(ServerBusyException.class);
+        verify(ledgerRepo, times(20)).append(any());
+    }
+
+    @Test
+    void unansweredInsertThatLandedIsNotWrittenTwice() {
+        document("alice", 0, 0);
+        // The first insert lands but its answer is lost
+        doAnswer(invocation -> {
+            insert(invocation.getArgument(0));
+            throw new IllegalStateException("timeout");
+        }).doAnswer(invocation -> insert(invocation.getArgument(0))).when(ledgerRepo).append(any());
+
+        Wallet credited = ledger.credit("alice", 500, IDS);
+
+        assertThat(credited.getBalancePaise()).isEqualTo(500);
+        assertThat(credited.getRevision()).isEqualTo(1);
+        assertThat(tail("alice", 0)).singleElement().satisfies(entry -> assertThat(entry.getAmountPaise()).isEqualTo(500));
+    }
+
+    @Test
+    void insertThatKeepsFailingFailsTheWriteAndDropsTheCachedState() {
+        document("alice", 0, 0);
+        ledger.credit("alice", 100, IDS);
+        doThrow(new IllegalStateException("mongo down")).when(ledgerRepo).append(any());
+
+        assertThatThrownBy(() -> ledger.credit("alice", 500, IDS)).hasMessage("mongo down");
+
+        verify(ledgerRepo, times(1 + 3)).append(any());
+        assertThat(walletCache.getIfPresent("alice")).isNull();
+    }
+
+    @Test
+    void applyTailSkipsEntriesTheStateHasAndReturnsItWhenThereIsNothingToFold() {
+        Wallet state = new Wallet();
+        state.setUserId("alice");
+        state.setBalancePaise(100);
+        state.setRevision(2);
+
+        assertThat(WalletLedger.applyTail(state, List.of())).isSameAs(state);
+        assertThat(WalletLedger.applyTail(state, List.of(entry("alice", 2, 40, 100)))).isSameAs(state);
+
+        Wallet folded = WalletLedger.applyTail(state,
+                List.of(entry("alice", 2, 40, 100), entry("alice", 3, -30, 70), entry("alice", 5, 99, 0)));
+        assertThat(folded.getBalancePaise()).isEqualTo(70);
+        assertThat(folded.getRevision()).isEqualTo(3);
+        assertThat(state.getBalancePaise()).isEqualTo(100);
+    }
+
+    @Test
+    void creditAllWritesEveryEntryInOneInsert() {
+        document("bob", 0, 0);
+        document("carol", 10, 0);
+
+        Set<String> failed = ledger.creditAll(Map.of("bob", 100L, "carol", 200L),
+                Map.of("bob", List.of("t1"), "carol", List.of("t2", "t3")));
+
+        assertThat(failed).isEmpty();
+        verify(ledgerRepo, times(1)).appendAll(argThat(batch -> batch.size() == 2));
+        verify(ledgerRepo, never()).append(any());
+        assertThat(tail("carol", 0)).singleElement().satisfies(entry -> {
+            assertThat(entry.getBalancePaise()).isEqualTo(210);
+            assertThat(entry.getTransactionIds()).containsExactly("t2", "t3");
+        });
+        assertThat(ledger.current("bob").getBalancePaise()).isEqualTo(100);
+    }
+
+    @Test
+    void creditAllRetriesALostSlotOnItsOwn() {
+        document("bob", 0, 0);
+        document("carol", 0, 0);
+        // Carol's state is read, then another instance writes to her chain before the bulk insert
+        assertThat(ledger.current("carol").getBalancePaise()).isZero();
+        insert(entry("carol", 1, 50, 50));
+
+        Set<String> failed = ledger.creditAll(Map.of("bob", 100L, "carol", 200L), Map.of("bob", IDS, "carol", IDS));
+
+        assertThat(failed).isEmpty();
+        assertThat(tail("carol", 0)).extracting(LedgerEntry::getSeq, LedgerEntry::getBalancePaise)
+                .containsExactly(tuple(1L, 50L), tuple(2L, 250L));
+        assertThat(ledger.current("carol").getBalancePaise()).isEqualTo(250);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unansweredBulkInsertOnlyRetriesTheEntriesTheLedgerDoesNotHold() {
+        document("bob", 0, 0);
+        document("carol", 0, 0);
+        // Bob's entry lands, carol's does not, and the answer is lost
+        doAnswer(invocation -> {
+            for (LedgerEntry entry : (List<LedgerEntry>) invocation.getArgument(0)) {
+                if (entry.getUserId().equals("bob")) {
+                    insert(entry);
+                }
+            }
+            throw new IllegalStateException("timeout");
+        }).when(ledgerRepo).appendAll(anyList());
+
+        Set<String> failed = ledger.creditAll(Map.of("bob", 100L, "carol", 200L), Map.of("bob", IDS, "carol", IDS));
+
+        assertThat(failed).isEmpty();
+        assertThat(tail("bob", 0)).singleElement().satisfies(entry -> assertThat(entry.getBalancePaise()).isEqualTo(100));
+        assertThat(tail("carol", 0)).singleElement().satisfies(entry -> assertThat(entry.getBalancePaise()).isEqualTo(200));
+        verify(ledgerRepo).append(argThat(entry -> entry.getUserId().equals("carol")));
+    }
+
+    @Test
+    void debitShortOnStripeZeroSweepsFromTheOtherStripes() {
+        document("merchant", 100, 0);
+        documents.get("merchant").setStripes(3);
+        stripes.put("merchant#1", stripeDocument("merchant", 1, 50, 0));
+        stripes.put("merchant#2", stripeDocument("merchant", 2, 200, 1));
+        insert(entry("merchant#2", 2, 100, 300));
+
+        Wallet debited = ledger.debit("merchant", 250, IDS);
+
+        assertThat(debited).isNotNull();
+        walletCache.invalidate("merchant");
+        assertThat(ledger.current("merchant").getBalancePaise()).isEqualTo(200);
+        assertThat(ledger.current("merchant#1").getBalancePaise()).isZero();
+        assertThat(ledger.current("merchant#2").getBalancePaise()).isEqualTo(200);
+        assertThat(ledger.debit("merchant", 201, IDS)).isNull();
+    }
+
+    @Test
+    void stripeSnapshotsLandInTheirOwnCollection() {
+        document("merchant", 0, 0);
+        documents.get("merchant").setStripes(2);
+
+        for (int i = 0; i < 64; i++) {
+            ledger.credit("merchant", 10, IDS);
+        }
+
+        assertThat(documents).containsOnlyKeys("merchant");
+        WalletStripe stripe = stripes.get("merchant#1");
+        assertThat(stripe.getUserId()).isEqualTo("merchant");
+        assertThat(stripe.getLedgerSeq() % 4).isZero();
+        assertThat(tail("merchant#1", 0).get((int) stripe.getLedgerSeq() - 1).getBalancePaise()).isEqualTo(stripe.getBalancePaise());
+        walletCache.invalidate("merchant");
+        walletCache.invalidate("merchant#1");
+        assertThat(ledger.current("merchant").getBalancePaise()).isEqualTo(640);
+    }
+
+    @Test
+    void coldLoadThatLosesTheWalletInsertReadsTheWinnersWallet() {
+        // Another instance inserts the same user's wallet between our read and our insert
+        doAnswer(invocation -> {
+            document("newbie", 0, 0);
+            throw new DuplicateKeyException("wallets.userId");
+        }).when(walletRepo).insert(any(Wallet.class));
+
+        Wallet wallet = ledger.current("newbie");
+
+        assertThat(wallet.getWalletId()).isEqualTo("w-newbie");
+        assertThat(ledger.credit("newbie", 100, IDS).getBalancePaise()).isEqualTo(100);
+        assertThat(documents).containsOnlyKeys("newbie");
+    }
+}
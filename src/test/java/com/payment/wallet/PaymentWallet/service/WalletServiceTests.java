@@ -0,0 +1,207 @@
+package com.payment.wallet.PaymentWallet.service;
+
+import com.payment.wallet.PaymentWallet.dto.BulkTransferItem;
+import com.payment.wallet.PaymentWallet.dto.BulkTransferResult;
+import com.payment.wallet.PaymentWallet.entity.Transaction;
+import com.payment.wallet.PaymentWallet.entity.User;
+import com.payment.wallet.PaymentWallet.entity.Wallet;
+import com.payment.wallet.PaymentWallet.exceptions.WalletException;
+import com.payment.wallet.PaymentWallet.repo.TransactionRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class WalletServiceTests {
+
+    private final WalletLedger walletLedger = mock(WalletLedger.class);
+    private final TransactionRepo transactionRepo = mock(TransactionRepo.class);
+    private final UserCache userCache = mock(UserCache.class);
+    private final TransactionJournal transactionJournal = mock(TransactionJournal.class);
+    private final TransactionSummaryService transactionSummaryService = mock(TransactionSummaryService.class);
+    private WalletService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void createService() {
+        TransactionIdGenerator idGenerator = new TransactionIdGenerator();
+        setField(idGenerator, "configuredNodeId", 1);
+        idGenerator.initializeNode();
+
+        service = new WalletService();
+        setField(service, "walletLedger", walletLedger);
+        setField(service, "transactionRepo", transactionRepo);
+        setField(service, "otpService", mock(OTPService.class));
+        setField(service, "userNameService", mock(UserNameService.class));
+        setField(service, "userCache", userCache);
+        setField(service, "idGenerator", idGenerator);
+        setField(service, "transactionJournal", transactionJournal);
+        setField(service, "transactionSummaryService", transactionSummaryService);
+        setField(service, "meterRegistry", new SimpleMeterRegistry());
+        setField(service, "maxBulkItems", 100);
+        service.initializeMetrics();
+
+        User bob = user("bob");
+        when(userCache.findById("bob")).thenReturn(Optional.of(bob));
+        when(userCache.findAllByEmail(any())).thenReturn(Map.of(
+                "bob@example.com", bob, "carol@example.com", user("carol"), "dave@example.com", user("dave")));
+        when(walletLedger.debit(eq("alice"), anyLong(), anyList())).thenReturn(new Wallet());
+        when(walletLedger.creditAll(anyMap(), anyMap())).thenReturn(Set.of());
+        when(transactionJournal.appendAll(anyList())).thenAnswer(invocation -> ((List<Transaction>) invocation.getArgument(0))
+                .stream().map(CompletableFuture::completedFuture).toList());
+    }
+
+    private static User user(String userId) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setEmail(userId + "@example.com");
+        return user;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Transaction> journaled() {
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionJournal).appendAll(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Transaction> recordedFailures() {
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepo).insert(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void failedCreditRefundsTheSenderAndRecordsTheTransfer() {
+        when(walletLedger.credit(eq("bob"), anyLong(), anyList())).thenThrow(new IllegalStateException("mongo down"));
+        when(walletLedger.credit(eq("alice"), anyLong(), anyList())).thenReturn(new Wallet());
+
+        assertThatThrownBy(() -> service.sendMoney("alice", "bob", null, 500, "rent"))
+                .isSameAs(WalletException.TRANSACTION_FAILED);
+
+        verify(walletLedger).credit(eq("alice"), eq(500L), anyList());
+        List<Transaction> failures = recordedFailures();
+        assertThat(failures).singleElement().satisfies(transaction -> {
+            assertThat(transaction.getStatus()).isEqualTo("FAILED");
+            assertThat(transaction.getAmountPaise()).isEqualTo(500);
+        });
+        verify(transactionJournal, never()).append(any());
+    }
+
+    @Test
+    void failedRefundIsRecordedForReconciliation() {
+        when(walletLedger.credit(any(), anyLong(), anyList())).thenThrow(new IllegalStateException("mongo down"));
+
+        assertThatThrownBy(() -> service.sendMoney("alice", "bob", null, 500, "rent"))
+                .isSameAs(WalletException.TRANSACTION_FAILED);
+
+        assertThat(recordedFailures()).singleElement()
+                .satisfies(transaction -> assertThat(transaction.getStatus()).isEqualTo("REFUND_FAILED"));
+    }
+
+    @Test
+    void failureMessageDoesNotLeakTheCause() {
+        when(walletLedger.credit(any(), anyLong(), anyList())).thenThrow(new IllegalStateException("secret host:27017"));
+
+        assertThatThrownBy(() -> service.sendMoney("alice", "bob", null, 500, "rent"))
+                .hasMessage("Transaction failed");
+    }
+
+    @Test
+    void bulkTransferPaysTheValidItemsAndReportsTheRest() {
+        List<BulkTransferResult> results = service.bulkTransfer("alice", List.of(
+                new BulkTransferItem("carol@example.com", 100, "lunch"),
+                new BulkTransferItem("nobody@example.com", 200, "lunch"),
+                new BulkTransferItem("bob@example.com", 0, "lunch"),
+                new BulkTransferItem("carol@example.com", 50, "coffee")));
+
+        assertThat(results).extracting(BulkTransferResult::getStatus)
+                .containsExactly("COMPLETED", "FAILED", "FAILED", "COMPLETED");
+        assertThat(results.get(1).getMessage()).isEqualTo("Receiver not found");
+        assertThat(results.get(2).getMessage()).isEqualTo("Amount must be greater than zero");
+        verify(walletLedger).debit(eq("alice"), eq(150L), anyList());
+        verify(walletLedger).creditAll(eq(Map.of("carol", 150L)), anyMap());
+        assertThat(journaled()).extracting(Transaction::getStatus).containsExactly("COMPLETED", "COMPLETED");
+        verify(walletLedger, never()).credit(any(), anyLong(), anyList());
+        verify(transactionRepo, never()).insert(anyList());
+    }
+
+    @Test
+    void bulkTransferRefundsExactlyTheFailedCreditsAndRecordsThem() {
+        when(walletLedger.creditAll(anyMap(), anyMap())).thenReturn(Set.of("dave"));
+        when(walletLedger.credit(eq("alice"), anyLong(), anyList())).thenReturn(new Wallet());
+
+        List<BulkTransferResult> results = service.bulkTransfer("alice", List.of(
+                new BulkTransferItem("dave@example.com", 30, "rent"),
+                new BulkTransferItem("carol@example.com", 100, "rent"),
+                new BulkTransferItem("dave@example.com", 20, "rent")));
+
+        assertThat(results).extracting(BulkTransferResult::getStatus).containsExactly("FAILED", "COMPLETED", "FAILED");
+        verify(walletLedger).credit(eq("alice"), eq(50L), argThat(ids -> ids.size() == 2));
+        assertThat(recordedFailures()).hasSize(2).allSatisfy(transaction -> {
+            assertThat(transaction.getToUserId()).isEqualTo("dave");
+            assertThat(transaction.getStatus()).isEqualTo("FAILED");
+        });
+        assertThat(journaled()).singleElement().satisfies(transaction -> assertThat(transaction.getToUserId()).isEqualTo("carol"));
+    }
+
+    @Test
+    void bulkTransferWhoseRefundFailsIsRecordedForReconciliation() {
+        when(walletLedger.creditAll(anyMap(), anyMap())).thenReturn(Set.of("dave"));
+        when(walletLedger.credit(eq("alice"), anyLong(), anyList())).thenThrow(new IllegalStateException("mongo down"));
+
+        List<BulkTransferResult> results = service.bulkTransfer("alice", List.of(
+                new BulkTransferItem("dave@example.com", 30, "rent"),
+                new BulkTransferItem("carol@example.com", 100, "rent")));
+
+        assertThat(results).extracting(BulkTransferResult::getStatus).containsExactly("FAILED", "COMPLETED");
+        assertThat(recordedFailures()).singleElement()
+                .satisfies(transaction -> assertThat(transaction.getStatus()).isEqualTo("REFUND_FAILED"));
+        assertThat(journaled()).singleElement().satisfies(transaction -> assertThat(transaction.getStatus()).isEqualTo("COMPLETED"));
+    }
+
+    @Test
+    void bulkTransferWhoseRecordsCannotBeSavedStillReportsTheMoneyThatMoved() {
+        when(transactionJournal.appendAll(anyList()))
+                .thenReturn(List.of(CompletableFuture.failedFuture(new IllegalStateException("mongo down"))));
+
+        List<BulkTransferResult> results = service.bulkTransfer("alice", List.of(
+                new BulkTransferItem("carol@example.com", 100, "rent")));
+
+        assertThat(results).singleElement().satisfies(result -> assertThat(result.getStatus()).isEqualTo("COMPLETED"));
+        verify(transactionSummaryService).record(anyList());
+    }
+
+    @Test
+    void bulkTransferWithNoValidItemsNeverTouchesTheLedger() {
+        List<BulkTransferResult> results = service.bulkTransfer("alice", List.of(
+                new BulkTransferItem("nobody@example.com", 100, "rent"),
+                new BulkTransferItem("carol@example.com", -5, "rent")));
+
+        assertThat(results).extracting(BulkTransferResult::getStatus).containsExactly("FAILED", "FAILED");
+        verifyNoInteractions(walletLedger, transactionJournal);
+        verify(transactionRepo, never()).insert(anyList());
+    }
+}